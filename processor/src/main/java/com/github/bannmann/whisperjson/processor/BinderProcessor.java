@@ -0,0 +1,448 @@
+package com.github.bannmann.whisperjson.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import org.kohsuke.MetaInfServices;
+
+/**
+ * Generates binder classes for types annotated with {@code @GenerateBinder}. The generated code consists of a single
+ * {@code ExtractionPlan} whose setters access the fields directly or via their setters, so binding involves neither
+ * reflection nor {@link String} instances.
+ */
+@MetaInfServices(Processor.class)
+public class BinderProcessor extends AbstractProcessor
+{
+    private static final String GENERATE_BINDER = "com.github.bannmann.whisperjson.binding.GenerateBinder";
+    private static final String JSON_FIELD = "com.github.bannmann.whisperjson.binding.JsonField";
+    private static final String SENSITIVE_TEXT = "com.github.bannmann.whisperjson.SensitiveText";
+    private static final String EXTRACTION_PLAN = "com.github.bannmann.whisperjson.ExtractionPlan";
+    private static final String JSON = "com.github.bannmann.whisperjson.Json";
+
+    /**
+     * Thrown when a field cannot be bound. The processor reports the message as an error on the field.
+     */
+    private static final class UnsupportedFieldException extends Exception
+    {
+        UnsupportedFieldException(String message)
+        {
+            super(message);
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes()
+    {
+        return Collections.singleton(GENERATE_BINDER);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        for (TypeElement annotation : annotations)
+        {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation)))
+            {
+                processType(type);
+            }
+        }
+        return true;
+    }
+
+    private void processType(TypeElement type)
+    {
+        if (type.getModifiers()
+            .contains(Modifier.PRIVATE))
+        {
+            error(type, "Types with generated binders must not be private");
+            return;
+        }
+
+        List<String> calls = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements()))
+        {
+            if (field.getModifiers()
+                .contains(Modifier.STATIC) ||
+                field.getModifiers()
+                    .contains(Modifier.TRANSIENT))
+            {
+                continue;
+            }
+
+            try
+            {
+                calls.add(createPlanCall(type, field));
+            }
+            catch (UnsupportedFieldException e)
+            {
+                error(field, e.getMessage());
+                valid = false;
+            }
+        }
+
+        if (!valid)
+        {
+            return;
+        }
+
+        if (calls.isEmpty())
+        {
+            error(type, "Types with generated binders must have at least one field to bind");
+        }
+        else
+        {
+            writeBinder(type, calls);
+        }
+    }
+
+    private String createPlanCall(TypeElement type, VariableElement field) throws UnsupportedFieldException
+    {
+        String pointer = javaLiteral(getPointer(field));
+        TypeMirror fieldType = field.asType();
+        String name = field.getSimpleName()
+            .toString();
+
+        switch (fieldType.getKind())
+        {
+            case BOOLEAN:
+                return String.format(".booleanValue(%s, %s)", pointer, createSetter(type, field, "value"));
+            case INT:
+                return String.format(".longValue(%s, %s)",
+                    pointer,
+                    createSetter(type, field, "java.lang.Math.toIntExact(value)"));
+            case LONG:
+                return String.format(".longValue(%s, %s)", pointer, createSetter(type, field, "value"));
+            case FLOAT:
+                return String.format(".doubleValue(%s, %s)", pointer, createSetter(type, field, "(float) value"));
+            case DOUBLE:
+                return String.format(".doubleValue(%s, %s)", pointer, createSetter(type, field, "value"));
+            case ARRAY:
+                if (((ArrayType) fieldType).getComponentType()
+                    .getKind() == TypeKind.CHAR)
+                {
+                    return String.format(".charArray(%s, %s)", pointer, createSetter(type, field, "value"));
+                }
+                break;
+            case DECLARED:
+                return createDeclaredTypeCall(type, field, pointer, (DeclaredType) fieldType);
+            default:
+                break;
+        }
+        throw new UnsupportedFieldException("Unsupported type " + fieldType + " of field " + name);
+    }
+
+    private String createDeclaredTypeCall(TypeElement type, VariableElement field, String pointer, DeclaredType fieldType)
+        throws UnsupportedFieldException
+    {
+        TypeElement fieldTypeElement = (TypeElement) fieldType.asElement();
+        String fieldTypeName = fieldTypeElement.getQualifiedName()
+            .toString();
+        switch (fieldTypeName)
+        {
+            case SENSITIVE_TEXT:
+                return String.format(".charArray(%s, (target, value) -> {%n" +
+                    "            try%n" +
+                    "            {%n" +
+                    "                %s;%n" +
+                    "            }%n" +
+                    "            finally%n" +
+                    "            {%n" +
+                    "                java.util.Arrays.fill(value, '\\0');%n" +
+                    "            }%n" +
+                    "        })", pointer, createAssignment(type, field, "new " + SENSITIVE_TEXT + "(value)"));
+            case "java.lang.Boolean":
+                return String.format(".booleanValue(%s, %s)", pointer, createSetter(type, field, "value"));
+            case "java.lang.Integer":
+                return String.format(".longValue(%s, %s)",
+                    pointer,
+                    createSetter(type, field, "java.lang.Math.toIntExact(value)"));
+            case "java.lang.Long":
+                return String.format(".longValue(%s, %s)", pointer, createSetter(type, field, "value"));
+            case "java.lang.Float":
+                return String.format(".doubleValue(%s, %s)", pointer, createSetter(type, field, "(float) value"));
+            case "java.lang.Double":
+                return String.format(".doubleValue(%s, %s)", pointer, createSetter(type, field, "value"));
+            case "java.lang.String":
+                throw new UnsupportedFieldException("String fields are not supported, use char[] or SensitiveText " +
+                    "for field " + field.getSimpleName());
+            default:
+                break;
+        }
+
+        if (hasAnnotation(fieldTypeElement, GENERATE_BINDER))
+        {
+            return createNestedCall(type, field, pointer, fieldTypeElement);
+        }
+        throw new UnsupportedFieldException("Unsupported type " + fieldType + " of field " + field.getSimpleName() +
+            ", consider annotating it with @GenerateBinder");
+    }
+
+    private String createNestedCall(TypeElement type, VariableElement field, String pointer, TypeElement nestedType)
+        throws UnsupportedFieldException
+    {
+        if (!hasNoArgConstructor(nestedType))
+        {
+            throw new UnsupportedFieldException("Type " + nestedType.getQualifiedName() +
+                " of field " + field.getSimpleName() + " must have a non-private no-arg constructor");
+        }
+
+        String getter = createGetter(type, field);
+        return String.format(".nested(%s, %s.PLAN, target -> {%n" +
+                "            if (%s == null)%n" +
+                "            {%n" +
+                "                %s;%n" +
+                "            }%n" +
+                "            return %s;%n" +
+                "        })",
+            pointer,
+            getBinderName(nestedType),
+            getter,
+            createAssignment(type, field, "new " + nestedType.getQualifiedName() + "()"),
+            getter);
+    }
+
+    private String createSetter(TypeElement type, VariableElement field, String value)
+        throws UnsupportedFieldException
+    {
+        return "(target, value) -> " + createAssignment(type, field, value);
+    }
+
+    private String createAssignment(TypeElement type, VariableElement field, String value)
+        throws UnsupportedFieldException
+    {
+        String name = field.getSimpleName()
+            .toString();
+        if (!field.getModifiers()
+            .contains(Modifier.PRIVATE) &&
+            !field.getModifiers()
+                .contains(Modifier.FINAL))
+        {
+            return "target." + name + " = " + value;
+        }
+
+        String setterName = "set" + capitalize(name);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements()))
+        {
+            if (method.getSimpleName()
+                .contentEquals(setterName) &&
+                method.getParameters()
+                    .size() == 1 &&
+                !method.getModifiers()
+                    .contains(Modifier.PRIVATE))
+            {
+                return "target." + setterName + "(" + value + ")";
+            }
+        }
+        throw new UnsupportedFieldException("Field " + name + " must be non-private and non-final or have a " +
+            "non-private setter");
+    }
+
+    private String createGetter(TypeElement type, VariableElement field) throws UnsupportedFieldException
+    {
+        String name = field.getSimpleName()
+            .toString();
+        if (!field.getModifiers()
+            .contains(Modifier.PRIVATE))
+        {
+            return "target." + name;
+        }
+
+        String getterName = "get" + capitalize(name);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements()))
+        {
+            if (method.getSimpleName()
+                .contentEquals(getterName) &&
+                method.getParameters()
+                    .isEmpty() &&
+                !method.getModifiers()
+                    .contains(Modifier.PRIVATE))
+            {
+                return "target." + getterName + "()";
+            }
+        }
+        throw new UnsupportedFieldException("Field " + name + " must be non-private or have a non-private getter");
+    }
+
+    private static boolean hasNoArgConstructor(TypeElement type)
+    {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements()))
+        {
+            if (constructor.getParameters()
+                .isEmpty() &&
+                !constructor.getModifiers()
+                    .contains(Modifier.PRIVATE))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getPointer(VariableElement field)
+    {
+        return field.getAnnotationMirrors()
+            .stream()
+            .filter(mirror -> isAnnotation(mirror.getAnnotationType()
+                .asElement(), JSON_FIELD))
+            .flatMap(mirror -> mirror.getElementValues()
+                .values()
+                .stream())
+            .map(value -> (String) value.getValue())
+            .findFirst()
+            .orElseGet(() -> "/" + field.getSimpleName()
+                .toString()
+                .replace("~", "~0"));
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName)
+    {
+        return element.getAnnotationMirrors()
+            .stream()
+            .anyMatch(mirror -> isAnnotation(mirror.getAnnotationType()
+                .asElement(), annotationName));
+    }
+
+    private static boolean isAnnotation(Element annotationType, String annotationName)
+    {
+        return ((TypeElement) annotationType).getQualifiedName()
+            .contentEquals(annotationName);
+    }
+
+    private void writeBinder(TypeElement type, List<String> calls)
+    {
+        String packageName = getPackage(type).getQualifiedName()
+            .toString();
+        String binderName = getBinderSimpleName(type);
+        String typeName = type.getQualifiedName()
+            .toString();
+
+        try (Writer writer = processingEnv.getFiler()
+            .createSourceFile(getBinderName(type), type)
+            .openWriter(); PrintWriter out = new PrintWriter(writer))
+        {
+            if (!packageName.isEmpty())
+            {
+                out.printf("package %s;%n%n", packageName);
+            }
+            out.printf("/**%n");
+            out.printf(" * Binds JSON documents to {@link %s} instances.%n", typeName);
+            out.printf(" * <br>%n");
+            out.printf(" * Generated by %s, do not edit.%n", BinderProcessor.class.getName());
+            out.printf(" */%n");
+            out.printf("public final class %s%n", binderName);
+            out.printf("{%n");
+            out.printf("    /**%n");
+            out.printf("     * The plan used by {@link #bind(%s, %s)}.%n", JSON, typeName);
+            out.printf("     */%n");
+            out.printf("    public static final %1$s<%2$s> PLAN = %1$s.<%2$s>builder()%n", EXTRACTION_PLAN, typeName);
+            for (String call : calls)
+            {
+                out.printf("        %s%n", call);
+            }
+            out.printf("        .build();%n%n");
+            out.printf("    private %s()%n", binderName);
+            out.printf("    {%n");
+            out.printf("    }%n%n");
+            out.printf("    /**%n");
+            out.printf("     * Extracts the values of the given element into the fields of the given target.%n");
+            out.printf("     */%n");
+            out.printf("    public static void bind(%s<?> json, %s target)%n", JSON, typeName);
+            out.printf("    {%n");
+            out.printf("        PLAN.extract(json, target);%n");
+            out.printf("    }%n");
+            out.printf("}%n");
+        }
+        catch (IOException e)
+        {
+            error(type, "Could not write binder: " + e.getMessage());
+        }
+    }
+
+    private String getBinderName(TypeElement type)
+    {
+        String packageName = getPackage(type).getQualifiedName()
+            .toString();
+        String simpleName = getBinderSimpleName(type);
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * Derives the binder name from the names of the type and its enclosing types, e.g. {@code Outer_InnerBinder}.
+     */
+    private static String getBinderSimpleName(TypeElement type)
+    {
+        StringBuilder result = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing.getKind() != ElementKind.PACKAGE)
+        {
+            result.insert(0, '_')
+                .insert(0, enclosing.getSimpleName());
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return result.append("Binder")
+            .toString();
+    }
+
+    private PackageElement getPackage(TypeElement type)
+    {
+        return processingEnv.getElementUtils()
+            .getPackageOf(type);
+    }
+
+    private static String capitalize(String name)
+    {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String javaLiteral(String value)
+    {
+        StringBuilder result = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                result.append('\\');
+            }
+            result.append(c);
+        }
+        return result.append('"')
+            .toString();
+    }
+
+    private void error(Element element, String message)
+    {
+        processingEnv.getMessager()
+            .printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.bannmann.whisperjson.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+
+import org.testng.annotations.Test;
+
+import com.github.bannmann.whisperjson.SafeJson;
+import com.github.bannmann.whisperjson.SensitiveText;
+import com.github.bannmann.whisperjson.WhisperJson;
+
+public class TestBinderProcessor
+{
+    private static final String ADDRESS = "package sample;\n" +
+        "@com.github.bannmann.whisperjson.binding.GenerateBinder\n" +
+        "public class Address\n" +
+        "{\n" +
+        "    public char[] city;\n" +
+        "    public int zip;\n" +
+        "}\n";
+
+    private static final String LOGIN = "package sample;\n" +
+        "@com.github.bannmann.whisperjson.binding.GenerateBinder\n" +
+        "public class Login\n" +
+        "{\n" +
+        "    @com.github.bannmann.whisperjson.binding.JsonField(\"/user/name\")\n" +
+        "    char[] user;\n" +
+        "    @com.github.bannmann.whisperjson.binding.JsonField(\"/user/password\")\n" +
+        "    @com.github.bannmann.whisperjson.beanval.Password(mandatory = true, minLength = 10)\n" +
+        "    private com.github.bannmann.whisperjson.SensitiveText password;\n" +
+        "    public long clientId;\n" +
+        "    public Double score;\n" +
+        "    public boolean remember;\n" +
+        "    private Address address;\n" +
+        "    public static int ignoredStatic;\n" +
+        "    public transient int ignoredTransient;\n" +
+        "    public void setPassword(com.github.bannmann.whisperjson.SensitiveText password)\n" +
+        "    {\n" +
+        "        this.password = password;\n" +
+        "    }\n" +
+        "    public Address getAddress()\n" +
+        "    {\n" +
+        "        return address;\n" +
+        "    }\n" +
+        "    public void setAddress(Address address)\n" +
+        "    {\n" +
+        "        this.address = address;\n" +
+        "    }\n" +
+        "}\n";
+
+    private static final String DOCUMENT = "{\"user\": {\"name\": \"jdoe\", \"password\": \"correct horse\"}, " +
+        "\"clientId\": 42, \"score\": 0.5, \"remember\": true, \"address\": {\"city\": \"Z\\u00fcrich\", " +
+        "\"zip\": 8000}}";
+
+    @Test
+    public void bind() throws Exception
+    {
+        ClassLoader classLoader = compileSuccessfully(ADDRESS, LOGIN);
+        Object login = classLoader.loadClass("sample.Login")
+            .getConstructor()
+            .newInstance();
+
+        bind(classLoader, login, DOCUMENT);
+
+        assertThat((char[]) getField(login, "user")).containsExactly("jdoe".toCharArray());
+        assertThat(getField(login, "clientId")).isEqualTo(42L);
+        assertThat(getField(login, "score")).isEqualTo(0.5);
+        assertThat(getField(login, "remember")).isEqualTo(true);
+        assertThat(getField(login, "ignoredTransient")).isEqualTo(0);
+
+        try (SensitiveText password = (SensitiveText) getField(login, "password"))
+        {
+            assertThat(password.newDependentArray()).containsExactly("correct horse".toCharArray());
+        }
+
+        Object address = getField(login, "address");
+        assertThat((char[]) getField(address, "city")).containsExactly("Z\u00fcrich".toCharArray());
+        assertThat(getField(address, "zip")).isEqualTo(8000);
+    }
+
+    @Test
+    public void keepPasswordValidationWorking() throws Exception
+    {
+        ClassLoader classLoader = compileSuccessfully(ADDRESS, LOGIN);
+        Object login = classLoader.loadClass("sample.Login")
+            .getConstructor()
+            .newInstance();
+
+        bind(classLoader, login, "{\"user\": {\"password\": \"w3ak\"}}");
+
+        Set<ConstraintViolation<Object>> violations = Validation.buildDefaultValidatorFactory()
+            .getValidator()
+            .validate(login);
+        assertThat(violations).extracting(violation -> violation.getPropertyPath()
+            .toString())
+            .containsExactly("password");
+    }
+
+    @Test
+    public void rejectStringField() throws Exception
+    {
+        List<String> errors = compile("package sample;\n" +
+            "@com.github.bannmann.whisperjson.binding.GenerateBinder\n" +
+            "public class Credentials\n" +
+            "{\n" +
+            "    public String password;\n" +
+            "}\n").errors;
+
+        assertThat(errors).singleElement()
+            .asString()
+            .contains("use char[] or SensitiveText");
+    }
+
+    @Test
+    public void rejectInaccessibleField() throws Exception
+    {
+        List<String> errors = compile("package sample;\n" +
+            "@com.github.bannmann.whisperjson.binding.GenerateBinder\n" +
+            "public class Credentials\n" +
+            "{\n" +
+            "    private char[] password;\n" +
+            "}\n").errors;
+
+        assertThat(errors).singleElement()
+            .asString()
+            .contains("setter");
+    }
+
+    @Test
+    public void rejectTypeWithoutFields() throws Exception
+    {
+        List<String> errors = compile("package sample;\n" +
+            "@com.github.bannmann.whisperjson.binding.GenerateBinder\n" +
+            "public class Empty\n" +
+            "{\n" +
+            "}\n").errors;
+
+        assertThat(errors).singleElement()
+            .asString()
+            .contains("at least one field");
+    }
+
+    private static void bind(ClassLoader classLoader, Object target, String document) throws Exception
+    {
+        Method bind = Arrays.stream(classLoader.loadClass(target.getClass()
+            .getName() + "Binder")
+            .getMethods())
+            .filter(method -> method.getName()
+                .equals("bind"))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+
+        try (SafeJson json = WhisperJson.builder()
+            .build()
+            .parse(document.toCharArray()))
+        {
+            bind.invoke(null, json, target);
+        }
+    }
+
+    private static Object getField(Object target, String name) throws ReflectiveOperationException
+    {
+        Field field = target.getClass()
+            .getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private static ClassLoader compileSuccessfully(String... sources) throws IOException
+    {
+        Result result = compile(sources);
+        assertThat(result.errors).isEmpty();
+        return new URLClassLoader(new URL[]{ result.outputDirectory.toUri()
+            .toURL() }, TestBinderProcessor.class.getClassLoader());
+    }
+
+    private static final class Result
+    {
+        private final Path outputDirectory;
+        private final List<String> errors;
+
+        private Result(Path outputDirectory, List<String> errors)
+        {
+            this.outputDirectory = outputDirectory;
+            this.errors = errors;
+        }
+    }
+
+    private static Result compile(String... sources) throws IOException
+    {
+        Path sourceDirectory = Files.createTempDirectory("binder-sources");
+        Path outputDirectory = Files.createTempDirectory("binder-classes");
+
+        List<File> files = new ArrayList<>();
+        for (String source : sources)
+        {
+            String name = source.split("public class ")[1].split("\\s")[0];
+            Path file = sourceDirectory.resolve(name + ".java");
+            Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+            files.add(file.toFile());
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics,
+            null,
+            StandardCharsets.UTF_8))
+        {
+            JavaCompiler.CompilationTask task = compiler.getTask(null,
+                fileManager,
+                diagnostics,
+                Arrays.asList("-classpath",
+                    System.getProperty("java.class.path"),
+                    "-d",
+                    outputDirectory.toString()),
+                null,
+                fileManager.getJavaFileObjectsFromFiles(files));
+            task.setProcessors(Collections.singletonList(new BinderProcessor()));
+            task.call();
+        }
+
+        List<String> errors = diagnostics.getDiagnostics()
+            .stream()
+            .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+            .map(diagnostic -> diagnostic.getMessage(null))
+            .collect(Collectors.toList());
+        return new Result(outputDirectory, errors);
+    }
+}
@@ -1,7 +1,6 @@
 package com.github.bannmann.whisperjson;
 
 import java.util.List;
-import java.util.Objects;
 
 import com.google.common.collect.ImmutableList;
 
@@ -29,8 +28,10 @@ abstract class Arry<J extends Json<J>, O extends Overlay<T>, F extends Factory<J
         {
             if (element == 0)
             {
+                long start = Metrics.start();
                 overlay.close();
-                factory.close();
+                int wipedCount = factory.wipeStrings();
+                Metrics.closed(wipedCount, start);
             }
         }
     }
@@ -53,7 +54,9 @@ abstract class Arry<J extends Json<J>, O extends Overlay<T>, F extends Factory<J
     {
         if (list == null)
         {
+            long start = Metrics.start();
             list = createList();
+            Metrics.materialized(false, list.size(), start);
         }
         return list;
     }
@@ -61,8 +64,9 @@ abstract class Arry<J extends Json<J>, O extends Overlay<T>, F extends Factory<J
     private ImmutableList<J> createList()
     {
         ImmutableList.Builder<J> result = ImmutableList.builder();
-        int e = element + 1;
-        while (e <= element + overlay.getChildCount(element))
+        int indexedElement = overlay.getIndexedElement(element);
+        int e = indexedElement + 1;
+        while (e <= indexedElement + overlay.getChildCount(indexedElement))
         {
             result.add(factory.create(overlay, e));
             e += overlay.getChildCount(e) + 1;
@@ -77,7 +81,7 @@ abstract class Arry<J extends Json<J>, O extends Overlay<T>, F extends Factory<J
         if (o instanceof Arry<?, ?, ?, ?>)
         {
             Arry<?, ?, ?, ?> other = (Arry<?, ?, ?, ?>) o;
-            return Objects.equals(other.asArray(), asArray());
+            return StructuralEquality.equals(overlay, element, other.overlay, other.element);
         }
         return false;
     }
@@ -85,6 +89,6 @@ abstract class Arry<J extends Json<J>, O extends Overlay<T>, F extends Factory<J
     @Override
     public int hashCode()
     {
-        return asArray().hashCode();
+        return CanonicalJson.hashCode(overlay, element);
     }
 }
@@ -0,0 +1,588 @@
+package com.github.bannmann.whisperjson;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.UtilityClass;
+
+import com.github.mizool.core.exception.CodeInconsistencyException;
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes and hashes parsed JSON documents in the canonical form defined by the
+ * <a href="https://tools.ietf.org/html/rfc8785">JSON Canonicalization Scheme (RFC 8785)</a>, e.g. for signatures or
+ * deduplication. In canonical form, documents contain no whitespace, object properties are sorted by the UTF-16 code
+ * units of their names, numbers are formatted like ECMAScript does and strings use the minimal escaping.<br>
+ * <br>
+ * The canonical form is produced directly from the parsed document: object properties are sorted via their element
+ * numbers and string contents are re-escaped character by character, so neither {@link Json} elements nor
+ * {@link String} instances are created for them. When computing a digest, the UTF-8 bytes of the canonical form are
+ * fed into the {@link MessageDigest} or {@link Mac} in small chunks and never exist as a whole.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+ * try (SafeJson json = whisperJson.parse(chars))
+ * {
+ *     CanonicalJson.digest(json, sha256);
+ * }
+ * byte[] hash = sha256.digest();
+ * </pre>
+ */
+@UtilityClass
+public class CanonicalJson
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Numbers with fewer digits are integers which a {@code double} represents exactly, so their canonical form is the
+     * number itself.
+     */
+    private static final int MAX_EXACT_INTEGER_DIGITS = 15;
+
+    private abstract static class Sink
+    {
+        abstract void append(char c) throws IOException;
+
+        void append(Text<?> text, int from, int to) throws IOException
+        {
+            for (int i = from; i < to; i++)
+            {
+                append(text.charAt(i));
+            }
+        }
+
+        void append(String string) throws IOException
+        {
+            for (int i = 0; i < string.length(); i++)
+            {
+                append(string.charAt(i));
+            }
+        }
+
+        void appendNumber(Text<?> text, int from, int to) throws IOException
+        {
+            if (isExactInteger(text, from, to))
+            {
+                if (text.charAt(from) == '-' && text.charAt(from + 1) == '0')
+                {
+                    append('0');
+                }
+                else
+                {
+                    append(text, from, to);
+                }
+            }
+            else
+            {
+                append(NumberCodec.formatCanonical(NumberCodec.parseDouble(text, from, to)));
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class WriterSink extends Sink
+    {
+        private final JsonWriter writer;
+
+        @Override
+        void append(char c) throws IOException
+        {
+            writer.append(c);
+        }
+
+        @Override
+        void append(Text<?> text, int from, int to) throws IOException
+        {
+            writer.append(text, from, to);
+        }
+
+        @Override
+        void append(String string) throws IOException
+        {
+            writer.append(string);
+        }
+    }
+
+    /**
+     * Encodes the canonical form as UTF-8. Unpaired surrogates are encoded as {@code ?}, like
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    private abstract static class Utf8Sink extends Sink
+    {
+        private final byte[] buffer = new byte[256];
+        private int position;
+        private char highSurrogate;
+
+        @Override
+        void append(char c)
+        {
+            if (highSurrogate != 0)
+            {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c))
+                {
+                    appendCodePoint(Character.toCodePoint(high, c));
+                    return;
+                }
+                appendCodePoint('?');
+            }
+
+            if (Character.isHighSurrogate(c))
+            {
+                highSurrogate = c;
+            }
+            else
+            {
+                appendCodePoint(Character.isLowSurrogate(c) ? '?' : c);
+            }
+        }
+
+        private void appendCodePoint(int codePoint)
+        {
+            if (position > buffer.length - 4)
+            {
+                flush();
+            }
+
+            if (codePoint < 0x80)
+            {
+                buffer[position++] = (byte) codePoint;
+            }
+            else if (codePoint < 0x800)
+            {
+                buffer[position++] = (byte) (0xC0 | codePoint >> 6);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+            else if (codePoint < 0x10000)
+            {
+                buffer[position++] = (byte) (0xE0 | codePoint >> 12);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+            else
+            {
+                buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+        }
+
+        private void flush()
+        {
+            update(buffer, position);
+            position = 0;
+        }
+
+        void finish()
+        {
+            if (highSurrogate != 0)
+            {
+                highSurrogate = 0;
+                appendCodePoint('?');
+            }
+            flush();
+            Arrays.fill(buffer, (byte) 0);
+        }
+
+        abstract void update(byte[] bytes, int length);
+    }
+
+    /**
+     * Computes a hash code from the canonical form. Numbers are hashed by their original text instead, which is cheaper
+     * and still consistent with {@link Json#equals(Object)}, as numbers are only equal if their texts are.
+     */
+    private static final class HashSink extends Sink
+    {
+        private int hash = 1;
+
+        @Override
+        void append(char c)
+        {
+            hash = 31 * hash + c;
+        }
+
+        @Override
+        void appendNumber(Text<?> text, int from, int to)
+        {
+            for (int i = from; i < to; i++)
+            {
+                append(text.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * Writes the given element in canonical form as a value.
+     *
+     * @param json the element to write
+     * @param writer the writer to write to
+     *
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}, or contains a number
+     * that exceeds the range of IEEE 754 double precision
+     * @throws IllegalStateException if a value is not allowed at the current position of {@code writer}
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public void write(@NonNull Json<?> json, @NonNull JsonWriter writer) throws IOException
+    {
+        Element<?, ?> element = toElement(json);
+        writer.beforeValue();
+        write(element.overlay, element.element, new WriterSink(writer));
+    }
+
+    /**
+     * Writes the given element in canonical form to a new buffer.
+     *
+     * @param json the element to write
+     *
+     * @return the canonical form
+     *
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}, or contains a number
+     * that exceeds the range of IEEE 754 double precision
+     * @throws NullPointerException if {@code json} is {@code null}
+     */
+    public SensitiveText toSensitiveText(@NonNull Json<?> json)
+    {
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            write(json, writer);
+            return writer.toSensitiveText();
+        }
+        catch (IOException e)
+        {
+            // Buffers never throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Updates the given digest with the UTF-8 encoded canonical form of the given element. The digest is not
+     * completed, so callers can add further data before calling {@link MessageDigest#digest()}.
+     *
+     * @param json the element to digest
+     * @param digest the digest to update
+     *
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}, or contains a number
+     * that exceeds the range of IEEE 754 double precision
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public void digest(@NonNull Json<?> json, @NonNull MessageDigest digest)
+    {
+        Element<?, ?> element = toElement(json);
+        digest(element, new Utf8Sink()
+        {
+            @Override
+            void update(byte[] bytes, int length)
+            {
+                digest.update(bytes, 0, length);
+            }
+        });
+    }
+
+    /**
+     * Updates the given MAC with the UTF-8 encoded canonical form of the given element. The MAC is not completed, so
+     * callers can add further data before calling {@link Mac#doFinal()}.
+     *
+     * @param json the element to digest
+     * @param mac the initialized MAC to update
+     *
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}, or contains a number
+     * that exceeds the range of IEEE 754 double precision
+     * @throws IllegalStateException if {@code mac} was not initialized
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public void digest(@NonNull Json<?> json, @NonNull Mac mac)
+    {
+        Element<?, ?> element = toElement(json);
+        digest(element, new Utf8Sink()
+        {
+            @Override
+            void update(byte[] bytes, int length)
+            {
+                mac.update(bytes, 0, length);
+            }
+        });
+    }
+
+    /**
+     * Computes a hash code of the given element that is independent of whitespace, escaping and property order.
+     */
+    int hashCode(Overlay<?> overlay, int element)
+    {
+        HashSink sink = new HashSink();
+        try
+        {
+            write(overlay, element, sink);
+        }
+        catch (IOException e)
+        {
+            throw new CodeInconsistencyException(e);
+        }
+        return sink.hash;
+    }
+
+    private Element<?, ?> toElement(Json<?> json)
+    {
+        Preconditions.checkArgument(json instanceof Element, "Unsupported JSON implementation: %s", json.getClass());
+        return (Element<?, ?>) json;
+    }
+
+    private void digest(Element<?, ?> element, Utf8Sink sink)
+    {
+        try
+        {
+            write(element.overlay, element.element, sink);
+        }
+        catch (IOException e)
+        {
+            throw new CodeInconsistencyException(e);
+        }
+        finally
+        {
+            sink.finish();
+        }
+    }
+
+    private void write(Overlay<?> overlay, int element, Sink sink) throws IOException
+    {
+        Text<?> text = overlay.text;
+        int from = overlay.getOffset(element);
+        int to = overlay.getEndOffset(element);
+        switch (overlay.getType(element))
+        {
+            case NULL:
+            case TRUE:
+            case FALSE:
+                sink.append(text, from, to);
+                break;
+            case STRING:
+            case STRING_ESCAPED:
+                writeString(overlay, element, sink);
+                break;
+            case NUMBER:
+                sink.appendNumber(text, from, to);
+                break;
+            case ARRAY:
+                writeArray(overlay, element, sink);
+                break;
+            case OBJECT:
+                writeObject(overlay, element, sink);
+                break;
+            default:
+                throw new CodeInconsistencyException("Unexpected type " + overlay.getType(element));
+        }
+    }
+
+    private void writeString(Overlay<?> overlay, int element, Sink sink) throws IOException
+    {
+        Text<?> text = overlay.text;
+        int from = overlay.getOffset(element);
+        int to = overlay.getEndOffset(element);
+        boolean escaped = overlay.getType(element) == Type.STRING_ESCAPED;
+        if (!TextCodec.requiresDecoding(text, from, to))
+        {
+            writeString(text, from, to, escaped, sink);
+            return;
+        }
+
+        Text<?> part = text.getPart(from, to);
+        try
+        {
+            writeString(part, 0, part.length(), escaped, sink);
+        }
+        finally
+        {
+            TextCodec.release(part);
+        }
+    }
+
+    private void writeString(Text<?> text, int from, int to, boolean escaped, Sink sink) throws IOException
+    {
+        if (escaped)
+        {
+            writeEscapedString(text, from, to, sink);
+        }
+        else
+        {
+            // Strings without escape sequences are already in canonical form
+            sink.append(text, from, to);
+        }
+    }
+
+    private void writeEscapedString(Text<?> text, int from, int to, Sink sink) throws IOException
+    {
+        sink.append('"');
+        int i = from + 1;
+        while (i < to - 1)
+        {
+            char c = TextCodec.getUnescapedCharAt(text, i);
+            if (c < 0x20 || c == '"' || c == '\\')
+            {
+                appendEscaped(c, sink);
+            }
+            else
+            {
+                sink.append(c);
+            }
+            i += TextCodec.getEscapeLength(text, i);
+        }
+        sink.append('"');
+    }
+
+    private void appendEscaped(char c, Sink sink) throws IOException
+    {
+        sink.append('\\');
+        switch (c)
+        {
+            case '"':
+            case '\\':
+                sink.append(c);
+                break;
+            case '\b':
+                sink.append('b');
+                break;
+            case '\f':
+                sink.append('f');
+                break;
+            case '\n':
+                sink.append('n');
+                break;
+            case '\r':
+                sink.append('r');
+                break;
+            case '\t':
+                sink.append('t');
+                break;
+            default:
+                sink.append('u');
+                sink.append('0');
+                sink.append('0');
+                sink.append(HEX_DIGITS[c >> 4 & 0xF]);
+                sink.append(HEX_DIGITS[c & 0xF]);
+                break;
+        }
+    }
+
+    private void writeArray(Overlay<?> overlay, int array, Sink sink) throws IOException
+    {
+        sink.append('[');
+        int indexedArray = overlay.getIndexedElement(array);
+        int e = indexedArray + 1;
+        while (e <= indexedArray + overlay.getChildCount(indexedArray))
+        {
+            if (e > indexedArray + 1)
+            {
+                sink.append(',');
+            }
+            write(overlay, e, sink);
+            e += overlay.getChildCount(e) + 1;
+        }
+        sink.append(']');
+    }
+
+    private void writeObject(Overlay<?> overlay, int object, Sink sink) throws IOException
+    {
+        int[] keys = getSortedKeys(overlay, overlay.getIndexedElement(object));
+
+        sink.append('{');
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (i > 0)
+            {
+                sink.append(',');
+            }
+            write(overlay, keys[i], sink);
+            sink.append(':');
+            write(overlay, keys[i] + 1, sink);
+        }
+        sink.append('}');
+    }
+
+    private int[] getSortedKeys(Overlay<?> overlay, int indexedObject)
+    {
+        int last = indexedObject + overlay.getChildCount(indexedObject);
+        int count = 0;
+        for (int e = indexedObject + 1; e <= last; e += overlay.getChildCount(e + 1) + 2)
+        {
+            count++;
+        }
+
+        int[] keys = new int[count];
+        int index = 0;
+        for (int e = indexedObject + 1; e <= last; e += overlay.getChildCount(e + 1) + 2)
+        {
+            keys[index++] = e;
+        }
+
+        if (count > 1)
+        {
+            sortKeys(overlay, keys, Arrays.copyOf(keys, count), 0, count);
+        }
+        return keys;
+    }
+
+    /**
+     * Stable merge sort of {@code keys[from..to)}, using {@code source} as a copy of the same range.
+     */
+    private void sortKeys(Overlay<?> overlay, int[] keys, int[] source, int from, int to)
+    {
+        if (to - from < 2)
+        {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        sortKeys(overlay, source, keys, from, middle);
+        sortKeys(overlay, source, keys, middle, to);
+
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++)
+        {
+            if (right >= to || left < middle && compareKeys(overlay, source[left], source[right]) <= 0)
+            {
+                keys[i] = source[left++];
+            }
+            else
+            {
+                keys[i] = source[right++];
+            }
+        }
+    }
+
+    private int compareKeys(Overlay<?> overlay, int a, int b)
+    {
+        return TextCodec.compareUnescaped(overlay.text,
+            overlay.getOffset(a) + 1,
+            overlay.getEndOffset(a) - 1,
+            overlay.text,
+            overlay.getOffset(b) + 1,
+            overlay.getEndOffset(b) - 1);
+    }
+
+    private boolean isExactInteger(Text<?> text, int from, int to)
+    {
+        int firstDigit = text.charAt(from) == '-' ? from + 1 : from;
+        if (to - firstDigit > MAX_EXACT_INTEGER_DIGITS)
+        {
+            return false;
+        }
+        for (int i = firstDigit; i < to; i++)
+        {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.bannmann.whisperjson;
+
+import lombok.Value;
+
+@Value
+class Configuration
+{
+    int maxDocumentLength;
+    int maxElements;
+    int maxNestingDepth;
+    int maxStringLength;
+    int maxNumberLength;
+    boolean syntaxErrorStackTraces;
+    Indexing indexing;
+    Storage storage;
+    boolean adaptiveBlockSizing;
+    int leakDetectionInterval;
+    boolean wipeLeakedDocuments;
+    LeakListener leakListener;
+
+    public JsonSyntaxException syntaxError(JsonSyntaxException.ErrorCode errorCode, int index)
+    {
+        return new JsonSyntaxException(errorCode, index, syntaxErrorStackTraces);
+    }
+
+    public JsonSyntaxException syntaxError(JsonSyntaxException.ErrorCode errorCode, int index, Exception cause)
+    {
+        return new JsonSyntaxException(errorCode, index, cause, syntaxErrorStackTraces);
+    }
+
+    public JsonSyntaxException syntaxError(JsonSyntaxException.ErrorCode errorCode, char foundChar, int index)
+    {
+        return new JsonSyntaxException(errorCode, foundChar, index, syntaxErrorStackTraces);
+    }
+
+    public JsonSyntaxException unexpectedChar(char expectedChar, char foundChar, int index)
+    {
+        return new JsonSyntaxException(expectedChar, foundChar, index, syntaxErrorStackTraces);
+    }
+
+    public JsonSyntaxException unexpectedEnd(char expectedChar, int index, Exception cause)
+    {
+        return new JsonSyntaxException(expectedChar, index, cause, syntaxErrorStackTraces);
+    }
+
+    public JsonLimitExceededException limitExceeded(JsonSyntaxException.ErrorCode errorCode, int index)
+    {
+        return new JsonLimitExceededException(errorCode, index, syntaxErrorStackTraces);
+    }
+}
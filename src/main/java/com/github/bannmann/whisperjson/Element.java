@@ -2,14 +2,22 @@ package com.github.bannmann.whisperjson;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import lombok.AccessLevel;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+import com.github.mizool.core.exception.CodeInconsistencyException;
+
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 abstract class Element<J extends Json<J>, O extends Overlay<?>> implements Json<J>
 {
@@ -142,6 +150,63 @@ abstract class Element<J extends Json<J>, O extends Overlay<?>> implements Json<
             .filter(J::isAnyNonNull);
     }
 
+    public Optional<J> at(@NonNull String pointer)
+    {
+        return at(JsonPointer.compile(pointer));
+    }
+
+    public Optional<J> at(@NonNull JsonPointer pointer)
+    {
+        int target = pointer.resolve(overlay, element);
+        if (target < 0)
+        {
+            return Optional.empty();
+        }
+        return Optional.of(getElement(target));
+    }
+
+    public Stream<J> select(@NonNull String path)
+    {
+        return select(JsonPath.compile(path));
+    }
+
+    public Stream<J> select(@NonNull JsonPath path)
+    {
+        PrimitiveIterator.OfInt matches = path.evaluate(overlay, element);
+        Iterator<J> iterator = new Iterator<J>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return matches.hasNext();
+            }
+
+            @Override
+            public J next()
+            {
+                return getElement(matches.nextInt());
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Gets this element or creates one of its descendants.
+     *
+     * @param target the number of this element or one of its descendants
+     */
+    @SuppressWarnings("unchecked")
+    protected J getElement(int target)
+    {
+        if (target == element)
+        {
+            return (J) this;
+        }
+
+        // Scalars have no descendants, see Structure for arrays and objects
+        throw new CodeInconsistencyException("Element " + element + " has no descendant " + target);
+    }
+
     public void close()
     {
         // Pre-override method which subclasses inherit from SafeJson
@@ -0,0 +1,34 @@
+package com.github.bannmann.whisperjson;
+
+/**
+ * Learns the average length of the source text per element from recent documents, so that the index blocks of the
+ * next overlay can hold all of its elements without allocating additional blocks.<br>
+ * <br>
+ * Concurrent updates may overwrite each other. As this only drops individual samples from the moving average, the
+ * estimate is kept in a plain volatile field instead of paying for atomic updates on every parse.
+ */
+final class ElementDensity
+{
+    /**
+     * The weight of each new document in the exponential moving average.
+     */
+    private static final double WEIGHT = 0.125;
+
+    private volatile double charsPerElement = Overlay.DEFAULT_CHARS_PER_ELEMENT;
+
+    public double getCharsPerElement()
+    {
+        return charsPerElement;
+    }
+
+    public void record(ParseStatistics statistics)
+    {
+        if (statistics.getElementCount() == 0)
+        {
+            return;
+        }
+
+        double current = charsPerElement;
+        charsPerElement = current + WEIGHT * (statistics.getCharsPerElement() - current);
+    }
+}
@@ -0,0 +1,398 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjLongConsumer;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Extracts a fixed set of values from JSON documents into a holder object provided by the caller. The values are
+ * identified by <a href="https://tools.ietf.org/html/rfc6901">JSON Pointers</a> and extracted in a single pass over
+ * the parsed document, without creating any {@link Json} elements, maps or lists along the way. This makes the cost of
+ * extracting values predictable, which is useful for code paths that process many documents of the same structure.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * ExtractionPlan&lt;Login&gt; plan = ExtractionPlan.&lt;Login&gt;builder()
+ *     .charArray("/user/name", Login::setUserName)
+ *     .charArray("/user/password", Login::setPassword)
+ *     .longValue("/client/id", Login::setClientId)
+ *     .build();
+ *
+ * try (SafeJson json = whisperJson.parse(chars))
+ * {
+ *     plan.extract(json, login);
+ * }
+ * </pre>
+ * Values which are absent or {@code null} are skipped, i.e. the respective setter is not called. Instances are
+ * immutable and can be used concurrently, provided that the setters are thread-safe.
+ *
+ * @param <H> the type of the holder object
+ */
+public final class ExtractionPlan<H>
+{
+    /**
+     * Sets a {@code boolean} value in a holder object.
+     *
+     * @param <H> the type of the holder object
+     */
+    @FunctionalInterface
+    public interface BooleanSetter<H>
+    {
+        void accept(H holder, boolean value);
+    }
+
+    /**
+     * Assembles an {@link ExtractionPlan}.
+     *
+     * @param <H> the type of the holder object
+     */
+    public static final class Builder<H>
+    {
+        private final Map<String, List<Target<H>>> targets = new LinkedHashMap<>();
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Extracts a string as a char array. The setter receives a new array which it should wipe after use.
+         *
+         * @param pointer the JSON pointer of the string
+         * @param setter the setter to call with the value
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+         * @throws NullPointerException if any argument is {@code null}
+         */
+        public Builder<H> charArray(@NonNull String pointer, @NonNull BiConsumer<H, char[]> setter)
+        {
+            return add(pointer, new CharArrayTarget<>(setter));
+        }
+
+        /**
+         * Extracts an integer number as a {@code long}.
+         *
+         * @param pointer the JSON pointer of the number
+         * @param setter the setter to call with the value
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+         * @throws NullPointerException if any argument is {@code null}
+         */
+        public Builder<H> longValue(@NonNull String pointer, @NonNull ObjLongConsumer<H> setter)
+        {
+            return add(pointer, new LongTarget<>(setter));
+        }
+
+        /**
+         * Extracts a number as a {@code double}.
+         *
+         * @param pointer the JSON pointer of the number
+         * @param setter the setter to call with the value
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+         * @throws NullPointerException if any argument is {@code null}
+         */
+        public Builder<H> doubleValue(@NonNull String pointer, @NonNull ObjDoubleConsumer<H> setter)
+        {
+            return add(pointer, new DoubleTarget<>(setter));
+        }
+
+        /**
+         * Extracts a boolean.
+         *
+         * @param pointer the JSON pointer of the boolean
+         * @param setter the setter to call with the value
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+         * @throws NullPointerException if any argument is {@code null}
+         */
+        public Builder<H> booleanValue(@NonNull String pointer, @NonNull BooleanSetter<H> setter)
+        {
+            return add(pointer, new BooleanTarget<>(setter));
+        }
+
+        /**
+         * Applies another plan to a nested element. If the element is absent or {@code null}, the holder getter is not
+         * called.
+         *
+         * @param pointer the JSON pointer of the nested element
+         * @param plan the plan to apply to the nested element
+         * @param holderGetter obtains the holder for the nested plan from the holder of this plan
+         * @param <N> the type of the holder of the nested plan
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+         * @throws NullPointerException if any argument is {@code null}
+         */
+        public <N> Builder<H> nested(
+            @NonNull String pointer, @NonNull ExtractionPlan<N> plan, @NonNull Function<H, N> holderGetter)
+        {
+            return add(pointer, new NestedTarget<>(plan, holderGetter));
+        }
+
+        private Builder<H> add(String pointer, Target<H> target)
+        {
+            JsonPointers.parse(pointer);
+            targets.computeIfAbsent(pointer, key -> new ArrayList<>())
+                .add(target);
+            return this;
+        }
+
+        /**
+         * Creates the plan.
+         *
+         * @return a new plan
+         *
+         * @throws IllegalArgumentException if no values were added
+         */
+        public ExtractionPlan<H> build()
+        {
+            Preconditions.checkArgument(!targets.isEmpty(), "At least one value must be extracted");
+
+            NodeBuilder<H> root = new NodeBuilder<>();
+            for (Map.Entry<String, List<Target<H>>> entry : targets.entrySet())
+            {
+                NodeBuilder<H> node = root;
+                for (String token : JsonPointers.parse(entry.getKey()))
+                {
+                    node = node.children.computeIfAbsent(token, key -> new NodeBuilder<>());
+                }
+                node.targets.addAll(entry.getValue());
+            }
+            return new ExtractionPlan<>(root.build());
+        }
+    }
+
+    private static final class NodeBuilder<H>
+    {
+        private final List<Target<H>> targets = new ArrayList<>();
+        private final Map<String, NodeBuilder<H>> children = new LinkedHashMap<>();
+
+        @SuppressWarnings({ "unchecked", "rawtypes" }) // generic arrays cannot be created directly
+        Node<H> build()
+        {
+            int count = children.size();
+            String[] names = new String[count];
+            int[] indexes = new int[count];
+            Node<H>[] nodes = new Node[count];
+
+            int child = 0;
+            for (Map.Entry<String, NodeBuilder<H>> entry : children.entrySet())
+            {
+                names[child] = entry.getKey();
+                indexes[child] = JsonPointers.toArrayIndex(entry.getKey());
+                nodes[child] = entry.getValue()
+                    .build();
+                child++;
+            }
+            return new Node<>(targets.toArray(new Target[0]), names, indexes, nodes);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Node<H>
+    {
+        private final Target<H>[] targets;
+        private final String[] names;
+
+        /**
+         * For each child, the array index its name represents, or {@code -1} if the name is no array index.
+         */
+        private final int[] indexes;
+        private final Node<H>[] children;
+
+        void extract(Overlay<?> overlay, int element, H holder)
+        {
+            Type type = overlay.getType(element);
+            if (type == Type.NULL)
+            {
+                return;
+            }
+
+            for (Target<H> target : targets)
+            {
+                target.apply(overlay, element, type, holder);
+            }
+
+            if (children.length > 0 && type == Type.OBJECT)
+            {
+                extractProperties(overlay, element, holder);
+            }
+            else if (children.length > 0 && type == Type.ARRAY)
+            {
+                extractArrayElements(overlay, element, holder);
+            }
+        }
+
+        private void extractProperties(Overlay<?> overlay, int object, H holder)
+        {
+            int indexedObject = overlay.getIndexedElement(object);
+            int e = indexedObject + 1;
+            while (e <= indexedObject + overlay.getChildCount(indexedObject))
+            {
+                for (int child = 0; child < names.length; child++)
+                {
+                    if (overlay.isStringEqualTo(e, names[child]))
+                    {
+                        children[child].extract(overlay, e + 1, holder);
+                        break;
+                    }
+                }
+                e += overlay.getChildCount(e + 1) + 2;
+            }
+        }
+
+        private void extractArrayElements(Overlay<?> overlay, int array, H holder)
+        {
+            int indexedArray = overlay.getIndexedElement(array);
+            int e = indexedArray + 1;
+            for (int index = 0; e <= indexedArray + overlay.getChildCount(indexedArray); index++)
+            {
+                for (int child = 0; child < indexes.length; child++)
+                {
+                    if (indexes[child] == index)
+                    {
+                        children[child].extract(overlay, e, holder);
+                        break;
+                    }
+                }
+                e += overlay.getChildCount(e) + 1;
+            }
+        }
+    }
+
+    private abstract static class Target<H>
+    {
+        abstract void apply(Overlay<?> overlay, int element, Type type, H holder);
+
+        protected static void verifyType(Overlay<?> overlay, int element, Type type, TypeLabel expected)
+        {
+            if (type.getLabel() != expected)
+            {
+                throw new TypeMismatchException(expected, type, overlay.getOffset(element));
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class CharArrayTarget<H> extends Target<H>
+    {
+        private final BiConsumer<H, char[]> setter;
+
+        @Override
+        void apply(Overlay<?> overlay, int element, Type type, H holder)
+        {
+            verifyType(overlay, element, type, TypeLabel.STRING);
+            setter.accept(holder, overlay.getUnescapedChars(element));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class LongTarget<H> extends Target<H>
+    {
+        private final ObjLongConsumer<H> setter;
+
+        @Override
+        void apply(Overlay<?> overlay, int element, Type type, H holder)
+        {
+            verifyType(overlay, element, type, TypeLabel.NUMBER);
+            setter.accept(holder, overlay.getLong(element));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class DoubleTarget<H> extends Target<H>
+    {
+        private final ObjDoubleConsumer<H> setter;
+
+        @Override
+        void apply(Overlay<?> overlay, int element, Type type, H holder)
+        {
+            verifyType(overlay, element, type, TypeLabel.NUMBER);
+            setter.accept(holder, overlay.getDouble(element));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class BooleanTarget<H> extends Target<H>
+    {
+        private final BooleanSetter<H> setter;
+
+        @Override
+        void apply(Overlay<?> overlay, int element, Type type, H holder)
+        {
+            verifyType(overlay, element, type, TypeLabel.BOOLEAN);
+            setter.accept(holder, type == Type.TRUE);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class NestedTarget<H, N> extends Target<H>
+    {
+        private final ExtractionPlan<N> plan;
+        private final Function<H, N> holderGetter;
+
+        @Override
+        void apply(Overlay<?> overlay, int element, Type type, H holder)
+        {
+            plan.root.extract(overlay, element, holderGetter.apply(holder));
+        }
+    }
+
+    private final Node<H> root;
+
+    private ExtractionPlan(Node<H> root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Creates a builder for a plan.
+     *
+     * @param <H> the type of the holder object
+     *
+     * @return a new builder
+     */
+    public static <H> Builder<H> builder()
+    {
+        return new Builder<>();
+    }
+
+    /**
+     * Extracts the values from the given element into the given holder. Pointers are evaluated relative to the given
+     * element.
+     *
+     * @param json the element to extract values from
+     * @param holder the holder whose setters to call
+     *
+     * @throws TypeMismatchException if a value is not of the type required by its setter
+     * @throws NumberFormatException if a number does not fit the type required by its setter
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}
+     */
+    public void extract(@NonNull Json<?> json, @NonNull H holder)
+    {
+        Preconditions.checkArgument(json instanceof Element, "Unsupported JSON implementation: %s", json.getClass());
+
+        Element<?, ?> element = (Element<?, ?>) json;
+        root.extract(element.overlay, element.element, holder);
+    }
+}
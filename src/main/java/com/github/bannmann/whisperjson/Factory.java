@@ -1,7 +1,7 @@
 package com.github.bannmann.whisperjson;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("java:S1610")
 abstract class Factory<J extends Json<J>, O extends Overlay<T>, F extends Factory<J, O, F, T>, T extends Text<T>>
@@ -59,7 +59,12 @@ abstract class Factory<J extends Json<J>, O extends Overlay<T>, F extends Factor
 
     public static final class Safe extends Factory<SafeJson, Overlay.Safe, Safe, Text.Safe> implements AutoCloseable
     {
-        private final List<Strng.Safe> stringElements = new LinkedList<>();
+        /**
+         * The string elements created so far by element number, so that repeatedly accessing the same string returns
+         * the same instance instead of registering another one to close. Elements closed individually are removed, so
+         * that accessing the same string again returns a new, usable instance.
+         */
+        private final Map<Integer, Strng.Safe> stringElements = new ConcurrentHashMap<>();
 
         @Override
         public SafeJson createNull(Overlay.Safe overlay, int element)
@@ -88,9 +93,7 @@ abstract class Factory<J extends Json<J>, O extends Overlay<T>, F extends Factor
         @Override
         public SafeJson createString(Overlay.Safe overlay, int element)
         {
-            Strng.Safe result = new Strng.Safe(overlay, element);
-            stringElements.add(result);
-            return result;
+            return stringElements.computeIfAbsent(element, e -> new Strng.Safe(overlay, e, this));
         }
 
         @Override
@@ -111,14 +114,37 @@ abstract class Factory<J extends Json<J>, O extends Overlay<T>, F extends Factor
             return this;
         }
 
+        /**
+         * Stops handing out the given string element because it was closed individually.
+         */
+        public void evictString(Strng.Safe stringElement)
+        {
+            stringElements.remove(stringElement.element, stringElement);
+        }
+
         @Override
         public void close()
         {
-            for (Strng.Safe stringElement : stringElements)
+            wipeStrings();
+        }
+
+        /**
+         * Closes all string elements created by this factory.
+         *
+         * @return the number of unescaped string values actually wiped
+         */
+        public int wipeStrings()
+        {
+            int wipedCount = 0;
+            for (Strng.Safe stringElement : stringElements.values())
             {
-                stringElement.close();
+                if (stringElement.wipe())
+                {
+                    wipedCount++;
+                }
             }
             stringElements.clear();
+            return wipedCount;
         }
     }
 
@@ -0,0 +1,231 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Reference implementation of {@link WhisperJsonMetrics} which aggregates all measurements into histograms, e.g. for
+ * periodically exporting percentiles to a monitoring system.<br>
+ * <br>
+ * To use it, register it via {@code META-INF/services/com.github.bannmann.whisperjson.WhisperJsonMetrics} and obtain
+ * the instance via {@link WhisperJsonMetrics#find(Class) WhisperJsonMetrics.find(HistogramMetrics.class)}.
+ */
+@Getter
+public final class HistogramMetrics implements WhisperJsonMetrics
+{
+    /**
+     * A histogram of non-negative values in the style of HdrHistogram: values are counted in buckets whose width grows
+     * with the magnitude of the values, so that each recorded value is represented with a relative error of at most
+     * 1/16 (6.25%) while the histogram uses a fixed amount of memory. Recording is lock-free.
+     */
+    public static final class Histogram
+    {
+        private static final int LINEAR_BUCKETS = 32;
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_COUNT = LINEAR_BUCKETS + (Long.SIZE - 1 - 5) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private static int getBucket(long value)
+        {
+            if (value < LINEAR_BUCKETS)
+            {
+                return (int) value;
+            }
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+            return LINEAR_BUCKETS + (exponent - 5) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long getHighestValue(int bucket)
+        {
+            if (bucket < LINEAR_BUCKETS)
+            {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 5;
+            long mantissa = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS + 1L;
+            return (mantissa << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        /**
+         * @throws IllegalArgumentException if {@code value} is negative
+         */
+        public void record(long value)
+        {
+            Preconditions.checkArgument(value >= 0, "value must not be negative");
+            counts.incrementAndGet(getBucket(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        public long getCount()
+        {
+            return count.sum();
+        }
+
+        public long getMax()
+        {
+            return max.get();
+        }
+
+        public long getSum()
+        {
+            return sum.sum();
+        }
+
+        /**
+         * Returns the mean of all recorded values, or {@code 0} if no values were recorded.
+         */
+        public double getMean()
+        {
+            long currentCount = getCount();
+            if (currentCount == 0)
+            {
+                return 0;
+            }
+            return (double) sum.sum() / currentCount;
+        }
+
+        /**
+         * Returns a value which at least the given percentage of all recorded values are less than or equal to. The
+         * result is the highest value of the bucket containing that percentile, but never more than {@link #getMax()}.
+         *
+         * @param percentile the percentile, between {@code 0} and {@code 100}
+         *
+         * @return the value at the given percentile, or {@code 0} if no values were recorded
+         *
+         * @throws IllegalArgumentException if {@code percentile} is not between {@code 0} and {@code 100}
+         */
+        public long getValueAtPercentile(double percentile)
+        {
+            Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+
+            long[] snapshot = new long[BUCKET_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0)
+            {
+                return 0;
+            }
+
+            long threshold = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                seen += snapshot[i];
+                if (seen >= threshold)
+                {
+                    return Math.min(getHighestValue(i), getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+
+    private final Histogram parseDurations = new Histogram();
+    private final Histogram inputLengths = new Histogram();
+    private final Histogram elementCounts = new Histogram();
+    private final Histogram unescapedLengths = new Histogram();
+    private final Histogram objectSizes = new Histogram();
+    private final Histogram arraySizes = new Histogram();
+    private final Histogram closeDurations = new Histogram();
+    private final Histogram wipedStringCounts = new Histogram();
+
+    @Getter(AccessLevel.NONE)
+    private final LongAdder leaks = new LongAdder();
+
+    @Getter(AccessLevel.NONE)
+    private final Map<JsonSyntaxException.ErrorCode, LongAdder> syntaxErrors = new EnumMap<>(
+        JsonSyntaxException.ErrorCode.class);
+
+    public HistogramMetrics()
+    {
+        for (JsonSyntaxException.ErrorCode errorCode : JsonSyntaxException.ErrorCode.values())
+        {
+            syntaxErrors.put(errorCode, new LongAdder());
+        }
+    }
+
+    /**
+     * Returns the number of syntax errors of the given kind.
+     */
+    public long getSyntaxErrorCount(@NonNull JsonSyntaxException.ErrorCode errorCode)
+    {
+        return syntaxErrors.get(errorCode)
+            .sum();
+    }
+
+    /**
+     * Returns the number of {@link SafeJson} documents which became unreachable without being closed.
+     */
+    public long getLeakCount()
+    {
+        return leaks.sum();
+    }
+
+    @Override
+    public void parsed(int length, int elementCount, long durationNanos)
+    {
+        parseDurations.record(durationNanos);
+        inputLengths.record(length);
+        elementCounts.record(elementCount);
+    }
+
+    @Override
+    public void syntaxError(JsonSyntaxException.ErrorCode errorCode)
+    {
+        syntaxErrors.get(errorCode)
+            .increment();
+    }
+
+    @Override
+    public void unescaped(int length)
+    {
+        unescapedLengths.record(length);
+    }
+
+    @Override
+    public void materialized(boolean object, int childCount, long durationNanos)
+    {
+        if (object)
+        {
+            objectSizes.record(childCount);
+        }
+        else
+        {
+            arraySizes.record(childCount);
+        }
+    }
+
+    @Override
+    public void closed(int wipedStringCount, long durationNanos)
+    {
+        closeDurations.record(durationNanos);
+        wipedStringCounts.record(wipedStringCount);
+    }
+
+    @Override
+    public void leaked(int length, StackTraceElement[] allocationSite)
+    {
+        leaks.increment();
+    }
+}
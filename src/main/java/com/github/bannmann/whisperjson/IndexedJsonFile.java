@@ -0,0 +1,373 @@
+package com.github.bannmann.whisperjson;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Persists parsed documents together with their index, so that they can be loaded again without parsing them. This is
+ * intended for large, read-only documents which are used at every start of an application, e.g. catalogues or
+ * feature configurations.<br>
+ * <br>
+ * {@link #map(Path)} memory-maps the file: the returned element reads the text and the index directly from the
+ * mapping, so loading only costs a single pass over the index to validate it. As the mapping is read-only, its pages
+ * are shared via the page cache by all processes using the same file.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * IndexedJsonFile.write(new WhisperJson().parse(catalogue), path);
+ * ...
+ * ExposedJson catalogue = IndexedJsonFile.map(path);
+ * </pre>
+ * The file format is specific to this library and may change between versions, in which case files must be written
+ * again. It consists of a header, the text and the components of all elements, all in little-endian byte order. The
+ * text is stored in the encoding it was parsed from: as UTF-8 bytes for documents parsed from bytes or files, and as
+ * UTF-16 code units otherwise, so that the offsets of the elements remain valid. Files must not be modified while they
+ * are mapped.
+ */
+@UtilityClass
+public class IndexedJsonFile
+{
+    private static final int MAGIC = 0x58494A57; // "WJIX" in little-endian byte order
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENCODING_UTF_16 = 0;
+    private static final int ENCODING_UTF_8 = 1;
+    private static final int COMPONENTS_PER_ELEMENT = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Configuration DEFAULT_CONFIGURATION = new WhisperJson().getConfiguration();
+
+    private static final int FRAME_SIZE = 2;
+    private static final int FRAME_LAST_CHILD = 0;
+    private static final int FRAME_EXPECTED = 1;
+    private static final int EXPECTED_VALUE = 0;
+    private static final int EXPECTED_KEY = 1;
+    private static final int EXPECTED_OBJECT_VALUE = 2;
+
+    /**
+     * Collects the components of all elements in document order, expanding deferred elements on the way.
+     */
+    private static final class IndexBuilder
+    {
+        private final Overlay<?> overlay;
+        private int[] index = new int[COMPONENTS_PER_ELEMENT * 64];
+        private int elementCount;
+
+        IndexBuilder(Overlay<?> overlay)
+        {
+            this.overlay = overlay;
+        }
+
+        void add(int element)
+        {
+            int number = elementCount;
+            elementCount++;
+            if (index.length < elementCount * COMPONENTS_PER_ELEMENT)
+            {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+
+            Type type = overlay.getType(element);
+            int position = number * COMPONENTS_PER_ELEMENT;
+            index[position] = type.ordinal();
+            index[position + 1] = overlay.getOffset(element);
+            index[position + 2] = overlay.getEndOffset(element) - 1;
+
+            if (type == Type.ARRAY || type == Type.OBJECT)
+            {
+                // Object keys are leaf elements, so keys and values can be traversed like array elements
+                int indexedElement = overlay.getIndexedElement(element);
+                int e = indexedElement + 1;
+                while (e <= indexedElement + overlay.getChildCount(indexedElement))
+                {
+                    add(e);
+                    e += overlay.getChildCount(e) + 1;
+                }
+            }
+            index[position + 3] = elementCount - number - 1;
+        }
+    }
+
+    /**
+     * Writes the given document and its index to the given file, replacing its contents.
+     *
+     * @param json the document to write
+     * @param file the file to write to
+     *
+     * @throws IOException if writing the file fails
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}, or is not the root
+     * element of a document
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public void write(@NonNull ExposedJson json, @NonNull Path file) throws IOException
+    {
+        Preconditions.checkArgument(json instanceof Element, "Unsupported JSON implementation: %s", json.getClass());
+        Element<?, ?> element = (Element<?, ?>) json;
+        Preconditions.checkArgument(element.element == 0, "Only whole documents can be written");
+
+        Overlay<?> overlay = element.overlay;
+        IndexBuilder indexBuilder = new IndexBuilder(overlay);
+        indexBuilder.add(0);
+
+        Text<?> text = overlay.text;
+        int unitSize = text.isUtf8() ? 1 : Character.BYTES;
+        try (FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(text.length())
+                .putInt(indexBuilder.elementCount)
+                .putInt(text.isUtf8() ? ENCODING_UTF_8 : ENCODING_UTF_16);
+
+            for (int i = 0; i < text.length(); i++)
+            {
+                ensureRemaining(channel, buffer, unitSize);
+                if (text.isUtf8())
+                {
+                    // The text returns each byte as one character, see Text.isUtf8()
+                    buffer.put((byte) text.charAt(i));
+                }
+                else
+                {
+                    buffer.putChar(text.charAt(i));
+                }
+            }
+            long textBytes = (long) text.length() * unitSize;
+            for (long i = textBytes; i < getTextSize(textBytes); i++)
+            {
+                ensureRemaining(channel, buffer, 1);
+                buffer.put((byte) 0);
+            }
+
+            int componentCount = indexBuilder.elementCount * COMPONENTS_PER_ELEMENT;
+            for (int i = 0; i < componentCount; i++)
+            {
+                ensureRemaining(channel, buffer, Integer.BYTES);
+                buffer.putInt(indexBuilder.index[i]);
+            }
+            writeBuffer(channel, buffer);
+        }
+    }
+
+    /**
+     * @return the given size rounded up to whole ints, so that the index following the text is aligned
+     */
+    private long getTextSize(long textBytes)
+    {
+        return (textBytes + Integer.BYTES - 1) & -Integer.BYTES;
+    }
+
+    private void ensureRemaining(FileChannel channel, ByteBuffer buffer, int count) throws IOException
+    {
+        if (buffer.remaining() < count)
+        {
+            writeBuffer(channel, buffer);
+        }
+    }
+
+    private void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        ((Buffer) buffer).clear();
+    }
+
+    /**
+     * Memory-maps a file written by {@link #write(ExposedJson, Path)}.<br>
+     * <br>
+     * The mapping is released when the returned element and all elements obtained from it become unreachable.
+     *
+     * @param file the file to map
+     *
+     * @return the root element of the document
+     *
+     * @throws IOException if the file cannot be read, or was not written by {@link #write(ExposedJson, Path)} of the
+     * same version of this library
+     * @throws NullPointerException if {@code file} is {@code null}
+     */
+    public ExposedJson map(@NonNull Path file) throws IOException
+    {
+        MappedByteBuffer mapping;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE)
+            {
+                throw invalidFile(file);
+            }
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        mapping.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (mapping.getInt(0) != MAGIC)
+        {
+            throw invalidFile(file);
+        }
+        if (mapping.getInt(4) != VERSION)
+        {
+            throw new IOException("Unsupported index file version " + mapping.getInt(4) + ": " + file);
+        }
+
+        int textLength = mapping.getInt(8);
+        int elementCount = mapping.getInt(12);
+        int encoding = mapping.getInt(16);
+        if (encoding != ENCODING_UTF_16 && encoding != ENCODING_UTF_8)
+        {
+            throw invalidFile(file);
+        }
+
+        int unitSize = encoding == ENCODING_UTF_8 ? 1 : Character.BYTES;
+        long textBytes = (long) unitSize * textLength;
+        long textSize = getTextSize(textBytes);
+        long indexSize = 4L * COMPONENTS_PER_ELEMENT * elementCount;
+        if (textLength < 0 || elementCount < 1 || HEADER_SIZE + textSize + indexSize != mapping.capacity())
+        {
+            throw invalidFile(file);
+        }
+
+        ByteBuffer textBuffer = slice(mapping, HEADER_SIZE, (int) textBytes);
+        IntBuffer index = slice(mapping, HEADER_SIZE + (int) textSize, (int) indexSize).asIntBuffer();
+        if (!isValidIndex(index, elementCount, textLength))
+        {
+            throw invalidFile(file);
+        }
+
+        Text.Exposed text = encoding == ENCODING_UTF_8
+            ? new Text.Utf8Buffer(textBuffer)
+            : new Text.Exposed(textBuffer.asCharBuffer());
+        Overlay.Exposed overlay = new Overlay.Exposed(text, index, elementCount);
+        overlay.setConfiguration(DEFAULT_CONFIGURATION);
+        return overlay.getType(0)
+            .create(overlay, 0, new Factory.Exposed());
+    }
+
+    /**
+     * Checks that the index describes a single tree of elements within the text, so that accessing the elements cannot
+     * fail in ways a parsed document would not.
+     */
+    private boolean isValidIndex(IntBuffer index, int elementCount, int textLength)
+    {
+        Type[] types = Type.values();
+
+        // One frame per enclosing array or object, consisting of its last child and what its next child must be
+        int[] stack = new int[FRAME_SIZE * 16];
+        int depth = 0;
+        for (int element = 0; element < elementCount; element++)
+        {
+            while (depth > 0 && stack[(depth - 1) * FRAME_SIZE + FRAME_LAST_CHILD] < element)
+            {
+                depth--;
+                if (stack[depth * FRAME_SIZE + FRAME_EXPECTED] == EXPECTED_OBJECT_VALUE)
+                {
+                    return false;
+                }
+            }
+            if (depth == 0 && element > 0)
+            {
+                return false;
+            }
+
+            int position = element * COMPONENTS_PER_ELEMENT;
+            int ordinal = index.get(position);
+            int from = index.get(position + 1);
+            int to = index.get(position + 2);
+            int childCount = index.get(position + 3);
+            if (ordinal < 0 || ordinal >= types.length || from < 0 || from > to || to >= textLength)
+            {
+                return false;
+            }
+
+            Type type = types[ordinal];
+            boolean string = type == Type.STRING || type == Type.STRING_ESCAPED;
+            if (string && from == to)
+            {
+                // Strings include their quotes
+                return false;
+            }
+
+            int lastAllowed = elementCount - 1;
+            if (depth > 0)
+            {
+                int frame = (depth - 1) * FRAME_SIZE;
+                lastAllowed = stack[frame + FRAME_LAST_CHILD];
+                switch (stack[frame + FRAME_EXPECTED])
+                {
+                    case EXPECTED_KEY:
+                        if (!string)
+                        {
+                            return false;
+                        }
+                        stack[frame + FRAME_EXPECTED] = EXPECTED_OBJECT_VALUE;
+                        break;
+                    case EXPECTED_OBJECT_VALUE:
+                        stack[frame + FRAME_EXPECTED] = EXPECTED_KEY;
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            if (type == Type.ARRAY || type == Type.OBJECT)
+            {
+                if (childCount < 0 || childCount > lastAllowed - element)
+                {
+                    return false;
+                }
+                if (depth * FRAME_SIZE == stack.length)
+                {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[depth * FRAME_SIZE + FRAME_LAST_CHILD] = element + childCount;
+                stack[depth * FRAME_SIZE + FRAME_EXPECTED] = type == Type.OBJECT ? EXPECTED_KEY : EXPECTED_VALUE;
+                depth++;
+            }
+            else if (childCount != 0)
+            {
+                return false;
+            }
+        }
+
+        for (int frame = 0; frame < depth; frame++)
+        {
+            if (stack[frame * FRAME_SIZE + FRAME_EXPECTED] == EXPECTED_OBJECT_VALUE)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ByteBuffer slice(ByteBuffer buffer, int offset, int length)
+    {
+        ByteBuffer duplicate = buffer.duplicate();
+        ((Buffer) duplicate).position(offset);
+        ((Buffer) duplicate).limit(offset + length);
+        return duplicate.slice()
+            .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private IOException invalidFile(Path file)
+    {
+        return new IOException("Not a valid index file: " + file);
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.bannmann.whisperjson;
+
+/**
+ * Determines how much of a document is indexed while parsing.
+ *
+ * @see WhisperJson.Builder#indexing(Indexing)
+ */
+public enum Indexing
+{
+    /**
+     * Indexes the whole document while parsing. Accessing any part of the result does not involve further parsing.
+     */
+    EAGER,
+
+    /**
+     * Checks the syntax of the whole document while parsing, but only indexes the top level. Arrays and objects nested
+     * below are indexed one level at a time when {@link Json#asArray()} or {@link Json#asObject()} reaches them. This
+     * saves time and memory if large parts of the document are never accessed.<br>
+     * <br>
+     * Indexing a structure is synchronized on the document and its elements are only published once it is complete,
+     * so reading a document from several threads does not corrupt its index.
+     */
+    ON_DEMAND,
+
+    /**
+     * Like {@link #ON_DEMAND}, but only checks that strings are terminated and brackets are balanced while parsing.
+     * The syntax of nested arrays and objects is checked when they are indexed, i.e. {@link Json#asArray()},
+     * {@link Json#asObject()} and all other methods reaching them, including {@link Json#at(JsonPointer)},
+     * {@link Json#select(JsonPath)}, {@link Object#equals(Object)} and {@link Object#hashCode()}, may throw a
+     * {@link JsonSyntaxException}. Parts of the document which are never accessed are never checked.
+     */
+    ON_DEMAND_LENIENT
+}
@@ -0,0 +1,45 @@
+package com.github.bannmann.whisperjson;
+
+/**
+ * Implementation of {@link WhisperJsonMetrics} which records Java Flight Recorder events, so that WhisperJson shows up
+ * in continuous production profiling. The following events are recorded in the category "WhisperJson":
+ * <ul>
+ *     <li>{@code WhisperJson.Parse} with the source length, element count and parse duration</li>
+ *     <li>{@code WhisperJson.Materialize} for the first {@link Json#asArray()} or {@link Json#asObject()} call on an
+ *     element, with its kind and child count</li>
+ *     <li>{@code WhisperJson.Close} with the wipe duration and the number of strings wiped</li>
+ * </ul>
+ * The events never contain any content of the documents. They are disabled by default and can be enabled in a JFR
+ * configuration like any other event.<br>
+ * <br>
+ * To use it, register it via {@code META-INF/services/com.github.bannmann.whisperjson.WhisperJsonMetrics}. The events
+ * are defined in the Java 11 layer of the multi-release JAR. On older runtimes, this class does nothing.
+ */
+public final class JfrMetrics implements WhisperJsonMetrics
+{
+    /**
+     * Checks whether events can be recorded on this runtime.
+     */
+    public boolean isAvailable()
+    {
+        return false;
+    }
+
+    @Override
+    public void parsed(int length, int elementCount, long durationNanos)
+    {
+        // JFR events require the Java 11 layer
+    }
+
+    @Override
+    public void materialized(boolean object, int childCount, long durationNanos)
+    {
+        // JFR events require the Java 11 layer
+    }
+
+    @Override
+    public void closed(int wipedStringCount, long durationNanos)
+    {
+        // JFR events require the Java 11 layer
+    }
+}
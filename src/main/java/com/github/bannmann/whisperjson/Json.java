@@ -5,6 +5,7 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import lombok.NonNull;
 
@@ -74,6 +75,9 @@ import lombok.NonNull;
  *         </tr>
  *     </tbody>
  * </table>
+ * <br>
+ * To access values nested deeply inside arrays and objects, consider using {@link #at(String)} or
+ * {@link #select(String)} instead of chaining calls to {@link #asArray()} and {@link #asObject()}.
  */
 public interface Json<J extends Json<J>>
 {
@@ -259,6 +263,8 @@ public interface Json<J extends Json<J>>
      * @return an immutable {@link List} with the contents of this array. May be empty, but never {@code null}.
      *
      * @throws TypeMismatchException if this JSON element does not represent a non-{@code null} array
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
      * @see #isArray()
      */
     List<J> asArray();
@@ -269,6 +275,8 @@ public interface Json<J extends Json<J>>
      * @return an immutable {@link Map} with the properties of this JSON object. May be empty, but never {@code null}.
      *
      * @throws TypeMismatchException if this element does not represent a non-{@code null} JSON object
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
      * @see #isObject()
      */
     Map<String, J> asObject();
@@ -286,10 +294,80 @@ public interface Json<J extends Json<J>>
      *
      * @throws NullPointerException if {@code name} is {@code null}
      * @throws TypeMismatchException if this element does not represent a non-{@code null} JSON object
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
      * @see #asObject()
      */
     Optional<J> getObjectProperty(@NonNull String name);
 
+    /**
+     * Gets the element referenced by the given <a href="https://tools.ietf.org/html/rfc6901">JSON Pointer</a>,
+     * evaluated relative to this element. In contrast to chaining calls to {@link #asArray()} and {@link #asObject()},
+     * this does not create any elements except the one referenced.<br>
+     * <br>
+     * If the same pointer is evaluated repeatedly, consider {@link #at(JsonPointer)} with a compiled pointer instead.
+     *
+     * @param pointer the JSON pointer, e.g. {@code /users/0/name}
+     *
+     * @return An {@link Optional} with the referenced element, {@link Optional#empty()} if the pointer does not refer
+     * to an existing element. Note that the referenced element may represent a JSON {@code null} literal.
+     *
+     * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+     * @throws NullPointerException if {@code pointer} is {@code null}
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
+     */
+    Optional<J> at(@NonNull String pointer);
+
+    /**
+     * Gets the element referenced by the given compiled JSON Pointer, evaluated relative to this element.
+     *
+     * @param pointer the compiled JSON pointer
+     *
+     * @return An {@link Optional} with the referenced element, {@link Optional#empty()} if the pointer does not refer
+     * to an existing element. Note that the referenced element may represent a JSON {@code null} literal.
+     *
+     * @throws NullPointerException if {@code pointer} is {@code null}
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
+     * @see #at(String)
+     */
+    Optional<J> at(@NonNull JsonPointer pointer);
+
+    /**
+     * Gets the elements matching the given {@link JsonPath JSONPath} query, evaluated relative to this element. The
+     * query is evaluated lazily while the returned stream is consumed, and elements are only created for the matches.<br>
+     * <br>
+     * If the same query is evaluated repeatedly, consider {@link #select(JsonPath)} with a compiled query instead.
+     *
+     * @param path the query, e.g. {@code $.items[?(@.status == 'active')].id}
+     *
+     * @return a sequential {@link Stream} of the matching elements in document order. May be empty, but never
+     * {@code null}.
+     *
+     * @throws IllegalArgumentException if {@code path} is not valid or uses unsupported syntax
+     * @throws NullPointerException if {@code path} is {@code null}
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed while consuming the stream contains a syntax error
+     * @see JsonPath
+     */
+    Stream<J> select(@NonNull String path);
+
+    /**
+     * Gets the elements matching the given compiled JSONPath query, evaluated relative to this element.
+     *
+     * @param path the compiled query
+     *
+     * @return a sequential {@link Stream} of the matching elements in document order. May be empty, but never
+     * {@code null}.
+     *
+     * @throws NullPointerException if {@code path} is {@code null}
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed while consuming the stream contains a syntax error
+     * @see #select(String)
+     */
+    Stream<J> select(@NonNull JsonPath path);
+
     /**
      * Compares the specified object with this JSON element for equality. Returns {@code true} if and only if the
      * given object is also a JSON element and both elements have the same content.
@@ -297,6 +375,9 @@ public interface Json<J extends Json<J>>
      * @param o the object to compare for equality
      *
      * @return {@code true} if the JSON elements are equal, {@code false} otherwise.
+     *
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
      */
     @Override
     boolean equals(Object o);
@@ -306,6 +387,8 @@ public interface Json<J extends Json<J>>
      *
      * @return the hash code
      *
+     * @throws JsonSyntaxException if the document was parsed with {@link Indexing#ON_DEMAND_LENIENT} and a structure
+     * indexed by this call contains a syntax error
      * @see #equals(Object)
      */
     @Override
@@ -0,0 +1,13 @@
+package com.github.bannmann.whisperjson;
+
+/**
+ * Thrown to indicate that the supplied JSON source text exceeds one of the limits configured via
+ * {@link WhisperJson.Builder}.
+ */
+public class JsonLimitExceededException extends JsonSyntaxException
+{
+    JsonLimitExceededException(ErrorCode errorCode, int index, boolean stackTrace)
+    {
+        super(errorCode, index, stackTrace);
+    }
+}
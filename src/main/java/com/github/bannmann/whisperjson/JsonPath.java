@@ -0,0 +1,805 @@
+package com.github.bannmann.whisperjson;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A compiled <a href="https://goessner.net/articles/JsonPath/">JSONPath</a> query which can be evaluated against any
+ * number of documents via {@link Json#select(JsonPath)}. Queries are evaluated directly on the parsed document, and
+ * elements are only created for the matches actually consumed.<br>
+ * <br>
+ * The following subset of JSONPath is supported:
+ * <table>
+ *     <caption>Supported syntax</caption>
+ *     <tr><td>{@code $}</td><td>the element the query is evaluated on</td></tr>
+ *     <tr><td>{@code .name} or {@code ['name']}</td><td>the property with the given name</td></tr>
+ *     <tr><td>{@code .*} or {@code [*]}</td><td>all array elements or property values</td></tr>
+ *     <tr><td>{@code ..}</td><td>recursive descent, e.g. {@code $..id}</td></tr>
+ *     <tr><td>{@code [2]}, {@code [-1]}</td><td>the array element with the given index, counting from the end if
+ *     negative</td></tr>
+ *     <tr><td>{@code [start:end:step]}</td><td>array slice as in Python, each part is optional; {@code step} must be
+ *     positive</td></tr>
+ *     <tr><td>{@code [?(@.a.b)]}</td><td>array elements or property values for which the relative path exists</td></tr>
+ *     <tr><td>{@code [?(@.a.b == 'x')]}</td><td>array elements or property values for which the relative path refers
+ *     to a value matching the literal. Supported operators are {@code ==}, {@code !=}, {@code <}, {@code <=},
+ *     {@code >} and {@code >=}, with the latter four only matching numbers. Literals may be strings in single or
+ *     double quotes, numbers, {@code true}, {@code false} and {@code null}.</td></tr>
+ * </table>
+ * <br>
+ * Instances are immutable and thread-safe.
+ */
+public final class JsonPath
+{
+    /**
+     * Collects the candidates produced by a step, each consisting of the index of the step to apply next and an element
+     * number.
+     */
+    private static final class Candidates
+    {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int step, int element)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = step;
+            values[size++] = element;
+        }
+
+        void addValues(Overlay<?> overlay, int structure, int step)
+        {
+            Type type = overlay.getType(structure);
+            if (type != Type.ARRAY && type != Type.OBJECT)
+            {
+                return;
+            }
+
+            int valueOffset = type == Type.OBJECT ? 1 : 0;
+            int indexedStructure = overlay.getIndexedElement(structure);
+            int e = indexedStructure + 1;
+            while (e <= indexedStructure + overlay.getChildCount(indexedStructure))
+            {
+                int value = e + valueOffset;
+                add(step, value);
+                e = value + overlay.getChildCount(value) + 1;
+            }
+        }
+    }
+
+    private interface Step
+    {
+        /**
+         * Adds the elements matched by this step to the given candidates.
+         *
+         * @param next the index of the step following this one
+         */
+        void apply(Overlay<?> overlay, int element, int next, Candidates candidates);
+    }
+
+    private static final class Matches implements PrimitiveIterator.OfInt
+    {
+        private final Overlay<?> overlay;
+        private final Step[] steps;
+        private final Candidates candidates = new Candidates();
+
+        private int[] stack = new int[32];
+        private int size;
+        private int nextMatch = -1;
+
+        Matches(Overlay<?> overlay, Step[] steps, int element)
+        {
+            this.overlay = overlay;
+            this.steps = steps;
+            push(0, element);
+        }
+
+        private void push(int step, int element)
+        {
+            if (size == stack.length)
+            {
+                stack = Arrays.copyOf(stack, size * 2);
+            }
+            stack[size++] = step;
+            stack[size++] = element;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (nextMatch < 0 && size > 0)
+            {
+                int element = stack[--size];
+                int step = stack[--size];
+                if (step == steps.length)
+                {
+                    nextMatch = element;
+                }
+                else
+                {
+                    candidates.size = 0;
+                    steps[step].apply(overlay, element, step + 1, candidates);
+
+                    // Push in reverse order so that matches are returned in document order
+                    for (int i = candidates.size - 2; i >= 0; i -= 2)
+                    {
+                        push(candidates.values[i], candidates.values[i + 1]);
+                    }
+                }
+            }
+            return nextMatch >= 0;
+        }
+
+        @Override
+        public int nextInt()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            int result = nextMatch;
+            nextMatch = -1;
+            return result;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class PropertyStep implements Step
+    {
+        private final String name;
+
+        @Override
+        public void apply(Overlay<?> overlay, int element, int next, Candidates candidates)
+        {
+            if (overlay.getType(element) != Type.OBJECT)
+            {
+                return;
+            }
+
+            int value = JsonPointer.findProperty(overlay, element, name);
+            if (value >= 0)
+            {
+                candidates.add(next, value);
+            }
+        }
+    }
+
+    private static final class WildcardStep implements Step
+    {
+        @Override
+        public void apply(Overlay<?> overlay, int element, int next, Candidates candidates)
+        {
+            candidates.addValues(overlay, element, next);
+        }
+    }
+
+    private static final class DescendantStep implements Step
+    {
+        @Override
+        public void apply(Overlay<?> overlay, int element, int next, Candidates candidates)
+        {
+            // The element itself continues with the next step, its values are subject to this step again
+            candidates.add(next, element);
+            candidates.addValues(overlay, element, next - 1);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class IndexStep implements Step
+    {
+        private final int index;
+
+        @Override
+        public void apply(Overlay<?> overlay, int element, int next, Candidates candidates)
+        {
+            if (overlay.getType(element) != Type.ARRAY)
+            {
+                return;
+            }
+
+            int value = JsonPointer.findArrayElement(overlay, element, index);
+            if (value >= 0)
+            {
+                candidates.add(next, value);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class SliceStep implements Step
+    {
+        private final Integer start;
+        private final Integer end;
+        private final int stride;
+
+        @Override
+        public void apply(Overlay<?> overlay, int element, int next, Candidates candidates)
+        {
+            if (overlay.getType(element) != Type.ARRAY)
+            {
+                return;
+            }
+
+            int from;
+            int to;
+            if (isRelativeToEnd(start) || isRelativeToEnd(end))
+            {
+                int length = getArrayLength(overlay, element);
+                from = normalize(start, 0, length);
+                to = normalize(end, length, length);
+            }
+            else
+            {
+                // Avoid walking the whole array just to determine its length
+                from = start == null ? 0 : start;
+                to = end == null ? Integer.MAX_VALUE : end;
+            }
+
+            int indexedArray = overlay.getIndexedElement(element);
+            int last = indexedArray + overlay.getChildCount(indexedArray);
+            int e = indexedArray + 1;
+            for (int i = 0; i < to && e <= last; i++)
+            {
+                if (i >= from && (i - from) % stride == 0)
+                {
+                    candidates.add(next, e);
+                }
+                e += overlay.getChildCount(e) + 1;
+            }
+        }
+
+        private static boolean isRelativeToEnd(Integer index)
+        {
+            return index != null && index < 0;
+        }
+
+        private static int normalize(Integer index, int defaultValue, int length)
+        {
+            if (index == null)
+            {
+                return defaultValue;
+            }
+            int result = index < 0 ? length + index : index;
+            return Math.max(0, Math.min(result, length));
+        }
+
+        private static int getArrayLength(Overlay<?> overlay, int array)
+        {
+            int indexedArray = overlay.getIndexedElement(array);
+            int length = 0;
+            int e = indexedArray + 1;
+            while (e <= indexedArray + overlay.getChildCount(indexedArray))
+            {
+                length++;
+                e += overlay.getChildCount(e) + 1;
+            }
+            return length;
+        }
+    }
+
+    private enum Operator
+    {
+        EXISTS,
+        EQUAL,
+        NOT_EQUAL,
+        LESS,
+        LESS_OR_EQUAL,
+        GREATER,
+        GREATER_OR_EQUAL
+    }
+
+    @RequiredArgsConstructor
+    private static final class FilterStep implements Step
+    {
+        private final JsonPointer path;
+        private final Operator operator;
+        private final TypeLabel literalType;
+        private final String stringLiteral;
+        private final BigDecimal numberLiteral;
+        private final Type booleanLiteral;
+
+        @Override
+        public void apply(Overlay<?> overlay, int element, int next, Candidates candidates)
+        {
+            int first = candidates.size;
+            candidates.addValues(overlay, element, next);
+
+            // Keep only the values matching the filter
+            int kept = first;
+            for (int i = first; i < candidates.size; i += 2)
+            {
+                if (matches(overlay, candidates.values[i + 1]))
+                {
+                    candidates.values[kept++] = candidates.values[i];
+                    candidates.values[kept++] = candidates.values[i + 1];
+                }
+            }
+            candidates.size = kept;
+        }
+
+        private boolean matches(Overlay<?> overlay, int element)
+        {
+            int e = path.resolve(overlay, element);
+            if (e < 0)
+            {
+                return false;
+            }
+
+            switch (operator)
+            {
+                case EXISTS:
+                    return true;
+                case EQUAL:
+                    return isEqual(overlay, e);
+                case NOT_EQUAL:
+                    return !isEqual(overlay, e);
+                default:
+                    return isOrdered(overlay, e);
+            }
+        }
+
+        private boolean isEqual(Overlay<?> overlay, int e)
+        {
+            Type type = overlay.getType(e);
+            if (type.getLabel() != literalType)
+            {
+                return false;
+            }
+
+            switch (literalType)
+            {
+                case STRING:
+                    return overlay.isStringEqualTo(e, stringLiteral);
+                case NUMBER:
+                    return overlay.compareNumber(e, numberLiteral) == 0;
+                case BOOLEAN:
+                    return type == booleanLiteral;
+                default:
+                    return true;
+            }
+        }
+
+        private boolean isOrdered(Overlay<?> overlay, int e)
+        {
+            if (literalType != TypeLabel.NUMBER || overlay.getType(e) != Type.NUMBER)
+            {
+                return false;
+            }
+
+            int comparison = overlay.compareNumber(e, numberLiteral);
+            switch (operator)
+            {
+                case LESS:
+                    return comparison < 0;
+                case LESS_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+    }
+
+    /**
+     * Translates the source text of a query to steps.
+     */
+    private static final class Compiler
+    {
+        private final String path;
+        private final List<Step> steps = new ArrayList<>();
+        private int pos;
+
+        Compiler(String path)
+        {
+            this.path = path;
+        }
+
+        Step[] compile()
+        {
+            expect('$');
+            while (pos < path.length())
+            {
+                char c = path.charAt(pos);
+                if (c == '.')
+                {
+                    pos++;
+                    if (peek() == '.')
+                    {
+                        pos++;
+                        steps.add(new DescendantStep());
+                        if (peek() == '[')
+                        {
+                            continue;
+                        }
+                    }
+                    parseDotStep();
+                }
+                else if (c == '[')
+                {
+                    pos++;
+                    parseBracketStep();
+                }
+                else
+                {
+                    throw invalid();
+                }
+            }
+            return steps.toArray(new Step[0]);
+        }
+
+        private void parseDotStep()
+        {
+            if (peek() == '*')
+            {
+                pos++;
+                steps.add(new WildcardStep());
+            }
+            else
+            {
+                steps.add(new PropertyStep(parseName()));
+            }
+        }
+
+        private String parseName()
+        {
+            int from = pos;
+            while (pos < path.length() && path.charAt(pos) != '.' && path.charAt(pos) != '[')
+            {
+                pos++;
+            }
+            if (pos == from)
+            {
+                throw invalid();
+            }
+            return path.substring(from, pos);
+        }
+
+        private void parseBracketStep()
+        {
+            skipWhitespace();
+            char c = peek();
+            if (c == '*')
+            {
+                pos++;
+                steps.add(new WildcardStep());
+            }
+            else if (c == '\'' || c == '"')
+            {
+                steps.add(new PropertyStep(parseQuotedString()));
+            }
+            else if (c == '?')
+            {
+                pos++;
+                steps.add(parseFilter());
+            }
+            else
+            {
+                steps.add(parseIndexOrSlice());
+            }
+            skipWhitespace();
+            expect(']');
+        }
+
+        private Step parseIndexOrSlice()
+        {
+            Integer start = parseOptionalInteger();
+            skipWhitespace();
+            if (peek() != ':')
+            {
+                if (start == null)
+                {
+                    throw invalid();
+                }
+                if (start < 0)
+                {
+                    return new SliceStep(start, start == -1 ? null : start + 1, 1);
+                }
+                return new IndexStep(start);
+            }
+
+            pos++;
+            Integer end = parseOptionalInteger();
+            int stride = 1;
+            skipWhitespace();
+            if (peek() == ':')
+            {
+                pos++;
+                Integer parsedStride = parseOptionalInteger();
+                if (parsedStride != null)
+                {
+                    if (parsedStride <= 0)
+                    {
+                        throw invalid();
+                    }
+                    stride = parsedStride;
+                }
+            }
+            return new SliceStep(start, end, stride);
+        }
+
+        private Integer parseOptionalInteger()
+        {
+            skipWhitespace();
+            int from = pos;
+            if (peek() == '-')
+            {
+                pos++;
+            }
+            while (pos < path.length() && Character.isDigit(path.charAt(pos)))
+            {
+                pos++;
+            }
+            if (pos == from)
+            {
+                return null;
+            }
+            try
+            {
+                return Integer.parseInt(path.substring(from, pos));
+            }
+            catch (NumberFormatException e)
+            {
+                throw invalid();
+            }
+        }
+
+        private FilterStep parseFilter()
+        {
+            expect('(');
+            skipWhitespace();
+            expect('@');
+            JsonPointer relativePath = parseRelativePath();
+            skipWhitespace();
+
+            Operator operator = parseOperator();
+            FilterStep result;
+            if (operator == Operator.EXISTS)
+            {
+                result = new FilterStep(relativePath, operator, null, null, null, null);
+            }
+            else
+            {
+                skipWhitespace();
+                result = parseLiteral(relativePath, operator);
+                skipWhitespace();
+            }
+            expect(')');
+            return result;
+        }
+
+        private JsonPointer parseRelativePath()
+        {
+            List<String> tokens = new ArrayList<>();
+            while (true)
+            {
+                char c = peek();
+                if (c == '.')
+                {
+                    pos++;
+                    int from = pos;
+                    while (pos < path.length() && isNameChar(path.charAt(pos)))
+                    {
+                        pos++;
+                    }
+                    if (pos == from)
+                    {
+                        throw invalid();
+                    }
+                    tokens.add(path.substring(from, pos));
+                }
+                else if (c == '[')
+                {
+                    pos++;
+                    skipWhitespace();
+                    char quote = peek();
+                    if (quote == '\'' || quote == '"')
+                    {
+                        tokens.add(parseQuotedString());
+                    }
+                    else
+                    {
+                        Integer index = parseOptionalInteger();
+                        if (index == null || index < 0)
+                        {
+                            throw invalid();
+                        }
+                        tokens.add(index.toString());
+                    }
+                    skipWhitespace();
+                    expect(']');
+                }
+                else
+                {
+                    return JsonPointer.of(tokens);
+                }
+            }
+        }
+
+        private static boolean isNameChar(char c)
+        {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '$';
+        }
+
+        private Operator parseOperator()
+        {
+            if (path.startsWith("==", pos))
+            {
+                pos += 2;
+                return Operator.EQUAL;
+            }
+            if (path.startsWith("!=", pos))
+            {
+                pos += 2;
+                return Operator.NOT_EQUAL;
+            }
+            if (path.startsWith("<=", pos))
+            {
+                pos += 2;
+                return Operator.LESS_OR_EQUAL;
+            }
+            if (path.startsWith(">=", pos))
+            {
+                pos += 2;
+                return Operator.GREATER_OR_EQUAL;
+            }
+            if (path.startsWith("<", pos))
+            {
+                pos++;
+                return Operator.LESS;
+            }
+            if (path.startsWith(">", pos))
+            {
+                pos++;
+                return Operator.GREATER;
+            }
+            return Operator.EXISTS;
+        }
+
+        private FilterStep parseLiteral(JsonPointer relativePath, Operator operator)
+        {
+            char c = peek();
+            if (c == '\'' || c == '"')
+            {
+                String value = parseQuotedString();
+                return new FilterStep(relativePath, operator, TypeLabel.STRING, value, null, null);
+            }
+            if (path.startsWith("true", pos))
+            {
+                pos += 4;
+                return new FilterStep(relativePath, operator, TypeLabel.BOOLEAN, null, null, Type.TRUE);
+            }
+            if (path.startsWith("false", pos))
+            {
+                pos += 5;
+                return new FilterStep(relativePath, operator, TypeLabel.BOOLEAN, null, null, Type.FALSE);
+            }
+            if (path.startsWith("null", pos))
+            {
+                pos += 4;
+                return new FilterStep(relativePath, operator, TypeLabel.NULL, null, null, null);
+            }
+
+            int from = pos;
+            while (pos < path.length() && "+-.eE0123456789".indexOf(path.charAt(pos)) >= 0)
+            {
+                pos++;
+            }
+            try
+            {
+                BigDecimal value = new BigDecimal(path.substring(from, pos));
+                return new FilterStep(relativePath, operator, TypeLabel.NUMBER, null, value, null);
+            }
+            catch (NumberFormatException e)
+            {
+                pos = from;
+                throw invalid();
+            }
+        }
+
+        private String parseQuotedString()
+        {
+            char quote = path.charAt(pos);
+            pos++;
+            StringBuilder result = new StringBuilder();
+            while (true)
+            {
+                char c = next();
+                if (c == quote)
+                {
+                    return result.toString();
+                }
+                if (c == '\\')
+                {
+                    c = next();
+                }
+                result.append(c);
+            }
+        }
+
+        private char next()
+        {
+            if (pos == path.length())
+            {
+                throw invalid();
+            }
+            return path.charAt(pos++);
+        }
+
+        private char peek()
+        {
+            return pos < path.length() ? path.charAt(pos) : 0;
+        }
+
+        private void expect(char c)
+        {
+            if (peek() != c)
+            {
+                throw invalid();
+            }
+            pos++;
+        }
+
+        private void skipWhitespace()
+        {
+            while (peek() == ' ')
+            {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException invalid()
+        {
+            return new IllegalArgumentException(String.format("Invalid JSON path at index %d: %s", pos, path));
+        }
+    }
+
+    private final String path;
+    private final Step[] steps;
+
+    private JsonPath(String path)
+    {
+        this.path = path;
+        steps = new Compiler(path).compile();
+    }
+
+    /**
+     * Compiles the given JSONPath query.
+     *
+     * @param path the query, e.g. {@code $.items[?(@.status == 'active')].id}
+     *
+     * @return the compiled query
+     *
+     * @throws IllegalArgumentException if {@code path} is not valid or uses unsupported syntax
+     * @throws NullPointerException if {@code path} is {@code null}
+     */
+    public static JsonPath compile(@NonNull String path)
+    {
+        return new JsonPath(path);
+    }
+
+    /**
+     * Evaluates this query relative to the given element.
+     *
+     * @return the numbers of the matching elements in document order, determined lazily
+     */
+    PrimitiveIterator.OfInt evaluate(Overlay<?> overlay, int element)
+    {
+        return new Matches(overlay, steps, element);
+    }
+
+    @Override
+    public String toString()
+    {
+        return path;
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.List;
+
+import lombok.NonNull;
+
+/**
+ * A compiled <a href="https://tools.ietf.org/html/rfc6901">JSON Pointer</a> which can be evaluated against any
+ * number of documents via {@link Json#at(JsonPointer)}. Evaluating a pointer walks the parsed document directly and
+ * only creates an element for the value it refers to.<br>
+ * <br>
+ * Instances are immutable and thread-safe.
+ */
+public final class JsonPointer
+{
+    private static final int NOT_FOUND = -1;
+
+    private final String pointer;
+    private final String[] tokens;
+
+    /**
+     * For each reference token, the array index it represents, or {@code -1} if the token is no array index.
+     */
+    private final int[] indexes;
+
+    private JsonPointer(String pointer, List<String> tokens)
+    {
+        this.pointer = pointer;
+        this.tokens = tokens.toArray(new String[0]);
+        indexes = new int[this.tokens.length];
+        for (int i = 0; i < indexes.length; i++)
+        {
+            indexes[i] = JsonPointers.toArrayIndex(this.tokens[i]);
+        }
+    }
+
+    /**
+     * Compiles the given JSON pointer.
+     *
+     * @param pointer the JSON pointer, e.g. {@code /users/0/name}
+     *
+     * @return the compiled pointer
+     *
+     * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+     * @throws NullPointerException if {@code pointer} is {@code null}
+     */
+    public static JsonPointer compile(@NonNull String pointer)
+    {
+        return new JsonPointer(pointer, JsonPointers.parse(pointer));
+    }
+
+    /**
+     * Creates a pointer from the given unescaped reference tokens.
+     */
+    static JsonPointer of(List<String> tokens)
+    {
+        StringBuilder pointer = new StringBuilder();
+        for (String token : tokens)
+        {
+            pointer.append('/')
+                .append(token.replace("~", "~0")
+                    .replace("/", "~1"));
+        }
+        return new JsonPointer(pointer.toString(), tokens);
+    }
+
+    /**
+     * Evaluates this pointer relative to the given element.
+     *
+     * @return the number of the element this pointer refers to, or {@code -1} if there is no such element
+     */
+    int resolve(Overlay<?> overlay, int element)
+    {
+        int e = element;
+        for (int i = 0; i < tokens.length && e != NOT_FOUND; i++)
+        {
+            switch (overlay.getType(e))
+            {
+                case OBJECT:
+                    e = findProperty(overlay, e, tokens[i]);
+                    break;
+                case ARRAY:
+                    e = findArrayElement(overlay, e, indexes[i]);
+                    break;
+                default:
+                    e = NOT_FOUND;
+                    break;
+            }
+        }
+        return e;
+    }
+
+    static int findProperty(Overlay<?> overlay, int object, String name)
+    {
+        int indexedObject = overlay.getIndexedElement(object);
+        int e = indexedObject + 1;
+        while (e <= indexedObject + overlay.getChildCount(indexedObject))
+        {
+            if (overlay.isStringEqualTo(e, name))
+            {
+                return e + 1;
+            }
+            e += overlay.getChildCount(e + 1) + 2;
+        }
+        return NOT_FOUND;
+    }
+
+    static int findArrayElement(Overlay<?> overlay, int array, int index)
+    {
+        if (index < 0)
+        {
+            return NOT_FOUND;
+        }
+
+        int indexedArray = overlay.getIndexedElement(array);
+        int e = indexedArray + 1;
+        for (int i = 0; e <= indexedArray + overlay.getChildCount(indexedArray); i++)
+        {
+            if (i == index)
+            {
+                return e;
+            }
+            e += overlay.getChildCount(e) + 1;
+        }
+        return NOT_FOUND;
+    }
+
+    @Override
+    public String toString()
+    {
+        return pointer;
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.experimental.UtilityClass;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Implements the syntax of JSON Pointers as specified by <a href="https://tools.ietf.org/html/rfc6901">RFC 6901</a>.
+ */
+@UtilityClass
+class JsonPointers
+{
+    /**
+     * Splits the given pointer into its unescaped reference tokens.
+     *
+     * @throws IllegalArgumentException if the pointer is neither empty nor starts with {@code /}, or if it contains an
+     * invalid escape sequence
+     */
+    public List<String> parse(String pointer)
+    {
+        if (pointer.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        Preconditions.checkArgument(pointer.charAt(0) == '/', "JSON pointer must start with '/': %s", pointer);
+
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 1; i < pointer.length(); i++)
+        {
+            char c = pointer.charAt(i);
+            if (c == '/')
+            {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+            else if (c == '~')
+            {
+                i++;
+                char escaped = i < pointer.length() ? pointer.charAt(i) : 0;
+                Preconditions.checkArgument(escaped == '0' || escaped == '1',
+                    "Invalid escape sequence in JSON pointer: %s",
+                    pointer);
+                token.append(escaped == '0' ? '~' : '/');
+            }
+            else
+            {
+                token.append(c);
+            }
+        }
+        tokens.add(token.toString());
+        return tokens;
+    }
+
+    /**
+     * Interprets the given reference token as an array index.
+     *
+     * @return the index, or {@code -1} if the token is not a valid array index
+     */
+    public int toArrayIndex(String token)
+    {
+        if (token.isEmpty() || token.length() > 9 || (token.charAt(0) == '0' && token.length() > 1))
+        {
+            return -1;
+        }
+        for (int i = 0; i < token.length(); i++)
+        {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return -1;
+            }
+        }
+        return Integer.parseInt(token);
+    }
+}
@@ -1,32 +1,148 @@
 package com.github.bannmann.whisperjson;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
 /**
- * Thrown to indicate a syntax error in the supplied JSON source text.
+ * Thrown to indicate a syntax error in the supplied JSON source text.<br>
+ * <br>
+ * The {@link #getErrorCode() error code} and {@link #getIndex() index} are available without any formatting cost; the
+ * {@link #getMessage() message} is only formatted when it is requested. If stack traces are not needed, they can be
+ * disabled via {@link WhisperJson.Builder#syntaxErrorStackTraces(boolean)}.
  */
 public class JsonSyntaxException extends RuntimeException
 {
-    JsonSyntaxException(String message, int index)
+    /**
+     * Identifies the kind of syntax error.
+     */
+    @RequiredArgsConstructor
+    public enum ErrorCode
+    {
+        ILLEGAL_CHAR("illegal char"),
+        EXPECTED_CHAR("expected char"),
+        MALFORMED_JSON("malformed json"),
+        UNBALANCED_JSON("unbalanced json"),
+        ILLEGAL_CONTROL_CHAR("illegal control char"),
+        ILLEGAL_ESCAPE_CHAR("illegal escape char"),
+        INVALID_HEX_CHAR("invalid hex char"),
+        INVALID_NUMBER_CHARACTER("invalid number character"),
+        MINUS_INSIDE_NUMBER("minus inside number"),
+        ISOLATED_MINUS("isolated minus"),
+        LEADING_ZERO("leading zero"),
+        MULTIPLE_DOTS("multiple dots"),
+        NO_DIGIT_BEFORE_DOT("no digit before dot"),
+        ADDITIONAL_EXPONENT("additional exponent"),
+        INVALID_EXPONENT("invalid exponent"),
+        UNEXPECTED_END_OF_EXPONENT("unexpected end of exponent"),
+        DOCUMENT_TOO_LONG("document too long"),
+        TOO_MANY_ELEMENTS("too many elements"),
+        NESTING_TOO_DEEP("maximum nesting depth exceeded"),
+        STRING_TOO_LONG("string too long"),
+        NUMBER_TOO_LONG("number too long");
+
+        /**
+         * A short description which forms the beginning of the exception message.
+         */
+        @Getter
+        private final String description;
+    }
+
+    private static final int NO_CHAR = -1;
+    private static final int EOF = -2;
+
+    private final ErrorCode errorCode;
+    private final int index;
+    private final int expectedChar;
+    private final int foundChar;
+    private String message;
+
+    JsonSyntaxException(ErrorCode errorCode, int index, boolean stackTrace)
+    {
+        this(errorCode, NO_CHAR, NO_CHAR, index, null, stackTrace);
+    }
+
+    JsonSyntaxException(ErrorCode errorCode, int index, Exception cause, boolean stackTrace)
+    {
+        this(errorCode, NO_CHAR, NO_CHAR, index, cause, stackTrace);
+    }
+
+    JsonSyntaxException(ErrorCode errorCode, char foundChar, int index, boolean stackTrace)
+    {
+        this(errorCode, NO_CHAR, foundChar, index, null, stackTrace);
+    }
+
+    JsonSyntaxException(char expectedChar, char foundChar, int index, boolean stackTrace)
+    {
+        this(ErrorCode.EXPECTED_CHAR, expectedChar, foundChar, index, null, stackTrace);
+    }
+
+    JsonSyntaxException(char expectedChar, int index, Exception cause, boolean stackTrace)
+    {
+        this(ErrorCode.EXPECTED_CHAR, expectedChar, EOF, index, cause, stackTrace);
+    }
+
+    private JsonSyntaxException(
+        ErrorCode errorCode, int expectedChar, int foundChar, int index, Exception cause, boolean stackTrace)
     {
-        this(message, index, null);
+        super(null, cause, stackTrace, stackTrace);
+        this.errorCode = errorCode;
+        this.expectedChar = expectedChar;
+        this.foundChar = foundChar;
+        this.index = index;
     }
 
-    JsonSyntaxException(String message, int index, Exception cause)
+    /**
+     * @return the kind of syntax error
+     */
+    public ErrorCode getErrorCode()
     {
-        this(String.format("%s at index %d", message, index), cause);
+        return errorCode;
     }
 
-    JsonSyntaxException(String message, char foundChar, int index)
+    /**
+     * @return the index of the JSON source text at which the error was detected. For
+     * {@link ErrorCode#UNBALANCED_JSON}, this is the length of the source text.
+     */
+    public int getIndex()
     {
-        this(message, foundChar, index, null);
+        return index;
     }
 
-    JsonSyntaxException(String message, char foundChar, int index, Exception cause)
+    @Override
+    public String getMessage()
     {
-        this(String.format("%s '%s' at index %d", message, foundChar, index), cause);
+        if (message == null)
+        {
+            message = formatMessage();
+        }
+        return message;
     }
 
-    JsonSyntaxException(String message, Exception cause)
+    private String formatMessage()
     {
-        super(message, cause);
+        String description = errorCode.getDescription();
+        switch (errorCode)
+        {
+            case UNBALANCED_JSON:
+                return description;
+            case EXPECTED_CHAR:
+                if (foundChar == EOF)
+                {
+                    return String.format("%s '%s', found EOF at index %d", description, (char) expectedChar, index);
+                }
+                return String.format("%s '%s', found '%s' at index %d",
+                    description,
+                    (char) expectedChar,
+                    (char) foundChar,
+                    index);
+            case ILLEGAL_CONTROL_CHAR:
+                return String.format("%s %d at index %d", description, foundChar, index);
+            default:
+                if (foundChar == NO_CHAR)
+                {
+                    return String.format("%s at index %d", description, index);
+                }
+                return String.format("%s '%s' at index %d", description, (char) foundChar, index);
+        }
     }
 }
@@ -0,0 +1,265 @@
+package com.github.bannmann.whisperjson;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.NonNull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A JSON document with a fixed structure and slots for values which are supplied when writing it. The constant parts
+ * are validated, minified and encoded to UTF-8 once, so writing the document only copies them and escapes the slot
+ * values directly from their source arrays.<br>
+ * <br>
+ * Slots are marked by {@code ?} characters outside of strings:
+ * <pre>
+ * private static final JsonTemplate LOGIN = JsonTemplate.compile(
+ *     "{\"grant_type\": \"password\", \"username\": ?, \"password\": ?}");
+ *
+ * try (JsonWriter writer = JsonWriter.to(outputStream))
+ * {
+ *     LOGIN.write(writer, userName, password);
+ * }
+ * </pre>
+ * Supported slot values are:
+ * <ul>
+ *     <li>{@code char[]}, {@link SensitiveText} and {@link CharSequence}, which are written as strings</li>
+ *     <li>{@link Long}, {@link Integer}, {@link Short}, {@link Byte}, {@link Double}, {@link Float},
+ *     {@link BigInteger} and {@link BigDecimal}</li>
+ *     <li>{@link Boolean}</li>
+ *     <li>{@link Json} elements created by {@link WhisperJson}, which are copied verbatim</li>
+ *     <li>{@code null}</li>
+ * </ul>
+ * Instances are immutable and thread-safe.
+ */
+public final class JsonTemplate
+{
+    private static final char SLOT = '?';
+
+    /**
+     * The constant parts of the template. Slot {@code i} is located between segments {@code i} and {@code i + 1}.
+     */
+    private final char[][] segments;
+
+    /**
+     * The UTF-8 encoding of {@link #segments}, which is copied when writing to a stream.
+     */
+    private final byte[][] encodedSegments;
+
+    private JsonTemplate(char[][] segments)
+    {
+        this.segments = segments;
+
+        encodedSegments = new byte[segments.length][];
+        for (int i = 0; i < segments.length; i++)
+        {
+            encodedSegments[i] = new String(segments[i]).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Compiles the given template.
+     *
+     * @param template the template, with {@code ?} characters marking the slots
+     *
+     * @return the compiled template
+     *
+     * @throws JsonSyntaxException if the template is not a valid JSON document after replacing each slot with
+     * {@code null}. The reported index refers to that document.
+     * @throws NullPointerException if {@code template} is {@code null}
+     */
+    public static JsonTemplate compile(@NonNull String template)
+    {
+        List<char[]> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        StringBuilder document = new StringBuilder();
+
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = 0; i < template.length(); i++)
+        {
+            char c = template.charAt(i);
+            if (inString)
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                }
+                else if (c == '\\')
+                {
+                    escaped = true;
+                }
+                else if (c == '"')
+                {
+                    inString = false;
+                }
+            }
+            else if (c == '"')
+            {
+                inString = true;
+            }
+            else if (c == SLOT)
+            {
+                segments.add(StringBuilders.copyToCharArray(segment));
+                segment.setLength(0);
+                document.append("null");
+                continue;
+            }
+            else if (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+            {
+                document.append(c);
+                continue;
+            }
+
+            segment.append(c);
+            document.append(c);
+        }
+        segments.add(StringBuilders.copyToCharArray(segment));
+
+        new WhisperJson().validate(document);
+        return new JsonTemplate(segments.toArray(new char[0][]));
+    }
+
+    /**
+     * @return the number of slots of this template
+     */
+    public int getSlotCount()
+    {
+        return segments.length - 1;
+    }
+
+    /**
+     * Writes this template as a value, filling the slots with the given values. The values are checked before writing
+     * anything, so that an unsupported value does not leave an incomplete document behind.
+     *
+     * @param writer the writer to write to
+     * @param values the values of the slots, in the order of the slots
+     *
+     * @throws IllegalArgumentException if the number of values does not match the number of slots, or a value is of
+     * an unsupported type or a non-finite number
+     * @throws IllegalStateException if a value is not allowed at the current position of {@code writer}, or a
+     * {@link SensitiveText} or {@link Json} value was closed
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code writer} or {@code values} is {@code null}
+     */
+    public void write(@NonNull JsonWriter writer, @NonNull Object... values) throws IOException
+    {
+        Preconditions.checkArgument(values.length == getSlotCount(),
+            "Expected %s values, got %s",
+            getSlotCount(),
+            values.length);
+        for (Object value : values)
+        {
+            verifySlot(value);
+        }
+
+        writer.beforeValue();
+        writer.append(segments[0], encodedSegments[0]);
+        for (int i = 0; i < values.length; i++)
+        {
+            writeSlot(writer, values[i]);
+            writer.append(segments[i + 1], encodedSegments[i + 1]);
+        }
+    }
+
+    /**
+     * Writes this template to a new buffer, filling the slots with the given values.
+     *
+     * @param values the values of the slots, in the order of the slots
+     *
+     * @return the document
+     *
+     * @throws IllegalArgumentException if the number of values does not match the number of slots, or a value is of
+     * an unsupported type or a non-finite number
+     * @throws IllegalStateException if a {@link SensitiveText} or {@link Json} value was closed
+     * @throws NullPointerException if {@code values} is {@code null}
+     */
+    public SensitiveText toSensitiveText(@NonNull Object... values)
+    {
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            write(writer, values);
+            return writer.toSensitiveText();
+        }
+        catch (IOException e)
+        {
+            // Buffers never throw IOExceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void verifySlot(Object value)
+    {
+        if (value instanceof Double || value instanceof Float)
+        {
+            double number = ((java.lang.Number) value).doubleValue();
+            Preconditions.checkArgument(Double.isFinite(number), "JSON forbids non-finite numbers");
+        }
+        else if (value != null &&
+            !(value instanceof char[]) &&
+            !(value instanceof SensitiveText) &&
+            !(value instanceof CharSequence) &&
+            !(value instanceof Long) &&
+            !(value instanceof Integer) &&
+            !(value instanceof Short) &&
+            !(value instanceof Byte) &&
+            !(value instanceof BigInteger) &&
+            !(value instanceof BigDecimal) &&
+            !(value instanceof Boolean) &&
+            !(value instanceof Element))
+        {
+            throw new IllegalArgumentException("Unsupported slot value type: " + value.getClass());
+        }
+    }
+
+    /**
+     * Writes a value which was checked by {@link #verifySlot(Object)}.
+     */
+    private static void writeSlot(JsonWriter writer, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            writer.writeNull();
+        }
+        else if (value instanceof char[])
+        {
+            writer.writeString((char[]) value);
+        }
+        else if (value instanceof SensitiveText)
+        {
+            ((SensitiveText) value).readContents(writer::writeString);
+        }
+        else if (value instanceof CharSequence)
+        {
+            writer.writeString((CharSequence) value);
+        }
+        else if (value instanceof Long ||
+            value instanceof Integer ||
+            value instanceof Short ||
+            value instanceof Byte)
+        {
+            writer.writeLong(((java.lang.Number) value).longValue());
+        }
+        else if (value instanceof Double ||
+            value instanceof Float ||
+            value instanceof BigInteger ||
+            value instanceof BigDecimal)
+        {
+            writer.writeNumber(value.toString());
+        }
+        else if (value instanceof Boolean)
+        {
+            writer.writeBoolean((Boolean) value);
+        }
+        else
+        {
+            Element<?, ?> element = (Element<?, ?>) value;
+            writer.writeRaw(element.overlay, element.element, false);
+        }
+    }
+}
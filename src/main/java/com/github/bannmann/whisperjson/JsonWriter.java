@@ -0,0 +1,936 @@
+package com.github.bannmann.whisperjson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import lombok.NonNull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes JSON documents without creating {@link String} instances for sensitive values. Strings are escaped directly
+ * from the given {@code char} arrays, {@link SensitiveText} instances or parsed documents into an internal buffer,
+ * which is wiped before it is reused or released.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * try (JsonWriter writer = JsonWriter.to(outputStream))
+ * {
+ *     writer.beginObject()
+ *         .name("username").value(userName)
+ *         .name("password").value(password)
+ *         .endObject();
+ * }
+ * </pre>
+ * Depending on how an instance is created, it writes to a {@link Writer}, to an {@link OutputStream} using UTF-8 or to
+ * a growable {@code char} array which can be retrieved via {@link #toCharArray()} or {@link #toSensitiveText()}.<br>
+ * <br>
+ * Instances are not thread-safe.
+ */
+public final class JsonWriter implements AutoCloseable
+{
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * Wiped buffers kept for reuse by the next writer created on the same thread.
+     */
+    private static final ThreadLocal<char[]> CHAR_BUFFERS = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> BYTE_BUFFERS = new ThreadLocal<>();
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] TRUE = "true".toCharArray();
+    private static final char[] FALSE = "false".toCharArray();
+    private static final char[] NULL = "null".toCharArray();
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Writer writer;
+    private final OutputStream outputStream;
+
+    private char[] buffer;
+    private int position;
+    private byte[] byteBuffer;
+    private int bytePosition;
+
+    private int[] stack = new int[32];
+    private int depth = 1;
+    private boolean closed;
+
+    private JsonWriter(Writer writer, OutputStream outputStream, char[] buffer, byte[] byteBuffer)
+    {
+        this.writer = writer;
+        this.outputStream = outputStream;
+        this.buffer = buffer;
+        this.byteBuffer = byteBuffer;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Creates a writer for the given {@link Writer}. Output is buffered until the buffer is full or {@link #flush()}
+     * or {@link #close()} is called. Closing the JSON writer does not close the given writer.
+     *
+     * @param writer the writer to write to
+     *
+     * @return a new JSON writer
+     *
+     * @throws NullPointerException if {@code writer} is {@code null}
+     */
+    public static JsonWriter to(@NonNull Writer writer)
+    {
+        return new JsonWriter(writer, null, takeCharBuffer(), null);
+    }
+
+    /**
+     * Creates a writer for the given {@link OutputStream} which encodes the output using UTF-8. Output is buffered
+     * until the buffer is full or {@link #flush()} or {@link #close()} is called. Closing the JSON writer does not
+     * close the given stream.
+     *
+     * @param outputStream the stream to write to
+     *
+     * @return a new JSON writer
+     *
+     * @throws NullPointerException if {@code outputStream} is {@code null}
+     */
+    public static JsonWriter to(@NonNull OutputStream outputStream)
+    {
+        return new JsonWriter(null, outputStream, takeCharBuffer(), takeByteBuffer());
+    }
+
+    /**
+     * Creates a writer which collects the output in a growable {@code char} array. Whenever the array grows, the old
+     * one is wiped. The output is wiped when the writer is {@link #close() closed}.
+     *
+     * @return a new JSON writer
+     */
+    public static JsonWriter toBuffer()
+    {
+        return new JsonWriter(null, null, new char[BUFFER_SIZE], null);
+    }
+
+    private static char[] takeCharBuffer()
+    {
+        char[] result = CHAR_BUFFERS.get();
+        if (result == null)
+        {
+            return new char[BUFFER_SIZE];
+        }
+        CHAR_BUFFERS.remove();
+        return result;
+    }
+
+    private static byte[] takeByteBuffer()
+    {
+        byte[] result = BYTE_BUFFERS.get();
+        if (result == null)
+        {
+            return new byte[BUFFER_SIZE * 3];
+        }
+        BYTE_BUFFERS.remove();
+        return result;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter beginObject() throws IOException
+    {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        append('{');
+        return this;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if the current position is not inside an object or after a name
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter endObject() throws IOException
+    {
+        int context = peek();
+        Preconditions.checkState(context == EMPTY_OBJECT || context == NONEMPTY_OBJECT, "Not inside an object");
+        depth--;
+        append('}');
+        return this;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter beginArray() throws IOException
+    {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        append('[');
+        return this;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if the current position is not inside an array
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter endArray() throws IOException
+    {
+        int context = peek();
+        Preconditions.checkState(context == EMPTY_ARRAY || context == NONEMPTY_ARRAY, "Not inside an array");
+        depth--;
+        append(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of an object property.
+     *
+     * @param name the name
+     *
+     * @return this writer
+     *
+     * @throws IllegalStateException if the current position is not inside an object or after another name
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code name} is {@code null}
+     */
+    public JsonWriter name(@NonNull CharSequence name) throws IOException
+    {
+        beforeName();
+        writeString(name);
+        return this;
+    }
+
+    /**
+     * Writes the name of an object property.
+     *
+     * @param name the name
+     *
+     * @return this writer
+     *
+     * @throws IllegalStateException if the current position is not inside an object or after another name
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code name} is {@code null}
+     */
+    public JsonWriter name(@NonNull char[] name) throws IOException
+    {
+        beforeName();
+        writeString(name);
+        return this;
+    }
+
+    /**
+     * Writes a string value, escaping the characters directly from the given array.
+     *
+     * @param value the value
+     *
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code value} is {@code null}
+     */
+    public JsonWriter value(@NonNull char[] value) throws IOException
+    {
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    /**
+     * Writes a string value, escaping the characters directly from the backing array of the given text.
+     *
+     * @param value the value
+     *
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position or {@code value} was closed
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code value} is {@code null}
+     */
+    public JsonWriter value(@NonNull SensitiveText value) throws IOException
+    {
+        beforeValue();
+        value.readContents(this::writeString);
+        return this;
+    }
+
+    /**
+     * Writes a string value. This method is intended for values which are not sensitive.
+     *
+     * @param value the value
+     *
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code value} is {@code null}
+     */
+    public JsonWriter value(@NonNull CharSequence value) throws IOException
+    {
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    /**
+     * Writes a parsed JSON element, copying its text directly from the parsed document.
+     *
+     * @param value the element
+     *
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position or {@code value} was closed
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code value} is {@code null}
+     * @throws IllegalArgumentException if {@code value} was not created by {@link WhisperJson}
+     */
+    public JsonWriter value(@NonNull Json<?> value) throws IOException
+    {
+        Preconditions.checkArgument(value instanceof Element, "Unsupported JSON implementation: %s", value.getClass());
+
+        Element<?, ?> element = (Element<?, ?>) value;
+        return rawValue(element.overlay, element.element, false);
+    }
+
+    /**
+     * Writes the text of the given key element as the name of an object property.
+     */
+    JsonWriter rawName(Overlay<?> overlay, int key) throws IOException
+    {
+        beforeName();
+        append(overlay.text, overlay.getOffset(key), overlay.getEndOffset(key));
+        return this;
+    }
+
+    /**
+     * Writes the text of the given element as a value.
+     *
+     * @param minify {@code true} to omit whitespace outside of strings
+     */
+    JsonWriter rawValue(Overlay<?> overlay, int element, boolean minify) throws IOException
+    {
+        beforeValue();
+        writeRaw(overlay, element, minify);
+        return this;
+    }
+
+    void writeRaw(Overlay<?> overlay, int element, boolean minify) throws IOException
+    {
+        int from = overlay.getOffset(element);
+        int to = overlay.getEndOffset(element);
+        if (minify)
+        {
+            appendMinified(overlay.text, from, to);
+        }
+        else
+        {
+            append(overlay.text, from, to);
+        }
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter value(boolean value) throws IOException
+    {
+        beforeValue();
+        writeBoolean(value);
+        return this;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter value(long value) throws IOException
+    {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    void writeLong(long value) throws IOException
+    {
+        if (value == Long.MIN_VALUE)
+        {
+            append(Long.toString(value));
+            return;
+        }
+
+        long remaining = Math.abs(value);
+        int digits = 1;
+        for (long limit = 10; digits < 19 && remaining >= limit; limit *= 10)
+        {
+            digits++;
+        }
+
+        int length = value < 0 ? digits + 1 : digits;
+        ensureCapacity(length);
+        if (value < 0)
+        {
+            buffer[position] = '-';
+        }
+        for (int i = position + length - 1; i >= position + length - digits; i--)
+        {
+            buffer[i] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        position += length;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalArgumentException if {@code value} is not finite
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter value(double value) throws IOException
+    {
+        Preconditions.checkArgument(Double.isFinite(value), "JSON forbids non-finite numbers");
+        beforeValue();
+        writeNumber(Double.toString(value));
+        return this;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     * @throws NullPointerException if {@code value} is {@code null}
+     */
+    public JsonWriter value(@NonNull BigDecimal value) throws IOException
+    {
+        beforeValue();
+        writeNumber(value.toString());
+        return this;
+    }
+
+    /**
+     * @return this writer
+     *
+     * @throws IllegalStateException if a value is not allowed at the current position
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public JsonWriter nullValue() throws IOException
+    {
+        beforeValue();
+        writeNull();
+        return this;
+    }
+
+    void writeBoolean(boolean value) throws IOException
+    {
+        append(value ? TRUE : FALSE);
+    }
+
+    /**
+     * @param value the textual representation of a finite number
+     */
+    void writeNumber(String value) throws IOException
+    {
+        append(value);
+    }
+
+    void writeNull() throws IOException
+    {
+        append(NULL);
+    }
+
+    /**
+     * Writes all buffered output to the underlying writer or stream and flushes it.
+     *
+     * @throws IOException if writing to the underlying writer or stream fails
+     */
+    public void flush() throws IOException
+    {
+        verifyNotClosed();
+        drain(true);
+        if (writer != null)
+        {
+            writer.flush();
+        }
+        else if (outputStream != null)
+        {
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * @return a copy of the output, which the caller is responsible for wiping
+     *
+     * @throws IllegalStateException if this writer does not write to a buffer, was closed or the document is incomplete
+     */
+    public char[] toCharArray()
+    {
+        verifyCompleteBufferOutput();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * @return a copy of the output
+     *
+     * @throws IllegalStateException if this writer does not write to a buffer, was closed or the document is incomplete
+     */
+    public SensitiveText toSensitiveText()
+    {
+        verifyCompleteBufferOutput();
+        char[] chars = Arrays.copyOf(buffer, position);
+        try
+        {
+            return new SensitiveText(chars);
+        }
+        finally
+        {
+            Credentials.wipe(chars);
+        }
+    }
+
+    private void verifyCompleteBufferOutput()
+    {
+        Preconditions.checkState(writer == null && outputStream == null, "Writer does not write to a buffer");
+        verifyNotClosed();
+        Preconditions.checkState(depth == 1 && stack[0] == NONEMPTY_DOCUMENT, "Incomplete document");
+    }
+
+    /**
+     * Writes all buffered output to the underlying writer or stream, then wipes and releases the internal buffers.
+     * Subsequent calls to {@code close()} will be ignored.
+     *
+     * @throws IOException if writing to the underlying writer or stream fails. The buffers are wiped nevertheless.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        try
+        {
+            drain(true);
+            if (writer != null)
+            {
+                writer.flush();
+            }
+            else if (outputStream != null)
+            {
+                outputStream.flush();
+            }
+        }
+        finally
+        {
+            closed = true;
+            releaseBuffers();
+        }
+    }
+
+    private void releaseBuffers()
+    {
+        Credentials.wipe(buffer);
+        if (writer != null || outputStream != null)
+        {
+            CHAR_BUFFERS.set(buffer);
+        }
+        buffer = null;
+
+        if (byteBuffer != null)
+        {
+            Arrays.fill(byteBuffer, (byte) 0);
+            BYTE_BUFFERS.set(byteBuffer);
+            byteBuffer = null;
+        }
+    }
+
+    private void verifyNotClosed()
+    {
+        Preconditions.checkState(!closed, "Writer was closed");
+    }
+
+    private int peek()
+    {
+        verifyNotClosed();
+        return stack[depth - 1];
+    }
+
+    private void push(int context)
+    {
+        if (depth == stack.length)
+        {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth] = context;
+        depth++;
+    }
+
+    private void beforeName() throws IOException
+    {
+        int context = peek();
+        Preconditions.checkState(context == EMPTY_OBJECT || context == NONEMPTY_OBJECT, "Not inside an object");
+        if (context == NONEMPTY_OBJECT)
+        {
+            append(',');
+        }
+        stack[depth - 1] = DANGLING_NAME;
+    }
+
+    void beforeValue() throws IOException
+    {
+        switch (peek())
+        {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                append(',');
+                break;
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                append(':');
+                break;
+            case NONEMPTY_DOCUMENT:
+                throw new IllegalStateException("Document already has a value");
+            default:
+                throw new IllegalStateException("Expected a name");
+        }
+    }
+
+    void writeString(char[] value) throws IOException
+    {
+        append('"');
+        int runStart = 0;
+        for (int i = 0; i < value.length; i++)
+        {
+            char c = value[i];
+            if (c < 0x20 || c == '"' || c == '\\')
+            {
+                append(value, runStart, i);
+                appendEscaped(c);
+                runStart = i + 1;
+            }
+        }
+        append(value, runStart, value.length);
+        append('"');
+    }
+
+    void writeString(CharSequence value) throws IOException
+    {
+        append('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\')
+            {
+                appendEscaped(c);
+            }
+            else
+            {
+                append(c);
+            }
+        }
+        append('"');
+    }
+
+    private void appendEscaped(char c) throws IOException
+    {
+        ensureCapacity(6);
+        buffer[position++] = '\\';
+        switch (c)
+        {
+            case '"':
+            case '\\':
+                buffer[position++] = c;
+                break;
+            case '\b':
+                buffer[position++] = 'b';
+                break;
+            case '\f':
+                buffer[position++] = 'f';
+                break;
+            case '\n':
+                buffer[position++] = 'n';
+                break;
+            case '\r':
+                buffer[position++] = 'r';
+                break;
+            case '\t':
+                buffer[position++] = 't';
+                break;
+            default:
+                buffer[position++] = 'u';
+                buffer[position++] = HEX_DIGITS[c >> 12 & 0xF];
+                buffer[position++] = HEX_DIGITS[c >> 8 & 0xF];
+                buffer[position++] = HEX_DIGITS[c >> 4 & 0xF];
+                buffer[position++] = HEX_DIGITS[c & 0xF];
+                break;
+        }
+    }
+
+    void append(char c) throws IOException
+    {
+        ensureCapacity(1);
+        buffer[position++] = c;
+    }
+
+    void append(char[] chars) throws IOException
+    {
+        append(chars, 0, chars.length);
+    }
+
+    /**
+     * Appends constant characters, copying their pre-encoded form instead of encoding them again when writing to a
+     * stream.
+     *
+     * @param chars the characters, which must not start with a low surrogate
+     * @param utf8 the UTF-8 encoding of {@code chars}
+     */
+    void append(char[] chars, byte[] utf8) throws IOException
+    {
+        if (outputStream == null)
+        {
+            append(chars);
+            return;
+        }
+        if (utf8.length == 0)
+        {
+            return;
+        }
+
+        // As the constant does not start with a low surrogate, a trailing high surrogate can be encoded right away
+        verifyNotClosed();
+        encode(position);
+        Arrays.fill(buffer, 0, position, '\0');
+        position = 0;
+
+        int from = 0;
+        while (from < utf8.length)
+        {
+            if (bytePosition == byteBuffer.length)
+            {
+                writeBytes();
+            }
+            int count = Math.min(utf8.length - from, byteBuffer.length - bytePosition);
+            System.arraycopy(utf8, from, byteBuffer, bytePosition, count);
+            bytePosition += count;
+            from += count;
+        }
+    }
+
+    private void append(char[] chars, int from, int to) throws IOException
+    {
+        while (from < to)
+        {
+            ensureCapacity(1);
+            int count = Math.min(to - from, buffer.length - position);
+            System.arraycopy(chars, from, buffer, position, count);
+            position += count;
+            from += count;
+        }
+    }
+
+    void append(Text<?> text, int from, int to) throws IOException
+    {
+        if (TextCodec.requiresDecoding(text, from, to))
+        {
+            Text<?> part = text.getPart(from, to);
+            try
+            {
+                append(part, 0, part.length());
+            }
+            finally
+            {
+                TextCodec.release(part);
+            }
+            return;
+        }
+
+        while (from < to)
+        {
+            ensureCapacity(1);
+            int count = Math.min(to - from, buffer.length - position);
+            text.getChars(from, from + count, buffer, position);
+            position += count;
+            from += count;
+        }
+    }
+
+    /**
+     * Copies runs of characters between whitespace in bulk, keeping whitespace inside of strings.
+     */
+    private void appendMinified(Text<?> text, int from, int to) throws IOException
+    {
+        boolean inString = false;
+        boolean escaped = false;
+        int runStart = from;
+        for (int i = from; i < to; i++)
+        {
+            char c = text.charAt(i);
+            if (inString)
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                }
+                else if (c == '\\')
+                {
+                    escaped = true;
+                }
+                else if (c == '"')
+                {
+                    inString = false;
+                }
+            }
+            else if (c == '"')
+            {
+                inString = true;
+            }
+            else if (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+            {
+                append(text, runStart, i);
+                runStart = i + 1;
+            }
+        }
+        append(text, runStart, to);
+    }
+
+    void append(String string) throws IOException
+    {
+        int from = 0;
+        while (from < string.length())
+        {
+            ensureCapacity(1);
+            int count = Math.min(string.length() - from, buffer.length - position);
+            string.getChars(from, from + count, buffer, position);
+            position += count;
+            from += count;
+        }
+    }
+
+    private void ensureCapacity(int count) throws IOException
+    {
+        if (buffer.length - position >= count)
+        {
+            return;
+        }
+
+        if (writer == null && outputStream == null)
+        {
+            char[] grown = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + count));
+            Credentials.wipe(buffer);
+            buffer = grown;
+        }
+        else
+        {
+            drain(false);
+        }
+    }
+
+    /**
+     * Writes the buffered output to the underlying writer or stream.
+     *
+     * @param complete {@code false} to keep a trailing high surrogate in the buffer when encoding to UTF-8, so that it
+     * can be encoded together with its low surrogate
+     */
+    private void drain(boolean complete) throws IOException
+    {
+        if (writer != null)
+        {
+            writer.write(buffer, 0, position);
+            Credentials.wipe(buffer);
+            position = 0;
+        }
+        else if (outputStream != null)
+        {
+            boolean keepHighSurrogate = !complete && position > 0 && Character.isHighSurrogate(buffer[position - 1]);
+            int end = keepHighSurrogate ? position - 1 : position;
+            encode(end);
+            writeBytes();
+
+            char highSurrogate = keepHighSurrogate ? buffer[end] : 0;
+            Credentials.wipe(buffer);
+            position = 0;
+            if (keepHighSurrogate)
+            {
+                buffer[position++] = highSurrogate;
+            }
+        }
+    }
+
+    /**
+     * Encodes the first {@code end} buffered characters to the byte buffer, writing it whenever it is full.
+     */
+    private void encode(int end) throws IOException
+    {
+        int bytes = bytePosition;
+        for (int i = 0; i < end; i++)
+        {
+            if (bytes > byteBuffer.length - 4)
+            {
+                outputStream.write(byteBuffer, 0, bytes);
+                bytes = 0;
+            }
+
+            char c = buffer[i];
+            if (c < 0x80)
+            {
+                byteBuffer[bytes++] = (byte) c;
+            }
+            else if (c < 0x800)
+            {
+                byteBuffer[bytes++] = (byte) (0xC0 | c >> 6);
+                byteBuffer[bytes++] = (byte) (0x80 | c & 0x3F);
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(buffer[i + 1]))
+            {
+                int codePoint = Character.toCodePoint(c, buffer[i + 1]);
+                byteBuffer[bytes++] = (byte) (0xF0 | codePoint >> 18);
+                byteBuffer[bytes++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                byteBuffer[bytes++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                byteBuffer[bytes++] = (byte) (0x80 | codePoint & 0x3F);
+                i++;
+            }
+            else if (Character.isSurrogate(c))
+            {
+                byteBuffer[bytes++] = (byte) '?';
+            }
+            else
+            {
+                byteBuffer[bytes++] = (byte) (0xE0 | c >> 12);
+                byteBuffer[bytes++] = (byte) (0x80 | c >> 6 & 0x3F);
+                byteBuffer[bytes++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        bytePosition = bytes;
+    }
+
+    private void writeBytes() throws IOException
+    {
+        outputStream.write(byteBuffer, 0, bytePosition);
+        Arrays.fill(byteBuffer, (byte) 0);
+        bytePosition = 0;
+    }
+}
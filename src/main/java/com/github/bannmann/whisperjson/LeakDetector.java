@@ -0,0 +1,131 @@
+package com.github.bannmann.whisperjson;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Detects {@link SafeJson} documents which become unreachable without being closed, by tracking a sample of their
+ * overlays via phantom references. Leaks are optionally wiped, then reported to a {@link LeakListener} and via
+ * {@link WhisperJsonMetrics#leaked(int, StackTraceElement[])}.<br>
+ * <br>
+ * Instead of using a background thread, the reference queue is polled whenever a {@link SafeJson} document is parsed,
+ * sampled or not, so leaks are reported by the next parse call after the garbage collector found them. Polling an
+ * empty queue is cheap, and unsampled documents only cost a random number in addition.
+ *
+ * @see WhisperJson.Builder#leakDetection(int, boolean, LeakListener)
+ */
+final class LeakDetector
+{
+    /**
+     * Tracks one overlay. To be able to wipe the document after the overlay became unreachable, the tracker references
+     * the text and index of the overlay, but never the overlay itself or any of its elements.
+     */
+    final class Tracker extends PhantomReference<Overlay.Safe>
+    {
+        private final int length;
+        private final StackTraceElement[] allocationSite;
+        private Text.Safe text;
+        private List<int[]> blocks;
+        private Text.OffHeap.Arena arena;
+
+        private Tracker(Overlay.Safe overlay, StackTraceElement[] allocationSite)
+        {
+            super(overlay, queue);
+            this.length = overlay.text.length();
+            this.allocationSite = allocationSite;
+            if (wipe)
+            {
+                text = overlay.text;
+                blocks = overlay.blocks;
+                arena = overlay.arena;
+            }
+        }
+
+        /**
+         * Stops tracking the overlay because it was closed properly.
+         */
+        public void closed()
+        {
+            trackers.remove(this);
+            clear();
+        }
+
+        private void leaked()
+        {
+            if (wipe)
+            {
+                Overlay.wipe(text, blocks, arena);
+                text = null;
+                blocks = null;
+                arena = null;
+            }
+            listener.leaked(length, allocationSite);
+            Metrics.leaked(length, allocationSite);
+        }
+    }
+
+    private final int samplingInterval;
+    private final boolean wipe;
+    private final LeakListener listener;
+    private final ReferenceQueue<Overlay.Safe> queue = new ReferenceQueue<>();
+
+    /**
+     * Keeps the trackers themselves reachable until their overlays are either closed or reported.
+     */
+    private final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param samplingInterval track one in this many documents, or none if {@code 0}
+     * @param wipe whether to wipe leaked documents
+     * @param listener the listener to report leaked documents to
+     */
+    public LeakDetector(int samplingInterval, boolean wipe, LeakListener listener)
+    {
+        this.samplingInterval = samplingInterval;
+        this.wipe = wipe;
+        this.listener = listener;
+    }
+
+    /**
+     * Reports all tracked overlays which became unreachable since the last call, and tracks the given overlay if it is
+     * sampled.
+     */
+    public void track(Overlay.Safe overlay)
+    {
+        if (samplingInterval == 0)
+        {
+            return;
+        }
+
+        reportLeaks();
+
+        if (ThreadLocalRandom.current()
+            .nextInt(samplingInterval) != 0)
+        {
+            return;
+        }
+
+        Tracker tracker = new Tracker(overlay, new Throwable().getStackTrace());
+        trackers.add(tracker);
+        overlay.setLeakTracker(tracker);
+    }
+
+    private void reportLeaks()
+    {
+        Reference<? extends Overlay.Safe> reference = queue.poll();
+        while (reference != null)
+        {
+            Tracker tracker = (Tracker) reference;
+            if (trackers.remove(tracker))
+            {
+                tracker.leaked();
+            }
+            reference = queue.poll();
+        }
+    }
+}
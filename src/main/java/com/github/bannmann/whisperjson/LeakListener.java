@@ -0,0 +1,38 @@
+package com.github.bannmann.whisperjson;
+
+/**
+ * Receives reports from {@link WhisperJson.Builder#leakDetection(int, boolean, LeakListener) leak detection} about
+ * {@link SafeJson} documents which became unreachable without being closed.<br>
+ * <br>
+ * Leaks are reported synchronously on a thread calling a parse method, so implementations must be thread-safe, fast
+ * and must not throw exceptions.<br>
+ * <br>
+ * For example, to log leaks including their allocation site:
+ * <pre>
+ * WhisperJson.builder()
+ *     .leakDetection(100, true, (length, allocationSite) -&gt; {
+ *         Throwable allocation = new Throwable("Allocation site of the leaked document");
+ *         allocation.setStackTrace(allocationSite);
+ *         log.warn("A SafeJson document of length {} was not closed", length, allocation);
+ *     })
+ *     .build();
+ * </pre>
+ */
+@FunctionalInterface
+public interface LeakListener
+{
+    /**
+     * Ignores all leaks, so that they are only reported via
+     * {@link WhisperJsonMetrics#leaked(int, StackTraceElement[])}.
+     */
+    LeakListener NONE = (length, allocationSite) -> {
+    };
+
+    /**
+     * Called once for each leaked document. If wiping is enabled, the document has already been wiped.
+     *
+     * @param length the length of the source text, in characters or, for UTF-8 input, in bytes
+     * @param allocationSite the stack trace of the call which parsed the document
+     */
+    void leaked(int length, StackTraceElement[] allocationSite);
+}
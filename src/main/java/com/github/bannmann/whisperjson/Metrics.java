@@ -0,0 +1,122 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Dispatches measurements to all registered {@link WhisperJsonMetrics} implementations.<br>
+ * <br>
+ * As the implementations are loaded once and {@link #ENABLED} is a constant, the JIT compiler removes all measuring
+ * code when no implementation is registered. Callers obtain a start time via {@link #start()} and pass it back when
+ * reporting, so that the clock is only read when measuring.
+ */
+@UtilityClass
+class Metrics
+{
+    private static final WhisperJsonMetrics[] LISTENERS = load();
+    private static final boolean ENABLED = LISTENERS.length > 0;
+
+    private WhisperJsonMetrics[] load()
+    {
+        List<WhisperJsonMetrics> result = new ArrayList<>();
+        for (WhisperJsonMetrics listener : ServiceLoader.load(WhisperJsonMetrics.class))
+        {
+            result.add(listener);
+        }
+        return result.toArray(new WhisperJsonMetrics[0]);
+    }
+
+    public <M extends WhisperJsonMetrics> Optional<M> find(Class<M> type)
+    {
+        for (WhisperJsonMetrics listener : LISTENERS)
+        {
+            if (listener.getClass() == type)
+            {
+                return Optional.of(type.cast(listener));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public long start()
+    {
+        if (ENABLED)
+        {
+            return System.nanoTime();
+        }
+        return 0;
+    }
+
+    public void parsed(int length, int elementCount, long start)
+    {
+        if (ENABLED)
+        {
+            long duration = System.nanoTime() - start;
+            for (WhisperJsonMetrics listener : LISTENERS)
+            {
+                listener.parsed(length, elementCount, duration);
+            }
+        }
+    }
+
+    public void syntaxError(JsonSyntaxException.ErrorCode errorCode)
+    {
+        if (ENABLED)
+        {
+            for (WhisperJsonMetrics listener : LISTENERS)
+            {
+                listener.syntaxError(errorCode);
+            }
+        }
+    }
+
+    public void unescaped(int length)
+    {
+        if (ENABLED)
+        {
+            for (WhisperJsonMetrics listener : LISTENERS)
+            {
+                listener.unescaped(length);
+            }
+        }
+    }
+
+    public void materialized(boolean object, int childCount, long start)
+    {
+        if (ENABLED)
+        {
+            long duration = System.nanoTime() - start;
+            for (WhisperJsonMetrics listener : LISTENERS)
+            {
+                listener.materialized(object, childCount, duration);
+            }
+        }
+    }
+
+    public void leaked(int length, StackTraceElement[] allocationSite)
+    {
+        if (ENABLED)
+        {
+            for (WhisperJsonMetrics listener : LISTENERS)
+            {
+                listener.leaked(length, allocationSite);
+            }
+        }
+    }
+
+    public void closed(int wipedStringCount, long start)
+    {
+        if (ENABLED)
+        {
+            long duration = System.nanoTime() - start;
+            for (WhisperJsonMetrics listener : LISTENERS)
+            {
+                listener.closed(wipedStringCount, duration);
+            }
+        }
+    }
+}
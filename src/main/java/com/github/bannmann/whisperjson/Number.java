@@ -2,7 +2,6 @@ package com.github.bannmann.whisperjson;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Objects;
 
 abstract class Number<J extends Json<J>, O extends Overlay<?>> extends Element<J, O>
 {
@@ -88,7 +87,7 @@ abstract class Number<J extends Json<J>, O extends Overlay<?>> extends Element<J
         if (o instanceof Number<?, ?>)
         {
             Number<?, ?> other = (Number<?, ?>) o;
-            return Objects.equals(other.getOrCreateValue(), getOrCreateValue());
+            return StructuralEquality.equals(overlay, element, other.overlay, other.element);
         }
         return false;
     }
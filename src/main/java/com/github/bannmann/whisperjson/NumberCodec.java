@@ -0,0 +1,261 @@
+package com.github.bannmann.whisperjson;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Converts JSON numbers directly from the text they appear in. Common cases are handled without creating any objects.
+ */
+@UtilityClass
+class NumberCodec
+{
+    /**
+     * Largest integer up to which all integers can be represented exactly by a {@code double}.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten which can be represented exactly by a {@code double}.
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+        1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parses integers with up to 18 digits.
+     *
+     * @return the value, or {@link Long#MIN_VALUE} if the number is not such an integer
+     */
+    public long parseSmallInteger(Text<?> text, int beginIndex, int endIndex)
+    {
+        boolean negative = text.charAt(beginIndex) == '-';
+        int firstDigit = negative ? beginIndex + 1 : beginIndex;
+        if (endIndex - firstDigit > 18)
+        {
+            return Long.MIN_VALUE;
+        }
+
+        long result = 0;
+        for (int i = firstDigit; i < endIndex; i++)
+        {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                return Long.MIN_VALUE;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a number in the same way as {@link Long#parseLong(String)}.
+     *
+     * @throws NumberFormatException if the number has a fraction or exponent, or does not fit into a {@code long}
+     */
+    public long parseLong(Text<?> text, int beginIndex, int endIndex)
+    {
+        boolean negative = text.charAt(beginIndex) == '-';
+        int firstDigit = negative ? beginIndex + 1 : beginIndex;
+
+        // Accumulate negatively to be able to represent Long.MIN_VALUE
+        long result = 0;
+        for (int i = firstDigit; i < endIndex; i++)
+        {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9' || result < Long.MIN_VALUE / 10)
+            {
+                throw numberFormatException(text, beginIndex, endIndex);
+            }
+            result = result * 10 - (c - '0');
+            if (result > 0)
+            {
+                throw numberFormatException(text, beginIndex, endIndex);
+            }
+        }
+
+        if (negative)
+        {
+            return result;
+        }
+        if (result == Long.MIN_VALUE)
+        {
+            throw numberFormatException(text, beginIndex, endIndex);
+        }
+        return -result;
+    }
+
+    /**
+     * Parses a number in the same way as {@link Double#parseDouble(String)}. Numbers with at most 15 significant digits
+     * and a small exponent are converted directly, all others via {@link Double#parseDouble(String)}.
+     */
+    public double parseDouble(Text<?> text, int beginIndex, int endIndex)
+    {
+        boolean negative = text.charAt(beginIndex) == '-';
+        long mantissa = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        int i = negative ? beginIndex + 1 : beginIndex;
+        for (; i < endIndex; i++)
+        {
+            char c = text.charAt(i);
+            if (c == '.')
+            {
+                fraction = true;
+            }
+            else if (c == 'e' || c == 'E')
+            {
+                break;
+            }
+            else
+            {
+                if (mantissa >= MAX_EXACT_MANTISSA / 10)
+                {
+                    return parseDoubleSlowly(text, beginIndex, endIndex);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction)
+                {
+                    exponent--;
+                }
+            }
+        }
+
+        if (i < endIndex)
+        {
+            exponent += parseExponent(text, i + 1, endIndex);
+        }
+
+        if (mantissa == 0)
+        {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exponent < -22 || exponent > 22)
+        {
+            return parseDoubleSlowly(text, beginIndex, endIndex);
+        }
+
+        double result = exponent < 0
+            ? mantissa / EXACT_POWERS_OF_TEN[-exponent]
+            : mantissa * EXACT_POWERS_OF_TEN[exponent];
+        return negative ? -result : result;
+    }
+
+    /**
+     * Formats a number in the same way as ECMAScript's {@code Number.prototype.toString()}, as required by
+     * <a href="https://tools.ietf.org/html/rfc8785#section-3.2.2.3">RFC 8785</a>: the shortest decimal that rounds to
+     * the given value, written without exponent if it lies between 1e-6 (inclusive) and 1e21 (exclusive).
+     *
+     * @throws IllegalArgumentException if the value is not finite
+     */
+    public String formatCanonical(double value)
+    {
+        if (!Double.isFinite(value))
+        {
+            throw new IllegalArgumentException("JSON forbids non-finite numbers");
+        }
+        if (value == 0)
+        {
+            return "0";
+        }
+
+        BigDecimal exact = new BigDecimal(value);
+        // 17 significant digits always suffice to identify a double
+        BigDecimal shortest;
+        int precision = 1;
+        do
+        {
+            shortest = exact.round(new MathContext(precision, RoundingMode.HALF_EVEN));
+            precision++;
+        }
+        while (precision <= 17 && shortest.doubleValue() != value);
+        shortest = shortest.stripTrailingZeros();
+
+        String digits = shortest.unscaledValue()
+            .abs()
+            .toString();
+        int digitCount = digits.length();
+        int pointPosition = digitCount - shortest.scale();
+
+        StringBuilder result = new StringBuilder(digitCount + 8);
+        if (value < 0)
+        {
+            result.append('-');
+        }
+        if (digitCount <= pointPosition && pointPosition <= 21)
+        {
+            result.append(digits);
+            appendZeros(result, pointPosition - digitCount);
+        }
+        else if (0 < pointPosition && pointPosition <= 21)
+        {
+            result.append(digits, 0, pointPosition)
+                .append('.')
+                .append(digits, pointPosition, digitCount);
+        }
+        else if (-6 < pointPosition && pointPosition <= 0)
+        {
+            result.append("0.");
+            appendZeros(result, -pointPosition);
+            result.append(digits);
+        }
+        else
+        {
+            int exponent = pointPosition - 1;
+            result.append(digits.charAt(0));
+            if (digitCount > 1)
+            {
+                result.append('.')
+                    .append(digits, 1, digitCount);
+            }
+            result.append(exponent < 0 ? "e-" : "e+")
+                .append(Math.abs(exponent));
+        }
+        return result.toString();
+    }
+
+    private void appendZeros(StringBuilder builder, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            builder.append('0');
+        }
+    }
+
+    private int parseExponent(Text<?> text, int beginIndex, int endIndex)
+    {
+        boolean negative = text.charAt(beginIndex) == '-';
+        int i = negative || text.charAt(beginIndex) == '+' ? beginIndex + 1 : beginIndex;
+
+        int result = 0;
+        for (; i < endIndex && result < 1000; i++)
+        {
+            result = result * 10 + (text.charAt(i) - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    private double parseDoubleSlowly(Text<?> text, int beginIndex, int endIndex)
+    {
+        return Double.parseDouble(toString(text, beginIndex, endIndex));
+    }
+
+    private NumberFormatException numberFormatException(Text<?> text, int beginIndex, int endIndex)
+    {
+        return new NumberFormatException("For input string: \"" + toString(text, beginIndex, endIndex) + "\"");
+    }
+
+    private String toString(Text<?> text, int beginIndex, int endIndex)
+    {
+        StringBuilder result = new StringBuilder(endIndex - beginIndex);
+        for (int i = beginIndex; i < endIndex; i++)
+        {
+            result.append(text.charAt(i));
+        }
+        return result.toString();
+    }
+}
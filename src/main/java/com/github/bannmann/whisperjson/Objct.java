@@ -1,7 +1,6 @@
 package com.github.bannmann.whisperjson;
 
 import java.util.Map;
-import java.util.Objects;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -29,8 +28,10 @@ abstract class Objct<J extends Json<J>, O extends Overlay<T>, F extends Factory<
         {
             if (element == 0)
             {
+                long start = Metrics.start();
                 overlay.close();
-                factory.close();
+                int wipedCount = factory.wipeStrings();
+                Metrics.closed(wipedCount, start);
             }
         }
     }
@@ -53,7 +54,9 @@ abstract class Objct<J extends Json<J>, O extends Overlay<T>, F extends Factory<
     {
         if (map == null)
         {
+            long start = Metrics.start();
             map = createMap();
+            Metrics.materialized(true, map.size(), start);
         }
         return map;
     }
@@ -61,8 +64,9 @@ abstract class Objct<J extends Json<J>, O extends Overlay<T>, F extends Factory<
     private ImmutableMap<String, J> createMap()
     {
         ImmutableMap.Builder<String, J> result = ImmutableMap.builder();
-        int e = element + 1;
-        while (e <= element + overlay.getChildCount(element))
+        int indexedElement = overlay.getIndexedElement(element);
+        int e = indexedElement + 1;
+        while (e <= indexedElement + overlay.getChildCount(indexedElement))
         {
             String key = overlay.getUnescapedText(e)
                 .asString();
@@ -79,7 +83,7 @@ abstract class Objct<J extends Json<J>, O extends Overlay<T>, F extends Factory<
         if (o instanceof Objct<?, ?, ?, ?>)
         {
             Objct<?, ?, ?, ?> other = (Objct<?, ?, ?, ?>) o;
-            return Objects.equals(other.asObject(), asObject());
+            return StructuralEquality.equals(overlay, element, other.overlay, other.element);
         }
         return false;
     }
@@ -87,6 +91,6 @@ abstract class Objct<J extends Json<J>, O extends Overlay<T>, F extends Factory<
     @Override
     public int hashCode()
     {
-        return asObject().hashCode();
+        return CanonicalJson.hashCode(overlay, element);
     }
 }
@@ -1,15 +1,23 @@
 package com.github.bannmann.whisperjson;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 
 import com.github.mizool.core.exception.CodeInconsistencyException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 
 abstract class Overlay<T extends Text<T>>
 {
@@ -20,6 +28,31 @@ abstract class Overlay<T extends Text<T>>
             super(new Text.Exposed(raw));
         }
 
+        public Exposed(@NonNull Text.Exposed text)
+        {
+            super(text);
+        }
+
+        /**
+         * @param charsPerElement the expected average length of the text per element, used to size the index blocks
+         */
+        public Exposed(@NonNull Text.Exposed text, double charsPerElement)
+        {
+            super(text, false, charsPerElement);
+        }
+
+        /**
+         * Creates a read-only overlay whose elements are read from the given index instead of being parsed.
+         *
+         * @param text the text the index refers to
+         * @param index the components of all elements, as written by {@link IndexedJsonFile}
+         * @param elementCount the number of elements in the index
+         */
+        public Exposed(@NonNull Text.Exposed text, @NonNull IntBuffer index, int elementCount)
+        {
+            super(text, index, elementCount);
+        }
+
         @Override
         protected Function<char[], Text.Exposed> getTextConstructor()
         {
@@ -29,6 +62,8 @@ abstract class Overlay<T extends Text<T>>
 
     public static final class Safe extends Overlay<Text.Safe> implements AutoCloseable
     {
+        private LeakDetector.Tracker leakTracker;
+
         public Safe(@NonNull char[] raw)
         {
             super(new Text.Safe(raw));
@@ -39,30 +74,110 @@ abstract class Overlay<T extends Text<T>>
             super(text);
         }
 
+        /**
+         * @param storage where to keep the index and unescaped values
+         */
+        public Safe(@NonNull Text.Safe text, @NonNull Storage storage)
+        {
+            this(text, storage, DEFAULT_CHARS_PER_ELEMENT);
+        }
+
+        /**
+         * @param storage where to keep the index and unescaped values
+         * @param charsPerElement the expected average length of the text per element, used to size the index blocks
+         */
+        public Safe(@NonNull Text.Safe text, @NonNull Storage storage, double charsPerElement)
+        {
+            super(text, storage == Storage.OFF_HEAP, charsPerElement);
+        }
+
         @Override
         protected Function<char[], Text.Safe> getTextConstructor()
         {
+            if (arena != null)
+            {
+                return arena::copyAndWipe;
+            }
             return Text.Safe::new;
         }
 
         @Override
         public void close()
         {
-            text.close();
+            wipe(text, blocks, arena);
+
+            if (leakTracker != null)
+            {
+                leakTracker.closed();
+                leakTracker = null;
+            }
+        }
 
-            for (int[] block : blocks)
+        /**
+         * Wipes the index and all off-heap memory after parsing failed.
+         *
+         * @param closeText whether to close the text as well, i.e. whether it is a copy the caller cannot wipe
+         */
+        public void discard(boolean closeText)
+        {
+            if (closeText)
             {
-                Arrays.fill(block, 0);
+                close();
             }
+            else
+            {
+                wipe(null, blocks, arena);
+            }
+        }
+
+        public void setLeakTracker(@NonNull LeakDetector.Tracker leakTracker)
+        {
+            this.leakTracker = leakTracker;
+        }
+    }
+
+    /**
+     * Wipes the text and index of a {@link Safe} overlay.
+     *
+     * @param text the text to close, or {@code null} to leave it alone
+     * @param arena the off-heap memory holding the index and unescaped values, or {@code null} if everything is kept
+     * on the heap
+     */
+    static void wipe(Text.Safe text, List<int[]> blocks, Text.OffHeap.Arena arena)
+    {
+        if (text != null)
+        {
+            text.close();
+        }
+
+        for (int[] block : blocks)
+        {
+            Arrays.fill(block, 0);
+        }
+        if (arena != null)
+        {
+            arena.close();
         }
     }
 
+    /**
+     * The average length of the text per element assumed unless the caller knows better.
+     */
+    static final double DEFAULT_CHARS_PER_ELEMENT = 16;
+
     @VisibleForTesting
     static int calculateBlockSize(int rawChars)
     {
-        // make block size (in bytes) roughly equal to input size
+        return calculateBlockSize(rawChars, DEFAULT_CHARS_PER_ELEMENT);
+    }
+
+    @VisibleForTesting
+    static int calculateBlockSize(int rawChars, double charsPerElement)
+    {
+        // make a single block hold all expected elements
         // (min block size is 64 B, max block size is 16 KB)
-        return 4 * Math.min(Math.max(rawChars / 16, 4), 1024);
+        int expectedElements = (int) Math.min(Math.ceil(rawChars / charsPerElement), Integer.MAX_VALUE);
+        return 4 * Math.min(Math.max(expectedElements, 4), 1024);
     }
 
     private static final int TYPE = 0;
@@ -70,20 +185,208 @@ abstract class Overlay<T extends Text<T>>
     private static final int TO = 2;
     private static final int CHILD_COUNT = 3;
 
+    /**
+     * Bits of the {@link #TYPE} component holding the ordinal of the {@link Type}.
+     */
+    private static final int TYPE_MASK = 0xFF;
+
+    /**
+     * Flag within the {@link #TYPE} component marking arrays or objects whose children have not been indexed yet.
+     */
+    private static final int DEFERRED = 0x100;
+
+    /**
+     * Position of the nesting depth of deferred elements within the {@link #TYPE} component, i.e. the number of arrays
+     * and objects containing them.
+     */
+    private static final int DEPTH_SHIFT = 9;
+    private static final int MAX_DEPTH = -1 >>> DEPTH_SHIFT;
+
     @Getter
     protected final T text;
-    protected final List<int[]> blocks = new ArrayList<>();
+
+    /**
+     * The blocks holding the components of all elements. If the overlay contains deferred elements, which may be
+     * expanded while other threads read the overlay, this becomes a copy-on-write list after the initial parse, see
+     * {@link #enableExpansion()}. Existing components are never changed by an expansion.
+     */
+    protected List<int[]> blocks = new ArrayList<>();
     protected final int blockSize;
 
+    @Getter
+    private int elementCount;
+
+    @Getter
+    @Setter
+    private ParseStatistics statistics;
+
+    /**
+     * Maps deferred elements to the elements created when expanding them.
+     */
+    private final Map<Integer, Integer> expandedElements = new HashMap<>();
+
+    /**
+     * The configuration of the parser which created this overlay, used to expand deferred elements and to report
+     * errors while unescaping strings.
+     */
+    @Setter
+    @NonNull
+    private Configuration configuration;
+
+    /**
+     * The components of all elements if they are kept in a buffer instead of {@link #blocks}, {@code null} otherwise.
+     * This is either an index loaded from an {@link IndexedJsonFile}, which contains no deferred elements so that the
+     * parser never adds elements to it, or a view of the {@link #offHeapIndex}.
+     */
+    private volatile IntBuffer indexBuffer;
+
+    /**
+     * The off-heap memory holding the index and unescaped values if {@link Storage#OFF_HEAP} is used, {@code null}
+     * otherwise. If the text has an arena, e.g. because it is kept off-heap, this is the arena of the text.
+     */
+    protected final Text.OffHeap.Arena arena;
+
+    /**
+     * The memory backing the {@link #indexBuffer} if {@link Storage#OFF_HEAP} is used. When the index outgrows it while
+     * expanding a deferred element, the old memory may still be read by other threads, so it is only wiped along with
+     * the {@link #arena}.
+     */
+    private ByteBuffer offHeapIndex;
+
+    /**
+     * Whether a deferred element is being expanded, see {@link #offHeapIndex}.
+     */
+    private boolean expanding;
+
     private Overlay(@NonNull T text)
+    {
+        this(text, false);
+    }
+
+    private Overlay(T text, boolean offHeap)
+    {
+        this(text, offHeap, DEFAULT_CHARS_PER_ELEMENT);
+    }
+
+    private Overlay(T text, boolean offHeap, double charsPerElement)
+    {
+        Preconditions.checkArgument(charsPerElement > 0, "charsPerElement must be positive");
+        this.text = text;
+        this.blockSize = calculateBlockSize(text.length(), charsPerElement);
+        if (offHeap)
+        {
+            arena = text.getArena() != null ? text.getArena() : new Text.OffHeap.Arena();
+            allocateOffHeapIndex(blockSize);
+        }
+        else
+        {
+            arena = null;
+        }
+    }
+
+    private Overlay(T text, IntBuffer loadedIndex, int elementCount)
     {
         this.text = text;
         this.blockSize = calculateBlockSize(text.length());
+        this.arena = null;
+        this.indexBuffer = loadedIndex;
+        this.elementCount = elementCount;
     }
 
     public Type getType(int element)
     {
-        return Type.values()[getComponent(element, TYPE)];
+        return Type.values()[getComponent(element, TYPE) & TYPE_MASK];
+    }
+
+    /**
+     * Checks whether the children of the given array or object are not indexed yet.
+     *
+     * @see #getIndexedElement(int)
+     */
+    public boolean isDeferred(int element)
+    {
+        return (getComponent(element, TYPE) & DEFERRED) != 0;
+    }
+
+    /**
+     * Allows deferred elements to be expanded while other threads read this overlay. This is called once after the
+     * initial parse, so that parsing and reading eagerly indexed overlays are not slowed down by copying the list of
+     * blocks or by volatile reads.
+     */
+    public void enableExpansion()
+    {
+        blocks = new CopyOnWriteArrayList<>(blocks);
+    }
+
+    /**
+     * Gets the element whose children are indexed for the given array or object, indexing them if necessary.<br>
+     * <br>
+     * Expansions are serialized on the overlay, and the elements they create are only published once they are complete.
+     * If an expansion fails, the elements it created are removed again.
+     *
+     * @return the given element if it was indexed eagerly, or the element created when expanding it
+     *
+     * @throws JsonSyntaxException if the element was deferred without checking its syntax, and it contains an error
+     */
+    public int getIndexedElement(int element)
+    {
+        int type = getComponent(element, TYPE);
+        if ((type & DEFERRED) == 0)
+        {
+            return element;
+        }
+
+        synchronized (this)
+        {
+            Integer indexedElement = expandedElements.get(element);
+            if (indexedElement == null)
+            {
+                indexedElement = elementCount;
+                expanding = true;
+                try
+                {
+                    new Parser<>(this, configuration).expand(getOffset(element), type >>> DEPTH_SHIFT);
+                }
+                catch (RuntimeException e)
+                {
+                    truncate(indexedElement);
+                    throw e;
+                }
+                finally
+                {
+                    expanding = false;
+                }
+                expandedElements.put(element, indexedElement);
+            }
+            return indexedElement;
+        }
+    }
+
+    /**
+     * Removes all elements starting with the given one, zeroing their components.
+     */
+    private void truncate(int newElementCount)
+    {
+        if (indexBuffer != null)
+        {
+            for (int i = newElementCount * 4; i < elementCount * 4; i++)
+            {
+                indexBuffer.put(i, 0);
+            }
+        }
+        else
+        {
+            for (int element = newElementCount; element < elementCount; element++)
+            {
+                Arrays.fill(getBlock(element), getBlockIndex(element), getBlockIndex(element) + 4, 0);
+            }
+            int requiredBlocks = (newElementCount * 4 + blockSize - 1) / blockSize;
+            while (blocks.size() > requiredBlocks)
+            {
+                blocks.remove(blocks.size() - 1);
+            }
+        }
+        elementCount = newElementCount;
     }
 
     public int getChildCount(int element)
@@ -96,11 +399,105 @@ abstract class Overlay<T extends Text<T>>
         return text.getPart(getComponent(element, FROM), getComponent(element, TO) + 1);
     }
 
+    /**
+     * Checks whether the given string or property name element equals the given value after unescaping.
+     */
+    public boolean isStringEqualTo(int element, String value)
+    {
+        return TextCodec.unescapedEquals(text, getComponent(element, FROM) + 1, getComponent(element, TO), value);
+    }
+
+    /**
+     * Compares the given number element with the given value.
+     *
+     * @return a negative integer, zero, or a positive integer as the element is less than, equal to, or greater than
+     * the value
+     */
+    public int compareNumber(int element, BigDecimal value)
+    {
+        int from = getComponent(element, FROM);
+        int to = getComponent(element, TO) + 1;
+
+        long longValue = NumberCodec.parseSmallInteger(text, from, to);
+        if (longValue != Long.MIN_VALUE)
+        {
+            return BigDecimal.valueOf(longValue)
+                .compareTo(value);
+        }
+
+        char[] chars = new char[to - from];
+        try
+        {
+            for (int i = 0; i < chars.length; i++)
+            {
+                chars[i] = text.charAt(from + i);
+            }
+            return new BigDecimal(chars).compareTo(value);
+        }
+        finally
+        {
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    /**
+     * Gets the unescaped contents of the given string element as a new array, without creating intermediate objects.
+     */
+    public char[] getUnescapedChars(int element)
+    {
+        int from = getComponent(element, FROM) + 1;
+        int to = getComponent(element, TO);
+        if (TextCodec.requiresDecoding(text, from, to))
+        {
+            T unescapedText = getUnescapedText(element);
+            try
+            {
+                return unescapedText.asCharArray();
+            }
+            finally
+            {
+                TextCodec.release(unescapedText);
+            }
+        }
+
+        if (getType(element) == Type.STRING_ESCAPED)
+        {
+            char[] result = new char[TextCodec.getUnescapedLength(text, from, to)];
+            TextCodec.unescape(text, from, to, result);
+            return result;
+        }
+
+        char[] result = new char[to - from];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = text.charAt(from + i);
+        }
+        return result;
+    }
+
+    public long getLong(int element)
+    {
+        return NumberCodec.parseLong(text, getComponent(element, FROM), getComponent(element, TO) + 1);
+    }
+
+    public double getDouble(int element)
+    {
+        return NumberCodec.parseDouble(text, getComponent(element, FROM), getComponent(element, TO) + 1);
+    }
+
     public int getOffset(int element)
     {
         return getComponent(element, FROM);
     }
 
+    /**
+     * @return the offset after the last character of the given element
+     */
+    public int getEndOffset(int element)
+    {
+        return getComponent(element, TO) + 1;
+    }
+
     public T getUnescapedText(int element)
     {
         T value = text.getPart(getComponent(element, FROM) + 1, getComponent(element, TO));
@@ -108,13 +505,17 @@ abstract class Overlay<T extends Text<T>>
         {
             try
             {
-                return TextCodec.unescape(value, getTextConstructor());
+                return TextCodec.unescape(value, getTextConstructor(), configuration);
             }
             catch (JsonSyntaxException e)
             {
                 // Should have occurred during initial parsing
                 throw new CodeInconsistencyException(e);
             }
+            finally
+            {
+                TextCodec.release(value);
+            }
         }
         return value;
     }
@@ -123,6 +524,10 @@ abstract class Overlay<T extends Text<T>>
 
     private int getComponent(int element, int offset)
     {
+        if (indexBuffer != null)
+        {
+            return indexBuffer.get(element * 4 + offset);
+        }
         return getBlock(element)[getBlockIndex(element) + offset];
     }
 
@@ -133,11 +538,40 @@ abstract class Overlay<T extends Text<T>>
 
     public void createLeafElement(int element, Type type, int from, int to)
     {
-        createElement(element, type, from, to, 0);
+        createElement(element, type.ordinal(), from, to, 0);
     }
 
-    private void createElement(int element, Type type, int from, int to, int childCount)
+    /**
+     * @param depth the number of arrays and objects containing the element
+     */
+    public void createDeferredElement(int element, Type type, int from, int to, int depth)
     {
+        createElement(element, getDeferredType(type, depth), from, to, 0);
+    }
+
+    private static int getDeferredType(Type type, int depth)
+    {
+        // Depths beyond MAX_DEPTH require documents of several megabytes consisting only of brackets
+        return type.ordinal() | DEFERRED | Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT;
+    }
+
+    private void createElement(int element, int type, int from, int to, int childCount)
+    {
+        if (indexBuffer != null)
+        {
+            int index = element * 4;
+            if (index + 4 > indexBuffer.capacity())
+            {
+                growOffHeapIndex();
+            }
+            indexBuffer.put(index, type);
+            indexBuffer.put(index + FROM, from);
+            indexBuffer.put(index + TO, to);
+            indexBuffer.put(index + CHILD_COUNT, childCount);
+            elementCount = Math.max(elementCount, element + 1);
+            return;
+        }
+
         int currentBlock = (element * 4) / blockSize;
         if (currentBlock == blocks.size())
         {
@@ -145,10 +579,11 @@ abstract class Overlay<T extends Text<T>>
         }
         int[] block = blocks.get(currentBlock);
         int index = getBlockIndex(element);
-        block[index] = type.ordinal();
+        block[index] = type;
         block[index + FROM] = from;
         block[index + TO] = to;
         block[index + CHILD_COUNT] = childCount;
+        elementCount = Math.max(elementCount, element + 1);
     }
 
     private int getBlockIndex(int element)
@@ -156,16 +591,56 @@ abstract class Overlay<T extends Text<T>>
         return (element * 4) % blockSize;
     }
 
-    public void openStructureElement(int nextElementNumber, Type type, int pos)
+    public void openStructureElement(int element, Type type, int pos)
     {
-        createElement(nextElementNumber, type, pos, -1, -1);
+        createElement(element, type.ordinal(), pos, -1, -1);
+    }
+
+    /**
+     * @param depth the number of arrays and objects containing the element
+     */
+    public void openDeferredStructureElement(int element, Type type, int pos, int depth)
+    {
+        createElement(element, getDeferredType(type, depth), pos, -1, -1);
     }
 
     public void closeStructureElement(int element, int to, int childCount)
     {
+        if (indexBuffer != null)
+        {
+            indexBuffer.put(element * 4 + TO, to);
+            indexBuffer.put(element * 4 + CHILD_COUNT, childCount);
+            return;
+        }
+
         int[] block = getBlock(element);
         int index = getBlockIndex(element);
         block[index + TO] = to;
         block[index + CHILD_COUNT] = childCount;
     }
+
+    private void allocateOffHeapIndex(int components)
+    {
+        offHeapIndex = arena.allocate(components * Integer.BYTES);
+        indexBuffer = offHeapIndex.asIntBuffer();
+    }
+
+    /**
+     * Doubles the off-heap index, zeroing the old memory unless other threads may still read it.
+     */
+    private void growOffHeapIndex()
+    {
+        ByteBuffer oldMemory = offHeapIndex;
+        IntBuffer oldIndex = indexBuffer;
+        offHeapIndex = arena.allocate(oldIndex.capacity() * 2 * Integer.BYTES);
+        IntBuffer newIndex = offHeapIndex.asIntBuffer();
+        newIndex.duplicate()
+            .put(oldIndex.duplicate());
+        indexBuffer = newIndex;
+
+        if (!expanding)
+        {
+            Text.wipe(oldMemory);
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.Optional;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Describes the structure of a parsed document, as recorded by the parser. Only the elements which were indexed while
+ * parsing are counted: parts excluded by a {@link Projection} are not counted, and neither is the content of
+ * structures deferred by {@link Indexing#ON_DEMAND} indexing.
+ *
+ * @see WhisperJson.Builder#adaptiveBlockSizing(boolean)
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ParseStatistics
+{
+    /**
+     * The length of the source text, in characters or, for UTF-8 input, in bytes.
+     */
+    int length;
+
+    int elementCount;
+
+    /**
+     * The maximum nesting depth of arrays and objects, which is {@code 0} for documents consisting of a single
+     * primitive value.
+     */
+    int maxDepth;
+
+    /**
+     * The number of strings, including object keys.
+     */
+    int stringCount;
+
+    /**
+     * The number of strings containing escape sequences, including object keys.
+     */
+    int escapedStringCount;
+
+    /**
+     * Gets the statistics of the document containing the given element.
+     *
+     * @param json any element of the document
+     *
+     * @return the statistics, or an empty optional if the document was not parsed, e.g. because it was loaded via
+     * {@link IndexedJsonFile#map(java.nio.file.Path)}
+     *
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}
+     * @throws NullPointerException if {@code json} is {@code null}
+     */
+    public static Optional<ParseStatistics> of(@NonNull Json<?> json)
+    {
+        Preconditions.checkArgument(json instanceof Element, "Unsupported JSON implementation: %s", json.getClass());
+        return Optional.ofNullable(((Element<?, ?>) json).overlay.getStatistics());
+    }
+
+    /**
+     * Returns the fraction of strings which contain escape sequences, or {@code 0} if there are no strings.
+     */
+    public double getEscapedStringRatio()
+    {
+        if (stringCount == 0)
+        {
+            return 0;
+        }
+        return (double) escapedStringCount / stringCount;
+    }
+
+    /**
+     * Returns the average length of the source text per element, including whitespace and separators.
+     */
+    public double getCharsPerElement()
+    {
+        return (double) length / Math.max(elementCount, 1);
+    }
+}
@@ -1,22 +1,40 @@
 package com.github.bannmann.whisperjson;
 
+import java.util.Arrays;
+
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 
+import com.github.bannmann.whisperjson.JsonSyntaxException.ErrorCode;
 import com.google.common.base.CharMatcher;
 
 class Parser<T extends Text<T>>
 {
+    private enum Deferral
+    {
+        /**
+         * All structures are indexed.
+         */
+        NONE,
+
+        /**
+         * Nested structures are parsed, but only indexed as a single element which is expanded on demand.
+         */
+        SUPPRESS,
+
+        /**
+         * Nested structures are scanned for their end and indexed as a single element which is expanded on demand.
+         */
+        SCAN
+    }
+
     private static final CharMatcher HEX_DIGIT = CharMatcher.inRange('0', '9')
         .or(CharMatcher.inRange('A', 'F'))
         .or(CharMatcher.inRange('a', 'f'))
         .precomputed();
 
-    @RequiredArgsConstructor
     private class NumberParser
     {
-        private final int from;
-
+        private int from;
         private boolean minus;
         private boolean leadingZero;
         private boolean dot;
@@ -24,8 +42,10 @@ class Parser<T extends Text<T>>
         private int exponentPos;
         private boolean exponentIncomplete;
 
-        private void execute()
+        private void execute(int from)
         {
+            reset(from);
+
             boolean finished = false;
             while (isPositionValid() && !finished)
             {
@@ -88,6 +108,7 @@ class Parser<T extends Text<T>>
                 }
                 if (!finished)
                 {
+                    rejectExcessiveLength();
                     pos++;
                 }
             }
@@ -96,11 +117,30 @@ class Parser<T extends Text<T>>
             createLeafElement(Type.NUMBER, from, pos - 1);
         }
 
+        private void reset(int from)
+        {
+            this.from = from;
+            minus = false;
+            leadingZero = false;
+            dot = false;
+            exponent = false;
+            exponentPos = 0;
+            exponentIncomplete = false;
+        }
+
+        private void rejectExcessiveLength()
+        {
+            if (pos - from == configuration.getMaxNumberLength())
+            {
+                throw configuration.limitExceeded(ErrorCode.NUMBER_TOO_LONG, from);
+            }
+        }
+
         private void rejectPlusOutsideExponent()
         {
             if (!exponent)
             {
-                throw new JsonSyntaxException("invalid number character", getCurrentChar(), pos);
+                throw configuration.syntaxError(ErrorCode.INVALID_NUMBER_CHARACTER, getCurrentChar(), pos);
             }
         }
 
@@ -108,7 +148,7 @@ class Parser<T extends Text<T>>
         {
             if (exponent && pos > exponentPos + 1)
             {
-                throw new JsonSyntaxException("invalid exponent", getCurrentChar(), pos);
+                throw configuration.syntaxError(ErrorCode.INVALID_EXPONENT, getCurrentChar(), pos);
             }
         }
 
@@ -116,7 +156,7 @@ class Parser<T extends Text<T>>
         {
             if (pos > from && !exponent)
             {
-                throw new JsonSyntaxException("minus inside number", pos);
+                throw configuration.syntaxError(ErrorCode.MINUS_INSIDE_NUMBER, pos);
             }
         }
 
@@ -124,7 +164,7 @@ class Parser<T extends Text<T>>
         {
             if (exponent)
             {
-                throw new JsonSyntaxException("additional exponent", pos);
+                throw configuration.syntaxError(ErrorCode.ADDITIONAL_EXPONENT, pos);
             }
         }
 
@@ -132,7 +172,7 @@ class Parser<T extends Text<T>>
         {
             if (dot)
             {
-                throw new JsonSyntaxException("multiple dots", pos - 1);
+                throw configuration.syntaxError(ErrorCode.MULTIPLE_DOTS, pos - 1);
             }
         }
 
@@ -140,7 +180,7 @@ class Parser<T extends Text<T>>
         {
             if (exponent)
             {
-                throw new JsonSyntaxException("invalid exponent", getCurrentChar(), pos);
+                throw configuration.syntaxError(ErrorCode.INVALID_EXPONENT, getCurrentChar(), pos);
             }
         }
 
@@ -148,7 +188,7 @@ class Parser<T extends Text<T>>
         {
             if (pos == from || (minus && (pos == from + 1)))
             {
-                throw new JsonSyntaxException("no digit before dot", pos);
+                throw configuration.syntaxError(ErrorCode.NO_DIGIT_BEFORE_DOT, pos);
             }
         }
 
@@ -156,7 +196,7 @@ class Parser<T extends Text<T>>
         {
             if (leadingZero)
             {
-                throw new JsonSyntaxException("leading zero", pos - 1);
+                throw configuration.syntaxError(ErrorCode.LEADING_ZERO, pos - 1);
             }
         }
 
@@ -164,7 +204,7 @@ class Parser<T extends Text<T>>
         {
             if (minus && pos == from + 1)
             {
-                throw new JsonSyntaxException("isolated minus", pos - 1);
+                throw configuration.syntaxError(ErrorCode.ISOLATED_MINUS, pos - 1);
             }
         }
 
@@ -174,57 +214,255 @@ class Parser<T extends Text<T>>
             {
                 if (!isPositionValid())
                 {
-                    throw new JsonSyntaxException("unexpected end of exponent", pos);
+                    throw configuration.syntaxError(ErrorCode.UNEXPECTED_END_OF_EXPONENT, pos);
                 }
-                throw new JsonSyntaxException("invalid exponent", getCurrentChar(), pos);
+                throw configuration.syntaxError(ErrorCode.INVALID_EXPONENT, getCurrentChar(), pos);
             }
         }
     }
 
+    private static final int INITIAL_STACK_DEPTH = 16;
+    private static final int FRAME_SIZE = 5;
+    private static final int FRAME_ELEMENT = 0;
+    private static final int FRAME_KIND = 1;
+    private static final int FRAME_PROJECTION_NODE = 2;
+    private static final int FRAME_ARRAY_INDEX = 3;
+    private static final int FRAME_INDEXING = 4;
+    private static final int KIND_ARRAY = 0;
+    private static final int KIND_OBJECT = 1;
+
+    /**
+     * The structure is indexed including its children.
+     */
+    private static final int INDEXED = 0;
+
+    /**
+     * The structure is indexed as a single deferred element, its children are only parsed.
+     */
+    private static final int DEFERRED = 1;
+
+    /**
+     * The structure is only parsed because it is nested inside a deferred structure.
+     */
+    private static final int SUPPRESSED = 2;
+
     protected final T text;
     protected final Overlay<T> overlay;
+    private final Configuration configuration;
+    private final Projection projection;
+
+    /**
+     * How to handle structures nested inside the top level structure.
+     */
+    private Deferral deferral;
+    private final NumberParser numberParser = new NumberParser();
 
     protected int nextElementNumber;
     private int pos;
+    private int projectionNode = Projection.ALL;
+
+    /**
+     * Holds one frame per open array or object, each consisting of the element number, the kind of structure, the
+     * projection node and the number of array values encountered so far. Using this explicit stack instead of recursion
+     * allows nesting levels to be limited by {@link Configuration#getMaxNestingDepth()} instead of the size of the
+     * thread stack.
+     */
+    private int[] stack = new int[INITIAL_STACK_DEPTH * FRAME_SIZE];
+    private int depth;
+
+    /**
+     * Holds one bit per bracket opened while {@link #skipValue() skipping} a value, set for objects and cleared for
+     * arrays, so that mismatched closing brackets are rejected.
+     */
+    private int[] skippedBrackets = new int[1];
+
+    /**
+     * The number of arrays and objects containing the structure being expanded, which count towards
+     * {@link Configuration#getMaxNestingDepth()} in addition to the frames on the {@link #stack}.
+     */
+    private int baseDepth;
+
+    private int maxDepth;
+    private int stringCount;
+    private int escapedStringCount;
+
+    public Parser(@NonNull Overlay<T> overlay, @NonNull Configuration configuration)
+    {
+        this(overlay.getText(), overlay, configuration, null);
+    }
+
+    /**
+     * Creates a parser which only writes overlay elements for the parts of the text selected by the given projection.
+     * All other parts are skipped after checking that their strings are terminated and their brackets are balanced.
+     */
+    public Parser(@NonNull Overlay<T> overlay, @NonNull Configuration configuration, @NonNull Projection projection)
+    {
+        this(overlay.getText(), overlay, configuration, projection);
+    }
 
-    public Parser(@NonNull Overlay<T> overlay)
+    /**
+     * Creates a parser which only checks the syntax of the given text, without writing an overlay.
+     */
+    public Parser(@NonNull T text, @NonNull Configuration configuration)
     {
+        this(text, null, configuration, null);
+    }
+
+    private Parser(T text, Overlay<T> overlay, Configuration configuration, Projection projection)
+    {
+        this.text = text;
         this.overlay = overlay;
-        this.text = overlay.getText();
+        this.configuration = configuration;
+        this.projection = projection;
+        deferral = getDeferral(overlay, configuration);
+        if (projection != null)
+        {
+            projectionNode = projection.getRootNode();
+        }
+    }
+
+    private static Deferral getDeferral(Overlay<?> overlay, Configuration configuration)
+    {
+        if (overlay == null)
+        {
+            return Deferral.NONE;
+        }
+        switch (configuration.getIndexing())
+        {
+            case ON_DEMAND:
+                return Deferral.SUPPRESS;
+            case ON_DEMAND_LENIENT:
+                return Deferral.SCAN;
+            default:
+                return Deferral.NONE;
+        }
     }
 
     public void execute()
     {
+        long start = Metrics.start();
+        try
+        {
+            parseDocument();
+        }
+        catch (JsonSyntaxException e)
+        {
+            Metrics.syntaxError(e.getErrorCode());
+            throw e;
+        }
+        Metrics.parsed(text.length(), nextElementNumber, start);
+    }
+
+    private void parseDocument()
+    {
+        if (overlay != null)
+        {
+            overlay.setConfiguration(configuration);
+        }
+
+        if (text.length() > configuration.getMaxDocumentLength())
+        {
+            throw configuration.limitExceeded(ErrorCode.DOCUMENT_TOO_LONG, configuration.getMaxDocumentLength());
+        }
+
         try
         {
             parseValue();
             skipWhitespace();
             if (pos != text.length())
             {
-                throw new JsonSyntaxException("malformed json", Math.min(pos, text.length()));
+                throw configuration.syntaxError(ErrorCode.MALFORMED_JSON, Math.min(pos, text.length()));
             }
         }
         catch (IndexOutOfBoundsException e)
         {
-            throw new JsonSyntaxException("unbalanced json", e);
+            throw configuration.syntaxError(ErrorCode.UNBALANCED_JSON, text.length(), e);
+        }
+
+        if (overlay != null)
+        {
+            overlay.setStatistics(new ParseStatistics(text.length(),
+                nextElementNumber,
+                maxDepth,
+                stringCount,
+                escapedStringCount));
+            if (deferral != Deferral.NONE)
+            {
+                overlay.enableExpansion();
+            }
+        }
+    }
+
+    /**
+     * Indexes a deferred structure, appending its elements to the overlay. Structures nested inside it are deferred in
+     * turn.
+     *
+     * @param from the index of the opening bracket
+     * @param depth the number of arrays and objects containing the structure
+     */
+    public void expand(int from, int depth)
+    {
+        deferral = Deferral.SCAN;
+        nextElementNumber = overlay.getElementCount();
+        baseDepth = depth;
+        pos = from;
+        try
+        {
+            parseValue();
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            JsonSyntaxException exception = configuration.syntaxError(ErrorCode.UNBALANCED_JSON, text.length(), e);
+            Metrics.syntaxError(exception.getErrorCode());
+            throw exception;
+        }
+        catch (JsonSyntaxException e)
+        {
+            Metrics.syntaxError(e.getErrorCode());
+            throw e;
         }
     }
 
     private void parseValue()
+    {
+        boolean valueExpected = true;
+        while (valueExpected || depth > 0)
+        {
+            if (valueExpected)
+            {
+                valueExpected = beginValue();
+            }
+            else
+            {
+                valueExpected = continueStructure();
+            }
+        }
+    }
+
+    /**
+     * Parses a scalar value or opens a structure.
+     *
+     * @return {@code true} if a non-empty structure was opened and its first value is to be parsed next; {@code false}
+     * if the innermost open structure (if any) continues
+     */
+    private boolean beginValue()
     {
         skipWhitespace();
         char c = getCurrentChar();
+        if ((c == '{' || c == '[') && deferral == Deferral.SCAN && isDeferrable())
+        {
+            deferStructure(c == '{' ? Type.OBJECT : Type.ARRAY);
+            return false;
+        }
         switch (c)
         {
             case '"':
                 parseString();
-                break;
+                return false;
             case '{':
-                parseObject();
-                break;
+                return beginObject();
             case '[':
-                parseArray();
-                break;
+                return beginArray();
             case '0':
             case '1':
             case '2':
@@ -237,42 +475,363 @@ class Parser<T extends Text<T>>
             case '9':
             case '-':
                 parseNumber();
-                break;
+                return false;
             case 't':
                 parseTrue();
-                break;
+                return false;
             case 'f':
                 parseFalse();
-                break;
+                return false;
             case 'n':
                 parseNull();
-                break;
+                return false;
             default:
-                throw new JsonSyntaxException("illegal char", c, pos);
+                throw configuration.syntaxError(ErrorCode.ILLEGAL_CHAR, c, pos);
+        }
+    }
+
+    private boolean beginArray()
+    {
+        pushFrame(KIND_ARRAY);
+        openStructureElement(Type.ARRAY);
+        skipWhitespace();
+        if (getCurrentChar() == ']')
+        {
+            closeStructure();
+            return false;
+        }
+        return beginArrayValue();
+    }
+
+    private boolean beginObject()
+    {
+        pushFrame(KIND_OBJECT);
+        openStructureElement(Type.OBJECT);
+        skipWhitespace();
+        if (getCurrentChar() == '}')
+        {
+            closeStructure();
+            return false;
+        }
+        return parseKey();
+    }
+
+    /**
+     * Continues the innermost open structure after one of its values was completed or skipped.
+     *
+     * @return {@code true} if another value is to be parsed next; {@code false} if the structure was closed or the next
+     * value was skipped
+     */
+    private boolean continueStructure()
+    {
+        skipWhitespace();
+        boolean isObject = stack[(depth - 1) * FRAME_SIZE + FRAME_KIND] == KIND_OBJECT;
+        if (getCurrentChar() == (isObject ? '}' : ']'))
+        {
+            closeStructure();
+            return false;
+        }
+
+        verifyCurrentChar(',');
+        pos++;
+        if (isObject)
+        {
+            skipWhitespace();
+            return parseKey();
+        }
+        return beginArrayValue();
+    }
+
+    /**
+     * @return {@code true} if the property value is to be parsed next; {@code false} if it was skipped
+     */
+    private boolean parseKey()
+    {
+        verifyCurrentChar('"');
+        int from = pos;
+        Type type = scanString();
+        int to = pos - 1;
+        skipWhitespace();
+
+        verifyCurrentChar(':');
+        pos++;
+
+        int node = getFrameComponent(FRAME_PROJECTION_NODE);
+        if (node != Projection.ALL)
+        {
+            node = projection.findChildByName(node, text, from + 1, to);
+            if (!isSelected(node))
+            {
+                skipValue();
+                return false;
+            }
+        }
+
+        writeLeafElement(type, from, to);
+        projectionNode = node;
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the array value is to be parsed next; {@code false} if it was skipped
+     */
+    private boolean beginArrayValue()
+    {
+        int node = getFrameComponent(FRAME_PROJECTION_NODE);
+        if (node != Projection.ALL)
+        {
+            int index = stack[(depth - 1) * FRAME_SIZE + FRAME_ARRAY_INDEX]++;
+            node = projection.findChildByIndex(node, index);
+            if (!isSelected(node))
+            {
+                skipValue();
+                return false;
+            }
+        }
+
+        projectionNode = node;
+        return true;
+    }
+
+    /**
+     * Checks whether a structure starting at the current position would be nested directly inside an indexed structure
+     * and is selected completely.
+     */
+    private boolean isDeferrable()
+    {
+        return depth > 0 && getFrameComponent(FRAME_INDEXING) == INDEXED && projectionNode == Projection.ALL;
+    }
+
+    private void deferStructure(Type type)
+    {
+        int from = pos;
+        skipValue();
+        rejectExcessiveElements(from);
+        overlay.createDeferredElement(nextElementNumber, type, from, pos - 1, baseDepth + depth);
+        nextElementNumber++;
+    }
+
+    private boolean isIndexing()
+    {
+        return depth == 0 || getFrameComponent(FRAME_INDEXING) == INDEXED;
+    }
+
+    private boolean isSelected(int node)
+    {
+        if (node == Projection.ALL)
+        {
+            return true;
+        }
+        if (node == Projection.NONE)
+        {
+            return false;
+        }
+
+        // The node selects paths inside the value, which only makes sense for structures
+        skipWhitespace();
+        char c = getCurrentChar();
+        return c == '{' || c == '[';
+    }
+
+    private int getFrameComponent(int component)
+    {
+        return stack[(depth - 1) * FRAME_SIZE + component];
+    }
+
+    /**
+     * Skips the next value, only tracking strings and brackets to find its end. This is considerably faster than parsing
+     * it, but only detects a small subset of syntax errors.
+     */
+    private void skipValue()
+    {
+        skipWhitespace();
+        int nesting = 0;
+        do
+        {
+            char c = getCurrentChar();
+            switch (c)
+            {
+                case '"':
+                    skipString();
+                    break;
+                case '{':
+                case '[':
+                    pushSkippedBracket(nesting, c == '{');
+                    nesting++;
+                    pos++;
+                    break;
+                case '}':
+                case ']':
+                    if (nesting == 0 || isSkippedObject(nesting - 1) != (c == '}'))
+                    {
+                        throw configuration.syntaxError(ErrorCode.ILLEGAL_CHAR, c, pos);
+                    }
+                    nesting--;
+                    pos++;
+                    break;
+                default:
+                    if (nesting == 0)
+                    {
+                        skipScalar();
+                    }
+                    else
+                    {
+                        pos++;
+                    }
+                    break;
+            }
+        }
+        while (nesting > 0);
+    }
+
+    /**
+     * Records the kind of a bracket opened while skipping, using one bit per nesting level.
+     */
+    private void pushSkippedBracket(int nesting, boolean object)
+    {
+        int word = nesting >>> 5;
+        if (word == skippedBrackets.length)
+        {
+            skippedBrackets = Arrays.copyOf(skippedBrackets, skippedBrackets.length * 2);
+        }
+        if (object)
+        {
+            skippedBrackets[word] |= 1 << nesting;
+        }
+        else
+        {
+            skippedBrackets[word] &= ~(1 << nesting);
+        }
+    }
+
+    private boolean isSkippedObject(int nesting)
+    {
+        return (skippedBrackets[nesting >>> 5] & (1 << nesting)) != 0;
+    }
+
+    private void skipString()
+    {
+        pos++;
+        while (true)
+        {
+            char c = getCurrentChar();
+            if (c == '"')
+            {
+                pos++;
+                return;
+            }
+            pos += c == '\\' ? 2 : 1;
+        }
+    }
+
+    private void skipScalar()
+    {
+        int from = pos;
+        while (isPositionValid())
+        {
+            char c = getCurrentChar();
+            if (c == ',' || c == ']' || c == '}' || c == ' ' || c == '\t' || c == '\n' || c == '\r')
+            {
+                break;
+            }
+            pos++;
+        }
+        if (pos == from)
+        {
+            throw configuration.syntaxError(ErrorCode.ILLEGAL_CHAR, getCurrentChar(), pos);
+        }
+    }
+
+    private void pushFrame(int kind)
+    {
+        if (baseDepth + depth >= configuration.getMaxNestingDepth())
+        {
+            throw configuration.limitExceeded(ErrorCode.NESTING_TOO_DEEP, pos);
+        }
+        int index = depth * FRAME_SIZE;
+        if (index == stack.length)
+        {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[index + FRAME_ELEMENT] = nextElementNumber;
+        stack[index + FRAME_KIND] = kind;
+        stack[index + FRAME_PROJECTION_NODE] = projectionNode;
+        stack[index + FRAME_ARRAY_INDEX] = 0;
+        stack[index + FRAME_INDEXING] = getIndexingOfNewFrame();
+        depth++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private int getIndexingOfNewFrame()
+    {
+        if (depth == 0)
+        {
+            return INDEXED;
+        }
+        if (getFrameComponent(FRAME_INDEXING) != INDEXED)
+        {
+            return SUPPRESSED;
+        }
+        if (deferral == Deferral.SUPPRESS && projectionNode == Projection.ALL)
+        {
+            return DEFERRED;
+        }
+        return INDEXED;
+    }
+
+    private void closeStructure()
+    {
+        int indexing = getFrameComponent(FRAME_INDEXING);
+        int element = getFrameComponent(FRAME_ELEMENT);
+        depth--;
+        if (indexing == SUPPRESSED)
+        {
+            pos++;
+        }
+        else
+        {
+            closeStructureElement(element, indexing == DEFERRED ? 0 : nextElementNumber - element - 1);
         }
     }
 
     private void parseNumber()
     {
-        new NumberParser(pos).execute();
+        numberParser.execute(pos);
     }
 
     private void parseString()
+    {
+        int from = pos;
+        Type type = scanString();
+        createLeafElement(type, from, pos - 1);
+    }
+
+    /**
+     * Moves past the string starting at the current position.
+     *
+     * @return {@link Type#STRING_ESCAPED} if the string contains escape sequences, {@link Type#STRING} otherwise
+     */
+    private Type scanString()
     {
         Type type = Type.STRING;
         int from = pos;
         pos++;
         while (true)
         {
+            if (pos - from - 1 > configuration.getMaxStringLength())
+            {
+                throw configuration.limitExceeded(ErrorCode.STRING_TOO_LONG, from);
+            }
+
             char c = getCurrentChar();
             if (c == '"')
             {
-                createLeafElement(type, from, pos);
-                return;
+                pos++;
+                return type;
             }
             else if (c < 32)
             {
-                throw new JsonSyntaxException(String.format("illegal control char %d", (int) c), pos);
+                throw configuration.syntaxError(ErrorCode.ILLEGAL_CONTROL_CHAR, c, pos);
             }
             else if (c == '\\')
             {
@@ -291,73 +850,16 @@ class Parser<T extends Text<T>>
                     case 't':
                         break;
                     case 'u':
-                        pos++;
                         expectFourHexDigits();
                         break;
                     default:
-                        throw new JsonSyntaxException("illegal escape char", escapeChar, pos);
+                        throw configuration.syntaxError(ErrorCode.ILLEGAL_ESCAPE_CHAR, escapeChar, pos);
                 }
             }
             pos++;
         }
     }
 
-    private void parseArray()
-    {
-        int count = 0;
-        int e = nextElementNumber;
-        openStructureElement(Type.ARRAY);
-        while (true)
-        {
-            skipWhitespace();
-            if (getCurrentChar() == ']')
-            {
-                closeStructureElement(e, nextElementNumber - e - 1);
-                return;
-            }
-            if (count > 0)
-            {
-                verifyCurrentChar(',');
-                pos++;
-                skipWhitespace();
-            }
-            parseValue();
-            count++;
-        }
-    }
-
-    private void parseObject()
-    {
-        int count = 0;
-        int e = nextElementNumber;
-        openStructureElement(Type.OBJECT);
-        while (true)
-        {
-            skipWhitespace();
-            if (getCurrentChar() == '}')
-            {
-                closeStructureElement(e, nextElementNumber - e - 1);
-                return;
-            }
-            if (count > 0)
-            {
-                verifyCurrentChar(',');
-                pos++;
-                skipWhitespace();
-            }
-            verifyCurrentChar('"');
-            parseString();
-            skipWhitespace();
-
-            verifyCurrentChar(':');
-            pos++;
-
-            skipWhitespace();
-            parseValue();
-            count++;
-        }
-    }
-
     private void parseNull()
     {
         int from = pos;
@@ -417,19 +919,20 @@ class Parser<T extends Text<T>>
             char found = getCurrentChar();
             if (found != expected)
             {
-                throw new JsonSyntaxException(String.format("expected char '%s', found '%s'", expected, found), pos);
+                throw configuration.unexpectedChar(expected, found, pos);
             }
         }
         catch (IndexOutOfBoundsException e)
         {
-            throw new JsonSyntaxException(String.format("expected char '%s', found EOF", expected), pos, e);
+            throw configuration.unexpectedEnd(expected, pos, e);
         }
     }
 
     private void expectFourHexDigits()
     {
-        for (int end = pos + 4; pos < end; pos++)
+        for (int end = pos + 4; pos < end; )
         {
+            pos++;
             expectHexDigit();
         }
     }
@@ -439,7 +942,7 @@ class Parser<T extends Text<T>>
         char c = getCurrentChar();
         if (!HEX_DIGIT.matches(c))
         {
-            throw new JsonSyntaxException("invalid hex char", c, pos);
+            throw configuration.syntaxError(ErrorCode.INVALID_HEX_CHAR, c, pos);
         }
     }
 
@@ -450,21 +953,73 @@ class Parser<T extends Text<T>>
 
     private void createLeafElement(Type type, int from, int to)
     {
-        overlay.createLeafElement(nextElementNumber, type, from, to);
-        nextElementNumber++;
+        writeLeafElement(type, from, to);
         pos = to + 1;
     }
 
+    private void writeLeafElement(Type type, int from, int to)
+    {
+        if (!isIndexing())
+        {
+            return;
+        }
+        rejectExcessiveElements(from);
+        if (overlay != null)
+        {
+            overlay.createLeafElement(nextElementNumber, type, from, to);
+        }
+        nextElementNumber++;
+
+        if (type == Type.STRING_ESCAPED)
+        {
+            stringCount++;
+            escapedStringCount++;
+        }
+        else if (type == Type.STRING)
+        {
+            stringCount++;
+        }
+    }
+
     private void openStructureElement(Type type)
     {
-        overlay.openStructureElement(nextElementNumber, type, pos);
+        int indexing = getFrameComponent(FRAME_INDEXING);
+        if (indexing == SUPPRESSED)
+        {
+            pos++;
+            return;
+        }
+        rejectExcessiveElements(pos);
+        if (overlay != null)
+        {
+            if (indexing == DEFERRED)
+            {
+                // The frame of the structure itself was already pushed
+                overlay.openDeferredStructureElement(nextElementNumber, type, pos, baseDepth + depth - 1);
+            }
+            else
+            {
+                overlay.openStructureElement(nextElementNumber, type, pos);
+            }
+        }
         nextElementNumber++;
         pos++;
     }
 
+    private void rejectExcessiveElements(int from)
+    {
+        if (nextElementNumber == configuration.getMaxElements())
+        {
+            throw configuration.limitExceeded(ErrorCode.TOO_MANY_ELEMENTS, from);
+        }
+    }
+
     private void closeStructureElement(int element, int childCount)
     {
-        overlay.closeStructureElement(element, pos, childCount);
+        if (overlay != null)
+        {
+            overlay.closeStructureElement(element, pos, childCount);
+        }
         pos++;
     }
 }
@@ -0,0 +1,198 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.NonNull;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Selects the parts of a document that are to be parsed, identified by
+ * <a href="https://tools.ietf.org/html/rfc6901">JSON Pointers</a>. Everything else is skipped without creating any
+ * elements, which saves time and memory if only a few values of a large document are of interest.<br>
+ * <br>
+ * A pointer selects the value it refers to including all its descendants, as well as the arrays and objects enclosing
+ * it. For example, applying the projection {@code /user/name} to
+ * <pre>{"user": {"name": "jdoe", "password": "secret"}, "roles": ["admin"]}</pre>
+ * yields the same result as parsing {@code {"user": {"name": "jdoe"}}}. Skipped parts are only checked for balanced
+ * brackets and terminated strings, so syntax errors inside them may go unnoticed.<br>
+ * <br>
+ * Instances are immutable and can be used for any number of parse operations.
+ */
+public final class Projection
+{
+    /**
+     * Node number of everything below a selected value.
+     */
+    static final int ALL = -1;
+
+    /**
+     * Node number of values that are not selected.
+     */
+    static final int NONE = -2;
+
+    private static final class NodeBuilder
+    {
+        private boolean selected;
+        private final Map<String, NodeBuilder> children = new LinkedHashMap<>();
+    }
+
+    private final String pointers;
+    private final int rootNode;
+
+    /**
+     * For each node, the reference tokens leading to its children.
+     */
+    private final String[][] tokens;
+
+    /**
+     * For each node, the array index corresponding to each reference token, or {@code -1} if the token is no index.
+     */
+    private final int[][] indexes;
+
+    /**
+     * For each node, the node numbers of its children.
+     */
+    private final int[][] targets;
+
+    private Projection(String pointers, NodeBuilder root)
+    {
+        this.pointers = pointers;
+
+        List<NodeBuilder> nodes = new ArrayList<>();
+        Map<NodeBuilder, Integer> nodeNumbers = new IdentityHashMap<>();
+        collect(root, nodes, nodeNumbers);
+        rootNode = getNodeNumber(root, nodeNumbers);
+
+        int count = nodes.size();
+        tokens = new String[count][];
+        indexes = new int[count][];
+        targets = new int[count][];
+        for (int node = 0; node < count; node++)
+        {
+            Map<String, NodeBuilder> children = nodes.get(node).children;
+            tokens[node] = children.keySet()
+                .toArray(new String[0]);
+            indexes[node] = new int[children.size()];
+            targets[node] = new int[children.size()];
+
+            int child = 0;
+            for (Map.Entry<String, NodeBuilder> entry : children.entrySet())
+            {
+                indexes[node][child] = JsonPointers.toArrayIndex(entry.getKey());
+                targets[node][child] = getNodeNumber(entry.getValue(), nodeNumbers);
+                child++;
+            }
+        }
+    }
+
+    private static void collect(NodeBuilder node, List<NodeBuilder> nodes, Map<NodeBuilder, Integer> nodeNumbers)
+    {
+        if (node.selected)
+        {
+            return;
+        }
+        nodeNumbers.put(node, nodes.size());
+        nodes.add(node);
+        for (NodeBuilder child : node.children.values())
+        {
+            collect(child, nodes, nodeNumbers);
+        }
+    }
+
+    private static int getNodeNumber(NodeBuilder node, Map<NodeBuilder, Integer> nodeNumbers)
+    {
+        return node.selected ? ALL : nodeNumbers.get(node);
+    }
+
+    /**
+     * Creates a projection selecting the values referenced by the given pointers. If one pointer refers to a value
+     * inside another, the latter takes precedence.
+     *
+     * @param pointers one or more JSON pointers
+     *
+     * @return a new projection
+     *
+     * @throws IllegalArgumentException if no pointers are given or one of them is not a valid JSON pointer
+     * @throws NullPointerException if {@code pointers} or one of its elements is {@code null}
+     */
+    public static Projection of(@NonNull String... pointers)
+    {
+        Preconditions.checkArgument(pointers.length > 0, "At least one pointer is required");
+
+        NodeBuilder root = new NodeBuilder();
+        for (String pointer : pointers)
+        {
+            Preconditions.checkNotNull(pointer, "pointer");
+
+            NodeBuilder node = root;
+            for (String token : JsonPointers.parse(pointer))
+            {
+                if (node.selected)
+                {
+                    break;
+                }
+                node = node.children.computeIfAbsent(token, key -> new NodeBuilder());
+            }
+            node.selected = true;
+            node.children.clear();
+        }
+        return new Projection(String.join(", ", pointers), root);
+    }
+
+    int getRootNode()
+    {
+        return rootNode;
+    }
+
+    /**
+     * Finds the child of the given node reached via a property name.
+     *
+     * @param node the node of the enclosing object
+     * @param text the text containing the property name
+     * @param beginIndex the index of the first character of the property name, excluding the quote
+     * @param endIndex the index of the closing quote
+     *
+     * @return the child node, {@link #ALL} or {@link #NONE}
+     */
+    int findChildByName(int node, Text<?> text, int beginIndex, int endIndex)
+    {
+        String[] nodeTokens = tokens[node];
+        for (int child = 0; child < nodeTokens.length; child++)
+        {
+            if (TextCodec.unescapedEquals(text, beginIndex, endIndex, nodeTokens[child]))
+            {
+                return targets[node][child];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Finds the child of the given node reached via an array index.
+     *
+     * @return the child node, {@link #ALL} or {@link #NONE}
+     */
+    int findChildByIndex(int node, int index)
+    {
+        int[] nodeIndexes = indexes[node];
+        for (int child = 0; child < nodeIndexes.length; child++)
+        {
+            if (nodeIndexes[child] == index)
+            {
+                return targets[node][child];
+            }
+        }
+        return NONE;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Projection[" + pointers + "]";
+    }
+}
@@ -0,0 +1,335 @@
+package com.github.bannmann.whisperjson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Re-emits parsed JSON documents with sensitive values replaced by a mask, e.g. for audit logging. Values are selected
+ * via <a href="https://tools.ietf.org/html/rfc6901">JSON Pointers</a> or by property name at any depth.<br>
+ * <br>
+ * The redactor walks the parsed document and copies the text of subtrees that contain no redacted values in bulk,
+ * without creating {@link Json} elements or {@link String} instances. Such subtrees keep their whitespace unless
+ * {@link Builder#minify() minification} is enabled. Objects and arrays which contain redacted values are re-emitted
+ * without whitespace.<br>
+ * <br>
+ * To find out whether a subtree contains a property to redact by name, the redactor compares the strings inside it
+ * with the property names, using only the index. A subtree containing a value equal to such a name is re-emitted
+ * element by element even if it contains no property of that name, which only affects its whitespace.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * Redactor redactor = Redactor.builder()
+ *     .redact("/credentials/password")
+ *     .redactProperty("token")
+ *     .build();
+ *
+ * try (SafeJson json = whisperJson.parse(chars);
+ *      JsonWriter writer = JsonWriter.to(logWriter))
+ * {
+ *     redactor.transcode(json, writer);
+ * }
+ * </pre>
+ * Instances are immutable and thread-safe.
+ */
+public final class Redactor
+{
+    /**
+     * Assembles a {@link Redactor}.
+     */
+    public static final class Builder
+    {
+        private final NodeBuilder root = new NodeBuilder();
+        private final Set<String> propertyNames = new LinkedHashSet<>();
+        private String mask = "***";
+        private boolean minify;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Redacts the value the given pointer refers to. Pointers which refer to nothing are ignored.
+         *
+         * @param pointer the JSON pointer of the value
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code pointer} is not a valid JSON pointer
+         * @throws NullPointerException if {@code pointer} is {@code null}
+         */
+        public Builder redact(@NonNull String pointer)
+        {
+            NodeBuilder node = root;
+            for (String token : JsonPointers.parse(pointer))
+            {
+                node = node.children.computeIfAbsent(token, key -> new NodeBuilder());
+            }
+            node.redact = true;
+            return this;
+        }
+
+        /**
+         * Redacts the values of all properties with the given name, regardless of their depth.
+         *
+         * @param name the property name
+         *
+         * @return this builder
+         *
+         * @throws NullPointerException if {@code name} is {@code null}
+         */
+        public Builder redactProperty(@NonNull String name)
+        {
+            propertyNames.add(name);
+            return this;
+        }
+
+        /**
+         * Sets the string written instead of redacted values. Defaults to {@code ***}.
+         *
+         * @param mask the mask, which is written as a JSON string
+         *
+         * @return this builder
+         *
+         * @throws NullPointerException if {@code mask} is {@code null}
+         */
+        public Builder mask(@NonNull String mask)
+        {
+            this.mask = mask;
+            return this;
+        }
+
+        /**
+         * Omits all whitespace outside of strings from the output.
+         *
+         * @return this builder
+         */
+        public Builder minify()
+        {
+            minify = true;
+            return this;
+        }
+
+        /**
+         * Creates the redactor.
+         *
+         * @return a new redactor
+         *
+         * @throws IllegalArgumentException if no values were selected for redaction
+         */
+        public Redactor build()
+        {
+            Preconditions.checkArgument(root.redact || !root.children.isEmpty() || !propertyNames.isEmpty(),
+                "At least one value must be redacted");
+            return new Redactor(root.build(), propertyNames.toArray(new String[0]), mask, minify);
+        }
+    }
+
+    private static final class NodeBuilder
+    {
+        private boolean redact;
+        private final Map<String, NodeBuilder> children = new LinkedHashMap<>();
+
+        Node build()
+        {
+            List<String> names = new ArrayList<>();
+            List<Node> nodes = new ArrayList<>();
+            for (Map.Entry<String, NodeBuilder> entry : children.entrySet())
+            {
+                names.add(entry.getKey());
+                nodes.add(entry.getValue()
+                    .build());
+            }
+
+            int[] indexes = names.stream()
+                .mapToInt(JsonPointers::toArrayIndex)
+                .toArray();
+            return new Node(redact, names.toArray(new String[0]), indexes, nodes.toArray(new Node[0]));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Node
+    {
+        private final boolean redact;
+        private final String[] names;
+
+        /**
+         * For each child, the array index its name represents, or {@code -1} if the name is no array index.
+         */
+        private final int[] indexes;
+        private final Node[] children;
+
+        Node findChildByName(Overlay<?> overlay, int key)
+        {
+            for (int i = 0; i < names.length; i++)
+            {
+                if (overlay.isStringEqualTo(key, names[i]))
+                {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node findChildByIndex(int index)
+        {
+            for (int i = 0; i < indexes.length; i++)
+            {
+                if (indexes[i] == index)
+                {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Node root;
+    private final String[] propertyNames;
+    private final String mask;
+    private final boolean minify;
+
+    private Redactor(Node root, String[] propertyNames, String mask, boolean minify)
+    {
+        this.root = root;
+        this.propertyNames = propertyNames;
+        this.mask = mask;
+        this.minify = minify;
+    }
+
+    /**
+     * Creates a builder for a redactor.
+     *
+     * @return a new builder
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Writes the given element with all selected values replaced by the mask. Pointers are evaluated relative to the
+     * given element.
+     *
+     * @param json the element to write
+     * @param writer the writer to write to
+     *
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if a value is not allowed at the current position of {@code writer}
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code json} was not created by {@link WhisperJson}
+     */
+    public void transcode(@NonNull Json<?> json, @NonNull JsonWriter writer) throws IOException
+    {
+        Preconditions.checkArgument(json instanceof Element, "Unsupported JSON implementation: %s", json.getClass());
+
+        Element<?, ?> element = (Element<?, ?>) json;
+        transcode(element.overlay, element.element, root, writer);
+    }
+
+    private void transcode(Overlay<?> overlay, int element, Node node, JsonWriter writer) throws IOException
+    {
+        if (node != null && node.redact)
+        {
+            writer.value(mask);
+            return;
+        }
+
+        Type type = overlay.getType(element);
+        boolean structure = type == Type.OBJECT || type == Type.ARRAY;
+        if (!structure || node == null && !containsPropertyName(overlay, overlay.getIndexedElement(element)))
+        {
+            writer.rawValue(overlay, element, minify);
+        }
+        else if (type == Type.OBJECT)
+        {
+            transcodeObject(overlay, element, node, writer);
+        }
+        else
+        {
+            transcodeArray(overlay, element, node, writer);
+        }
+    }
+
+    /**
+     * Checks whether any string inside the given indexed array or object equals one of the {@link #propertyNames}.
+     */
+    private boolean containsPropertyName(Overlay<?> overlay, int indexedStructure)
+    {
+        int last = indexedStructure + overlay.getChildCount(indexedStructure);
+        for (int e = indexedStructure + 1; e <= last; e++)
+        {
+            if (overlay.isDeferred(e))
+            {
+                if (containsPropertyName(overlay, overlay.getIndexedElement(e)))
+                {
+                    return true;
+                }
+            }
+            else if (overlay.getType(e)
+                .getLabel() == TypeLabel.STRING && isRedactedProperty(overlay, e))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void transcodeObject(Overlay<?> overlay, int object, Node node, JsonWriter writer) throws IOException
+    {
+        writer.beginObject();
+        int indexedObject = overlay.getIndexedElement(object);
+        int e = indexedObject + 1;
+        while (e <= indexedObject + overlay.getChildCount(indexedObject))
+        {
+            writer.rawName(overlay, e);
+            if (isRedactedProperty(overlay, e))
+            {
+                writer.value(mask);
+            }
+            else
+            {
+                Node child = node != null ? node.findChildByName(overlay, e) : null;
+                transcode(overlay, e + 1, child, writer);
+            }
+            e += overlay.getChildCount(e + 1) + 2;
+        }
+        writer.endObject();
+    }
+
+    private boolean isRedactedProperty(Overlay<?> overlay, int key)
+    {
+        for (String name : propertyNames)
+        {
+            if (overlay.isStringEqualTo(key, name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void transcodeArray(Overlay<?> overlay, int array, Node node, JsonWriter writer) throws IOException
+    {
+        writer.beginArray();
+        int indexedArray = overlay.getIndexedElement(array);
+        int e = indexedArray + 1;
+        for (int index = 0; e <= indexedArray + overlay.getChildCount(indexedArray); index++)
+        {
+            Node child = node != null ? node.findChildByIndex(index) : null;
+            transcode(overlay, e, child, writer);
+            e += overlay.getChildCount(e) + 1;
+        }
+        writer.endArray();
+    }
+}
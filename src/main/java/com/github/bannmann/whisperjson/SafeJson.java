@@ -5,6 +5,7 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import lombok.NonNull;
 
@@ -92,6 +93,36 @@ public interface SafeJson extends Json<SafeJson>, AutoCloseable
     @Override
     Optional<SafeJson> getObjectProperty(@NonNull String name);
 
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalStateException if this instance or the underlying JSON tree has been {@link #close() closed}.
+     */
+    @Override
+    Optional<SafeJson> at(@NonNull String pointer);
+
+    /**
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalStateException if this instance or the underlying JSON tree has been {@link #close() closed}.
+     */
+    @Override
+    Optional<SafeJson> at(@NonNull JsonPointer pointer);
+
+    /**
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalStateException if this instance or the underlying JSON tree has been {@link #close() closed}.
+     */
+    @Override
+    Stream<SafeJson> select(@NonNull String path);
+
+    /**
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalStateException if this instance or the underlying JSON tree has been {@link #close() closed}.
+     */
+    @Override
+    Stream<SafeJson> select(@NonNull JsonPath path);
+
     /**
      * Gets the characters contained in this string. The returned array should be wiped immediately after use.
      *
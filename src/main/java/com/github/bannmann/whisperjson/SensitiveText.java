@@ -25,6 +25,18 @@ import com.google.common.annotations.VisibleForTesting;
 @EqualsAndHashCode
 public final class SensitiveText implements AutoCloseable
 {
+    /**
+     * Reads the contents of a {@link SensitiveText} without copying them.
+     */
+    @FunctionalInterface
+    interface ContentsReader<E extends Exception>
+    {
+        /**
+         * @param contents the backing array, which must neither be modified nor retained
+         */
+        void read(char[] contents) throws E;
+    }
+
     private final Object semaphore = new Object();
 
     @VisibleForTesting
@@ -61,6 +73,20 @@ public final class SensitiveText implements AutoCloseable
         }
     }
 
+    /**
+     * Passes the backing array to the given reader while preventing concurrent calls to {@link #close()}.
+     *
+     * @throws IllegalStateException if this instance was closed
+     */
+    <E extends Exception> void readContents(ContentsReader<E> reader) throws E
+    {
+        synchronized (semaphore)
+        {
+            verifyNotClosed();
+            reader.read(contents);
+        }
+    }
+
     private void verifyNotClosed()
     {
         if (contents == null)
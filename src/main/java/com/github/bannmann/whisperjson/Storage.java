@@ -0,0 +1,25 @@
+package com.github.bannmann.whisperjson;
+
+/**
+ * Determines where {@link SafeJson} documents keep their source text, index and unescaped values.
+ *
+ * @see WhisperJson.Builder#storage(Storage)
+ */
+public enum Storage
+{
+    /**
+     * Keeps everything in heap arrays. When the input is a {@code char[]}, the document is backed by that array.
+     */
+    HEAP,
+
+    /**
+     * Keeps everything in off-heap memory, which the garbage collector neither scans nor copies, so that no stale
+     * copies of sensitive data are left behind by compaction. The memory is zeroed when the document is closed, or
+     * when parsing fails.<br>
+     * <br>
+     * Input given as a {@code char[]} is copied into off-heap memory and wiped immediately. Each document allocates
+     * its memory in a few large chunks which also hold the values accessed later. Note that the off-heap memory itself
+     * is only released when the document becomes unreachable, as Java offers no way to free it explicitly.
+     */
+    OFF_HEAP
+}
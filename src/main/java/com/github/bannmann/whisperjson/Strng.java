@@ -23,11 +23,13 @@ abstract class Strng<J extends Json<J>, O extends Overlay<T>, T extends Text<T>>
     @SuppressWarnings("java:S2160")
     public static class Safe extends Strng<SafeJson, Overlay.Safe, Text.Safe> implements SafeJson
     {
+        private final Factory.Safe factory;
         private boolean closed;
 
-        public Safe(Overlay.Safe overlay, int element)
+        public Safe(Overlay.Safe overlay, int element, Factory.Safe factory)
         {
             super(overlay, element);
+            this.factory = factory;
         }
 
         @Override
@@ -47,22 +49,45 @@ abstract class Strng<J extends Json<J>, O extends Overlay<T>, T extends Text<T>>
         {
             if (element == 0)
             {
+                long start = Metrics.start();
                 overlay.close();
+                boolean wiped = wipe();
+                Metrics.closed(wiped ? 1 : 0, start);
             }
+            else
+            {
+                wipe();
+                factory.evictString(this);
+            }
+        }
 
+        /**
+         * Wipes the unescaped value of this element, if any, and marks it as closed.
+         *
+         * @return {@code true} if a value was wiped, {@code false} if it was never unescaped or was already closed
+         */
+        boolean wipe()
+        {
+            boolean wiped = !closed && text != null;
             getText().ifPresent(Text.Safe::close);
-
             closed = true;
+            return wiped;
         }
 
         @Override
         protected Text.Safe getOrCreateText()
+        {
+            verifyNotClosed();
+            return super.getOrCreateText();
+        }
+
+        @Override
+        protected void verifyNotClosed()
         {
             if (closed)
             {
                 throw new IllegalStateException();
             }
-            return super.getOrCreateText();
         }
     }
 
@@ -89,6 +114,10 @@ abstract class Strng<J extends Json<J>, O extends Overlay<T>, T extends Text<T>>
         return text;
     }
 
+    protected void verifyNotClosed()
+    {
+    }
+
     protected final Optional<T> getText()
     {
         return Optional.ofNullable(text);
@@ -101,7 +130,9 @@ abstract class Strng<J extends Json<J>, O extends Overlay<T>, T extends Text<T>>
         if (o instanceof Strng<?, ?, ?>)
         {
             Strng<?, ?, ?> other = (Strng<?, ?, ?>) o;
-            return getOrCreateText().equals(other.getOrCreateText());
+            verifyNotClosed();
+            other.verifyNotClosed();
+            return StructuralEquality.equals(overlay, element, other.overlay, other.element);
         }
         return false;
     }
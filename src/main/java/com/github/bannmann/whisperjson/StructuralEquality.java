@@ -0,0 +1,246 @@
+package com.github.bannmann.whisperjson;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Compares elements by walking both overlays simultaneously, without creating {@link Json} elements, maps, lists or
+ * strings. The result is the same as comparing the materialized elements: strings are equal if their unescaped
+ * contents are, numbers if their texts are, and objects if they have equal values for the same set of keys,
+ * regardless of property order.
+ */
+@UtilityClass
+class StructuralEquality
+{
+    /**
+     * Objects with more properties than this are compared via a hash table instead of a linear search for each key.
+     */
+    private static final int MAX_LINEAR_PROPERTIES = 8;
+
+    public boolean equals(Overlay<?> a, int aElement, Overlay<?> b, int bElement)
+    {
+        Type aType = a.getType(aElement);
+        Type bType = b.getType(bElement);
+        switch (aType)
+        {
+            case NULL:
+            case TRUE:
+            case FALSE:
+                return aType == bType;
+            case NUMBER:
+                return bType == Type.NUMBER && regionEquals(a, aElement, b, bElement);
+            case STRING:
+            case STRING_ESCAPED:
+                return isString(bType) && stringEquals(a, aElement, b, bElement);
+            case ARRAY:
+                return bType == Type.ARRAY &&
+                    arrayEquals(a, a.getIndexedElement(aElement), b, b.getIndexedElement(bElement));
+            case OBJECT:
+                return bType == Type.OBJECT &&
+                    objectEquals(a, a.getIndexedElement(aElement), b, b.getIndexedElement(bElement));
+            default:
+                return false;
+        }
+    }
+
+    private boolean isString(Type type)
+    {
+        return type == Type.STRING || type == Type.STRING_ESCAPED;
+    }
+
+    private boolean regionEquals(Overlay<?> a, int aElement, Overlay<?> b, int bElement)
+    {
+        int aFrom = a.getOffset(aElement);
+        int bFrom = b.getOffset(bElement);
+        int length = a.getEndOffset(aElement) - aFrom;
+        if (b.getEndOffset(bElement) - bFrom != length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (a.text.charAt(aFrom + i) != b.text.charAt(bFrom + i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int compareStrings(Overlay<?> a, int aElement, Overlay<?> b, int bElement)
+    {
+        return TextCodec.compareUnescaped(a.text,
+            a.getOffset(aElement) + 1,
+            a.getEndOffset(aElement) - 1,
+            b.text,
+            b.getOffset(bElement) + 1,
+            b.getEndOffset(bElement) - 1);
+    }
+
+    private boolean stringEquals(Overlay<?> a, int aElement, Overlay<?> b, int bElement)
+    {
+        // Without escape sequences, equal strings have equal raw texts, unless only one of them is UTF-8 encoded
+        if (a.getType(aElement) == Type.STRING &&
+            b.getType(bElement) == Type.STRING &&
+            a.text.isUtf8() == b.text.isUtf8())
+        {
+            return regionEquals(a, aElement, b, bElement);
+        }
+        return compareStrings(a, aElement, b, bElement) == 0;
+    }
+
+    private boolean arrayEquals(Overlay<?> a, int aArray, Overlay<?> b, int bArray)
+    {
+        int aLast = aArray + a.getChildCount(aArray);
+        int bLast = bArray + b.getChildCount(bArray);
+        int aElement = aArray + 1;
+        int bElement = bArray + 1;
+        while (aElement <= aLast && bElement <= bLast)
+        {
+            if (!equals(a, aElement, b, bElement))
+            {
+                return false;
+            }
+            aElement += a.getChildCount(aElement) + 1;
+            bElement += b.getChildCount(bElement) + 1;
+        }
+        return aElement > aLast && bElement > bLast;
+    }
+
+    private boolean objectEquals(Overlay<?> a, int aObject, Overlay<?> b, int bObject)
+    {
+        int propertyCount = countProperties(a, aObject);
+        if (countProperties(b, bObject) != propertyCount)
+        {
+            return false;
+        }
+
+        if (propertyCount <= MAX_LINEAR_PROPERTIES)
+        {
+            return objectEqualsLinear(a, aObject, b, bObject);
+        }
+        return objectEqualsHashed(a, aObject, b, bObject, propertyCount);
+    }
+
+    private int countProperties(Overlay<?> overlay, int object)
+    {
+        int result = 0;
+        int last = object + overlay.getChildCount(object);
+        for (int key = object + 1; key <= last; key += overlay.getChildCount(key + 1) + 2)
+        {
+            result++;
+        }
+        return result;
+    }
+
+    private boolean objectEqualsLinear(Overlay<?> a, int aObject, Overlay<?> b, int bObject)
+    {
+        int aLast = aObject + a.getChildCount(aObject);
+        for (int aKey = aObject + 1; aKey <= aLast; aKey += a.getChildCount(aKey + 1) + 2)
+        {
+            int bKey = findKeyLinear(a, aKey, b, bObject);
+            if (bKey < 0 || !equals(a, aKey + 1, b, bKey + 1))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findKeyLinear(Overlay<?> a, int aKey, Overlay<?> b, int bObject)
+    {
+        int bLast = bObject + b.getChildCount(bObject);
+        for (int bKey = bObject + 1; bKey <= bLast; bKey += b.getChildCount(bKey + 1) + 2)
+        {
+            if (stringEquals(a, aKey, b, bKey))
+            {
+                return bKey;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Matches properties via an open addressing hash table of the keys of {@code b}, which stores the key element
+     * numbers plus one so that zero marks empty slots.
+     */
+    private boolean objectEqualsHashed(Overlay<?> a, int aObject, Overlay<?> b, int bObject, int propertyCount)
+    {
+        int[] table = new int[Integer.highestOneBit(propertyCount) * 4];
+        int mask = table.length - 1;
+
+        int bLast = bObject + b.getChildCount(bObject);
+        for (int bKey = bObject + 1; bKey <= bLast; bKey += b.getChildCount(bKey + 1) + 2)
+        {
+            int slot = hashKey(b, bKey) & mask;
+            while (table[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = bKey + 1;
+        }
+
+        int aLast = aObject + a.getChildCount(aObject);
+        for (int aKey = aObject + 1; aKey <= aLast; aKey += a.getChildCount(aKey + 1) + 2)
+        {
+            int bKey = findKeyHashed(a, aKey, b, table, mask);
+            if (bKey < 0 || !equals(a, aKey + 1, b, bKey + 1))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findKeyHashed(Overlay<?> a, int aKey, Overlay<?> b, int[] table, int mask)
+    {
+        int slot = hashKey(a, aKey) & mask;
+        while (table[slot] != 0)
+        {
+            int bKey = table[slot] - 1;
+            if (stringEquals(a, aKey, b, bKey))
+            {
+                return bKey;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Hashes the unescaped contents of the given key, so that keys which differ only in their escaping collide.
+     */
+    private int hashKey(Overlay<?> overlay, int key)
+    {
+        int from = overlay.getOffset(key) + 1;
+        int to = overlay.getEndOffset(key) - 1;
+        if (!TextCodec.requiresDecoding(overlay.text, from, to))
+        {
+            return hashKey(overlay.text, from, to);
+        }
+
+        Text<?> part = overlay.text.getPart(from, to);
+        try
+        {
+            return hashKey(part, 0, part.length());
+        }
+        finally
+        {
+            TextCodec.release(part);
+        }
+    }
+
+    private int hashKey(Text<?> text, int from, int to)
+    {
+        int result = 0;
+        int i = from;
+        while (i < to)
+        {
+            result = 31 * result + TextCodec.getUnescapedCharAt(text, i);
+            i += TextCodec.getEscapeLength(text, i);
+        }
+
+        // Spread the bits, as the table index only uses the lowest ones
+        return result ^ result >>> 16;
+    }
+}
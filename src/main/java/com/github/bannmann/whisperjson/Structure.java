@@ -10,4 +10,14 @@ abstract class Structure<J extends Json<J>, O extends Overlay<T>, F extends Fact
         super(overlay, element);
         this.factory = factory;
     }
+
+    @Override
+    protected J getElement(int target)
+    {
+        if (target == element)
+        {
+            return super.getElement(target);
+        }
+        return factory.create(overlay, target);
+    }
 }
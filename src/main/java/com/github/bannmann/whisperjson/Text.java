@@ -1,14 +1,25 @@
 package com.github.bannmann.whisperjson;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 
 abstract class Text<T extends Text<T>>
 {
@@ -18,7 +29,7 @@ abstract class Text<T extends Text<T>>
         @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
         private static class CharacterIterator implements Iterator<Character>
         {
-            private final String string;
+            private final CharSequence string;
             private int position;
 
             @Override
@@ -45,7 +56,7 @@ abstract class Text<T extends Text<T>>
         }
 
         @NonNull
-        private final String contents;
+        private final CharSequence contents;
 
         @Override
         public char charAt(int index)
@@ -62,20 +73,21 @@ abstract class Text<T extends Text<T>>
         @Override
         public Exposed getPart(int beginIndex, int endIndex)
         {
-            String substring = contents.substring(beginIndex, endIndex);
+            String substring = contents.subSequence(beginIndex, endIndex)
+                .toString();
             return new Exposed(substring);
         }
 
         @Override
         public char[] asCharArray()
         {
-            return contents.toCharArray();
+            return asString().toCharArray();
         }
 
         @Override
         public String asString()
         {
-            return contents;
+            return contents.toString();
         }
 
         @Override
@@ -124,6 +136,14 @@ abstract class Text<T extends Text<T>>
             this.contents = contents;
         }
 
+        /**
+         * Constructor for subclasses which provide their own storage and therefore override all methods accessing it.
+         */
+        protected Safe()
+        {
+            // Leaves contents null
+        }
+
         @Override
         public char charAt(int index)
         {
@@ -146,6 +166,12 @@ abstract class Text<T extends Text<T>>
             return new Safe(result);
         }
 
+        @Override
+        public void getChars(int beginIndex, int endIndex, char[] target, int targetIndex)
+        {
+            System.arraycopy(obtainContents(), beginIndex, target, targetIndex, endIndex - beginIndex);
+        }
+
         public SensitiveText asSensitiveText()
         {
             return new SensitiveText(obtainContents());
@@ -186,6 +212,744 @@ abstract class Text<T extends Text<T>>
         }
     }
 
+    /**
+     * Wraps UTF-8 encoded bytes. Each byte counts as one character, so that the JSON syntax (which consists of ASCII
+     * characters only) can be parsed directly from the bytes. Non-ASCII bytes appear as characters above 127 and are
+     * thus only accepted inside JSON strings. Parts are decoded into {@link Safe} instances when they are requested,
+     * or into {@link OffHeap} instances if the text has an arena.
+     */
+    public static class Utf8 extends Safe
+    {
+        private byte[] bytes;
+
+        /**
+         * The arena which decoded parts are kept in, or {@code null} to keep them on the heap.
+         */
+        @Getter
+        private final OffHeap.Arena arena;
+
+        public Utf8(@NonNull byte[] bytes)
+        {
+            this(bytes, null);
+        }
+
+        /**
+         * @param arena the arena to decode parts into, or {@code null} to keep them on the heap. It is not closed by
+         * this text.
+         */
+        public Utf8(@NonNull byte[] bytes, OffHeap.Arena arena)
+        {
+            this.bytes = bytes;
+            this.arena = arena;
+        }
+
+        @Override
+        public boolean isUtf8()
+        {
+            return true;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            return (char) (obtainBytes()[index] & 0xFF);
+        }
+
+        @Override
+        public int length()
+        {
+            return obtainBytes().length;
+        }
+
+        @Override
+        public Safe getPart(int beginIndex, int endIndex)
+        {
+            if (arena != null)
+            {
+                return arena.decode(ByteBuffer.wrap(obtainBytes(), beginIndex, endIndex - beginIndex));
+            }
+            return new Safe(decode(beginIndex, endIndex));
+        }
+
+        /**
+         * Copies the bytes in the given range, each as one character as returned by {@link #charAt(int)}.
+         */
+        @Override
+        public void getChars(int beginIndex, int endIndex, char[] target, int targetIndex)
+        {
+            byte[] source = obtainBytes();
+            for (int i = beginIndex; i < endIndex; i++)
+            {
+                target[targetIndex + i - beginIndex] = (char) (source[i] & 0xFF);
+            }
+        }
+
+        @Override
+        public SensitiveText asSensitiveText()
+        {
+            char[] chars = decode(0, length());
+            try
+            {
+                return new SensitiveText(chars);
+            }
+            finally
+            {
+                Credentials.wipe(chars);
+            }
+        }
+
+        @Override
+        public char[] asCharArray()
+        {
+            return decode(0, length());
+        }
+
+        @Override
+        public String asString()
+        {
+            return new String(obtainBytes(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Iterator<Character> getCharacters()
+        {
+            return new Safe.CharacterIterator(decode(0, length()));
+        }
+
+        @Override
+        public void close()
+        {
+            if (bytes != null)
+            {
+                Arrays.fill(bytes, (byte) 0);
+                bytes = null;
+            }
+        }
+
+        private char[] decode(int beginIndex, int endIndex)
+        {
+            byte[] source = obtainBytes();
+            int length = endIndex - beginIndex;
+            char[] result = new char[length];
+            for (int i = 0; i < length; i++)
+            {
+                byte b = source[beginIndex + i];
+                if (b < 0)
+                {
+                    Credentials.wipe(result);
+                    return decodeNonAscii(source, beginIndex, length);
+                }
+                result[i] = (char) b;
+            }
+            return result;
+        }
+
+        private static char[] decodeNonAscii(byte[] source, int offset, int length)
+        {
+            // UTF-8 never needs more chars than bytes, so the buffer cannot overflow
+            char[] buffer = new char[length];
+            CharBuffer output = CharBuffer.wrap(buffer);
+            decodeUtf8(ByteBuffer.wrap(source, offset, length), output);
+
+            if (output.position() == length)
+            {
+                return buffer;
+            }
+            char[] result = Arrays.copyOf(buffer, output.position());
+            Credentials.wipe(buffer);
+            return result;
+        }
+
+        private byte[] obtainBytes()
+        {
+            if (bytes == null)
+            {
+                throw new IllegalStateException();
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Wraps a region of a caller-owned array without copying it. Indexes are relative to the start of the region, and
+     * {@link #close()} wipes exactly that region, leaving the rest of the array untouched.
+     */
+    public static class ArrayRegion extends Safe
+    {
+        private char[] array;
+        private final int offset;
+        private final int length;
+
+        public ArrayRegion(@NonNull char[] array, int offset, int length)
+        {
+            Preconditions.checkPositionIndexes(offset, offset + length, array.length);
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            Preconditions.checkElementIndex(index, length);
+            return obtainArray()[offset + index];
+        }
+
+        @Override
+        public int length()
+        {
+            return length;
+        }
+
+        @Override
+        public Safe getPart(int beginIndex, int endIndex)
+        {
+            char[] result = new char[endIndex - beginIndex];
+            getChars(beginIndex, endIndex, result, 0);
+            return new Safe(result);
+        }
+
+        @Override
+        public void getChars(int beginIndex, int endIndex, char[] target, int targetIndex)
+        {
+            Preconditions.checkPositionIndexes(beginIndex, endIndex, length);
+            System.arraycopy(obtainArray(), offset + beginIndex, target, targetIndex, endIndex - beginIndex);
+        }
+
+        @Override
+        public SensitiveText asSensitiveText()
+        {
+            char[] copy = asCharArray();
+            try
+            {
+                return new SensitiveText(copy);
+            }
+            finally
+            {
+                Credentials.wipe(copy);
+            }
+        }
+
+        @Override
+        public char[] asCharArray()
+        {
+            return Arrays.copyOfRange(obtainArray(), offset, offset + length);
+        }
+
+        @Override
+        public String asString()
+        {
+            return new String(obtainArray(), offset, length);
+        }
+
+        @Override
+        public Iterator<Character> getCharacters()
+        {
+            obtainArray();
+            return new IndexIterator(this);
+        }
+
+        @Override
+        public void close()
+        {
+            if (array != null)
+            {
+                Arrays.fill(array, offset, offset + length, '\0');
+                array = null;
+            }
+        }
+
+        private char[] obtainArray()
+        {
+            if (array == null)
+            {
+                throw new IllegalStateException();
+            }
+            return array;
+        }
+    }
+
+    /**
+     * Wraps the remaining characters of a caller-owned {@link CharBuffer} without copying them. Indexes are relative to
+     * the position of the buffer at construction time, and {@link #close()} wipes exactly the wrapped characters.
+     */
+    public static class BufferRegion extends Safe
+    {
+        private CharBuffer chars;
+
+        /**
+         * @param buffer the buffer to wrap, which must be writable. Its position and limit are not modified.
+         */
+        public BufferRegion(@NonNull CharBuffer buffer)
+        {
+            Preconditions.checkArgument(!buffer.isReadOnly(), "Read-only buffers cannot be wiped");
+            this.chars = buffer.slice();
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            return obtainChars().get(index);
+        }
+
+        @Override
+        public int length()
+        {
+            return obtainChars().capacity();
+        }
+
+        @Override
+        public Safe getPart(int beginIndex, int endIndex)
+        {
+            char[] result = new char[endIndex - beginIndex];
+            getChars(beginIndex, endIndex, result, 0);
+            return new Safe(result);
+        }
+
+        @Override
+        public void getChars(int beginIndex, int endIndex, char[] target, int targetIndex)
+        {
+            CharBuffer source = obtainChars().duplicate();
+            ((Buffer) source).position(beginIndex);
+            source.get(target, targetIndex, endIndex - beginIndex);
+        }
+
+        @Override
+        public SensitiveText asSensitiveText()
+        {
+            char[] copy = asCharArray();
+            try
+            {
+                return new SensitiveText(copy);
+            }
+            finally
+            {
+                Credentials.wipe(copy);
+            }
+        }
+
+        @Override
+        public char[] asCharArray()
+        {
+            char[] result = new char[length()];
+            getChars(0, result.length, result, 0);
+            return result;
+        }
+
+        @Override
+        public String asString()
+        {
+            char[] copy = asCharArray();
+            try
+            {
+                return new String(copy);
+            }
+            finally
+            {
+                Credentials.wipe(copy);
+            }
+        }
+
+        @Override
+        public Iterator<Character> getCharacters()
+        {
+            obtainChars();
+            return new IndexIterator(this);
+        }
+
+        @Override
+        public void close()
+        {
+            if (chars != null)
+            {
+                for (int i = 0; i < chars.capacity(); i++)
+                {
+                    chars.put(i, '\0');
+                }
+                chars = null;
+            }
+        }
+
+        protected CharBuffer obtainChars()
+        {
+            if (chars == null)
+            {
+                throw new IllegalStateException();
+            }
+            return chars;
+        }
+    }
+
+    /**
+     * Keeps its characters in off-heap memory, which the garbage collector neither scans nor copies. The memory is
+     * zeroed when the text is closed.<br>
+     * <br>
+     * A text created by one of the static factory methods owns an {@link Arena} from which the memory of all its parts
+     * is carved, so that accessing many strings of a document does not allocate a direct buffer each. Closing the
+     * owning text wipes the whole arena, including all parts; closing a part only wipes the part itself.
+     *
+     * @see Storage#OFF_HEAP
+     */
+    public static class OffHeap extends BufferRegion
+    {
+        /**
+         * Off-heap memory shared by a document and all texts created from it. Memory is handed out in slices of larger
+         * chunks and only released as a whole, so it is freed by the garbage collector at once and zeroed by
+         * {@link #close()} at once.<br>
+         * <br>
+         * Allocating is synchronized, as parts may be created by several threads reading the same document.
+         */
+        public static final class Arena implements AutoCloseable
+        {
+            private static final int CHUNK_BYTES = 8 * 1024;
+            private static final int ALIGNMENT = Long.BYTES;
+
+            private final List<ByteBuffer> chunks = new ArrayList<>();
+            private ByteBuffer chunk;
+            private int used;
+            private boolean closed;
+
+            /**
+             * Gets zeroed memory of the given size, aligned for reading {@code long} values.
+             *
+             * @throws IllegalStateException if the arena was closed
+             */
+            public synchronized ByteBuffer allocate(int bytes)
+            {
+                if (closed)
+                {
+                    throw new IllegalStateException();
+                }
+
+                if (bytes > CHUNK_BYTES / 2)
+                {
+                    // Large allocations get their own chunk so that they don't waste the rest of the current one
+                    return addChunk(bytes);
+                }
+                if (chunk == null || used + bytes > chunk.capacity())
+                {
+                    chunk = addChunk(CHUNK_BYTES);
+                    used = 0;
+                }
+                ByteBuffer result = slice(chunk, used, used + bytes);
+                used += (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+                return result;
+            }
+
+            private ByteBuffer addChunk(int bytes)
+            {
+                ByteBuffer result = ByteBuffer.allocateDirect(bytes)
+                    .order(ByteOrder.nativeOrder());
+                chunks.add(result);
+                return result;
+            }
+
+            /**
+             * Copies the given characters into a new part of this arena and wipes the given array.
+             */
+            public OffHeap copyAndWipe(@NonNull char[] contents)
+            {
+                try
+                {
+                    OffHeap result = new OffHeap(allocate(contents.length * Character.BYTES), this, false);
+                    result.obtainChars()
+                        .duplicate()
+                        .put(contents);
+                    return result;
+                }
+                finally
+                {
+                    Credentials.wipe(contents);
+                }
+            }
+
+            /**
+             * Decodes the given UTF-8 encoded bytes into a new part of this arena, without an intermediate copy on the
+             * heap. Malformed sequences are decoded as replacement characters.
+             */
+            public OffHeap decode(@NonNull ByteBuffer utf8)
+            {
+                // UTF-8 never needs more chars than bytes, so the memory cannot overflow
+                ByteBuffer memory = allocate(utf8.remaining() * Character.BYTES);
+                CharBuffer output = memory.asCharBuffer();
+                decodeUtf8(utf8, output);
+                return new OffHeap(slice(memory, 0, output.position() * Character.BYTES), this, false);
+            }
+
+            @VisibleForTesting
+            synchronized List<ByteBuffer> getChunks()
+            {
+                return new ArrayList<>(chunks);
+            }
+
+            @Override
+            public synchronized void close()
+            {
+                for (ByteBuffer memory : chunks)
+                {
+                    wipe(memory);
+                }
+                chunks.clear();
+                chunk = null;
+                closed = true;
+            }
+
+            private static ByteBuffer slice(ByteBuffer buffer, int beginIndex, int endIndex)
+            {
+                ByteBuffer result = buffer.duplicate();
+                ((Buffer) result).position(beginIndex);
+                ((Buffer) result).limit(endIndex);
+                return result.slice()
+                    .order(ByteOrder.nativeOrder());
+            }
+        }
+
+        private ByteBuffer memory;
+
+        /**
+         * The arena holding the memory of this text and its parts.
+         */
+        @Getter
+        private final Arena arena;
+        private final boolean ownsArena;
+
+        private OffHeap(ByteBuffer memory, Arena arena, boolean ownsArena)
+        {
+            super(memory.asCharBuffer());
+            this.memory = memory;
+            this.arena = arena;
+            this.ownsArena = ownsArena;
+        }
+
+        private static OffHeap allocate(int length)
+        {
+            Arena arena = new Arena();
+            return new OffHeap(arena.allocate(length * Character.BYTES), arena, true);
+        }
+
+        /**
+         * Copies the given characters into a new off-heap text. The given array is not modified.
+         */
+        public static OffHeap copyOf(@NonNull char[] contents)
+        {
+            OffHeap result = allocate(contents.length);
+            result.obtainChars()
+                .duplicate()
+                .put(contents);
+            return result;
+        }
+
+        /**
+         * Copies the given characters into a new off-heap text and wipes the given array.
+         */
+        public static OffHeap copyAndWipe(@NonNull char[] contents)
+        {
+            try
+            {
+                return copyOf(contents);
+            }
+            finally
+            {
+                Credentials.wipe(contents);
+            }
+        }
+
+        /**
+         * Copies the given text into a new off-heap text and closes the given text.
+         */
+        public static OffHeap copyAndClose(@NonNull Safe text)
+        {
+            try
+            {
+                OffHeap result = allocate(text.length());
+                CharBuffer target = result.obtainChars();
+                for (int i = 0; i < text.length(); i++)
+                {
+                    target.put(i, text.charAt(i));
+                }
+                return result;
+            }
+            finally
+            {
+                text.close();
+            }
+        }
+
+        /**
+         * Copies the given part into memory of the arena this text belongs to.
+         */
+        @Override
+        public Safe getPart(int beginIndex, int endIndex)
+        {
+            CharBuffer source = obtainChars();
+            OffHeap result = new OffHeap(arena.allocate((endIndex - beginIndex) * Character.BYTES), arena, false);
+            CharBuffer target = result.obtainChars();
+            for (int i = beginIndex; i < endIndex; i++)
+            {
+                target.put(i - beginIndex, source.get(i));
+            }
+            return result;
+        }
+
+        @Override
+        public void close()
+        {
+            if (memory != null)
+            {
+                wipe(memory);
+                memory = null;
+                super.close();
+                if (ownsArena)
+                {
+                    arena.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterates over the characters of a text via {@link #charAt(int)}.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class IndexIterator implements Iterator<Character>
+    {
+        private final Text<?> text;
+        private int position;
+
+        @Override
+        public boolean hasNext()
+        {
+            return position < text.length();
+        }
+
+        @Override
+        public Character next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            char result = text.charAt(position);
+            position++;
+            return result;
+        }
+    }
+
+    /**
+     * Wraps UTF-8 encoded bytes in a {@link ByteBuffer}, e.g. a memory-mapped file. Like {@link Utf8}, each byte counts
+     * as one character, and parts are decoded into {@link Exposed} instances when they are requested.
+     */
+    public static class Utf8Buffer extends Exposed
+    {
+        @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+        private static class ByteSequence implements CharSequence
+        {
+            private final ByteBuffer bytes;
+
+            @Override
+            public int length()
+            {
+                return bytes.limit();
+            }
+
+            @Override
+            public char charAt(int index)
+            {
+                return (char) (bytes.get(index) & 0xFF);
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end)
+            {
+                return new ByteSequence(slice(bytes, start, end));
+            }
+
+            @Override
+            public String toString()
+            {
+                return StandardCharsets.UTF_8.decode(bytes.duplicate())
+                    .toString();
+            }
+        }
+
+        private final ByteBuffer bytes;
+
+        public Utf8Buffer(@NonNull ByteBuffer bytes)
+        {
+            super(new ByteSequence(bytes));
+            this.bytes = bytes;
+        }
+
+        @Override
+        public boolean isUtf8()
+        {
+            return true;
+        }
+
+        @Override
+        public Exposed getPart(int beginIndex, int endIndex)
+        {
+            return new Exposed(decode(beginIndex, endIndex));
+        }
+
+        @Override
+        public char[] asCharArray()
+        {
+            return asString().toCharArray();
+        }
+
+        @Override
+        public String asString()
+        {
+            return decode(0, length());
+        }
+
+        @Override
+        public Iterator<Character> getCharacters()
+        {
+            return new Exposed.CharacterIterator(asString());
+        }
+
+        private String decode(int beginIndex, int endIndex)
+        {
+            return StandardCharsets.UTF_8.decode(slice(bytes, beginIndex, endIndex))
+                .toString();
+        }
+
+        private static ByteBuffer slice(ByteBuffer bytes, int beginIndex, int endIndex)
+        {
+            ByteBuffer result = bytes.duplicate();
+            ((Buffer) result).position(beginIndex);
+            ((Buffer) result).limit(endIndex);
+            return result.slice();
+        }
+    }
+
+    private static void decodeUtf8(ByteBuffer input, CharBuffer output)
+    {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        decoder.decode(input, output, true);
+        decoder.flush(output);
+    }
+
+    /**
+     * Zeroes the whole capacity of the given buffer, regardless of its position and limit.
+     */
+    static void wipe(ByteBuffer buffer)
+    {
+        int i = 0;
+        for (; i + Long.BYTES <= buffer.capacity(); i += Long.BYTES)
+        {
+            buffer.putLong(i, 0);
+        }
+        for (; i < buffer.capacity(); i++)
+        {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
     private static NoSuchElementException createNoSuchElementException(Exception cause)
     {
         NoSuchElementException exception = new NoSuchElementException(cause.getMessage());
@@ -200,8 +964,39 @@ abstract class Text<T extends Text<T>>
 
     public abstract int length();
 
+    /**
+     * Whether this Text wraps UTF-8 encoded bytes, each of which {@link #charAt(int)} returns as one character. Parts
+     * containing non-ASCII characters must then be decoded via {@link #getPart(int, int)} before processing their
+     * characters.
+     */
+    public boolean isUtf8()
+    {
+        return false;
+    }
+
     public abstract T getPart(int beginIndex, int endIndex);
 
+    /**
+     * @return the off-heap memory holding this text and its parts, or {@code null} if they are kept on the heap
+     */
+    public OffHeap.Arena getArena()
+    {
+        return null;
+    }
+
+    /**
+     * Copies the characters in the given range to the given array without creating an intermediate copy.
+     *
+     * @throws IndexOutOfBoundsException if the range is not within this Text or does not fit into {@code target}.
+     */
+    public void getChars(int beginIndex, int endIndex, char[] target, int targetIndex)
+    {
+        for (int i = beginIndex; i < endIndex; i++)
+        {
+            target[targetIndex + i - beginIndex] = charAt(i);
+        }
+    }
+
     /**
      * @return a new array with a copy of this Text's contents
      */
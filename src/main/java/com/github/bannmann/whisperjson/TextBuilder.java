@@ -7,10 +7,21 @@ import java.util.function.Function;
 class TextBuilder implements AutoCloseable
 {
     private final StringBuilder contents;
+    private final Configuration configuration;
 
     public TextBuilder(int initialCapacity)
+    {
+        this(initialCapacity, null);
+    }
+
+    /**
+     * @param configuration the configuration whose document length limit {@link #appendAll(Reader)} enforces, or
+     * {@code null} for no limit
+     */
+    public TextBuilder(int initialCapacity, Configuration configuration)
     {
         contents = new StringBuilder(initialCapacity);
+        this.configuration = configuration;
     }
 
     public TextBuilder append(char... characters)
@@ -25,6 +36,10 @@ class TextBuilder implements AutoCloseable
         return this;
     }
 
+    /**
+     * @throws JsonLimitExceededException if the reader supplies more characters than allowed. In that case, no further
+     * characters are consumed from the reader.
+     */
     public TextBuilder appendAll(Reader reader) throws IOException
     {
         char[] buffer = new char[100];
@@ -33,6 +48,7 @@ class TextBuilder implements AutoCloseable
             int charsRead;
             while ((charsRead = reader.read(buffer)) != -1)
             {
+                rejectExcessiveLength(charsRead);
                 contents.append(buffer, 0, charsRead);
             }
             return this;
@@ -43,6 +59,15 @@ class TextBuilder implements AutoCloseable
         }
     }
 
+    private void rejectExcessiveLength(int charsToAppend)
+    {
+        if (configuration != null && charsToAppend > configuration.getMaxDocumentLength() - contents.length())
+        {
+            throw configuration.limitExceeded(JsonSyntaxException.ErrorCode.DOCUMENT_TOO_LONG,
+                configuration.getMaxDocumentLength());
+        }
+    }
+
     public <T extends Text<T>> T build(Function<char[], T> constructor)
     {
         return constructor.apply(StringBuilders.copyToCharArray(contents));
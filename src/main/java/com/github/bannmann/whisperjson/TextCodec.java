@@ -12,15 +12,17 @@ class TextCodec
     private static final char[] ESCAPE_CHARS = new char[]{ '\\', '/', '"', 'b', 'f', 'n', 'r', 't' };
     private static final char[] UNESCAPED_CHARS = new char[]{ '\\', '/', '"', '\b', '\f', '\n', '\r', '\t' };
 
-    public <T extends Text<T>> T unescape(T original, Function<char[], T> textConstructor)
+    public <T extends Text<T>> T unescape(
+        T original, Function<char[], T> textConstructor, Configuration configuration)
     {
         try (TextBuilder builder = new TextBuilder(original.length()))
         {
-            return unescape(original, builder, textConstructor);
+            return unescape(original, builder, textConstructor, configuration);
         }
     }
 
-    private <T extends Text<T>> T unescape(T original, TextBuilder builder, Function<char[], T> textConstructor)
+    private <T extends Text<T>> T unescape(
+        T original, TextBuilder builder, Function<char[], T> textConstructor, Configuration configuration)
     {
         boolean returnOriginal = true;
         int i = 0;
@@ -44,7 +46,12 @@ class TextCodec
                 }
                 else
                 {
-                    throw new JsonSyntaxException("illegal escape char", escapeChar, i);
+                    JsonSyntaxException exception = configuration.syntaxError(
+                        JsonSyntaxException.ErrorCode.ILLEGAL_ESCAPE_CHAR,
+                        escapeChar,
+                        i);
+                    Metrics.syntaxError(exception.getErrorCode());
+                    throw exception;
                 }
             }
             else
@@ -59,9 +66,239 @@ class TextCodec
             return original;
         }
 
+        Metrics.unescaped(original.length());
         return builder.build(textConstructor);
     }
 
+    /**
+     * Checks whether the given part of a text equals the expected value after unescaping, without creating any objects.
+     *
+     * @param text the text containing the escaped characters
+     * @param beginIndex the index of the first character to compare
+     * @param endIndex the index after the last character to compare
+     * @param expected the unescaped value
+     */
+    public boolean unescapedEquals(Text<?> text, int beginIndex, int endIndex, String expected)
+    {
+        if (requiresDecoding(text, beginIndex, endIndex))
+        {
+            Text<?> part = text.getPart(beginIndex, endIndex);
+            try
+            {
+                return unescapedEquals(part, 0, part.length(), expected);
+            }
+            finally
+            {
+                release(part);
+            }
+        }
+
+        int expectedIndex = 0;
+        int i = beginIndex;
+        while (i < endIndex)
+        {
+            if (expectedIndex == expected.length())
+            {
+                return false;
+            }
+
+            char c = text.charAt(i);
+            if (c == '\\')
+            {
+                i++;
+                char escapeChar = text.charAt(i);
+                if (escapeChar == 'u')
+                {
+                    c = parseHexChar(text, i + 1);
+                    i += 4;
+                }
+                else
+                {
+                    c = getUnescapedChar(escapeChar);
+                }
+            }
+
+            if (c != expected.charAt(expectedIndex))
+            {
+                return false;
+            }
+            expectedIndex++;
+            i++;
+        }
+        return expectedIndex == expected.length();
+    }
+
+    /**
+     * Determines the length of the given part of a text after unescaping.
+     *
+     * @param text the text containing the escaped characters
+     * @param beginIndex the index of the first character
+     * @param endIndex the index after the last character
+     */
+    public int getUnescapedLength(Text<?> text, int beginIndex, int endIndex)
+    {
+        int result = 0;
+        int i = beginIndex;
+        while (i < endIndex)
+        {
+            if (text.charAt(i) == '\\')
+            {
+                i += text.charAt(i + 1) == 'u' ? 6 : 2;
+            }
+            else
+            {
+                i++;
+            }
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Unescapes the given part of a text into the given array, which must have the size determined by
+     * {@link #getUnescapedLength(Text, int, int)}.
+     */
+    public void unescape(Text<?> text, int beginIndex, int endIndex, char[] target)
+    {
+        Metrics.unescaped(endIndex - beginIndex);
+        int targetIndex = 0;
+        int i = beginIndex;
+        while (i < endIndex)
+        {
+            char c = text.charAt(i);
+            if (c == '\\')
+            {
+                i++;
+                char escapeChar = text.charAt(i);
+                if (escapeChar == 'u')
+                {
+                    c = parseHexChar(text, i + 1);
+                    i += 4;
+                }
+                else
+                {
+                    c = getUnescapedChar(escapeChar);
+                }
+            }
+            target[targetIndex] = c;
+            targetIndex++;
+            i++;
+        }
+    }
+
+    /**
+     * Compares two parts of texts by the UTF-16 code units they contain after unescaping, without creating any objects.
+     *
+     * @return a negative number, zero or a positive number if the first part is less than, equal to or greater than
+     * the second part
+     */
+    public int compareUnescaped(Text<?> a, int aBeginIndex, int aEndIndex, Text<?> b, int bBeginIndex, int bEndIndex)
+    {
+        if (requiresDecoding(a, aBeginIndex, aEndIndex))
+        {
+            Text<?> part = a.getPart(aBeginIndex, aEndIndex);
+            try
+            {
+                return compareUnescaped(part, 0, part.length(), b, bBeginIndex, bEndIndex);
+            }
+            finally
+            {
+                release(part);
+            }
+        }
+        if (requiresDecoding(b, bBeginIndex, bEndIndex))
+        {
+            return -compareUnescaped(b, bBeginIndex, bEndIndex, a, aBeginIndex, aEndIndex);
+        }
+
+        int i = aBeginIndex;
+        int j = bBeginIndex;
+        while (i < aEndIndex && j < bEndIndex)
+        {
+            char aChar = getUnescapedCharAt(a, i);
+            char bChar = getUnescapedCharAt(b, j);
+            if (aChar != bChar)
+            {
+                return aChar - bChar;
+            }
+            i += getEscapeLength(a, i);
+            j += getEscapeLength(b, j);
+        }
+        return Boolean.compare(i < aEndIndex, j < bEndIndex);
+    }
+
+    /**
+     * Checks whether the given part of a text must be decoded before processing it character by character. This is
+     * the case for parts of {@link Text#isUtf8() UTF-8 encoded texts} which contain non-ASCII characters.
+     */
+    public boolean requiresDecoding(Text<?> text, int beginIndex, int endIndex)
+    {
+        if (!text.isUtf8())
+        {
+            return false;
+        }
+        for (int i = beginIndex; i < endIndex; i++)
+        {
+            if (text.charAt(i) >= 0x80)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wipes a part obtained via {@link Text#getPart(int, int)} if it may contain sensitive data.
+     */
+    public void release(Text<?> part)
+    {
+        if (part instanceof Text.Safe)
+        {
+            ((Text.Safe) part).close();
+        }
+    }
+
+    /**
+     * Returns the character which starts at the given index after unescaping.
+     */
+    public char getUnescapedCharAt(Text<?> text, int index)
+    {
+        char c = text.charAt(index);
+        if (c != '\\')
+        {
+            return c;
+        }
+
+        char escapeChar = text.charAt(index + 1);
+        if (escapeChar == 'u')
+        {
+            return parseHexChar(text, index + 2);
+        }
+        return getUnescapedChar(escapeChar);
+    }
+
+    /**
+     * Returns the number of characters used by the (possibly escaped) character which starts at the given index.
+     */
+    public int getEscapeLength(Text<?> text, int index)
+    {
+        if (text.charAt(index) != '\\')
+        {
+            return 1;
+        }
+        return text.charAt(index + 1) == 'u' ? 6 : 2;
+    }
+
+    private char parseHexChar(Text<?> text, int beginIndex)
+    {
+        int value = 0;
+        for (int i = beginIndex; i < beginIndex + 4; i++)
+        {
+            value = (value << 4) | Character.digit(text.charAt(i), 16);
+        }
+        return (char) value;
+    }
+
     private char getUnescapedChar(char escapeChar)
     {
         int escapeCharIndex = Chars.indexOf(ESCAPE_CHARS, escapeChar);
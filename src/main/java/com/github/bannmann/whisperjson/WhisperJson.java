@@ -4,21 +4,309 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NonNull;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Parses JSON source text.
  */
 public class WhisperJson
 {
     /**
-     * Creates a {@code WhisperJson} instance.
+     * Configures {@link WhisperJson} instances, most notably the limits they enforce while consuming JSON source text.
+     * Exceeding any limit aborts parsing with a {@link JsonLimitExceededException}.<br>
+     * <br>
+     * Unless configured otherwise, documents may be nested up to {@value #DEFAULT_MAX_NESTING_DEPTH} levels deep and
+     * may contain numbers of up to {@value #DEFAULT_MAX_NUMBER_LENGTH} characters. All other aspects are unlimited.
+     */
+    public static final class Builder
+    {
+        private int maxDocumentLength = Integer.MAX_VALUE;
+        private int maxElements = Integer.MAX_VALUE;
+        private int maxNestingDepth = DEFAULT_MAX_NESTING_DEPTH;
+        private int maxStringLength = Integer.MAX_VALUE;
+        private int maxNumberLength = DEFAULT_MAX_NUMBER_LENGTH;
+        private boolean syntaxErrorStackTraces = true;
+        private Indexing indexing = Indexing.EAGER;
+        private Storage storage = Storage.HEAP;
+        private boolean adaptiveBlockSizing;
+        private int leakDetectionInterval;
+        private boolean wipeLeakedDocuments;
+        private LeakListener leakListener = LeakListener.NONE;
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Limits the length of the JSON source text. When parsing a {@link Reader} or {@link InputStream}, reading stops
+         * as soon as the limit is exceeded.
+         *
+         * @param maxDocumentLength the maximum number of characters
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maxDocumentLength} is less than 1
+         */
+        public Builder maxDocumentLength(int maxDocumentLength)
+        {
+            this.maxDocumentLength = requirePositive(maxDocumentLength, "maxDocumentLength");
+            return this;
+        }
+
+        /**
+         * Limits the number of elements in a document. Both values and property names count as elements.
+         *
+         * @param maxElements the maximum number of elements
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maxElements} is less than 1
+         */
+        public Builder maxElements(int maxElements)
+        {
+            this.maxElements = requirePositive(maxElements, "maxElements");
+            return this;
+        }
+
+        /**
+         * Limits the number of arrays or objects that may enclose each other.
+         *
+         * @param maxNestingDepth the maximum nesting depth
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maxNestingDepth} is less than 1
+         */
+        public Builder maxNestingDepth(int maxNestingDepth)
+        {
+            this.maxNestingDepth = requirePositive(maxNestingDepth, "maxNestingDepth");
+            return this;
+        }
+
+        /**
+         * Limits the length of strings and property names. The limit applies to the source text between the quotes,
+         * i.e. escape sequences count with their full length.
+         *
+         * @param maxStringLength the maximum number of characters
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maxStringLength} is less than 1
+         */
+        public Builder maxStringLength(int maxStringLength)
+        {
+            this.maxStringLength = requirePositive(maxStringLength, "maxStringLength");
+            return this;
+        }
+
+        /**
+         * Limits the length of numbers. This protects subsequent calls to {@link Json#asBigInteger()} and
+         * {@link Json#asBigDecimal()}, whose cost grows disproportionately with the number of digits.
+         *
+         * @param maxNumberLength the maximum number of characters, including sign, dot and exponent
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code maxNumberLength} is less than 1
+         */
+        public Builder maxNumberLength(int maxNumberLength)
+        {
+            this.maxNumberLength = requirePositive(maxNumberLength, "maxNumberLength");
+            return this;
+        }
+
+        /**
+         * Controls whether {@link JsonSyntaxException JsonSyntaxExceptions} record a stack trace. Disabling stack traces
+         * makes rejecting malformed input considerably cheaper, which matters if an endpoint is flooded with garbage.
+         * The {@link JsonSyntaxException#getErrorCode() error code} and {@link JsonSyntaxException#getIndex() index}
+         * remain available either way. Defaults to {@code true}.
+         *
+         * @param syntaxErrorStackTraces {@code false} to create exceptions without stack traces
+         *
+         * @return this builder
+         */
+        public Builder syntaxErrorStackTraces(boolean syntaxErrorStackTraces)
+        {
+            this.syntaxErrorStackTraces = syntaxErrorStackTraces;
+            return this;
+        }
+
+        /**
+         * Controls how much of a document is indexed while parsing. Defaults to {@link Indexing#EAGER}.<br>
+         * <br>
+         * Note that this setting does not affect {@code validate()}, which never indexes anything.
+         *
+         * @param indexing the indexing strategy
+         *
+         * @return this builder
+         *
+         * @throws NullPointerException if {@code indexing} is {@code null}
+         */
+        public Builder indexing(@NonNull Indexing indexing)
+        {
+            this.indexing = indexing;
+            return this;
+        }
+
+        /**
+         * Controls where {@link SafeJson} documents keep their source text, index and unescaped values. Defaults to
+         * {@link Storage#HEAP}.<br>
+         * <br>
+         * Note that this setting does not affect {@link ExposedJson} documents.
+         *
+         * @param storage the storage to use
+         *
+         * @return this builder
+         *
+         * @throws NullPointerException if {@code storage} is {@code null}
+         */
+        public Builder storage(@NonNull Storage storage)
+        {
+            this.storage = storage;
+            return this;
+        }
+
+        /**
+         * Controls whether the {@code WhisperJson} instance sizes the index of each document based on the
+         * {@link ParseStatistics statistics} of the documents it parsed before. This avoids allocating too much memory
+         * for whitespace-heavy documents and too many index blocks for dense ones, as long as the documents parsed by
+         * an instance are similar. Disabled by default, in which case one element per 16 characters is assumed.
+         *
+         * @param adaptiveBlockSizing whether to learn the index size from recent documents
+         *
+         * @return this builder
+         */
+        public Builder adaptiveBlockSizing(boolean adaptiveBlockSizing)
+        {
+            this.adaptiveBlockSizing = adaptiveBlockSizing;
+            return this;
+        }
+
+        /**
+         * Enables detecting {@link SafeJson} documents which become unreachable without being closed, e.g. to find code
+         * paths which keep sensitive data on the heap longer than necessary. Disabled by default.<br>
+         * <br>
+         * Leaks are only reported via {@link WhisperJsonMetrics#leaked(int, StackTraceElement[])}. To log them or
+         * report them elsewhere, use {@link #leakDetection(int, boolean, LeakListener)}.
+         *
+         * @param samplingInterval track one in this many documents, or none if {@code 0}
+         * @param wipe whether to wipe leaked documents
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code samplingInterval} is negative
+         */
+        public Builder leakDetection(int samplingInterval, boolean wipe)
+        {
+            return leakDetection(samplingInterval, wipe, LeakListener.NONE);
+        }
+
+        /**
+         * Enables detecting {@link SafeJson} documents which become unreachable without being closed, e.g. to find code
+         * paths which keep sensitive data on the heap longer than necessary. Disabled by default.<br>
+         * <br>
+         * As recording the allocation site of a document is expensive, only a sample of the documents is tracked. Leaks
+         * are reported to the given listener and via {@link WhisperJsonMetrics#leaked(int, StackTraceElement[])} during
+         * the next call to a parse method after the garbage collector found them, i.e. without any background thread.
+         * If {@code wipe} is enabled, the source text and index of leaked documents are wiped before reporting them.
+         * Note that unescaped strings cannot be wiped, as they are only referenced by the unreachable elements.
+         *
+         * @param samplingInterval track one in this many documents, or none if {@code 0}
+         * @param wipe whether to wipe leaked documents
+         * @param listener the listener to report leaked documents to
+         *
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if {@code samplingInterval} is negative
+         * @throws NullPointerException if {@code listener} is {@code null}
+         */
+        public Builder leakDetection(int samplingInterval, boolean wipe, @NonNull LeakListener listener)
+        {
+            Preconditions.checkArgument(samplingInterval >= 0, "samplingInterval must not be negative");
+            this.leakDetectionInterval = samplingInterval;
+            this.wipeLeakedDocuments = wipe;
+            this.leakListener = listener;
+            return this;
+        }
+
+        private static int requirePositive(int value, String name)
+        {
+            Preconditions.checkArgument(value > 0, "%s must be positive", name);
+            return value;
+        }
+
+        /**
+         * Creates a {@code WhisperJson} instance with the configured settings.
+         *
+         * @return a new {@code WhisperJson} instance
+         */
+        public WhisperJson build()
+        {
+            return new WhisperJson(new Configuration(maxDocumentLength,
+                maxElements,
+                maxNestingDepth,
+                maxStringLength,
+                maxNumberLength,
+                syntaxErrorStackTraces,
+                indexing,
+                storage,
+                adaptiveBlockSizing,
+                leakDetectionInterval,
+                wipeLeakedDocuments,
+                leakListener));
+        }
+    }
+
+    /**
+     * The maximum nesting depth used unless configured otherwise.
+     */
+    public static final int DEFAULT_MAX_NESTING_DEPTH = 1000;
+
+    /**
+     * The maximum length of numbers used unless configured otherwise.
+     */
+    public static final int DEFAULT_MAX_NUMBER_LENGTH = 1000;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final Configuration configuration;
+    private final ElementDensity elementDensity = new ElementDensity();
+    private final LeakDetector leakDetector;
+
+    /**
+     * Creates a {@code WhisperJson} instance with the default settings described at {@link Builder}.
      */
     public WhisperJson()
     {
-        // Nothing special to do; this explicit constructor only exists because of its Javadoc comment.
+        this(builder().build().configuration);
+    }
+
+    private WhisperJson(Configuration configuration)
+    {
+        this.configuration = configuration;
+        this.leakDetector = new LeakDetector(configuration.getLeakDetectionInterval(),
+            configuration.isWipeLeakedDocuments(),
+            configuration.getLeakListener());
+    }
+
+    /**
+     * Creates a builder for {@code WhisperJson} instances with custom limits or settings.
+     *
+     * @return a new builder
+     */
+    public static Builder builder()
+    {
+        return new Builder();
     }
 
     /**
@@ -29,11 +317,66 @@ public class WhisperJson
      * @return an ExposedJson instance
      *
      * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
      * @throws NullPointerException if {@code raw} is {@code null}
      */
     public ExposedJson parse(@NonNull String raw)
     {
-        return parse(new Factory.Exposed(), new Overlay.Exposed(raw));
+        rejectExcessiveLength(raw.length());
+        return parse(new Factory.Exposed(), createOverlay(new Text.Exposed(raw)), null);
+    }
+
+    /**
+     * Parses the parts of the given string selected by the given projection.
+     *
+     * @param raw the string to parse
+     * @param projection the parts to parse
+     *
+     * @return an ExposedJson instance containing only the selected parts
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws NullPointerException if {@code raw} or {@code projection} is {@code null}
+     * @see Projection
+     */
+    public ExposedJson parse(@NonNull String raw, @NonNull Projection projection)
+    {
+        rejectExcessiveLength(raw.length());
+        return parse(new Factory.Exposed(), createOverlay(new Text.Exposed(raw)), projection);
+    }
+
+    /**
+     * Parses the given UTF-8 encoded file by memory-mapping it. The file is parsed directly from the mapped bytes, and
+     * strings are only decoded when they are accessed, so that documents can be queried without copying them onto the
+     * heap.<br>
+     * <br>
+     * Positions are {@code int} values like for all other sources, so files larger than 2 GiB are rejected. Files of
+     * several GiB need to be split into smaller documents, e.g. one per line of a JSON Lines dump.<br>
+     * <br>
+     * The mapping is released when the returned element and all elements obtained from it become unreachable. The file
+     * must not be modified while it is mapped.
+     *
+     * @param file the file to parse, which may be at most {@link Integer#MAX_VALUE} bytes large
+     *
+     * @return an ExposedJson instance
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error. {@link JsonSyntaxException#getIndex()} reports the
+     * <b>byte</b> position of the error.
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits, with lengths
+     * counted in bytes, or the file is larger than 2 GiB
+     * @throws IOException if the file cannot be read
+     * @throws NullPointerException if {@code file} is {@code null}
+     */
+    public ExposedJson parse(@NonNull Path file) throws IOException
+    {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            rejectExcessiveLength(size);
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        return parse(new Factory.Exposed(), createOverlay(new Text.Utf8Buffer(bytes)), null);
     }
 
     /**
@@ -45,14 +388,189 @@ public class WhisperJson
      * @return a SafeJson instance backed by the given array
      *
      * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
      * @throws NullPointerException if {@code raw} is {@code null}
      */
     public SafeJson parse(@NonNull char[] raw)
     {
-        // We don't close the overlay or factory as the SafeJson will close them
-        Overlay.Safe overlay = new Overlay.Safe(raw);
+        return parseSafe(raw, null);
+    }
+
+    /**
+     * Parses the parts of the given char array selected by the given projection. The returned instance is backed by the
+     * given array. When the instance is closed, the backing array is wiped.
+     *
+     * @param raw the characters to parse
+     * @param projection the parts to parse
+     *
+     * @return a SafeJson instance backed by the given array, containing only the selected parts
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws NullPointerException if {@code raw} or {@code projection} is {@code null}
+     * @see Projection
+     */
+    public SafeJson parse(@NonNull char[] raw, @NonNull Projection projection)
+    {
+        return parseSafe(raw, projection);
+    }
+
+    private SafeJson parseSafe(char[] raw, Projection projection)
+    {
+        rejectExcessiveLength(raw.length);
+        return parseSafe(createSafeText(raw), projection);
+    }
 
-        return parse(createSafeFactory(), overlay);
+    private SafeJson parseSafe(Text.Safe text, Projection projection)
+    {
+        // Off-heap texts are always copies, and the caller's original may already be wiped
+        return parseSafe(text, projection, text instanceof Text.OffHeap);
+    }
+
+    /**
+     * @param copied whether the text is a copy which the caller cannot wipe if parsing fails
+     */
+    private SafeJson parseSafe(Text.Safe text, Projection projection, boolean copied)
+    {
+        // We don't close the text, overlay or factory as the SafeJson will close them
+        Overlay.Safe overlay = new Overlay.Safe(text, configuration.getStorage(), getCharsPerElement());
+
+        SafeJson result;
+        try
+        {
+            result = parse(createSafeFactory(), overlay, projection);
+        }
+        catch (RuntimeException e)
+        {
+            overlay.discard(copied);
+            throw e;
+        }
+        leakDetector.track(overlay);
+        return result;
+    }
+
+    private Text.Safe createSafeText(char[] raw)
+    {
+        if (configuration.getStorage() == Storage.OFF_HEAP)
+        {
+            return Text.OffHeap.copyAndWipe(raw);
+        }
+        return new Text.Safe(raw);
+    }
+
+    private Text.Safe createSafeText(Text.Safe region)
+    {
+        if (configuration.getStorage() == Storage.OFF_HEAP)
+        {
+            return Text.OffHeap.copyAndClose(region);
+        }
+        return region;
+    }
+
+    /**
+     * Parses the given region of a char array without copying it, e.g. a slice of a pooled buffer. The returned
+     * instance is backed by that region. When the instance is closed, exactly that region is wiped, leaving the rest of
+     * the array untouched.<br>
+     * <br>
+     * Offsets are relative to the region, e.g. {@link JsonSyntaxException#getIndex()} reports {@code 0} for an error at
+     * {@code raw[offset]}.
+     *
+     * @param raw the array containing the characters to parse
+     * @param offset the index of the first character to parse
+     * @param length the number of characters to parse
+     *
+     * @return a SafeJson instance backed by the given region
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws IndexOutOfBoundsException if {@code offset} or {@code length} do not denote a region of {@code raw}
+     * @throws NullPointerException if {@code raw} is {@code null}
+     */
+    public SafeJson parse(@NonNull char[] raw, int offset, int length)
+    {
+        Text.ArrayRegion region = new Text.ArrayRegion(raw, offset, length);
+        rejectExcessiveLength(length);
+        return parseSafe(createSafeText(region), null);
+    }
+
+    /**
+     * Parses the remaining characters of the given buffer without copying them. The position and limit of the buffer
+     * are not modified. The returned instance is backed by the buffer's contents. When the instance is closed, exactly
+     * the parsed characters are wiped.<br>
+     * <br>
+     * Offsets are relative to the position of the buffer, e.g. {@link JsonSyntaxException#getIndex()} reports
+     * {@code 0} for an error at the character at that position.
+     *
+     * @param raw the buffer containing the characters to parse
+     *
+     * @return a SafeJson instance backed by the given buffer
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws IllegalArgumentException if {@code raw} is read-only, as it could not be wiped
+     * @throws NullPointerException if {@code raw} is {@code null}
+     */
+    public SafeJson parse(@NonNull CharBuffer raw)
+    {
+        rejectExcessiveLength(raw.remaining());
+        return parseSafe(createSafeText(new Text.BufferRegion(raw)), null);
+    }
+
+    /**
+     * Parses the given UTF-8 encoded bytes without decoding them. The returned instance is backed by the given array,
+     * which takes one byte per ASCII character instead of two. Strings are only decoded when their contents are
+     * requested, e.g. via {@link SafeJson#asCharArray()}, so untouched values are never decoded. When the instance is
+     * closed, the backing array is wiped.<br>
+     * <br>
+     * Malformed UTF-8 sequences inside strings are decoded as replacement characters. {@link Storage#OFF_HEAP} applies
+     * to the index and to decoded values, while the bytes remain in the given array.
+     *
+     * @param raw the bytes to parse
+     *
+     * @return a SafeJson instance backed by the given array
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error. {@link JsonSyntaxException#getIndex()} reports the
+     * <b>byte</b> position of the error.
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits, with lengths
+     * counted in bytes
+     * @throws NullPointerException if {@code raw} is {@code null}
+     */
+    public SafeJson parse(@NonNull byte[] raw)
+    {
+        rejectExcessiveLength(raw.length);
+        return parseSafe(createUtf8Text(raw), null);
+    }
+
+    /**
+     * Parses the parts of the given UTF-8 encoded bytes selected by the given projection. See {@link #parse(byte[])}
+     * for details.
+     *
+     * @param raw the bytes to parse
+     * @param projection the parts to parse
+     *
+     * @return a SafeJson instance backed by the given array, containing only the selected parts
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error. {@link JsonSyntaxException#getIndex()} reports the
+     * <b>byte</b> position of the error.
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits, with lengths
+     * counted in bytes
+     * @throws NullPointerException if {@code raw} or {@code projection} is {@code null}
+     * @see Projection
+     */
+    public SafeJson parse(@NonNull byte[] raw, @NonNull Projection projection)
+    {
+        rejectExcessiveLength(raw.length);
+        return parseSafe(createUtf8Text(raw), projection);
+    }
+
+    private Text.Utf8 createUtf8Text(byte[] raw)
+    {
+        if (configuration.getStorage() == Storage.OFF_HEAP)
+        {
+            // The overlay takes over the arena and wipes it along with the index
+            return new Text.Utf8(raw, new Text.OffHeap.Arena());
+        }
+        return new Text.Utf8(raw);
     }
 
     @SuppressWarnings("java:S2095")
@@ -72,19 +590,46 @@ public class WhisperJson
      * @return a SafeJson instance
      *
      * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
      * @throws IOException if an I/O error occurs
      * @throws NullPointerException if {@code reader} is {@code null}
      */
     public SafeJson parse(@NonNull Reader reader) throws IOException
     {
-        try (TextBuilder textBuilder = new TextBuilder(250))
+        return parseSafe(reader, null);
+    }
+
+    /**
+     * Parses the parts of the given reader's contents selected by the given projection. The reader is consumed
+     * completely, but not closed.<br>
+     * <br>
+     * To avoid accidentally exposing sensitive data, make sure that the given reader is not buffered in any way.
+     *
+     * @param reader the reader to consume and parse
+     * @param projection the parts to parse
+     *
+     * @return a SafeJson instance containing only the selected parts
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if {@code reader} or {@code projection} is {@code null}
+     * @see Projection
+     */
+    public SafeJson parse(@NonNull Reader reader, @NonNull Projection projection) throws IOException
+    {
+        return parseSafe(reader, projection);
+    }
+
+    private SafeJson parseSafe(Reader reader, Projection projection) throws IOException
+    {
+        try (TextBuilder textBuilder = new TextBuilder(250, configuration))
         {
             // We don't close the text, overlay or factory as the SafeJson will close them
             Text.Safe text = textBuilder.appendAll(reader)
-                .build(Text.Safe::new);
-            Overlay.Safe overlay = new Overlay.Safe(text);
+                .build(this::createSafeText);
 
-            return parse(createSafeFactory(), overlay);
+            return parseSafe(text, projection, true);
         }
     }
 
@@ -99,6 +644,7 @@ public class WhisperJson
      * @return a SafeJson instance
      *
      * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
      * @throws IOException if an I/O error occurs
      * @throws NullPointerException if {@code inputStream} or {@code charset} is {@code null}
      */
@@ -107,12 +653,135 @@ public class WhisperJson
         return parse(new InputStreamReader(inputStream, charset));
     }
 
+    /**
+     * Parses the parts of the given input stream's contents selected by the given projection. The stream is consumed
+     * completely, but not closed.<br>
+     * <br>
+     * To avoid accidentally exposing sensitive data, make sure that the given stream is not buffered in any way.
+     *
+     * @param inputStream the stream to consume and parse
+     * @param charset the charset to use
+     * @param projection the parts to parse
+     *
+     * @return a SafeJson instance containing only the selected parts
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if {@code inputStream}, {@code charset} or {@code projection} is {@code null}
+     * @see Projection
+     */
+    public SafeJson parse(
+        @NonNull InputStream inputStream, @NonNull Charset charset, @NonNull Projection projection) throws IOException
+    {
+        return parse(new InputStreamReader(inputStream, charset), projection);
+    }
+
+    /**
+     * Checks the syntax of the given characters without creating any JSON elements. Checking a document costs a single
+     * pass over the input, and the memory used does not depend on the size of the input. The given array is neither
+     * copied nor modified.<br>
+     * <br>
+     * If many invalid documents are to be expected, consider disabling stack traces via
+     * {@link Builder#syntaxErrorStackTraces(boolean)}.
+     *
+     * @param raw the characters to check
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error. {@link JsonSyntaxException#getIndex()} reports the
+     * position of the first error.
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws NullPointerException if {@code raw} is {@code null}
+     */
+    public void validate(@NonNull char[] raw)
+    {
+        rejectExcessiveLength(raw.length);
+        new Parser<>(new Text.Safe(raw), configuration).execute();
+    }
+
+    /**
+     * Checks the syntax of the given character sequence without creating any JSON elements. See
+     * {@link #validate(char[])} for details.
+     *
+     * @param raw the characters to check
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error. {@link JsonSyntaxException#getIndex()} reports the
+     * position of the first error.
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits
+     * @throws NullPointerException if {@code raw} is {@code null}
+     */
+    public void validate(@NonNull CharSequence raw)
+    {
+        rejectExcessiveLength(raw.length());
+        new Parser<>(new Text.Exposed(raw), configuration).execute();
+    }
+
+    /**
+     * Checks the syntax of the given UTF-8 encoded bytes without creating any JSON elements or decoding the input. See
+     * {@link #validate(char[])} for details.<br>
+     * <br>
+     * Note that this method only verifies the JSON syntax, not whether the contents of strings are valid UTF-8.
+     *
+     * @param raw the bytes to check
+     *
+     * @throws JsonSyntaxException if there is a JSON syntax error. {@link JsonSyntaxException#getIndex()} reports the
+     * <b>byte</b> position of the first error.
+     * @throws JsonLimitExceededException if the JSON source text exceeds one of the configured limits, with lengths
+     * counted in bytes
+     * @throws NullPointerException if {@code raw} is {@code null}
+     */
+    public void validate(@NonNull byte[] raw)
+    {
+        rejectExcessiveLength(raw.length);
+        new Parser<Text.Safe>(new Text.Utf8(raw), configuration).execute();
+    }
+
+    /**
+     * Rejects input exceeding the maximum document length before any text or overlay is built for it.
+     */
+    private void rejectExcessiveLength(long length)
+    {
+        if (length > configuration.getMaxDocumentLength())
+        {
+            JsonLimitExceededException exception = configuration.limitExceeded(
+                JsonSyntaxException.ErrorCode.DOCUMENT_TOO_LONG,
+                configuration.getMaxDocumentLength());
+            Metrics.syntaxError(exception.getErrorCode());
+            throw exception;
+        }
+    }
+
     private <J extends Json<J>, F extends Factory<J, O, F, T>, O extends Overlay<T>, T extends Text<T>> J parse(
-        F factory, O overlay)
+        F factory, O overlay, Projection projection)
     {
-        new Parser<>(overlay).execute();
+        if (projection == null)
+        {
+            new Parser<>(overlay, configuration).execute();
+        }
+        else
+        {
+            new Parser<>(overlay, configuration, projection).execute();
+        }
+
+        if (configuration.isAdaptiveBlockSizing())
+        {
+            elementDensity.record(overlay.getStatistics());
+        }
 
         return overlay.getType(0)
             .create(overlay, 0, factory);
     }
+
+    private Overlay.Exposed createOverlay(Text.Exposed text)
+    {
+        return new Overlay.Exposed(text, getCharsPerElement());
+    }
+
+    private double getCharsPerElement()
+    {
+        if (configuration.isAdaptiveBlockSizing())
+        {
+            return elementDensity.getCharsPerElement();
+        }
+        return Overlay.DEFAULT_CHARS_PER_ELEMENT;
+    }
 }
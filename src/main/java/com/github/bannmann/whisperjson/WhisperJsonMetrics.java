@@ -0,0 +1,100 @@
+package com.github.bannmann.whisperjson;
+
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+import lombok.NonNull;
+
+/**
+ * Receives measurements from the hot paths of WhisperJson, e.g. to feed them into a monitoring system.<br>
+ * <br>
+ * Implementations are discovered via {@link ServiceLoader} when WhisperJson is first used, so they must be registered
+ * in {@code META-INF/services/com.github.bannmann.whisperjson.WhisperJsonMetrics} (or via {@code @MetaInfServices})
+ * and have a public no-argument constructor. If no implementation is registered, measuring costs nothing. To use the
+ * reference implementation, register {@link HistogramMetrics} and obtain the instance via
+ * {@link #find(Class) find(HistogramMetrics.class)}. To record events for Java Flight Recorder, register
+ * {@link JfrMetrics}.<br>
+ * <br>
+ * All methods are called synchronously on the thread doing the work, so implementations must be thread-safe, fast and
+ * must not throw exceptions. Measurements never include any content of the documents. All methods do nothing by
+ * default.
+ */
+public interface WhisperJsonMetrics
+{
+    /**
+     * Gets the registered implementation of the given type.
+     *
+     * @param type the implementation class
+     *
+     * @return the instance created via {@link ServiceLoader}, or an empty optional if the type is not registered
+     *
+     * @throws NullPointerException if {@code type} is {@code null}
+     */
+    static <M extends WhisperJsonMetrics> Optional<M> find(@NonNull Class<M> type)
+    {
+        return Metrics.find(type);
+    }
+
+    /**
+     * Called after a document was parsed or validated successfully.
+     *
+     * @param length the length of the source text, in characters or, for UTF-8 input, in bytes
+     * @param elementCount the number of elements indexed while parsing
+     * @param durationNanos the time spent parsing, excluding the time spent reading the input
+     */
+    default void parsed(int length, int elementCount, long durationNanos)
+    {
+    }
+
+    /**
+     * Called when parsing or validating a document fails, including when a limit is exceeded.
+     *
+     * @param errorCode the kind of the error
+     */
+    default void syntaxError(JsonSyntaxException.ErrorCode errorCode)
+    {
+    }
+
+    /**
+     * Called when a string containing escape sequences is unescaped.
+     *
+     * @param length the length of the escaped string
+     */
+    default void unescaped(int length)
+    {
+    }
+
+    /**
+     * Called after the children of an array or object were materialized, i.e. when {@link Json#asArray()} or
+     * {@link Json#asObject()} is first called on it.
+     *
+     * @param object {@code true} for objects, {@code false} for arrays
+     * @param childCount the number of array values or object properties
+     * @param durationNanos the time spent creating the children
+     */
+    default void materialized(boolean object, int childCount, long durationNanos)
+    {
+    }
+
+    /**
+     * Called after a {@link SafeJson} document was closed and wiped.
+     *
+     * @param wipedStringCount the number of unescaped string values wiped along with the document
+     * @param durationNanos the time spent wiping
+     */
+    default void closed(int wipedStringCount, long durationNanos)
+    {
+    }
+
+    /**
+     * Called when a {@link SafeJson} document tracked by
+     * {@link WhisperJson.Builder#leakDetection(int, boolean, LeakListener) leak detection} became unreachable without
+     * being closed, after it was reported to the {@link LeakListener}.
+     *
+     * @param length the length of the source text, in characters or, for UTF-8 input, in bytes
+     * @param allocationSite the stack trace of the call which parsed the document
+     */
+    default void leaked(int length, StackTraceElement[] allocationSite)
+    {
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.bannmann.whisperjson.binding;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Requests generation of a binder class for the annotated type by the {@code whisperjson-processor} annotation
+ * processor. For a type {@code Login}, the processor generates a class {@code LoginBinder} in the same package which
+ * offers a method {@code bind(Json, Login)} as well as the underlying
+ * {@link com.github.bannmann.whisperjson.ExtractionPlan ExtractionPlan}.<br>
+ * <br>
+ * All non-static, non-transient fields of the annotated type are bound to the property with the same name, unless
+ * specified otherwise via {@link JsonField}. Supported field types are:
+ * <ul>
+ *     <li>{@code char[]}</li>
+ *     <li>{@link com.github.bannmann.whisperjson.SensitiveText}</li>
+ *     <li>{@code boolean}, {@code int}, {@code long}, {@code float} and {@code double} as well as their wrapper
+ *     types</li>
+ *     <li>types which are annotated with {@code GenerateBinder} themselves</li>
+ * </ul>
+ * Fields must either be non-private or have a non-private setter. Fields of nested types additionally need a
+ * non-private getter if they are private, and the nested type needs a non-private no-arg constructor.
+ */
+@Target(TYPE)
+@Retention(CLASS)
+@Documented
+public @interface GenerateBinder
+{
+}
@@ -0,0 +1,23 @@
+package com.github.bannmann.whisperjson.binding;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies the JSON value bound to the annotated field.
+ */
+@Target(FIELD)
+@Retention(RUNTIME)
+@Documented
+public @interface JsonField
+{
+    /**
+     * @return the <a href="https://tools.ietf.org/html/rfc6901">JSON Pointer</a> of the value, relative to the
+     * document or object the enclosing type is bound to
+     */
+    String value();
+}
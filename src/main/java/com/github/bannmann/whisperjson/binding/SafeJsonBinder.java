@@ -0,0 +1,733 @@
+package com.github.bannmann.whisperjson.binding;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import lombok.NonNull;
+
+import com.github.bannmann.whisperjson.ExtractionPlan;
+import com.github.bannmann.whisperjson.Json;
+import com.github.bannmann.whisperjson.SensitiveText;
+import com.github.mizool.core.exception.CodeInconsistencyException;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+
+/**
+ * Binds JSON documents to objects without an annotation processor. The target type is introspected once, the result
+ * is cached for the lifetime of the type. Binding itself uses the cached {@link MethodHandle}s and an
+ * {@link ExtractionPlan}, so it involves neither reflection nor {@link String} instances for keys or values.<br>
+ * <br>
+ * The properties of a type are its non-static, non-transient fields, or the components of a record. A property is
+ * bound to the JSON property with the same name, unless specified otherwise via {@link JsonField}. Supported property
+ * types are the same as for {@link GenerateBinder}, except that nested types need no annotation. Properties are set
+ * via their setter if the type declares one, and via the field otherwise.<br>
+ * <br>
+ * Example:
+ * <pre>
+ * private static final SafeJsonBinder&lt;Login&gt; BINDER = SafeJsonBinder.of(Login.class);
+ *
+ * try (SafeJson json = whisperJson.parse(chars))
+ * {
+ *     Login login = BINDER.bind(json);
+ * }
+ * </pre>
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> the type of the objects to bind
+ */
+public final class SafeJsonBinder<T>
+{
+    private static final ClassValue<SafeJsonBinder<?>> BINDERS = new ClassValue<SafeJsonBinder<?>>()
+    {
+        @Override
+        protected SafeJsonBinder<?> computeValue(Class<?> type)
+        {
+            return new SafeJsonBinder<>(type);
+        }
+    };
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle TO_INT_EXACT = findStatic(Math.class,
+        "toIntExact",
+        MethodType.methodType(int.class, long.class));
+
+    /**
+     * The binding of a single type. Values are collected in a frame: an array whose first slot holds the object
+     * being bound, while the remaining slots hold the frames of nested objects or, for records, all component values.
+     */
+    private abstract static class Binding
+    {
+        protected final Class<?> type;
+        protected final List<Property> properties = new ArrayList<>();
+        protected ExtractionPlan<Object[]> plan;
+
+        protected Binding(Class<?> type)
+        {
+            this.type = type;
+        }
+
+        protected void initialize(Set<Class<?>> path)
+        {
+            Preconditions.checkArgument(!properties.isEmpty(), "%s has no properties to bind", type.getName());
+
+            ExtractionPlan.Builder<Object[]> builder = ExtractionPlan.builder();
+            for (int i = 0; i < properties.size(); i++)
+            {
+                properties.get(i)
+                    .addTo(builder, this, 1 + i, path);
+            }
+            plan = builder.build();
+        }
+
+        /**
+         * @param target the object to bind to, or {@code null} to create a new one
+         */
+        abstract Object[] newFrame(Object target);
+
+        /**
+         * @return the object the setters of the properties operate on
+         */
+        abstract Object getTarget(Object[] frame);
+
+        Object finish(Object[] frame)
+        {
+            for (int i = 0; i < properties.size(); i++)
+            {
+                Property property = properties.get(i);
+                if (property.nested != null && frame[1 + i] != null)
+                {
+                    property.set(getTarget(frame), property.nested.finish((Object[]) frame[1 + i]));
+                }
+            }
+            return frame[0];
+        }
+
+        boolean canCreate()
+        {
+            return true;
+        }
+    }
+
+    private static final class ClassBinding extends Binding
+    {
+        private final MethodHandle constructor;
+
+        ClassBinding(Class<?> type, Set<Class<?>> path)
+        {
+            super(type);
+            constructor = findConstructor(type);
+
+            for (Field field : type.getDeclaredFields())
+            {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+                {
+                    continue;
+                }
+                properties.add(new Property(field.getName(),
+                    field.getType(),
+                    field,
+                    findSetter(type, field),
+                    unreflectGetter(field)));
+            }
+            initialize(path);
+        }
+
+        private static MethodHandle findConstructor(Class<?> type)
+        {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            {
+                return null;
+            }
+            try
+            {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return LOOKUP.unreflectConstructor(constructor)
+                    .asType(MethodType.methodType(Object.class));
+            }
+            catch (NoSuchMethodException e)
+            {
+                return null;
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+        }
+
+        private static MethodHandle findSetter(Class<?> type, Field field)
+        {
+            String name = field.getName();
+            String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            try
+            {
+                Method setter = type.getDeclaredMethod(setterName, field.getType());
+                setter.setAccessible(true);
+                return LOOKUP.unreflect(setter);
+            }
+            catch (NoSuchMethodException e)
+            {
+                if (Modifier.isFinal(field.getModifiers()))
+                {
+                    return null;
+                }
+                field.setAccessible(true);
+                try
+                {
+                    return LOOKUP.unreflectSetter(field);
+                }
+                catch (IllegalAccessException e2)
+                {
+                    throw new CodeInconsistencyException(e2);
+                }
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+        }
+
+        private static MethodHandle unreflectGetter(Field field)
+        {
+            field.setAccessible(true);
+            try
+            {
+                return LOOKUP.unreflectGetter(field)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            }
+            catch (IllegalAccessException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+        }
+
+        @Override
+        Object[] newFrame(Object target)
+        {
+            Object[] frame = new Object[1 + properties.size()];
+            if (target != null)
+            {
+                frame[0] = target;
+            }
+            else
+            {
+                try
+                {
+                    frame[0] = (Object) constructor.invokeExact();
+                }
+                catch (Throwable t)
+                {
+                    throw propagate(t);
+                }
+            }
+            return frame;
+        }
+
+        @Override
+        Object getTarget(Object[] frame)
+        {
+            return frame[0];
+        }
+
+        @Override
+        boolean canCreate()
+        {
+            return constructor != null;
+        }
+    }
+
+    /**
+     * Binds records. As the library targets Java 8, records are detected and introspected via reflection.
+     */
+    private static final class RecordBinding extends Binding
+    {
+        private final MethodHandle constructor;
+        private final Object[] defaults;
+
+        RecordBinding(Class<?> type, Set<Class<?>> path)
+        {
+            super(type);
+
+            Object[] components = (Object[]) invoke(RecordComponents.GET_RECORD_COMPONENTS, type);
+            Class<?>[] componentTypes = new Class<?>[components.length];
+            defaults = new Object[1 + components.length];
+            for (int i = 0; i < components.length; i++)
+            {
+                String name = (String) invoke(RecordComponents.GET_NAME, components[i]);
+                componentTypes[i] = (Class<?>) invoke(RecordComponents.GET_TYPE, components[i]);
+                if (componentTypes[i].isPrimitive())
+                {
+                    defaults[1 + i] = Array.get(Array.newInstance(componentTypes[i], 1), 0);
+                }
+
+                MethodHandle slotSetter = MethodHandles.insertArguments(MethodHandles.arrayElementSetter(Object[].class),
+                    1,
+                    1 + i);
+                properties.add(new Property(name,
+                    componentTypes[i],
+                    getField(type, name),
+                    slotSetter.asType(MethodType.methodType(void.class, Object.class, componentTypes[i])),
+                    null));
+            }
+
+            try
+            {
+                Constructor<?> canonical = type.getDeclaredConstructor(componentTypes);
+                canonical.setAccessible(true);
+                constructor = MethodHandles.dropArguments(LOOKUP.unreflectConstructor(canonical), 0, Object.class)
+                    .asSpreader(Object[].class, 1 + components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+            }
+            catch (NoSuchMethodException | IllegalAccessException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+            initialize(path);
+        }
+
+        private static Field getField(Class<?> type, String name)
+        {
+            try
+            {
+                return type.getDeclaredField(name);
+            }
+            catch (NoSuchFieldException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+        }
+
+        @Override
+        Object[] newFrame(Object target)
+        {
+            Preconditions.checkArgument(target == null, "Records cannot be bound to existing instances");
+            return defaults.clone();
+        }
+
+        @Override
+        Object getTarget(Object[] frame)
+        {
+            return frame;
+        }
+
+        @Override
+        Object finish(Object[] frame)
+        {
+            super.finish(frame);
+            try
+            {
+                return (Object) constructor.invokeExact(frame);
+            }
+            catch (Throwable t)
+            {
+                throw propagate(t);
+            }
+        }
+    }
+
+    /**
+     * Accessors for {@code java.lang.reflect.RecordComponent}, which does not exist in Java 8.
+     */
+    private static final class RecordComponents
+    {
+        private static final MethodHandle GET_RECORD_COMPONENTS = findVirtual(Class.class,
+            "getRecordComponents",
+            Object[].class);
+        private static final MethodHandle GET_NAME = findVirtual(getRecordComponentClass(), "getName", Object.class);
+        private static final MethodHandle GET_TYPE = findVirtual(getRecordComponentClass(), "getType", Object.class);
+
+        private static Class<?> getRecordComponentClass()
+        {
+            try
+            {
+                return Class.forName("java.lang.reflect.RecordComponent");
+            }
+            catch (ClassNotFoundException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+        }
+
+        private static MethodHandle findVirtual(Class<?> type, String name, Class<?> returnType)
+        {
+            try
+            {
+                return LOOKUP.unreflect(type.getMethod(name))
+                    .asType(MethodType.methodType(returnType, Object.class));
+            }
+            catch (NoSuchMethodException | IllegalAccessException e)
+            {
+                throw new CodeInconsistencyException(e);
+            }
+        }
+    }
+
+    private static final class Property
+    {
+        private final String name;
+        private final Class<?> type;
+        private final String pointer;
+
+        /**
+         * Sets the property on the target of a frame, with the type {@code (Object, <property type>)void}. Is
+         * {@code null} for final fields without setter.
+         */
+        private final MethodHandle setter;
+
+        /**
+         * The same as {@link #setter}, with the type {@code (Object, Object)void}.
+         */
+        private final MethodHandle objectSetter;
+
+        /**
+         * Gets the current value of the property from the target of a frame, or {@code null} for records.
+         */
+        private final MethodHandle getter;
+
+        private Binding nested;
+
+        Property(String name, Class<?> type, Field field, MethodHandle setter, MethodHandle getter)
+        {
+            this.name = name;
+            this.type = type;
+            if (setter != null)
+            {
+                this.setter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+                objectSetter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            }
+            else
+            {
+                this.setter = null;
+                objectSetter = null;
+            }
+            this.getter = getter;
+
+            JsonField jsonField = field.getAnnotation(JsonField.class);
+            pointer = jsonField != null ? jsonField.value() : "/" + name.replace("~", "~0");
+        }
+
+        void addTo(ExtractionPlan.Builder<Object[]> builder, Binding owner, int slot, Set<Class<?>> path)
+        {
+            if (setter == null)
+            {
+                Preconditions.checkArgument(isNestedType(type),
+                    "Field %s of %s is final and has no setter",
+                    name,
+                    owner.type.getName());
+                addNested(builder, owner, slot, path);
+            }
+            else if (type == char[].class)
+            {
+                MethodHandle handle = adapt(char[].class);
+                builder.charArray(pointer, (frame, value) -> {
+                    try
+                    {
+                        handle.invokeExact(owner.getTarget(frame), value);
+                    }
+                    catch (Throwable t)
+                    {
+                        throw propagate(t);
+                    }
+                });
+            }
+            else if (type == SensitiveText.class)
+            {
+                MethodHandle handle = adapt(SensitiveText.class);
+                builder.charArray(pointer, (frame, value) -> {
+                    try
+                    {
+                        handle.invokeExact(owner.getTarget(frame), new SensitiveText(value));
+                    }
+                    catch (Throwable t)
+                    {
+                        throw propagate(t);
+                    }
+                    finally
+                    {
+                        Arrays.fill(value, '\0');
+                    }
+                });
+            }
+            else if (type == long.class || type == Long.class)
+            {
+                addLong(builder, owner, adapt(long.class));
+            }
+            else if (type == int.class || type == Integer.class)
+            {
+                addLong(builder, owner, MethodHandles.filterArguments(adapt(int.class), 1, TO_INT_EXACT));
+            }
+            else if (type == double.class || type == Double.class)
+            {
+                addDouble(builder, owner, adapt(double.class));
+            }
+            else if (type == float.class || type == Float.class)
+            {
+                addDouble(builder,
+                    owner,
+                    MethodHandles.explicitCastArguments(adapt(float.class),
+                        MethodType.methodType(void.class, Object.class, double.class)));
+            }
+            else if (type == boolean.class || type == Boolean.class)
+            {
+                MethodHandle handle = adapt(boolean.class);
+                builder.booleanValue(pointer, (frame, value) -> {
+                    try
+                    {
+                        handle.invokeExact(owner.getTarget(frame), value);
+                    }
+                    catch (Throwable t)
+                    {
+                        throw propagate(t);
+                    }
+                });
+            }
+            else
+            {
+                addNested(builder, owner, slot, path);
+            }
+        }
+
+        private MethodHandle adapt(Class<?> valueType)
+        {
+            return setter.asType(MethodType.methodType(void.class, Object.class, valueType));
+        }
+
+        private void addLong(ExtractionPlan.Builder<Object[]> builder, Binding owner, MethodHandle handle)
+        {
+            builder.longValue(pointer, (frame, value) -> {
+                try
+                {
+                    handle.invokeExact(owner.getTarget(frame), value);
+                }
+                catch (Throwable t)
+                {
+                    throw propagate(t);
+                }
+            });
+        }
+
+        private void addDouble(ExtractionPlan.Builder<Object[]> builder, Binding owner, MethodHandle handle)
+        {
+            builder.doubleValue(pointer, (frame, value) -> {
+                try
+                {
+                    handle.invokeExact(owner.getTarget(frame), value);
+                }
+                catch (Throwable t)
+                {
+                    throw propagate(t);
+                }
+            });
+        }
+
+        private void addNested(ExtractionPlan.Builder<Object[]> builder, Binding owner, int slot, Set<Class<?>> path)
+        {
+            Preconditions.checkArgument(type != String.class,
+                "String properties are not supported, use char[] or SensitiveText for %s of %s",
+                name,
+                owner.type.getName());
+            Preconditions.checkArgument(isNestedType(type),
+                "Unsupported type %s of %s in %s",
+                type.getName(),
+                name,
+                owner.type.getName());
+
+            Binding binding = createBinding(type, path);
+            Preconditions.checkArgument(binding.canCreate(), "%s has no no-arg constructor", type.getName());
+            nested = binding;
+
+            builder.nested(pointer, binding.plan, frame -> {
+                Object[] nestedFrame = (Object[]) frame[slot];
+                if (nestedFrame == null)
+                {
+                    Object current = get(owner.getTarget(frame));
+                    Preconditions.checkState(current != null || setter != null,
+                        "Final field %s of %s is null",
+                        name,
+                        owner.type.getName());
+                    nestedFrame = binding.newFrame(current);
+                    frame[slot] = nestedFrame;
+                }
+                return nestedFrame;
+            });
+        }
+
+        private Object get(Object target)
+        {
+            if (getter == null)
+            {
+                return null;
+            }
+            try
+            {
+                return (Object) getter.invokeExact(target);
+            }
+            catch (Throwable t)
+            {
+                throw propagate(t);
+            }
+        }
+
+        void set(Object target, Object value)
+        {
+            if (objectSetter == null)
+            {
+                return;
+            }
+            try
+            {
+                objectSetter.invokeExact(target, value);
+            }
+            catch (Throwable t)
+            {
+                throw propagate(t);
+            }
+        }
+
+        private static boolean isNestedType(Class<?> type)
+        {
+            return !type.isPrimitive() &&
+                !type.isArray() &&
+                !type.isEnum() &&
+                !type.isInterface() &&
+                !type.getName()
+                    .startsWith("java.");
+        }
+    }
+
+    private final Class<T> type;
+    private final Binding binding;
+
+    private SafeJsonBinder(Class<T> type)
+    {
+        this.type = type;
+        binding = createBinding(type, new HashSet<>());
+    }
+
+    /**
+     * Returns the binder for the given type, introspecting the type on first use.
+     *
+     * @param type the type of the objects to bind
+     * @param <T> the type of the objects to bind
+     *
+     * @return the binder
+     *
+     * @throws IllegalArgumentException if the type or one of its properties is not supported
+     * @throws NullPointerException if {@code type} is {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> SafeJsonBinder<T> of(@NonNull Class<T> type)
+    {
+        return (SafeJsonBinder<T>) BINDERS.get(type);
+    }
+
+    private static Binding createBinding(Class<?> type, Set<Class<?>> path)
+    {
+        Preconditions.checkArgument(path.add(type), "Cyclic reference to %s", type.getName());
+        Binding result = isRecord(type) ? new RecordBinding(type, path) : new ClassBinding(type, path);
+        path.remove(type);
+        return result;
+    }
+
+    private static boolean isRecord(Class<?> type)
+    {
+        return type.getSuperclass() != null &&
+            type.getSuperclass()
+                .getName()
+                .equals("java.lang.Record");
+    }
+
+    /**
+     * Creates a new object and binds the given element to it. If the element is {@code null}, the properties of the
+     * new object are left at their defaults.
+     *
+     * @param json the element to bind
+     *
+     * @return the new object
+     *
+     * @throws com.github.bannmann.whisperjson.TypeMismatchException if a value does not match the type of its
+     * property
+     * @throws NumberFormatException if a number does not fit the type of its property
+     * @throws ArithmeticException if an integer number does not fit into an {@code int} property
+     * @throws UnsupportedOperationException if the type has no no-arg constructor
+     * @throws NullPointerException if {@code json} is {@code null}
+     * @throws IllegalArgumentException if {@code json} was not created by
+     * {@link com.github.bannmann.whisperjson.WhisperJson WhisperJson}
+     */
+    public T bind(@NonNull Json<?> json)
+    {
+        if (!binding.canCreate())
+        {
+            throw new UnsupportedOperationException(type.getName() + " has no no-arg constructor");
+        }
+        return type.cast(bind(json, binding.newFrame(null)));
+    }
+
+    /**
+     * Binds the given element to an existing object. Properties whose values are absent or {@code null} are left
+     * unchanged.
+     *
+     * @param json the element to bind
+     * @param target the object to bind to
+     *
+     * @throws com.github.bannmann.whisperjson.TypeMismatchException if a value does not match the type of its
+     * property
+     * @throws NumberFormatException if a number does not fit the type of its property
+     * @throws ArithmeticException if an integer number does not fit into an {@code int} property
+     * @throws NullPointerException if any argument is {@code null}
+     * @throws IllegalArgumentException if {@code json} was not created by
+     * {@link com.github.bannmann.whisperjson.WhisperJson WhisperJson}, or if {@code T} is a record
+     */
+    public void bind(@NonNull Json<?> json, @NonNull T target)
+    {
+        bind(json, binding.newFrame(target));
+    }
+
+    private Object bind(Json<?> json, Object[] frame)
+    {
+        binding.plan.extract(json, frame);
+        return binding.finish(frame);
+    }
+
+    private static Object invoke(MethodHandle handle, Object... arguments)
+    {
+        try
+        {
+            return handle.invokeWithArguments(arguments);
+        }
+        catch (Throwable t)
+        {
+            throw propagate(t);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable t)
+    {
+        Throwables.throwIfUnchecked(t);
+        throw new IllegalStateException(t);
+    }
+
+    private static MethodHandle findStatic(Class<?> type, String name, MethodType methodType)
+    {
+        try
+        {
+            return LOOKUP.findStatic(type, name, methodType);
+        }
+        catch (NoSuchMethodException | IllegalAccessException e)
+        {
+            throw new CodeInconsistencyException(e);
+        }
+    }
+}
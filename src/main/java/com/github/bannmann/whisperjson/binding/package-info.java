@@ -0,0 +1,4 @@
+/**
+ * Binds JSON documents to objects, either via generated code or at runtime.
+ */
+package com.github.bannmann.whisperjson.binding;
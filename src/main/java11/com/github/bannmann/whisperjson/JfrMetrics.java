@@ -0,0 +1,127 @@
+package com.github.bannmann.whisperjson;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Implementation of {@link WhisperJsonMetrics} which records Java Flight Recorder events, so that WhisperJson shows up
+ * in continuous production profiling. The following events are recorded in the category "WhisperJson":
+ * <ul>
+ *     <li>{@code WhisperJson.Parse} with the source length, element count and parse duration</li>
+ *     <li>{@code WhisperJson.Materialize} for the first {@link Json#asArray()} or {@link Json#asObject()} call on an
+ *     element, with its kind and child count</li>
+ *     <li>{@code WhisperJson.Close} with the wipe duration and the number of strings wiped</li>
+ * </ul>
+ * The events never contain any content of the documents. They are disabled by default and can be enabled in a JFR
+ * configuration like any other event.<br>
+ * <br>
+ * To use it, register it via {@code META-INF/services/com.github.bannmann.whisperjson.WhisperJsonMetrics}. This is the
+ * Java 11 layer of the multi-release JAR. On older runtimes, the base version is used, which does nothing.
+ */
+public final class JfrMetrics implements WhisperJsonMetrics
+{
+    private static final String CATEGORY = "WhisperJson";
+
+    @Name("WhisperJson.Parse")
+    @Label("Parse")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class ParseEvent extends Event
+    {
+        @Label("Length")
+        int length;
+
+        @Label("Element Count")
+        int elementCount;
+
+        @Label("Parse Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long parseDuration;
+    }
+
+    @Name("WhisperJson.Materialize")
+    @Label("Materialize")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class MaterializeEvent extends Event
+    {
+        @Label("Kind")
+        String kind;
+
+        @Label("Child Count")
+        int childCount;
+
+        @Label("Materialize Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long materializeDuration;
+    }
+
+    @Name("WhisperJson.Close")
+    @Label("Close")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static class CloseEvent extends Event
+    {
+        @Label("Wipe Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long wipeDuration;
+
+        @Label("Wiped Strings")
+        int wipedStrings;
+    }
+
+    /**
+     * Checks whether events can be recorded on this runtime.
+     */
+    public boolean isAvailable()
+    {
+        return true;
+    }
+
+    @Override
+    public void parsed(int length, int elementCount, long durationNanos)
+    {
+        // The JIT compiler removes the allocation if the event is disabled
+        ParseEvent event = new ParseEvent();
+        if (event.isEnabled())
+        {
+            event.length = length;
+            event.elementCount = elementCount;
+            event.parseDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void materialized(boolean object, int childCount, long durationNanos)
+    {
+        MaterializeEvent event = new MaterializeEvent();
+        if (event.isEnabled())
+        {
+            event.kind = object ? "object" : "array";
+            event.childCount = childCount;
+            event.materializeDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void closed(int wipedStringCount, long durationNanos)
+    {
+        CloseEvent event = new CloseEvent();
+        if (event.isEnabled())
+        {
+            event.wipeDuration = durationNanos;
+            event.wipedStrings = wipedStringCount;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestCanonicalJson
+{
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void sortPropertiesAndRemoveWhitespace(String label, WhisperJson whisperJson)
+    {
+        String document = "{\n" +
+            "  \"\\ufb33\": 4, \"\\ud83d\\ude00\": 3, \"\\u20ac\": 2, \"\\u00e9\": 1,\n" +
+            "  \"b\": [ 1, { \"z\": true, \"a\": null } ],\n" +
+            "  \"a\": \"x\", \"\": {}, \"aa\": []\n" +
+            "}";
+
+        assertThat(canonicalize(whisperJson, document)).isEqualTo("{\"\":{},\"a\":\"x\",\"aa\":[]," +
+            "\"b\":[1,{\"a\":null,\"z\":true}],\"\u00e9\":1,\"\u20ac\":2,\"\ud83d\ude00\":3,\"\ufb33\":4}");
+    }
+
+    @Test
+    public void escapeMinimally()
+    {
+        assertThat(canonicalize(new WhisperJson(), "\"\\u0041\\/\\\"\\u001F\\n\\u00e9\\\\\u20ac\"")).isEqualTo(
+            "\"A/\\\"\\u001f\\n\u00e9\\\\\u20ac\"");
+    }
+
+    @DataProvider
+    public Object[][] numbers()
+    {
+        return new Object[][]{
+            { "0", "0" },
+            { "-0", "0" },
+            { "-0.0e5", "0" },
+            { "-123", "-123" },
+            { "1.0", "1" },
+            { "4.50", "4.5" },
+            { "2e-3", "0.002" },
+            { "0.1", "0.1" },
+            { "0.000001", "0.000001" },
+            { "1e-7", "1e-7" },
+            { "1e20", "100000000000000000000" },
+            { "1E21", "1e+21" },
+            { "123456789012345680000", "123456789012345680000" },
+            { "9007199254740993", "9007199254740992" },
+            { "333333333.33333329", "333333333.3333333" },
+            { "1.7976931348623157e308", "1.7976931348623157e+308" },
+            { "5e-324", "5e-324" },
+            { "-1.5E-10", "-1.5e-10" }
+        };
+    }
+
+    @Test(dataProvider = "numbers")
+    public void formatNumbers(String number, String expected)
+    {
+        assertThat(canonicalize(new WhisperJson(), number)).isEqualTo(expected);
+    }
+
+    @Test
+    public void rejectNonFiniteNumbers()
+    {
+        try (SafeJson json = new WhisperJson().parse("[1e400]".toCharArray()))
+        {
+            assertThatThrownBy(() -> CanonicalJson.toSensitiveText(json)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void digestCanonicalForm(String label, WhisperJson whisperJson) throws GeneralSecurityException
+    {
+        String expected = "{\"a\":[\"\u00e9\ud83d\ude00\",1.5],\"b\":true}";
+        byte[] expectedBytes = expected.getBytes(StandardCharsets.UTF_8);
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(new byte[]{ 1, 2, 3 }, "HmacSHA256"));
+        try (SafeJson json = whisperJson.parse("{ \"b\": true, \"a\": [\"\\u00e9\\ud83d\\ude00\", 15e-1] }"
+            .toCharArray()))
+        {
+            CanonicalJson.digest(json, digest);
+            CanonicalJson.digest(json, mac);
+        }
+
+        assertThat(digest.digest()).isEqualTo(MessageDigest.getInstance("SHA-256")
+            .digest(expectedBytes));
+        assertThat(mac.doFinal()).isEqualTo(mac.doFinal(expectedBytes));
+    }
+
+    @Test
+    public void digestLargeDocuments() throws GeneralSecurityException
+    {
+        StringBuilder document = new StringBuilder("[");
+        for (int i = 0; i < 500; i++)
+        {
+            document.append(i > 0 ? "," : "")
+                .append("\"\u00e4\ud83d\ude00\"");
+        }
+        document.append(']');
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        CanonicalJson.digest(new WhisperJson().parse(document.toString()), digest);
+
+        assertThat(digest.digest()).isEqualTo(MessageDigest.getInstance("SHA-256")
+            .digest(document.toString()
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void hashStructurally(String label, WhisperJson whisperJson)
+    {
+        try (SafeJson a = whisperJson.parse("{\"a\": 1, \"b\": [true, \"x\"]}".toCharArray());
+             SafeJson b = whisperJson.parse("{ \"b\" : [ true, \"\\u0078\" ], \"a\" : 1 }".toCharArray());
+             SafeJson c = whisperJson.parse("{\"a\": 1, \"b\": [true, \"y\"]}".toCharArray()))
+        {
+            assertThat(a).isEqualTo(b);
+            assertThat(a.hashCode()).isEqualTo(b.hashCode());
+            assertThat(a.hashCode()).isNotEqualTo(c.hashCode());
+            assertThat(a.asObject()
+                .get("b")
+                .hashCode()).isEqualTo(b.asObject()
+                .get("b")
+                .hashCode());
+        }
+    }
+
+    private static String canonicalize(WhisperJson whisperJson, String document)
+    {
+        try (SafeJson json = whisperJson.parse(document.toCharArray());
+             JsonWriter writer = JsonWriter.toBuffer())
+        {
+            CanonicalJson.write(json, writer);
+            return new String(writer.toCharArray());
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
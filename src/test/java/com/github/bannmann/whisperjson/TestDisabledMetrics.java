@@ -0,0 +1,33 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+/**
+ * Runs without any {@link WhisperJsonMetrics} implementation on the classpath, unlike {@link TestMetrics}.
+ */
+public class TestDisabledMetrics
+{
+    @Test
+    public void findNoImplementations()
+    {
+        assertThat(WhisperJsonMetrics.find(HistogramMetrics.class)).isEmpty();
+        assertThat(WhisperJsonMetrics.find(JfrMetrics.class)).isEmpty();
+    }
+
+    @Test
+    public void skipMeasuring()
+    {
+        assertThat(Metrics.start()).isZero();
+
+        try (SafeJson json = new WhisperJson().parse("{\"a\": [\"x\"]}".toCharArray()))
+        {
+            assertThat(json.asObject()
+                .get("a")
+                .asArray()
+                .get(0)
+                .asCharArray()).containsExactly('x');
+        }
+    }
+}
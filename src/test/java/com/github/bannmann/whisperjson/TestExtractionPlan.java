@@ -0,0 +1,188 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import lombok.Data;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestExtractionPlan
+{
+    @Data
+    private static final class Address
+    {
+        private char[] city;
+        private long zip;
+    }
+
+    @Data
+    private static final class Login
+    {
+        private char[] user;
+        private char[] password;
+        private long clientId;
+        private double score;
+        private boolean remember;
+        private char[] firstRole;
+        private final Address address = new Address();
+        private int calls;
+    }
+
+    private static final String DOCUMENT = "{\"user\": {\"name\": \"jdoe\", \"pass\\u0077ord\": \"s\\\"ecret\\n\"}, " +
+        "\"ignored\": [1, 2, {\"x\": 3}], \"client\": {\"id\": -9223372036854775808}, \"score\": 0.125, " +
+        "\"remember\": true, \"roles\": [\"admin\", \"user\"], \"address\": {\"city\": \"Z\\u00fcrich\", \"zip\": 8000}}";
+
+    private static final ExtractionPlan<Address> ADDRESS_PLAN = ExtractionPlan.<Address>builder()
+        .charArray("/city", Address::setCity)
+        .longValue("/zip", Address::setZip)
+        .build();
+
+    private static final ExtractionPlan<Login> LOGIN_PLAN = ExtractionPlan.<Login>builder()
+        .charArray("/user/name", Login::setUser)
+        .charArray("/user/password", Login::setPassword)
+        .longValue("/client/id", Login::setClientId)
+        .doubleValue("/score", Login::setScore)
+        .booleanValue("/remember", Login::setRemember)
+        .charArray("/roles/0", Login::setFirstRole)
+        .nested("/address", ADDRESS_PLAN, Login::getAddress)
+        .build();
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void extract(String label, WhisperJson whisperJson)
+    {
+        Login login = new Login();
+
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray()))
+        {
+            LOGIN_PLAN.extract(json, login);
+        }
+
+        assertThat(login.getUser()).containsExactly("jdoe".toCharArray());
+        assertThat(login.getPassword()).containsExactly("s\"ecret\n".toCharArray());
+        assertThat(login.getClientId()).isEqualTo(Long.MIN_VALUE);
+        assertThat(login.getScore()).isEqualTo(0.125);
+        assertThat(login.isRemember()).isTrue();
+        assertThat(login.getFirstRole()).containsExactly("admin".toCharArray());
+        assertThat(login.getAddress()
+            .getCity()).containsExactly("Zürich".toCharArray());
+        assertThat(login.getAddress()
+            .getZip()).isEqualTo(8000);
+    }
+
+    @Test
+    public void skipAbsentAndNullValues()
+    {
+        Login login = new Login();
+
+        LOGIN_PLAN.extract(new WhisperJson().parse("{\"user\": null, \"score\": null, \"address\": {\"zip\": 1}}"),
+            login);
+
+        assertThat(login.getUser()).isNull();
+        assertThat(login.getScore()).isZero();
+        assertThat(login.getAddress()
+            .getZip()).isEqualTo(1);
+    }
+
+    @Test
+    public void extractRelativeToElement()
+    {
+        Address address = new Address();
+        ExposedJson json = new WhisperJson().parse(DOCUMENT);
+
+        ADDRESS_PLAN.extract(json.at("/address")
+            .orElseThrow(AssertionError::new), address);
+
+        assertThat(address.getZip()).isEqualTo(8000);
+    }
+
+    @Test
+    public void callAllSettersForSamePointer()
+    {
+        ExtractionPlan<Login> plan = ExtractionPlan.<Login>builder()
+            .longValue("/a", (login, value) -> login.setCalls(login.getCalls() + 1))
+            .doubleValue("/a", (login, value) -> login.setCalls(login.getCalls() + 1))
+            .build();
+        Login login = new Login();
+
+        plan.extract(new WhisperJson().parse("{\"a\": 1}"), login);
+
+        assertThat(login.getCalls()).isEqualTo(2);
+    }
+
+    @Test(dataProvider = "doubles")
+    public void extractDouble(String input)
+    {
+        Login login = new Login();
+        ExtractionPlan<Login> plan = ExtractionPlan.<Login>builder()
+            .doubleValue("", Login::setScore)
+            .build();
+
+        plan.extract(new WhisperJson().parse(input), login);
+
+        assertThat(login.getScore()).isEqualTo(Double.parseDouble(input));
+    }
+
+    @DataProvider
+    public static Object[][] doubles()
+    {
+        return new Object[][]{
+            new Object[]{ "0" },
+            new Object[]{ "-0.0" },
+            new Object[]{ "0.1" },
+            new Object[]{ "3.14159" },
+            new Object[]{ "-12.5e+3" },
+            new Object[]{ "1E-7" },
+            new Object[]{ "9007199254740993" },
+            new Object[]{ "1.7976931348623157e308" },
+            new Object[]{ "4.9e-324" },
+            new Object[]{ "123456789012345678901234567890" }
+        };
+    }
+
+    @Test
+    public void rejectTypeMismatch()
+    {
+        Login login = new Login();
+
+        assertThatThrownBy(() -> LOGIN_PLAN.extract(new WhisperJson().parse("{\"remember\": \"yes\"}"), login))
+            .isInstanceOf(TypeMismatchException.class)
+            .hasMessage("Type mismatch: expected boolean, got string at index 13");
+    }
+
+    @Test(dataProvider = "invalidLongs")
+    public void rejectInvalidLong(String input)
+    {
+        Login login = new Login();
+        ExtractionPlan<Login> plan = ExtractionPlan.<Login>builder()
+            .longValue("", Login::setClientId)
+            .build();
+
+        assertThatThrownBy(() -> plan.extract(new WhisperJson().parse(input), login))
+            .isInstanceOf(NumberFormatException.class)
+            .hasMessage("For input string: \"" + input + "\"");
+    }
+
+    @DataProvider
+    public static Object[][] invalidLongs()
+    {
+        return new Object[][]{
+            new Object[]{ "1.5" }, new Object[]{ "1e3" }, new Object[]{ "9223372036854775808" }
+        };
+    }
+
+    @Test
+    public void rejectEmptyPlan()
+    {
+        assertThatThrownBy(() -> ExtractionPlan.builder()
+            .build()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rejectInvalidPointer()
+    {
+        assertThatThrownBy(() -> ExtractionPlan.<Login>builder()
+            .longValue("a", Login::setClientId)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
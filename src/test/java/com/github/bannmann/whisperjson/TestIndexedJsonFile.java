@@ -0,0 +1,165 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestIndexedJsonFile
+{
+    private static final String DOCUMENT = "{\n" +
+        "  \"name\": \"caf\\u00e9\",\n" +
+        "  \"items\": [1, 2.5, true, null, {\"id\": \"a\"}, []],\n" +
+        "  \"nested\": {\"deep\": {\"value\": -7}}\n" +
+        "}";
+
+    private Path file;
+
+    @BeforeMethod
+    public void createFile() throws IOException
+    {
+        file = Files.createTempFile("whisperjson", ".idx");
+    }
+
+    @AfterMethod
+    public void deleteFile() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void writeAndMap(String label, WhisperJson whisperJson) throws IOException
+    {
+        ExposedJson original = whisperJson.parse(DOCUMENT);
+        IndexedJsonFile.write(original, file);
+
+        ExposedJson mapped = IndexedJsonFile.map(file);
+
+        assertThat(mapped).isEqualTo(new WhisperJson().parse(DOCUMENT));
+        assertThat(mapped.asObject()
+            .get("name")
+            .asString()).isEqualTo("caf\u00e9");
+        assertThat(mapped.asObject()
+            .get("items")
+            .asArray()).hasSize(6);
+        assertThat(mapped.asObject()
+            .get("nested")
+            .asObject()
+            .get("deep")
+            .asObject()
+            .get("value")
+            .asInt()).isEqualTo(-7);
+        assertThat(mapped.select("$.items[4].id")
+            .map(ExposedJson::asString)).containsExactly("a");
+    }
+
+    @Test
+    public void writeAndMapUtf8Document() throws IOException
+    {
+        String document = "{\"name\": \"J\u00fcrgen \u20ac\", \"emoji\": \"\ud83d\ude00\", \"list\": [\"\u00e9\", 1]}";
+        Path source = Files.createTempFile("whisperjson", ".json");
+        try
+        {
+            Files.write(source, document.getBytes(StandardCharsets.UTF_8));
+            IndexedJsonFile.write(new WhisperJson().parse(source), file);
+        }
+        finally
+        {
+            Files.delete(source);
+        }
+
+        ExposedJson mapped = IndexedJsonFile.map(file);
+
+        assertThat(mapped).isEqualTo(new WhisperJson().parse(document));
+        assertThat(mapped.asObject()
+            .get("name")
+            .asString()).isEqualTo("J\u00fcrgen \u20ac");
+        assertThat(mapped.select("$.list[0]")
+            .map(ExposedJson::asString)).containsExactly("\u00e9");
+        assertThat(mapped.asObject()
+            .get("emoji")
+            .asString()).isEqualTo("\ud83d\ude00");
+    }
+
+    @Test
+    public void writeMappedDocument() throws IOException
+    {
+        IndexedJsonFile.write(new WhisperJson().parse("[\"x\", {\"y\": 1}]"), file);
+        Path copy = Files.createTempFile("whisperjson", ".idx");
+        try
+        {
+            IndexedJsonFile.write(IndexedJsonFile.map(file), copy);
+            assertThat(Files.readAllBytes(copy)).isEqualTo(Files.readAllBytes(file));
+        }
+        finally
+        {
+            Files.delete(copy);
+        }
+    }
+
+    @Test
+    public void rejectNestedElements()
+    {
+        ExposedJson json = new WhisperJson().parse("[1]");
+
+        assertThatThrownBy(() -> IndexedJsonFile.write(json.asArray()
+            .get(0), file)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rejectInvalidFiles() throws IOException
+    {
+        Files.write(file, "{\"not\": \"an index\"}".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> IndexedJsonFile.map(file)).isInstanceOf(IOException.class);
+
+        IndexedJsonFile.write(new WhisperJson().parse("[1, 2]"), file);
+        byte[] truncated = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(truncated, truncated.length - 4));
+        assertThatThrownBy(() -> IndexedJsonFile.map(file)).isInstanceOf(IOException.class);
+    }
+
+    @Test(dataProvider = "tamperedComponents")
+    public void rejectTamperedIndex(String label, int element, int component, int value) throws IOException
+    {
+        String document = "[1, {\"a\": 2}]";
+        IndexedJsonFile.write(new WhisperJson().parse(document), file);
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(file))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        int indexOffset = 20 + 2 * (document.length() + document.length() % 2);
+        contents.putInt(indexOffset + (element * 4 + component) * 4, value);
+        Files.write(file, contents.array());
+
+        assertThatThrownBy(() -> IndexedJsonFile.map(file)).isInstanceOf(IOException.class);
+    }
+
+    @DataProvider
+    public static Object[][] tamperedComponents()
+    {
+        // Elements: 0 = array, 1 = number, 2 = object, 3 = key, 4 = number
+        // Components: 0 = type ordinal, 1 = from, 2 = to, 3 = child count
+        return new Object[][]{
+            new Object[]{ "unknown type", 1, 0, 99 },
+            new Object[]{ "negative offset", 1, 1, -1 },
+            new Object[]{ "offset beyond text", 4, 2, 100 },
+            new Object[]{ "end before start", 2, 2, 0 },
+            new Object[]{ "too many children", 0, 3, 5 },
+            new Object[]{ "negative child count", 2, 3, -1 },
+            new Object[]{ "children beyond parent", 2, 3, 3 },
+            new Object[]{ "children of scalar", 1, 3, 1 },
+            new Object[]{ "missing root children", 0, 3, 3 },
+            new Object[]{ "key is no string", 3, 0, Type.NUMBER.ordinal() },
+            new Object[]{ "object without value", 2, 3, 1 }
+        };
+    }
+}
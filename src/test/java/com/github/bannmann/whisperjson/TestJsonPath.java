@@ -0,0 +1,163 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestJsonPath
+{
+    private static final String DOCUMENT = "{\"store\": {" +
+        "\"book\": [" +
+        "{\"category\": \"reference\", \"author\": \"Nigel Rees\", \"title\": \"Sayings\", \"price\": 8.95}, " +
+        "{\"category\": \"fiction\", \"author\": \"Evelyn Waugh\", \"title\": \"Sword\", \"price\": 12.99}, " +
+        "{\"category\": \"fiction\", \"author\": \"Herman Melville\", \"title\": \"Moby Dick\", " +
+        "\"isbn\": \"0-553-21311-3\", \"price\": 8}, " +
+        "{\"category\": \"fict\\u0069on\", \"author\": \"J. R. R. Tolkien\", \"title\": \"The Lord of the Rings\", " +
+        "\"isbn\": \"0-395-19395-8\", \"price\": 22.99, \"available\": false}" +
+        "], " +
+        "\"bicycle\": {\"color\": \"red\", \"price\": 19.95}" +
+        "}, " +
+        "\"items\": [{\"id\": 1, \"status\": \"active\"}, {\"id\": 2, \"status\": \"retired\"}, " +
+        "{\"id\": 3, \"status\": \"active\"}, {\"id\": 4}], " +
+        "\"weird key\": [0, 1, 2, 3, 4, 5, 6]}";
+
+    @Test(dataProvider = "queries")
+    public void select(String label, WhisperJson whisperJson, String path, String expected)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT);
+
+        List<ExposedJson> result = json.select(path)
+            .collect(Collectors.toList());
+
+        assertThat(result).containsExactlyElementsOf(whisperJson.parse(expected)
+            .asArray());
+    }
+
+    @Test(dataProvider = "queries")
+    public void selectCompiled(String label, WhisperJson whisperJson, String path, String expected)
+    {
+        JsonPath compiled = JsonPath.compile(path);
+
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray()))
+        {
+            List<SafeJson> result = json.select(compiled)
+                .collect(Collectors.toList());
+
+            assertThat(result).containsExactlyElementsOf(whisperJson.parse(expected.toCharArray())
+                .asArray());
+        }
+    }
+
+    @DataProvider
+    public static Object[][] queries()
+    {
+        Object[][] queries = {
+            new Object[]{ "root", "$", "[" + DOCUMENT + "]" },
+            new Object[]{ "child", "$.store.bicycle.color", "[\"red\"]" },
+            new Object[]{ "bracket child", "$['weird key'][1]", "[1]" },
+            new Object[]{ "double quoted child", "$[\"store\"][\"bicycle\"][\"price\"]", "[19.95]" },
+            new Object[]{ "wildcard", "$.store.book[*].author", "[\"Nigel Rees\", \"Evelyn Waugh\", " +
+                "\"Herman Melville\", \"J. R. R. Tolkien\"]" },
+            new Object[]{ "object wildcard", "$.store.bicycle.*", "[\"red\", 19.95]" },
+            new Object[]{ "recursive descent", "$..price", "[8.95, 12.99, 8, 22.99, 19.95]" },
+            new Object[]{ "recursive descent with bracket", "$..book[2].title", "[\"Moby Dick\"]" },
+            new Object[]{ "recursive wildcard", "$.items[3]..*", "[4]" },
+            new Object[]{ "index", "$.store.book[0].price", "[8.95]" },
+            new Object[]{ "negative index", "$['weird key'][-1]", "[6]" },
+            new Object[]{ "index out of bounds", "$['weird key'][7]", "[]" },
+            new Object[]{ "slice", "$['weird key'][1:3]", "[1, 2]" },
+            new Object[]{ "slice with step", "$['weird key'][::3]", "[0, 3, 6]" },
+            new Object[]{ "negative slice", "$['weird key'][-2:]", "[5, 6]" },
+            new Object[]{ "slice beyond end", "$['weird key'][5:10]", "[5, 6]" },
+            new Object[]{ "slice with negative end", "$['weird key'][1:-4:2]", "[1]" },
+            new Object[]{ "existence filter", "$.store.book[?(@.isbn)].title", "[\"Moby Dick\", " +
+                "\"The Lord of the Rings\"]" },
+            new Object[]{ "string filter", "$.items[?(@.status=='active')].id", "[1, 3]" },
+            new Object[]{ "escaped string filter", "$..book[?(@.category == \"fiction\")].price", "[12.99, 8, 22.99]" },
+            new Object[]{ "inequality filter", "$.items[?(@.status != 'active')].id", "[2]" },
+            new Object[]{ "number filter", "$.store.book[?(@.price < 10)].price", "[8.95, 8]" },
+            new Object[]{ "decimal filter", "$.store.book[?(@.price >= 12.99)].title", "[\"Sword\", " +
+                "\"The Lord of the Rings\"]" },
+            new Object[]{ "integer equality", "$.store.book[?(@.price == 8.00)].title", "[\"Moby Dick\"]" },
+            new Object[]{ "boolean filter", "$..book[?(@.available == false)].title", "[\"The Lord of the Rings\"]" },
+            new Object[]{ "nested filter path", "$[?(@.bicycle['color'] == 'red')]..color", "[\"red\"]" },
+            new Object[]{ "no match", "$.store.car", "[]" },
+            new Object[]{ "child of scalar", "$.store.bicycle.color.name", "[]" }
+        };
+
+        Object[][] result = new Object[queries.length * 2][];
+        for (int i = 0; i < queries.length; i++)
+        {
+            result[2 * i] = withWhisperJson(queries[i], "eager", new WhisperJson());
+            result[2 * i + 1] = withWhisperJson(queries[i],
+                "on demand",
+                WhisperJson.builder()
+                    .indexing(Indexing.ON_DEMAND)
+                    .build());
+        }
+        return result;
+    }
+
+    private static Object[] withWhisperJson(Object[] query, String indexing, WhisperJson whisperJson)
+    {
+        return new Object[]{ query[0] + " (" + indexing + ")", whisperJson, query[1], query[2] };
+    }
+
+    @Test
+    public void evaluateLazily()
+    {
+        ExposedJson json = WhisperJson.builder()
+            .indexing(Indexing.ON_DEMAND_LENIENT)
+            .build()
+            .parse("[{\"id\": 1}, {\"id\": 2}, {\"id\" 3}]");
+
+        Iterator<ExposedJson> matches = json.select("$[*].id")
+            .iterator();
+
+        assertThat(matches.next()
+            .asInt()).isEqualTo(1);
+        assertThat(matches.next()
+            .asInt()).isEqualTo(2);
+        assertThatThrownBy(matches::hasNext).isInstanceOf(JsonSyntaxException.class);
+    }
+
+    @Test
+    public void selectRelativeToElement()
+    {
+        ExposedJson json = new WhisperJson().parse(DOCUMENT);
+        ExposedJson bicycle = json.at("/store/bicycle")
+            .orElseThrow(AssertionError::new);
+
+        assertThat(bicycle.select("$.color")
+            .map(ExposedJson::asString)).containsExactly("red");
+        assertThat(bicycle.select("$")).containsExactly(bicycle);
+    }
+
+    @Test(dataProvider = "invalid")
+    public void rejectInvalidPath(String label, String path)
+    {
+        assertThatThrownBy(() -> JsonPath.compile(path)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider
+    public static Object[][] invalid()
+    {
+        return new Object[][]{
+            new Object[]{ "missing root", "store.book" },
+            new Object[]{ "trailing dot", "$.store." },
+            new Object[]{ "unclosed bracket", "$.store[0" },
+            new Object[]{ "unclosed quote", "$['store]" },
+            new Object[]{ "zero step", "$.a[::0]" },
+            new Object[]{ "negative step", "$.a[::-1]" },
+            new Object[]{ "missing current element", "$.a[?(.b)]" },
+            new Object[]{ "invalid literal", "$.a[?(@.b == x)]" },
+            new Object[]{ "unclosed filter", "$.a[?(@.b == 1]" }
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestJsonPointer
+{
+    /**
+     * The example document from RFC 6901, section 5.
+     */
+    private static final String DOCUMENT = "{\"foo\": [\"bar\", \"baz\"], \"\": 0, \"a/b\": 1, \"c%d\": 2, \"e^f\": 3, " +
+        "\"g|h\": 4, \"i\\\\j\": 5, \"k\\\"l\": 6, \" \": 7, \"m~n\": 8, \"n\\u0065sted\": {\"x\": [null, {\"y\": true}]}}";
+
+    @Test(dataProvider = "pointers")
+    public void evaluate(String label, WhisperJson whisperJson, String pointer, String expected)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT);
+
+        Optional<ExposedJson> result = json.at(pointer);
+
+        assertThat(result).contains(whisperJson.parse(expected));
+    }
+
+    @Test(dataProvider = "pointers")
+    public void evaluateCompiled(String label, WhisperJson whisperJson, String pointer, String expected)
+    {
+        JsonPointer compiled = JsonPointer.compile(pointer);
+
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray()))
+        {
+            assertThat(json.at(compiled)).contains(whisperJson.parse(expected.toCharArray()));
+        }
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray()))
+        {
+            assertThat(json.at(compiled)).contains(whisperJson.parse(expected.toCharArray()));
+        }
+    }
+
+    @DataProvider
+    public static Object[][] pointers()
+    {
+        Object[][] pointers = {
+            new Object[]{ "whole document", "", DOCUMENT },
+            new Object[]{ "array", "/foo", "[\"bar\", \"baz\"]" },
+            new Object[]{ "array element", "/foo/0", "\"bar\"" },
+            new Object[]{ "empty name", "/", "0" },
+            new Object[]{ "slash", "/a~1b", "1" },
+            new Object[]{ "percent", "/c%d", "2" },
+            new Object[]{ "caret", "/e^f", "3" },
+            new Object[]{ "pipe", "/g|h", "4" },
+            new Object[]{ "backslash", "/i\\j", "5" },
+            new Object[]{ "quote", "/k\"l", "6" },
+            new Object[]{ "space", "/ ", "7" },
+            new Object[]{ "tilde", "/m~0n", "8" },
+            new Object[]{ "escaped name", "/nested/x/1/y", "true" },
+            new Object[]{ "null", "/nested/x/0", "null" }
+        };
+
+        Object[][] result = new Object[pointers.length * 2][];
+        for (int i = 0; i < pointers.length; i++)
+        {
+            result[2 * i] = withWhisperJson(pointers[i], "eager", new WhisperJson());
+            result[2 * i + 1] = withWhisperJson(pointers[i],
+                "on demand",
+                WhisperJson.builder()
+                    .indexing(Indexing.ON_DEMAND_LENIENT)
+                    .build());
+        }
+        return result;
+    }
+
+    private static Object[] withWhisperJson(Object[] pointer, String indexing, WhisperJson whisperJson)
+    {
+        return new Object[]{ pointer[0] + " (" + indexing + ")", whisperJson, pointer[1], pointer[2] };
+    }
+
+    @Test(dataProvider = "missing")
+    public void evaluateMissing(String label, String pointer)
+    {
+        ExposedJson json = new WhisperJson().parse(DOCUMENT);
+
+        assertThat(json.at(pointer)).isEmpty();
+    }
+
+    @DataProvider
+    public static Object[][] missing()
+    {
+        return new Object[][]{
+            new Object[]{ "unknown name", "/bar" },
+            new Object[]{ "index out of bounds", "/foo/2" },
+            new Object[]{ "end of array", "/foo/-" },
+            new Object[]{ "leading zero", "/foo/01" },
+            new Object[]{ "name of array", "/foo/bar" },
+            new Object[]{ "below scalar", "/a~1b/c" },
+            new Object[]{ "unescaped name", "/a/b" }
+        };
+    }
+
+    @Test
+    public void evaluateRelativeToElement()
+    {
+        ExposedJson json = new WhisperJson().parse(DOCUMENT);
+        ExposedJson nested = json.at("/nested")
+            .orElseThrow(AssertionError::new);
+
+        assertThat(nested.at("/x/1/y")
+            .map(Json::asBoolean)).contains(true);
+        assertThat(nested.at("")).containsSame(nested);
+    }
+
+    @Test
+    public void evaluateOnScalar()
+    {
+        ExposedJson json = new WhisperJson().parse("42");
+
+        assertThat(json.at("")).containsSame(json);
+        assertThat(json.at("/0")).isEmpty();
+    }
+
+    @Test(dataProvider = "invalid")
+    public void rejectInvalidPointer(String label, String pointer)
+    {
+        assertThatThrownBy(() -> JsonPointer.compile(pointer)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider
+    public static Object[][] invalid()
+    {
+        return new Object[][]{
+            new Object[]{ "missing slash", "foo" }, new Object[]{ "invalid escape", "/m~2n" }
+        };
+    }
+
+    @Test
+    public void preserveSourceText()
+    {
+        assertThat(JsonPointer.compile("/a~1b/0")).hasToString("/a~1b/0");
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.bannmann.whisperjson.JsonSyntaxException.ErrorCode;
+
+public class TestJsonSyntaxException
+{
+    @Test(dataProvider = "errors")
+    public void errorCodeAndIndex(String label, String input, ErrorCode errorCode, int index)
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> new WhisperJson().parse(input),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(errorCode);
+        assertThat(exception.getIndex()).isEqualTo(index);
+    }
+
+    @DataProvider
+    public static Object[][] errors()
+    {
+        return new Object[][]{
+            new Object[]{ "illegal char", "[ , true]", ErrorCode.ILLEGAL_CHAR, 2 },
+            new Object[]{ "expected char", "noll", ErrorCode.EXPECTED_CHAR, 1 },
+            new Object[]{ "expected char at EOF", "nul", ErrorCode.EXPECTED_CHAR, 3 },
+            new Object[]{ "unbalanced", "[ null,", ErrorCode.UNBALANCED_JSON, 7 },
+            new Object[]{ "control char", "\"a\u0001\"", ErrorCode.ILLEGAL_CONTROL_CHAR, 2 },
+            new Object[]{ "leading zero", "01", ErrorCode.LEADING_ZERO, 0 }
+        };
+    }
+
+    @Test
+    public void controlCharMessage()
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> new WhisperJson().parse("\"a\u0001\""),
+            JsonSyntaxException.class);
+
+        assertThat(exception).hasMessage("illegal control char 1 at index 2");
+    }
+
+    @Test
+    public void stackTracesByDefault()
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> new WhisperJson().parse("nul"),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getStackTrace()).isNotEmpty();
+    }
+
+    @Test
+    public void withoutStackTraces()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .syntaxErrorStackTraces(false)
+            .build();
+
+        JsonSyntaxException exception = catchThrowableOfType(() -> whisperJson.parse("[1, 2"),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getStackTrace()).isEmpty();
+        assertThat(exception).hasMessage("unbalanced json");
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.UNBALANCED_JSON);
+    }
+
+    @Test
+    public void limitExceededWithoutStackTraces()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .maxNestingDepth(1)
+            .syntaxErrorStackTraces(false)
+            .build();
+
+        JsonLimitExceededException exception = catchThrowableOfType(() -> whisperJson.parse("[[]]"),
+            JsonLimitExceededException.class);
+
+        assertThat(exception.getStackTrace()).isEmpty();
+        assertThat(exception).hasMessage("maximum nesting depth exceeded at index 1");
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.NESTING_TOO_DEEP);
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+public class TestJsonTemplate
+{
+    private static final JsonTemplate LOGIN = JsonTemplate.compile(
+        "{\n  \"grant_type\": \"pass word?\",\n  \"username\": ?,\n  \"password\": ?\n}");
+
+    @Test
+    public void writeToStream() throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonWriter writer = JsonWriter.to(output);
+             SensitiveText password = new SensitiveText("s\"3cr\u00e9t".toCharArray()))
+        {
+            LOGIN.write(writer, "jdoe".toCharArray(), password);
+        }
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(
+            "{\"grant_type\":\"pass word?\",\"username\":\"jdoe\",\"password\":\"s\\\"3cr\u00e9t\"}");
+    }
+
+    @Test
+    public void fillSlotsWithAllTypes()
+    {
+        JsonTemplate template = JsonTemplate.compile("[?, ?, ?, ?, ?, ?, ?, ?]");
+        try (SafeJson json = new WhisperJson().parse("{\"a\": [1, 2]}".toCharArray());
+             SensitiveText result = template.toSensitiveText("x",
+                 null,
+                 42,
+                 -7L,
+                 0.5,
+                 new BigDecimal("1.10"),
+                 false,
+                 json.asObject()
+                     .get("a")))
+        {
+            assertThat(result.newDependentArray()).containsExactly("[\"x\",null,42,-7,0.5,1.10,false,[1, 2]]"
+                .toCharArray());
+        }
+    }
+
+    @Test
+    public void countSlots()
+    {
+        assertThat(LOGIN.getSlotCount()).isEqualTo(2);
+        assertThat(JsonTemplate.compile("{\"constant\": true}")
+            .getSlotCount()).isZero();
+    }
+
+    @Test
+    public void rejectInvalidTemplates()
+    {
+        assertThatThrownBy(() -> JsonTemplate.compile("{?: 1}")).isInstanceOf(JsonSyntaxException.class);
+        assertThatThrownBy(() -> JsonTemplate.compile("[tr ue]")).isInstanceOf(JsonSyntaxException.class);
+    }
+
+    @Test
+    public void rejectInvalidValues()
+    {
+        assertThatThrownBy(() -> LOGIN.toSensitiveText("jdoe")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LOGIN.toSensitiveText("jdoe", new Object())).isInstanceOf(
+            IllegalArgumentException.class);
+        assertThatThrownBy(() -> LOGIN.toSensitiveText("jdoe", Double.NaN)).isInstanceOf(
+            IllegalArgumentException.class);
+    }
+
+    @Test
+    public void writeNothingForInvalidValues() throws IOException
+    {
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            writer.beginArray();
+            assertThatThrownBy(() -> LOGIN.write(writer, "jdoe", Double.POSITIVE_INFINITY)).isInstanceOf(
+                IllegalArgumentException.class);
+            assertThatThrownBy(() -> LOGIN.write(writer, "jdoe", new Object())).isInstanceOf(
+                IllegalArgumentException.class);
+            writer.endArray();
+
+            assertThat(writer.toCharArray()).containsExactly("[]".toCharArray());
+        }
+    }
+
+    @Test
+    public void writeEncodedConstantsBetweenBufferedValues() throws IOException
+    {
+        JsonTemplate template = JsonTemplate.compile("{\"gr\u00fc\u00dfe\": ?, \"\u20ac\": [?, ?]}");
+        String longValue = String.join("", Collections.nCopies(700, "\u00e4\"b"));
+        String surrogates = "\ud83d\ude00 \ud83d";
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonWriter writer = JsonWriter.to(output))
+        {
+            writer.beginArray();
+            template.write(writer, longValue, surrogates, 1.5);
+            template.write(writer, "x", null, true);
+            writer.endArray();
+        }
+
+        String escapedLongValue = longValue.replace("\"", "\\\"");
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("[{\"gr\u00fc\u00dfe\":\"" +
+            escapedLongValue +
+            "\",\"\u20ac\":[\"\ud83d\ude00 ?\",1.5]},{\"gr\u00fc\u00dfe\":\"x\",\"\u20ac\":[null,true]}]");
+    }
+}
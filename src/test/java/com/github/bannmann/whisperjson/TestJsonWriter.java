@@ -0,0 +1,181 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestJsonWriter
+{
+    @Test
+    public void writeStructure() throws IOException
+    {
+        StringWriter output = new StringWriter();
+        try (JsonWriter writer = JsonWriter.to(output))
+        {
+            writer.beginObject()
+                .name("user")
+                .value("jdoe".toCharArray())
+                .name("roles")
+                .beginArray()
+                .value("admin")
+                .value(true)
+                .nullValue()
+                .beginObject()
+                .endObject()
+                .beginArray()
+                .endArray()
+                .endArray()
+                .name("id".toCharArray())
+                .value(-42)
+                .name("score")
+                .value(0.5)
+                .name("amount")
+                .value(new BigDecimal("1E+3"))
+                .endObject();
+        }
+
+        assertThat(output.toString()).isEqualTo(
+            "{\"user\":\"jdoe\",\"roles\":[\"admin\",true,null,{},[]],\"id\":-42,\"score\":0.5,\"amount\":1E+3}");
+    }
+
+    @DataProvider
+    public Object[][] longs()
+    {
+        return new Object[][]{
+            { 0L }, { 9L }, { 10L }, { -10L }, { 999_999_999_999_999_999L }, { Long.MAX_VALUE }, { Long.MIN_VALUE }
+        };
+    }
+
+    @Test(dataProvider = "longs")
+    public void writeLong(long value) throws IOException
+    {
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            writer.value(value);
+            assertThat(writer.toCharArray()).containsExactly(Long.toString(value)
+                .toCharArray());
+        }
+    }
+
+    @Test
+    public void escapeStrings() throws IOException
+    {
+        try (JsonWriter writer = JsonWriter.toBuffer();
+             SensitiveText password = new SensitiveText("p\"a\\s\u0001s".toCharArray()))
+        {
+            writer.beginArray()
+                .value("tab\there\n".toCharArray())
+                .value(password)
+                .value(" \b\f\r")
+                .endArray();
+
+            assertThat(new String(writer.toCharArray())).isEqualTo(
+                "[\"tab\\there\\n\",\"p\\\"a\\\\s\\u0001s\",\" \\b\\f\\r\"]");
+        }
+    }
+
+    @Test
+    public void copyParsedElements() throws IOException
+    {
+        char[] document = "{\"a\": [1, {\"b\": \"x\\ny\"}], \"c\": 2.50}".toCharArray();
+        try (SafeJson json = new WhisperJson().parse(document);
+             JsonWriter writer = JsonWriter.toBuffer())
+        {
+            writer.beginObject()
+                .name("copy")
+                .value(json.asObject()
+                    .get("a"))
+                .name("number")
+                .value(json.asObject()
+                    .get("c"))
+                .endObject();
+
+            assertThat(new String(writer.toCharArray())).isEqualTo(
+                "{\"copy\":[1, {\"b\": \"x\\ny\"}],\"number\":2.50}");
+        }
+    }
+
+    @Test
+    public void encodeUtf8AcrossBufferBoundaries() throws IOException
+    {
+        char[] value = new char[5000];
+        for (int i = 0; i < value.length; i += 2)
+        {
+            value[i] = '\ud83d';
+            value[i + 1] = '\ude00';
+        }
+        char[] shifted = new char[value.length + 1];
+        shifted[0] = '\u00e4';
+        System.arraycopy(value, 0, shifted, 1, value.length);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonWriter writer = JsonWriter.to(output))
+        {
+            writer.beginArray()
+                .value(value)
+                .value(shifted)
+                .endArray();
+        }
+
+        String expected = "[\"" + new String(value) + "\",\"" + new String(shifted) + "\"]";
+        assertThat(output.toByteArray()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void growBuffer() throws IOException
+    {
+        char[] value = new char[3000];
+        Arrays.fill(value, '"');
+
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            writer.value(value);
+            try (SensitiveText result = writer.toSensitiveText())
+            {
+                assertThat(result.length()).isEqualTo(2 + 2 * value.length);
+            }
+        }
+    }
+
+    @Test
+    public void rejectInvalidStructure() throws IOException
+    {
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            assertThatThrownBy(() -> writer.name("a")).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(writer::endArray).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(writer::toCharArray).isInstanceOf(IllegalStateException.class);
+
+            writer.beginObject();
+            assertThatThrownBy(() -> writer.value(1)).isInstanceOf(IllegalStateException.class);
+            writer.name("a");
+            assertThatThrownBy(writer::endObject).isInstanceOf(IllegalStateException.class);
+            writer.value(1)
+                .endObject();
+            assertThatThrownBy(() -> writer.value(2)).isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> writer.value(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(writer.toCharArray()).containsExactly("{\"a\":1}".toCharArray());
+        }
+    }
+
+    @Test
+    public void rejectUseAfterClose() throws IOException
+    {
+        JsonWriter writer = JsonWriter.toBuffer();
+        writer.value(true);
+        writer.close();
+
+        assertThatThrownBy(writer::toCharArray).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(writer::beginArray).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.testng.annotations.Test;
+
+public class TestLeakDetection
+{
+    private static final int MAX_ATTEMPTS = 50;
+
+    @Test
+    public void reportAndWipeLeakedDocument() throws InterruptedException
+    {
+        Queue<StackTraceElement[]> allocationSites = new ConcurrentLinkedQueue<>();
+        Queue<Integer> lengths = new ConcurrentLinkedQueue<>();
+        WhisperJson whisperJson = WhisperJson.builder()
+            .leakDetection(1, true, (length, allocationSite) -> {
+                lengths.add(length);
+                allocationSites.add(allocationSite);
+            })
+            .build();
+        char[] raw = "{\"password\": \"secret\"}".toCharArray();
+
+        parseAndForget(whisperJson, raw);
+        awaitReport(whisperJson, lengths);
+
+        assertThat(lengths).containsExactly(raw.length);
+        assertThat(allocationSites.remove()).anyMatch(frame -> frame.getMethodName()
+            .equals("parseAndForget"));
+        assertThat(raw).containsOnly('\0');
+    }
+
+    @Test
+    public void wipeLeakedDocumentWithoutListener() throws InterruptedException
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .leakDetection(1, true)
+            .build();
+        char[] raw = "{\"password\": \"secret\"}".toCharArray();
+
+        parseAndForget(whisperJson, raw);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && raw[0] != '\0'; attempt++)
+        {
+            System.gc();
+            Thread.sleep(10);
+            whisperJson.parse("[]".toCharArray())
+                .close();
+        }
+
+        assertThat(raw).containsOnly('\0');
+    }
+
+    @Test
+    public void ignoreClosedDocuments() throws InterruptedException
+    {
+        Queue<Integer> lengths = new ConcurrentLinkedQueue<>();
+        WhisperJson whisperJson = WhisperJson.builder()
+            .leakDetection(1, true, (length, allocationSite) -> lengths.add(length))
+            .build();
+
+        try (SafeJson json = whisperJson.parse("[\"secret\"]".toCharArray()))
+        {
+            assertThat(json.asArray()).hasSize(1);
+        }
+
+        for (int attempt = 0; attempt < 5; attempt++)
+        {
+            System.gc();
+            Thread.sleep(10);
+            whisperJson.parse("[]".toCharArray())
+                .close();
+        }
+
+        assertThat(lengths).isEmpty();
+    }
+
+    @Test
+    public void rejectNegativeSamplingInterval()
+    {
+        WhisperJson.Builder builder = WhisperJson.builder();
+
+        assertThatThrownBy(() -> builder.leakDetection(-1, false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rejectMissingListener()
+    {
+        WhisperJson.Builder builder = WhisperJson.builder();
+
+        assertThatThrownBy(() -> builder.leakDetection(1, false, null)).isInstanceOf(NullPointerException.class);
+    }
+
+    private static void parseAndForget(WhisperJson whisperJson, char[] raw)
+    {
+        SafeJson json = whisperJson.parse(raw);
+        assertThat(json.asObject()).containsKey("password");
+    }
+
+    private static void awaitReport(WhisperJson whisperJson, Collection<?> reports) throws InterruptedException
+    {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && reports.isEmpty(); attempt++)
+        {
+            System.gc();
+            Thread.sleep(10);
+            whisperJson.parse("[]".toCharArray())
+                .close();
+        }
+    }
+}
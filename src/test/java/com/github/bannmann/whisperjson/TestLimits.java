@@ -0,0 +1,166 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.UnaryOperator;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+
+public class TestLimits
+{
+    @Test(dataProvider = "withinLimits")
+    public void parseWithinLimits(String label, UnaryOperator<WhisperJson.Builder> configurer, String input)
+    {
+        WhisperJson whisperJson = configurer.apply(WhisperJson.builder())
+            .build();
+
+        assertThat(whisperJson.parse(input)).isNotNull();
+    }
+
+    @DataProvider
+    public static Object[][] withinLimits()
+    {
+        return new Object[][]{
+            new Object[]{ "document length", configure(b -> b.maxDocumentLength(9)), "[1, 2, 3]" },
+            new Object[]{ "elements", configure(b -> b.maxElements(5)), "{\"a\": [1, 2]}" },
+            new Object[]{ "string length", configure(b -> b.maxStringLength(3)), "{\"abc\": \"def\"}" },
+            new Object[]{ "escaped string length", configure(b -> b.maxStringLength(6)), "\"\\u0041\"" },
+            new Object[]{ "number length", configure(b -> b.maxNumberLength(6)), "[-1.5e3]" }
+        };
+    }
+
+    @Test(dataProvider = "exceedingLimits")
+    public void parseExceedingLimits(
+        String label, UnaryOperator<WhisperJson.Builder> configurer, String input, String message)
+    {
+        WhisperJson whisperJson = configurer.apply(WhisperJson.builder())
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse(input)).isInstanceOf(JsonLimitExceededException.class)
+            .hasMessage(message);
+    }
+
+    @DataProvider
+    public static Object[][] exceedingLimits()
+    {
+        return new Object[][]{
+            new Object[]{
+                "document length", configure(b -> b.maxDocumentLength(8)), "[1, 2, 3]", "document too long at index 8"
+            },
+            new Object[]{
+                "elements", configure(b -> b.maxElements(4)), "{\"a\": [1, 2]}", "too many elements at index 10"
+            },
+            new Object[]{
+                "string length", configure(b -> b.maxStringLength(2)), "[\"ab\", \"abc\"]", "string too long at index 7"
+            },
+            new Object[]{
+                "property name length",
+                configure(b -> b.maxStringLength(2)),
+                "{\"abc\": 1}",
+                "string too long at index 1"
+            },
+            new Object[]{
+                "escaped string length", configure(b -> b.maxStringLength(5)), "\"\\u0041\"", "string too long at index 0"
+            },
+            new Object[]{
+                "number length", configure(b -> b.maxNumberLength(5)), "[-1.5e3]", "number too long at index 1"
+            },
+            new Object[]{
+                "default number length",
+                configure(UnaryOperator.identity()),
+                Strings.repeat("9", WhisperJson.DEFAULT_MAX_NUMBER_LENGTH + 1),
+                "number too long at index 0"
+            }
+        };
+    }
+
+    private static UnaryOperator<WhisperJson.Builder> configure(UnaryOperator<WhisperJson.Builder> configurer)
+    {
+        return configurer;
+    }
+
+    @Test
+    public void readerStopsAtDocumentLimit() throws IOException
+    {
+        CountingReader reader = new CountingReader(new StringReader(Strings.repeat(" ", 10_000) + "null"));
+        WhisperJson whisperJson = WhisperJson.builder()
+            .maxDocumentLength(500)
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse(reader)).isInstanceOf(JsonLimitExceededException.class)
+            .hasMessage("document too long at index 500");
+        assertThat(reader.charsRead).isLessThan(1000);
+    }
+
+    @Test
+    public void rejectLongDocumentBeforeCopying()
+    {
+        char[] raw = "[1, 2, 3]".toCharArray();
+        WhisperJson whisperJson = WhisperJson.builder()
+            .maxDocumentLength(8)
+            .storage(Storage.OFF_HEAP)
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse(raw)).isInstanceOf(JsonLimitExceededException.class)
+            .hasMessage("document too long at index 8");
+        assertThat(raw).containsExactly("[1, 2, 3]".toCharArray());
+    }
+
+    @Test
+    public void rejectLongRegionAndBytes()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .maxDocumentLength(8)
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse("x[1, 2, 3]".toCharArray(), 1, 9)).isInstanceOf(
+            JsonLimitExceededException.class);
+        assertThatThrownBy(() -> whisperJson.parse("[1, 2, 3]".getBytes())).isInstanceOf(
+            JsonLimitExceededException.class);
+        assertThatThrownBy(() -> whisperJson.validate("[1, 2, 3]")).isInstanceOf(JsonLimitExceededException.class);
+        assertThat(whisperJson.parse("x[1, 2]".toCharArray(), 1, 6)
+            .asArray()).hasSize(2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void rejectNonPositiveLimit()
+    {
+        WhisperJson.builder()
+            .maxStringLength(0);
+    }
+
+    private static class CountingReader extends Reader
+    {
+        private final Reader delegate;
+        private int charsRead;
+
+        public CountingReader(Reader delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException
+        {
+            int result = delegate.read(buffer, offset, length);
+            if (result > 0)
+            {
+                charsRead += result;
+            }
+            return result;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestMappedParsing
+{
+    private static final String DOCUMENT = "{\n" +
+        "  \"gr\u00fc\u00dfe\": \"sch\u00f6n \ud83d\ude00\",\n" +
+        "  \"escaped\": \"a\\u00e4\\n\u00e9\",\n" +
+        "  \"list\": [1, -2.5e3, true, null, \"plain\"]\n" +
+        "}";
+
+    private Path file;
+
+    @BeforeMethod
+    public void createFile() throws IOException
+    {
+        file = Files.createTempFile("whisperjson", ".json");
+        Files.write(file, DOCUMENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterMethod
+    public void deleteFile() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void decodeStringsOnAccess(String label, WhisperJson whisperJson) throws IOException
+    {
+        ExposedJson json = whisperJson.parse(file);
+
+        assertThat(json.asObject()).containsOnlyKeys("gr\u00fc\u00dfe", "escaped", "list");
+        assertThat(json.at("/gr\u00fc\u00dfe")
+            .map(ExposedJson::asString)).contains("sch\u00f6n \ud83d\ude00");
+        assertThat(json.at("/escaped")
+            .map(ExposedJson::asString)).contains("a\u00e4\n\u00e9");
+        assertThat(json.at("/list/1")
+            .map(ExposedJson::asDouble)).contains(-2500.0);
+        assertThat(json.at("/list/4")
+            .map(ExposedJson::asString)).contains("plain");
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void compareWithCharacterDocuments(String label, WhisperJson whisperJson) throws IOException
+    {
+        ExposedJson mapped = whisperJson.parse(file);
+        ExposedJson parsed = new WhisperJson().parse(DOCUMENT);
+
+        assertThat(mapped).isEqualTo(parsed);
+        assertThat(parsed).isEqualTo(mapped);
+        assertThat(mapped.hashCode()).isEqualTo(parsed.hashCode());
+    }
+
+    @Test
+    public void writeDecodedText() throws IOException
+    {
+        ExposedJson json = new WhisperJson().parse(file);
+
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            writer.value(json);
+            assertThat(new String(writer.toCharArray())).isEqualTo(DOCUMENT);
+        }
+        try (JsonWriter writer = JsonWriter.toBuffer())
+        {
+            CanonicalJson.write(json, writer);
+            assertThat(new String(writer.toCharArray())).isEqualTo("{\"escaped\":\"a\u00e4\\n\u00e9\"," +
+                "\"gr\u00fc\u00dfe\":\"sch\u00f6n \ud83d\ude00\",\"list\":[1,-2500,true,null,\"plain\"]}");
+        }
+    }
+
+    @Test
+    public void reportBytePositions() throws IOException
+    {
+        Files.write(file, "[\"\u00e4\u00e4\", x]".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> new WhisperJson().parse(file)).isInstanceOfSatisfying(JsonSyntaxException.class,
+            e -> assertThat(e.getIndex()).isEqualTo(9));
+    }
+
+    @Test
+    public void enforceDocumentLength()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .maxDocumentLength(10)
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse(file)).isInstanceOf(JsonLimitExceededException.class);
+    }
+
+    @Test
+    public void rejectFilesLargerThan2GiB() throws IOException
+    {
+        try (RandomAccessFile sparseFile = new RandomAccessFile(file.toFile(), "rw"))
+        {
+            sparseFile.setLength(Integer.MAX_VALUE + 1L);
+        }
+
+        JsonLimitExceededException exception = catchThrowableOfType(() -> new WhisperJson().parse(file),
+            JsonLimitExceededException.class);
+        assertThat(exception.getErrorCode()).isEqualTo(JsonSyntaxException.ErrorCode.DOCUMENT_TOO_LONG);
+    }
+}
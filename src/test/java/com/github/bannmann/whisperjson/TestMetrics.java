@@ -0,0 +1,216 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestMetrics
+{
+    private HistogramMetrics metrics;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        metrics = WhisperJsonMetrics.find(HistogramMetrics.class)
+            .orElseThrow(AssertionError::new);
+    }
+
+    @Test
+    public void reportParsing()
+    {
+        long parseCount = metrics.getParseDurations()
+            .getCount();
+
+        new WhisperJson().parse("[1, 2, {\"a\": null}]");
+        new WhisperJson().validate("[true]".getBytes());
+
+        assertThat(metrics.getParseDurations()
+            .getCount()).isEqualTo(parseCount + 2);
+        assertThat(metrics.getInputLengths()
+            .getCount()).isEqualTo(metrics.getElementCounts()
+            .getCount());
+    }
+
+    @Test
+    public void reportSyntaxErrors()
+    {
+        long unbalanced = metrics.getSyntaxErrorCount(JsonSyntaxException.ErrorCode.UNBALANCED_JSON);
+        long tooDeep = metrics.getSyntaxErrorCount(JsonSyntaxException.ErrorCode.NESTING_TOO_DEEP);
+        WhisperJson whisperJson = WhisperJson.builder()
+            .maxNestingDepth(2)
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse("[1, 2")).isInstanceOf(JsonSyntaxException.class);
+        assertThatThrownBy(() -> whisperJson.parse("[[[1]]]")).isInstanceOf(JsonLimitExceededException.class);
+
+        assertThat(metrics.getSyntaxErrorCount(JsonSyntaxException.ErrorCode.UNBALANCED_JSON)).isEqualTo(
+            unbalanced + 1);
+        assertThat(metrics.getSyntaxErrorCount(JsonSyntaxException.ErrorCode.NESTING_TOO_DEEP)).isEqualTo(tooDeep + 1);
+    }
+
+    @Test
+    public void reportUnescaping()
+    {
+        long unescapeCount = metrics.getUnescapedLengths()
+            .getCount();
+
+        try (SafeJson json = new WhisperJson().parse("[\"plain\", \"esc\\taped\"]".toCharArray()))
+        {
+            json.asArray()
+                .get(0)
+                .asCharArray();
+            json.asArray()
+                .get(1)
+                .asCharArray();
+        }
+
+        assertThat(metrics.getUnescapedLengths()
+            .getCount()).isEqualTo(unescapeCount + 1);
+    }
+
+    @Test
+    public void reportClosing()
+    {
+        long closeCount = metrics.getCloseDurations()
+            .getCount();
+        long wipedCount = metrics.getWipedStringCounts()
+            .getSum();
+
+        SafeJson json = new WhisperJson().parse("{\"a\": \"x\", \"b\": [\"y\", \"z\", 1]}".toCharArray());
+        json.asObject()
+            .get("a")
+            .asCharArray();
+        SafeJson y = json.asObject()
+            .get("b")
+            .asArray()
+            .get(0);
+        y.asCharArray();
+        y.close();
+        json.asObject()
+            .get("b")
+            .asArray()
+            .get(1);
+        json.close();
+
+        assertThat(metrics.getCloseDurations()
+            .getCount()).isEqualTo(closeCount + 1);
+        assertThat(metrics.getWipedStringCounts()
+            .getSum()).isEqualTo(wipedCount + 1);
+    }
+
+    @Test
+    public void reportClosingRootString()
+    {
+        long wipedCount = metrics.getWipedStringCounts()
+            .getSum();
+
+        SafeJson unread = new WhisperJson().parse("\"x\"".toCharArray());
+        unread.close();
+        SafeJson read = new WhisperJson().parse("\"y\"".toCharArray());
+        read.asCharArray();
+        read.close();
+
+        assertThat(metrics.getWipedStringCounts()
+            .getSum()).isEqualTo(wipedCount + 1);
+    }
+
+    @Test
+    public void reportMaterializing()
+    {
+        long objectCount = metrics.getObjectSizes()
+            .getCount();
+        long arrayCount = metrics.getArraySizes()
+            .getCount();
+
+        ExposedJson json = new WhisperJson().parse("{\"a\": [1, 2, 3], \"b\": 4}");
+        json.asObject()
+            .get("a")
+            .asArray();
+        json.asObject();
+
+        assertThat(metrics.getObjectSizes()
+            .getCount()).isEqualTo(objectCount + 1);
+        assertThat(metrics.getArraySizes()
+            .getCount()).isEqualTo(arrayCount + 1);
+    }
+
+    @Test
+    public void reportLeaks() throws InterruptedException
+    {
+        long leakCount = metrics.getLeakCount();
+        WhisperJson whisperJson = WhisperJson.builder()
+            .leakDetection(1, false)
+            .build();
+
+        parseAndForget(whisperJson);
+        for (int attempt = 0; attempt < 50 && metrics.getLeakCount() == leakCount; attempt++)
+        {
+            System.gc();
+            Thread.sleep(10);
+            whisperJson.parse("[]".toCharArray())
+                .close();
+        }
+
+        assertThat(metrics.getLeakCount()).isEqualTo(leakCount + 1);
+    }
+
+    private static void parseAndForget(WhisperJson whisperJson)
+    {
+        assertThat(whisperJson.parse("[\"secret\"]".toCharArray())
+            .asArray()).hasSize(1);
+    }
+
+    @Test
+    public void ignoreJfrEventsWithoutJava11Layer()
+    {
+        // Tests run against the class directory, so the Java 11 layer of the multi-release JAR is not used
+        JfrMetrics jfrMetrics = new JfrMetrics();
+
+        jfrMetrics.parsed(100, 7, 12345);
+        jfrMetrics.materialized(true, 3, 55);
+        jfrMetrics.closed(4, 999);
+
+        assertThat(jfrMetrics.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void findOnlyRegisteredImplementations()
+    {
+        assertThat(WhisperJsonMetrics.find(WhisperJsonMetrics.class)).isEmpty();
+    }
+
+    @Test
+    public void calculatePercentiles()
+    {
+        HistogramMetrics.Histogram histogram = new HistogramMetrics.Histogram();
+        for (int i = 1; i <= 1000; i++)
+        {
+            histogram.record(i * 1000L);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1_000_000);
+        assertThat(histogram.getMean()).isEqualTo(500_500);
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(500_000L, 500_000L * 17 / 16);
+        assertThat(histogram.getValueAtPercentile(99)).isBetween(990_000L, 990_000L * 17 / 16);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(1_000_000);
+        assertThat(new HistogramMetrics.Histogram().getValueAtPercentile(50)).isZero();
+    }
+
+    @Test
+    public void recordSmallValuesExactly()
+    {
+        HistogramMetrics.Histogram histogram = new HistogramMetrics.Histogram();
+        histogram.record(0);
+        histogram.record(7);
+        histogram.record(31);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getValueAtPercentile(25)).isZero();
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(7);
+        assertThat(histogram.getValueAtPercentile(75)).isEqualTo(31);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+    }
+}
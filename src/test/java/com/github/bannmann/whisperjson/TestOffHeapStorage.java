@@ -0,0 +1,240 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class TestOffHeapStorage
+{
+    private static final String DOCUMENT = "{\"user\": \"alice\", \"secret\": \"s3cr\\u00e9t\", " +
+        "\"list\": [1, 2.5, true, null, {\"nested\": \"\\\"quoted\\\"\"}]}";
+
+    @Test(dataProvider = "offHeapIndexings", dataProviderClass = WhisperJsonProviders.class)
+    public void accessValues(String label, WhisperJson whisperJson)
+    {
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray()))
+        {
+            assertThat(json.asObject()
+                .get("user")
+                .asCharArray()).isEqualTo("alice".toCharArray());
+            assertThat(json.asObject()
+                .get("secret")
+                .asCharArray()).isEqualTo("s3cr\u00e9t".toCharArray());
+            assertThat(json.asObject()
+                .get("list")
+                .asArray()
+                .get(1)
+                .asDouble()).isEqualTo(2.5);
+            assertThat(json.asObject()
+                .get("list")
+                .asArray()
+                .get(4)
+                .asObject()
+                .get("nested")
+                .asCharArray()).isEqualTo("\"quoted\"".toCharArray());
+            assertThat(json).isEqualTo(new WhisperJson().parse(DOCUMENT));
+        }
+    }
+
+    @Test(dataProvider = "offHeapIndexings", dataProviderClass = WhisperJsonProviders.class)
+    public void parseReader(String label, WhisperJson whisperJson) throws IOException
+    {
+        try (SafeJson json = whisperJson.parse(new StringReader(DOCUMENT)))
+        {
+            assertThat(json.asObject()
+                .get("secret")
+                .asCharArray()).isEqualTo("s3cr\u00e9t".toCharArray());
+        }
+    }
+
+    @Test
+    public void wipeInputImmediately()
+    {
+        char[] raw = DOCUMENT.toCharArray();
+
+        try (SafeJson json = WhisperJson.builder()
+            .storage(Storage.OFF_HEAP)
+            .build()
+            .parse(raw))
+        {
+            assertThat(raw).containsOnly('\0');
+            assertThat(json.asObject()
+                .get("user")
+                .asCharArray()).isEqualTo("alice".toCharArray());
+        }
+    }
+
+    @Test
+    public void keepInputForHeapStorage()
+    {
+        char[] raw = DOCUMENT.toCharArray();
+
+        try (SafeJson json = new WhisperJson().parse(raw))
+        {
+            assertThat(raw).isEqualTo(DOCUMENT.toCharArray());
+            assertThat(json.asObject()
+                .get("user")
+                .asCharArray()).isEqualTo("alice".toCharArray());
+        }
+    }
+
+    @Test
+    public void growIndexWhileExpanding()
+    {
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < 500; i++)
+        {
+            nested.append(i == 0 ? "" : ",")
+                .append(i % 10);
+        }
+        String raw = "[[" + nested + "]]";
+        SafeJson json = WhisperJson.builder()
+            .storage(Storage.OFF_HEAP)
+            .indexing(Indexing.ON_DEMAND)
+            .build()
+            .parse(raw.toCharArray());
+        Overlay.Safe overlay = (Overlay.Safe) ((Element<?, ?>) json).overlay;
+
+        assertThat(json).isEqualTo(new WhisperJson().parse(raw));
+        List<ByteBuffer> chunks = overlay.arena.getChunks();
+
+        json.close();
+
+        assertWiped(chunks);
+    }
+
+    @Test
+    public void decodeUtf8ValuesIntoArena()
+    {
+        byte[] raw = "{\"plain\": \"gr\u00fc\u00dfe\", \"escaped\": \"\\t\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+        SafeJson json = WhisperJson.builder()
+            .storage(Storage.OFF_HEAP)
+            .build()
+            .parse(raw);
+        Overlay.Safe overlay = (Overlay.Safe) ((Element<?, ?>) json).overlay;
+        Strng.Safe plain = (Strng.Safe) json.asObject()
+            .get("plain");
+        Strng.Safe escaped = (Strng.Safe) json.asObject()
+            .get("escaped");
+
+        assertThat(plain.asCharArray()).isEqualTo("gr\u00fc\u00dfe".toCharArray());
+        assertThat(escaped.asCharArray()).isEqualTo("\t\u00e9".toCharArray());
+        assertThat(plain.text).isInstanceOf(Text.OffHeap.class);
+        assertThat(escaped.text).isInstanceOf(Text.OffHeap.class);
+        assertThat(overlay.arena).isSameAs(((Text.Utf8) overlay.text).getArena());
+
+        List<ByteBuffer> chunks = overlay.arena.getChunks();
+        json.close();
+
+        assertWiped(chunks);
+        assertThat(raw).containsOnly((byte) 0);
+    }
+
+    @Test
+    public void carvePartsFromArena()
+    {
+        Text.OffHeap text = Text.OffHeap.copyOf(DOCUMENT.toCharArray());
+        List<Text.Safe> parts = new ArrayList<>();
+        for (int i = 0; i + 10 <= DOCUMENT.length(); i++)
+        {
+            parts.add(text.getPart(i, i + 10));
+        }
+
+        assertThat(parts.get(42)
+            .asString()).isEqualTo(DOCUMENT.substring(42, 52));
+        assertThat(text.getArena()
+            .getChunks()).hasSize(1);
+
+        List<ByteBuffer> chunks = text.getArena()
+            .getChunks();
+        text.close();
+
+        assertWiped(chunks);
+        assertThatThrownBy(() -> text.getArena()
+            .allocate(1)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void closePartOnly()
+    {
+        Text.OffHeap text = Text.OffHeap.copyOf(DOCUMENT.toCharArray());
+        Text.Safe part = text.getPart(0, 10);
+
+        part.close();
+
+        assertThat(text.asString()).isEqualTo(DOCUMENT);
+        assertThatThrownBy(part::asString).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void discardCopiedText()
+    {
+        Text.OffHeap text = Text.OffHeap.copyOf(DOCUMENT.toCharArray());
+        Overlay.Safe overlay = new Overlay.Safe(text, Storage.OFF_HEAP);
+        List<ByteBuffer> chunks = text.getArena()
+            .getChunks();
+
+        overlay.discard(true);
+
+        assertWiped(chunks);
+        assertThatThrownBy(() -> text.charAt(0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void discardIndexOnly()
+    {
+        char[] raw = DOCUMENT.toCharArray();
+        Overlay.Safe overlay = new Overlay.Safe(new Text.Safe(raw), Storage.OFF_HEAP);
+        List<ByteBuffer> chunks = overlay.arena.getChunks();
+
+        overlay.discard(false);
+
+        assertWiped(chunks);
+        assertThat(raw).isEqualTo(DOCUMENT.toCharArray());
+    }
+
+    @Test
+    public void rejectSyntaxErrors()
+    {
+        char[] raw = "{\"secret\": \"s3cret\",}".toCharArray();
+        WhisperJson whisperJson = WhisperJson.builder()
+            .storage(Storage.OFF_HEAP)
+            .build();
+
+        assertThatThrownBy(() -> whisperJson.parse(raw)).isInstanceOf(JsonSyntaxException.class);
+        assertThat(raw).containsOnly('\0');
+    }
+
+    private static void assertWiped(List<ByteBuffer> chunks)
+    {
+        assertThat(chunks).isNotEmpty();
+        for (ByteBuffer chunk : chunks)
+        {
+            for (int i = 0; i < chunk.capacity(); i++)
+            {
+                assertThat(chunk.get(i)).isZero();
+            }
+        }
+    }
+
+    @Test
+    public void wipeOnClose()
+    {
+        Text.OffHeap text = Text.OffHeap.copyOf("secret".toCharArray());
+        Overlay.Safe overlay = new Overlay.Safe(text, Storage.OFF_HEAP);
+        overlay.createLeafElement(0, Type.STRING, 0, 5);
+        assertThat(text.asString()).isEqualTo("secret");
+
+        overlay.close();
+
+        assertThatThrownBy(() -> text.charAt(0)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.bannmann.whisperjson.JsonSyntaxException.ErrorCode;
+
+public class TestOnDemandIndexing
+{
+    private static final String DOCUMENT = "{\"header\": {\"id\": 1}, \"body\": [{\"a\": [1, 2, {\"b\": \"x]\"}]}, [], {}], " +
+        "\"flag\": true}";
+
+    private static final WhisperJson EAGER = WhisperJson.builder()
+        .build();
+    private static final WhisperJson ON_DEMAND = WhisperJson.builder()
+        .indexing(Indexing.ON_DEMAND)
+        .build();
+    private static final WhisperJson ON_DEMAND_LENIENT = WhisperJson.builder()
+        .indexing(Indexing.ON_DEMAND_LENIENT)
+        .build();
+
+    @Test(dataProvider = "onDemand")
+    public void parseEquivalentToEager(String label, WhisperJson whisperJson)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT);
+
+        assertThat(json).isEqualTo(EAGER.parse(DOCUMENT));
+    }
+
+    @Test(dataProvider = "onDemand")
+    public void indexTopLevelOnly(String label, WhisperJson whisperJson)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT);
+
+        assertThat(getElementCount(json)).isEqualTo(7);
+    }
+
+    @Test(dataProvider = "onDemand")
+    public void indexAccessedStructuresOnly(String label, WhisperJson whisperJson)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT);
+
+        ExposedJson body = json.asObject()
+            .get("body");
+        assertThat(body.asArray()).hasSize(3);
+        assertThat(body.asArray()).isSameAs(body.asArray());
+        assertThat(getElementCount(json)).isEqualTo(11);
+    }
+
+    @Test(dataProvider = "onDemand")
+    public void parseCharArray(String label, WhisperJson whisperJson)
+    {
+        char[] chars = DOCUMENT.toCharArray();
+        try (SafeJson json = whisperJson.parse(chars))
+        {
+            assertThat(json.asObject()
+                .get("header")
+                .asObject()
+                .get("id")
+                .asInt()).isEqualTo(1);
+        }
+        assertThat(chars).containsOnly('\0');
+    }
+
+    @Test(dataProvider = "onDemand")
+    public void combineWithProjection(String label, WhisperJson whisperJson)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT, Projection.of("/body/0/a/2", "/header"));
+
+        assertThat(json).isEqualTo(EAGER.parse("{\"header\": {\"id\": 1}, \"body\": [{\"a\": [{\"b\": \"x]\"}]}]}"));
+    }
+
+    @DataProvider
+    public static Object[][] onDemand()
+    {
+        return new Object[][]{
+            new Object[]{ "strict", ON_DEMAND }, new Object[]{ "lenient", ON_DEMAND_LENIENT }
+        };
+    }
+
+    @Test
+    public void rejectNestedErrorWhileParsing()
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> ON_DEMAND.parse("[1, [2, 3,]]"),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_CHAR);
+        assertThat(exception.getIndex()).isEqualTo(10);
+    }
+
+    @Test
+    public void rejectNestedErrorOnAccess()
+    {
+        ExposedJson json = ON_DEMAND_LENIENT.parse("[1, [2, 3,]]");
+        ExposedJson nested = json.asArray()
+            .get(1);
+
+        JsonSyntaxException exception = catchThrowableOfType(nested::asArray, JsonSyntaxException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_CHAR);
+        assertThat(exception.getIndex()).isEqualTo(10);
+    }
+
+    @Test
+    public void removeElementsOfFailedExpansion()
+    {
+        ExposedJson json = ON_DEMAND_LENIENT.parse("[1, [2, [3], 4,]]");
+        ExposedJson nested = json.asArray()
+            .get(1);
+        int elementCount = getElementCount(json);
+
+        catchThrowableOfType(nested::asArray, JsonSyntaxException.class);
+
+        assertThat(getElementCount(json)).isEqualTo(elementCount);
+        JsonSyntaxException exception = catchThrowableOfType(nested::asArray, JsonSyntaxException.class);
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_CHAR);
+    }
+
+    @Test
+    public void limitNestingDepthAcrossExpansions()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .indexing(Indexing.ON_DEMAND_LENIENT)
+            .maxNestingDepth(3)
+            .build();
+        ExposedJson json = whisperJson.parse("[[[[1]]]]");
+        ExposedJson third = json.asArray()
+            .get(0)
+            .asArray()
+            .get(0);
+        ExposedJson fourth = third.asArray()
+            .get(0);
+
+        JsonSyntaxException exception = catchThrowableOfType(fourth::asArray, JsonLimitExceededException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.NESTING_TOO_DEEP);
+    }
+
+    @Test(dataProvider = "onDemand")
+    public void expandConcurrently(String label, WhisperJson whisperJson) throws Exception
+    {
+        StringBuilder document = new StringBuilder("[");
+        for (int i = 0; i < 200; i++)
+        {
+            document.append(i == 0 ? "" : ",")
+                .append("[")
+                .append(i)
+                .append(", {\"a\": [")
+                .append(i)
+                .append("]}]");
+        }
+        String raw = document.append("]")
+            .toString();
+        ExposedJson expected = EAGER.parse(raw);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            for (int attempt = 0; attempt < 20; attempt++)
+            {
+                ExposedJson json = whisperJson.parse(raw);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int thread = 0; thread < 4; thread++)
+                {
+                    Callable<Boolean> task = () -> json.equals(expected);
+                    results.add(executor.submit(task));
+                }
+                for (Future<Boolean> result : results)
+                {
+                    assertThat(result.get()).isTrue();
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void copyBlocksOnlyForExpansion()
+    {
+        assertThat(getOverlay(EAGER.parse(DOCUMENT)).blocks).isInstanceOf(ArrayList.class);
+        assertThat(getOverlay(ON_DEMAND.parse(DOCUMENT)).blocks).isInstanceOf(CopyOnWriteArrayList.class);
+    }
+
+    @Test
+    public void ignoreErrorInUntouchedRegion()
+    {
+        ExposedJson json = ON_DEMAND_LENIENT.parse("{\"ok\": 1, \"broken\": [01, tru]}");
+
+        assertThat(json.asObject()
+            .get("ok")
+            .asInt()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectUnbalancedNestedStructure()
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> ON_DEMAND_LENIENT.parse("[1, [2, 3]"),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.UNBALANCED_JSON);
+    }
+
+    @Test(dataProvider = "mismatchedBrackets")
+    public void rejectMismatchedBrackets(String label, String input, int index)
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> ON_DEMAND_LENIENT.parse(input),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(ErrorCode.ILLEGAL_CHAR);
+        assertThat(exception.getIndex()).isEqualTo(index);
+    }
+
+    @DataProvider
+    public static Object[][] mismatchedBrackets()
+    {
+        return new Object[][]{
+            new Object[]{ "array closed as object", "[0, [1}]", 6 },
+            new Object[]{ "object closed as array", "[0, {\"a\": 1]]", 11 },
+            new Object[]{ "nested", "{\"a\": [[1}], \"b\": 2}", 9 }
+        };
+    }
+
+    private static Overlay<?> getOverlay(Json<?> json)
+    {
+        return ((Element<?, ?>) json).overlay;
+    }
+
+    private static int getElementCount(Json<?> json)
+    {
+        return ((Element<?, ?>) json).overlay.getElementCount();
+    }
+}
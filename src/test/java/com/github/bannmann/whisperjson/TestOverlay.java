@@ -26,4 +26,22 @@ public class TestOverlay
             new Object[]{ "555 KB", 555 * 1024, 4 * 1024 }
         };
     }
+
+    @Test(dataProvider = "densities")
+    public void calculateBlockSizeForDensity(String label, int input, double charsPerElement, int expected)
+    {
+        int actual = Overlay.calculateBlockSize(input, charsPerElement);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @DataProvider
+    public static Object[][] densities()
+    {
+        return new Object[][]{
+            new Object[]{ "pretty-printed", 1600, 40.0, 4 * 40 },
+            new Object[]{ "dense", 1600, 2.5, 4 * 640 },
+            new Object[]{ "tiny", 10, 2.5, 4 * 4 },
+            new Object[]{ "huge", 1024 * 1024, 2.5, 4 * 1024 }
+        };
+    }
 }
@@ -0,0 +1,110 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.testng.annotations.Test;
+
+public class TestParseStatistics
+{
+    private static final String DOCUMENT = "{\"a\": [1, 2, {\"b\\n\": \"x\\ty\"}], \"c\": \"plain\"}";
+
+    @Test
+    public void recordStatistics()
+    {
+        ExposedJson json = new WhisperJson().parse(DOCUMENT);
+
+        ParseStatistics statistics = ParseStatistics.of(json)
+            .orElseThrow(AssertionError::new);
+        assertThat(statistics.getLength()).isEqualTo(DOCUMENT.length());
+        assertThat(statistics.getElementCount()).isEqualTo(10);
+        assertThat(statistics.getMaxDepth()).isEqualTo(3);
+        assertThat(statistics.getStringCount()).isEqualTo(5);
+        assertThat(statistics.getEscapedStringCount()).isEqualTo(2);
+        assertThat(statistics.getEscapedStringRatio()).isEqualTo(0.4);
+        assertThat(statistics.getCharsPerElement()).isEqualTo(DOCUMENT.length() / 10.0);
+    }
+
+    @Test
+    public void shareStatisticsWithinDocument()
+    {
+        try (SafeJson json = new WhisperJson().parse(DOCUMENT.toCharArray()))
+        {
+            SafeJson nested = json.asObject()
+                .get("a");
+
+            assertThat(ParseStatistics.of(nested)).isEqualTo(ParseStatistics.of(json));
+        }
+    }
+
+    @Test
+    public void recordPrimitiveDocument()
+    {
+        ParseStatistics statistics = ParseStatistics.of(new WhisperJson().parse("42"))
+            .orElseThrow(AssertionError::new);
+
+        assertThat(statistics.getElementCount()).isEqualTo(1);
+        assertThat(statistics.getMaxDepth()).isZero();
+        assertThat(statistics.getEscapedStringRatio()).isZero();
+    }
+
+    @Test
+    public void countOnlyIndexedElements()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .indexing(Indexing.ON_DEMAND)
+            .build();
+
+        ParseStatistics statistics = ParseStatistics.of(whisperJson.parse(DOCUMENT))
+            .orElseThrow(AssertionError::new);
+
+        assertThat(statistics.getElementCount()).isEqualTo(5);
+        assertThat(statistics.getMaxDepth()).isEqualTo(3);
+        assertThat(statistics.getStringCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void omitStatisticsOfMappedIndex() throws IOException
+    {
+        Path file = Files.createTempFile("whisperjson", ".idx");
+        try
+        {
+            IndexedJsonFile.write(new WhisperJson().parse(DOCUMENT), file);
+
+            assertThat(ParseStatistics.of(IndexedJsonFile.map(file))).isEmpty();
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void learnBlockSize()
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .adaptiveBlockSizing(true)
+            .build();
+        String dense = "[1,2,3,4,5,6,7,8,9,0,1,2,3,4,5,6,7,8,9,0,1,2,3,4,5,6,7,8,9,0,1,2,3,4,5,6,7,8,9,0,1,2,3,4,5,6]";
+
+        int initialBlockSize = getBlockSize(whisperJson.parse(dense));
+        for (int i = 0; i < 50; i++)
+        {
+            whisperJson.parse(dense);
+        }
+        int learnedBlockSize = getBlockSize(whisperJson.parse(dense));
+
+        assertThat(initialBlockSize).isEqualTo(Overlay.calculateBlockSize(dense.length()));
+        assertThat(learnedBlockSize).isGreaterThan(initialBlockSize);
+        assertThat(learnedBlockSize / 4).isGreaterThanOrEqualTo(47);
+        assertThat(getBlockSize(new WhisperJson().parse(dense))).isEqualTo(initialBlockSize);
+    }
+
+    private static int getBlockSize(ExposedJson json)
+    {
+        return ((Element<?, ?>) json).overlay.blockSize;
+    }
+}
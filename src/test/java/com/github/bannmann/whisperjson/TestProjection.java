@@ -0,0 +1,155 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.bannmann.whisperjson.JsonSyntaxException.ErrorCode;
+
+public class TestProjection
+{
+    private static final String DOCUMENT = "{\"user\": {\"name\": \"jdoe\", \"password\": \"secret\", \"age\": 42}, " +
+        "\"roles\": [\"admin\", {\"scope\": \"a/b\", \"flags\": [1, 2]}, [true]], " +
+        "\"weird~key\": null, \"we/ird\": \"slash\", \"esc\\u0061ped\": 1.5e3}";
+
+    private WhisperJson whisperJson;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        whisperJson = new WhisperJson();
+    }
+
+    @Test(dataProvider = "projections")
+    public void parseString(String label, String[] pointers, String expected)
+    {
+        ExposedJson json = whisperJson.parse(DOCUMENT, Projection.of(pointers));
+
+        assertThat(json).isEqualTo(whisperJson.parse(expected));
+    }
+
+    @Test(dataProvider = "projections")
+    public void parseCharArray(String label, String[] pointers, String expected)
+    {
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray(), Projection.of(pointers)))
+        {
+            assertThat(json).isEqualTo(whisperJson.parse(expected));
+        }
+    }
+
+    @Test(dataProvider = "projections")
+    public void parseReader(String label, String[] pointers, String expected) throws IOException
+    {
+        try (SafeJson json = whisperJson.parse(new StringReader(DOCUMENT), Projection.of(pointers)))
+        {
+            assertThat(json).isEqualTo(whisperJson.parse(expected));
+        }
+    }
+
+    @DataProvider
+    public static Object[][] projections()
+    {
+        return new Object[][]{
+            new Object[]{ "whole document", new String[]{ "" }, DOCUMENT },
+            new Object[]{ "nested property", new String[]{ "/user/name" }, "{\"user\": {\"name\": \"jdoe\"}}" },
+            new Object[]{
+                "multiple properties",
+                new String[]{ "/user/name", "/user/age" },
+                "{\"user\": {\"name\": \"jdoe\", \"age\": 42}}"
+            },
+            new Object[]{
+                "subtree",
+                new String[]{ "/user" },
+                "{\"user\": {\"name\": \"jdoe\", \"password\": \"secret\", \"age\": 42}}"
+            },
+            new Object[]{ "subtree wins over nested pointer", new String[]{ "/user/name", "/user" }, "{\"user\": " +
+                "{\"name\": \"jdoe\", \"password\": \"secret\", \"age\": 42}}" },
+            new Object[]{ "array index", new String[]{ "/roles/0" }, "{\"roles\": [\"admin\"]}" },
+            new Object[]{
+                "inside array",
+                new String[]{ "/roles/1/flags/1", "/roles/2" },
+                "{\"roles\": [{\"flags\": [2]}, [true]]}"
+            },
+            new Object[]{ "escaped tilde", new String[]{ "/weird~0key" }, "{\"weird~key\": null}" },
+            new Object[]{ "escaped slash", new String[]{ "/we~1ird" }, "{\"we/ird\": \"slash\"}" },
+            new Object[]{ "escaped property name", new String[]{ "/escaped" }, "{\"esc\\u0061ped\": 1.5e3}" },
+            new Object[]{ "missing property", new String[]{ "/user/email" }, "{\"user\": {}}" },
+            new Object[]{ "index of object", new String[]{ "/user/0" }, "{\"user\": {}}" },
+            new Object[]{ "property of scalar", new String[]{ "/user/name/first" }, "{\"user\": {}}" },
+            new Object[]{ "nothing selected", new String[]{ "/unknown" }, "{}" }
+        };
+    }
+
+    @Test
+    public void projectionIsReusable()
+    {
+        Projection projection = Projection.of("/a");
+
+        assertThat(whisperJson.parse("{\"a\": 1, \"b\": 2}", projection)).isEqualTo(whisperJson.parse("{\"a\": 1}"));
+        assertThat(whisperJson.parse("{\"b\": 3, \"a\": 4}", projection)).isEqualTo(whisperJson.parse("{\"a\": 4}"));
+    }
+
+    @Test
+    public void skipStringsContainingBrackets()
+    {
+        ExposedJson json = whisperJson.parse("[\"]}\\\"[{\", [\"x\"], 2]", Projection.of("/2"));
+
+        assertThat(json).isEqualTo(whisperJson.parse("[2]"));
+    }
+
+    @Test(dataProvider = "malformedSkippedParts")
+    public void rejectMalformedSkippedParts(String label, String input, ErrorCode errorCode, int index)
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> whisperJson.parse(input, Projection.of("/a")),
+            JsonSyntaxException.class);
+
+        assertThat(exception).isNotNull();
+        assertThat(exception.getErrorCode()).isEqualTo(errorCode);
+        assertThat(exception.getIndex()).isEqualTo(index);
+    }
+
+    @DataProvider
+    public static Object[][] malformedSkippedParts()
+    {
+        return new Object[][]{
+            new Object[]{ "unterminated string", "{\"b\": \"abc}", ErrorCode.UNBALANCED_JSON, 11 },
+            new Object[]{ "unclosed array", "{\"b\": [1, 2", ErrorCode.UNBALANCED_JSON, 11 },
+            new Object[]{ "array closed as object", "{\"b\": [1, 2}", ErrorCode.ILLEGAL_CHAR, 11 },
+            new Object[]{ "object closed as array", "{\"b\": {\"c\": 1], \"a\": 1}", ErrorCode.ILLEGAL_CHAR, 13 },
+            new Object[]{
+                "nested mismatch", "{\"b\": [[{}], {[]]}, \"a\": 1}", ErrorCode.ILLEGAL_CHAR, 16
+            },
+            new Object[]{ "missing value", "{\"b\": , \"a\": 1}", ErrorCode.ILLEGAL_CHAR, 6 },
+            new Object[]{ "missing comma", "{\"b\": 1 \"a\": 1}", ErrorCode.EXPECTED_CHAR, 8 }
+        };
+    }
+
+    @Test(dataProvider = "invalidPointers")
+    public void rejectInvalidPointer(String label, String pointer)
+    {
+        assertThatThrownBy(() -> Projection.of(pointer)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider
+    public static Object[][] invalidPointers()
+    {
+        return new Object[][]{
+            new Object[]{ "missing slash", "a/b" },
+            new Object[]{ "invalid escape", "/a~2" },
+            new Object[]{ "incomplete escape", "/a~" }
+        };
+    }
+
+    @Test
+    public void rejectEmptyProjection()
+    {
+        assertThatThrownBy(Projection::of).isInstanceOf(IllegalArgumentException.class);
+    }
+}
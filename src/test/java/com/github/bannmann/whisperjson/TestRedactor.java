@@ -0,0 +1,98 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+public class TestRedactor
+{
+    private static final String DOCUMENT = "{\n" +
+        "  \"user\": {\"name\": \"jdoe\", \"password\": \"s3cret\"},\n" +
+        "  \"tokens\": [\"a\", \"b\"],\n" +
+        "  \"meta\": { \"note\": \"two  spaces\", \"list\": [ 1, 2 ] },\n" +
+        "  \"clients\": [{\"id\": 1, \"secret\": {\"k\": 1}}, {\"id\": 2}]\n" +
+        "}";
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void redactPointers(String label, WhisperJson whisperJson) throws IOException
+    {
+        Redactor redactor = Redactor.builder()
+            .redact("/user/password")
+            .redact("/tokens/1")
+            .redact("/missing/value")
+            .build();
+
+        assertThat(transcode(whisperJson, redactor)).isEqualTo("{\"user\":{\"name\":\"jdoe\",\"password\":\"***\"}," +
+            "\"tokens\":[\"a\",\"***\"],\"meta\":{ \"note\": \"two  spaces\", \"list\": [ 1, 2 ] }," +
+            "\"clients\":[{\"id\": 1, \"secret\": {\"k\": 1}}, {\"id\": 2}]}");
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void redactPropertiesAtAnyDepth(String label, WhisperJson whisperJson) throws IOException
+    {
+        Redactor redactor = Redactor.builder()
+            .redactProperty("secret")
+            .redactProperty("password")
+            .mask("[redacted]")
+            .minify()
+            .build();
+
+        assertThat(transcode(whisperJson, redactor)).isEqualTo("{\"user\":{\"name\":\"jdoe\"," +
+            "\"password\":\"[redacted]\"},\"tokens\":[\"a\",\"b\"],\"meta\":{\"note\":\"two  spaces\"," +
+            "\"list\":[1,2]},\"clients\":[{\"id\":1,\"secret\":\"[redacted]\"},{\"id\":2}]}");
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void copySubtreesWithoutPropertiesInBulk(String label, WhisperJson whisperJson) throws IOException
+    {
+        Redactor redactor = Redactor.builder()
+            .redactProperty("password")
+            .build();
+
+        assertThat(transcode(whisperJson, redactor)).isEqualTo("{\"user\":{\"name\":\"jdoe\",\"password\":\"***\"}," +
+            "\"tokens\":[\"a\", \"b\"],\"meta\":{ \"note\": \"two  spaces\", \"list\": [ 1, 2 ] }," +
+            "\"clients\":[{\"id\": 1, \"secret\": {\"k\": 1}}, {\"id\": 2}]}");
+    }
+
+    @Test(dataProvider = "indexings", dataProviderClass = WhisperJsonProviders.class)
+    public void redactPropertiesInsideNestedStructures(String label, WhisperJson whisperJson) throws IOException
+    {
+        Redactor redactor = Redactor.builder()
+            .redactProperty("k")
+            .build();
+
+        assertThat(transcode(whisperJson, redactor)).isEqualTo("{\"user\":{\"name\": \"jdoe\", " +
+            "\"password\": \"s3cret\"},\"tokens\":[\"a\", \"b\"],\"meta\":{ \"note\": \"two  spaces\", " +
+            "\"list\": [ 1, 2 ] },\"clients\":[{\"id\":1,\"secret\":{\"k\":\"***\"}},{\"id\": 2}]}");
+    }
+
+    @Test
+    public void redactRoot() throws IOException
+    {
+        Redactor redactor = Redactor.builder()
+            .redact("")
+            .build();
+
+        assertThat(transcode(new WhisperJson(), redactor)).isEqualTo("\"***\"");
+    }
+
+    @Test
+    public void rejectEmptyRedactor()
+    {
+        assertThatThrownBy(() -> Redactor.builder()
+            .build()).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String transcode(WhisperJson whisperJson, Redactor redactor) throws IOException
+    {
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray());
+             JsonWriter writer = JsonWriter.toBuffer())
+        {
+            redactor.transcode(json, writer);
+            return new String(writer.toCharArray());
+        }
+    }
+}
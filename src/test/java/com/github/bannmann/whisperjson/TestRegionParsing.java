@@ -0,0 +1,110 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import org.testng.annotations.Test;
+
+public class TestRegionParsing
+{
+    private static final String PREFIX = "xx[\"";
+    private static final String DOCUMENT = "{\"user\": \"alice\", \"secret\": \"p\\u00e4ss\", " +
+        "\"list\": [1, {\"a\": null}]}";
+    private static final String SUFFIX = "\"]yy";
+
+    @Test(dataProvider = "indexingsAndStorages", dataProviderClass = WhisperJsonProviders.class)
+    public void parseArrayRegion(String label, WhisperJson whisperJson)
+    {
+        char[] raw = (PREFIX + DOCUMENT + SUFFIX).toCharArray();
+
+        try (SafeJson json = whisperJson.parse(raw, PREFIX.length(), DOCUMENT.length()))
+        {
+            assertContents(json);
+        }
+
+        assertThat(new String(raw, 0, PREFIX.length())).isEqualTo(PREFIX);
+        assertThat(new String(raw, PREFIX.length(), DOCUMENT.length()).toCharArray()).containsOnly('\0');
+        assertThat(new String(raw, PREFIX.length() + DOCUMENT.length(), SUFFIX.length())).isEqualTo(SUFFIX);
+    }
+
+    @Test(dataProvider = "indexingsAndStorages", dataProviderClass = WhisperJsonProviders.class)
+    public void parseHeapBuffer(String label, WhisperJson whisperJson)
+    {
+        char[] raw = (PREFIX + DOCUMENT + SUFFIX).toCharArray();
+        CharBuffer buffer = CharBuffer.wrap(raw, PREFIX.length(), DOCUMENT.length());
+
+        try (SafeJson json = whisperJson.parse(buffer))
+        {
+            assertContents(json);
+        }
+
+        assertThat(buffer.position()).isEqualTo(PREFIX.length());
+        assertThat(buffer.remaining()).isEqualTo(DOCUMENT.length());
+        assertThat(new String(raw, 0, PREFIX.length())).isEqualTo(PREFIX);
+        assertThat(new String(raw, PREFIX.length(), DOCUMENT.length()).toCharArray()).containsOnly('\0');
+        assertThat(new String(raw, PREFIX.length() + DOCUMENT.length(), SUFFIX.length())).isEqualTo(SUFFIX);
+    }
+
+    @Test(dataProvider = "indexingsAndStorages", dataProviderClass = WhisperJsonProviders.class)
+    public void parseDirectBuffer(String label, WhisperJson whisperJson)
+    {
+        CharBuffer buffer = ByteBuffer.allocateDirect(2 * (PREFIX + DOCUMENT + SUFFIX).length())
+            .asCharBuffer();
+        buffer.put(PREFIX + DOCUMENT + SUFFIX);
+        ((Buffer) buffer).position(PREFIX.length());
+        ((Buffer) buffer).limit(PREFIX.length() + DOCUMENT.length());
+
+        try (SafeJson json = whisperJson.parse(buffer))
+        {
+            assertContents(json);
+        }
+
+        ((Buffer) buffer).clear();
+        char[] result = new char[buffer.capacity()];
+        buffer.get(result);
+        assertThat(new String(result, 0, PREFIX.length())).isEqualTo(PREFIX);
+        assertThat(new String(result, PREFIX.length(), DOCUMENT.length()).toCharArray()).containsOnly('\0');
+        assertThat(new String(result, PREFIX.length() + DOCUMENT.length(), SUFFIX.length())).isEqualTo(SUFFIX);
+    }
+
+    private void assertContents(SafeJson json)
+    {
+        assertThat(json.asObject()
+            .get("user")
+            .asCharArray()).isEqualTo("alice".toCharArray());
+        assertThat(json.asObject()
+            .get("secret")
+            .asCharArray()).isEqualTo("p\u00e4ss".toCharArray());
+        assertThat(json.asObject()
+            .get("list")
+            .asArray()
+            .get(1)
+            .asObject()).containsOnlyKeys("a");
+        assertThat(json).isEqualTo(new WhisperJson().parse(DOCUMENT));
+    }
+
+    @Test
+    public void reportRelativePositions()
+    {
+        char[] raw = "[1, 2][3, x]".toCharArray();
+
+        assertThatThrownBy(() -> new WhisperJson().parse(raw, 6, 6)).isInstanceOfSatisfying(JsonSyntaxException.class,
+            e -> assertThat(e.getIndex()).isEqualTo(4));
+    }
+
+    @Test
+    public void rejectInvalidRegions()
+    {
+        char[] raw = "[1]".toCharArray();
+        WhisperJson whisperJson = new WhisperJson();
+
+        assertThatThrownBy(() -> whisperJson.parse(raw, 1, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> whisperJson.parse(raw, -1, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> whisperJson.parse(CharBuffer.wrap("[1]"))).isInstanceOf(
+            IllegalArgumentException.class);
+    }
+}
@@ -155,6 +155,40 @@ public class TestSafeJson
         assertThatThrownBy(passwordElement::asCharArray).isInstanceOf(IllegalStateException.class);
     }
 
+    @Test
+    public void reuseStringElements()
+    {
+        try (SafeJson root = whisperJson.parse(inputCharacters))
+        {
+            SafeJson passwordElement = root.at("/password")
+                .orElseThrow(AssertionError::new);
+
+            assertThat(root.at("/password")).containsSame(passwordElement);
+            assertThat(root.select("$.password")).containsExactly(passwordElement);
+            assertThat(root.asObject()
+                .get("password")).isSameAs(passwordElement);
+        }
+    }
+
+    @Test
+    public void getStringAgainAfterClosingIt()
+    {
+        try (SafeJson root = whisperJson.parse(inputCharacters))
+        {
+            SafeJson passwordElement = root.at("/password")
+                .orElseThrow(AssertionError::new);
+            passwordElement.asCharArray();
+            passwordElement.close();
+
+            SafeJson reopened = root.at("/password")
+                .orElseThrow(AssertionError::new);
+            assertThat(reopened).isNotSameAs(passwordElement);
+            assertThat(reopened.asCharArray()).isEqualTo(EXPECTED_PASSWORD);
+            assertThat(root.select("$.password")).containsExactly(reopened);
+            assertThatThrownBy(passwordElement::asCharArray).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
     @Test
     public void rootInputNotWipedPrematurely()
     {
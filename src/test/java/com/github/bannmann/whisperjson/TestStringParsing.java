@@ -38,7 +38,9 @@ public class TestStringParsing
             new Object[]{ "escaped newline", "\"hello \\n world\"", "hello \n world" },
             new Object[]{ "escaped carriage return", "\"hello \\r world\"", "hello \r world" },
             new Object[]{ "escaped tab", "\"hello \\t world\"", "hello \t world" },
-            new Object[]{ "escaped unicode", "\"hello \\u2ebf world\"", "hello \u2ebf world" }
+            new Object[]{ "escaped unicode", "\"hello \\u2ebf world\"", "hello \u2ebf world" },
+            new Object[]{ "escaped unicode at end", "\"\\u0041\"", "A" },
+            new Object[]{ "consecutive escaped unicode", "\"\\u0041\\u0042\"", "AB" }
         };
     }
 
@@ -56,7 +58,8 @@ public class TestStringParsing
             new Object[]{ "unescaped newline", "\"hello \n world\"" },
             new Object[]{ "broken unicode", "\"hello \\u123 world\"" },
             new Object[]{ "non-hex unicode", "\"hello \\uzzzz world\"" },
-            new Object[]{ "control char", "\"hello \u0000 world\"" }
+            new Object[]{ "control char", "\"hello \u0000 world\"" },
+            new Object[]{ "control char after unicode escape", "\"\\u0041\u0001\"" }
         };
     }
 }
@@ -0,0 +1,96 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class TestStructuralEquality
+{
+    @DataProvider
+    public static Object[][] documents()
+    {
+        return new Object[][]{
+            { "null", "null", true },
+            { "true", "false", false },
+            { "1", "1", true },
+            { "1", "1.0", false },
+            { "1", "\"1\"", false },
+            { "\"abc\"", "\"a\\u0062c\"", true },
+            { "\"a\\/c\"", "\"a/c\"", true },
+            { "\"abc\"", "\"ab\"", false },
+            { "\"a\\nc\"", "\"a\\tc\"", false },
+            { "[]", "[ ]", true },
+            { "[1, 2]", "[2, 1]", false },
+            { "[1, 2]", "[1, 2, 3]", false },
+            { "[[1], {}]", "[ [ 1 ], { } ]", true },
+            { "{}", "[]", false },
+            { "{\"a\": 1, \"b\": [true]}", "{ \"b\": [ true ], \"\\u0061\": 1 }", true },
+            { "{\"a\": 1, \"b\": 2}", "{\"a\": 1, \"c\": 2}", false },
+            { "{\"a\": 1, \"b\": 2}", "{\"a\": 1}", false },
+            { "{\"a\": {\"x\": [1, {\"y\": null}]}}", "{\"a\": {\"x\": [1, {\"y\": false}]}}", false },
+            { largeObject(false), largeObject(true), true },
+            { largeObject(false), largeObject(true).replace("\"k19\": 19", "\"k19\": 20"), false },
+            { largeObject(false), largeObject(true).replace("\"k7\"", "\"k77\""), false }
+        };
+    }
+
+    private static String largeObject(boolean reversed)
+    {
+        StringBuilder result = new StringBuilder("{");
+        for (int i = 0; i < 20; i++)
+        {
+            int index = reversed ? 19 - i : i;
+            result.append(i > 0 ? ", " : "")
+                .append("\"k")
+                .append(index)
+                .append("\": ")
+                .append(index);
+        }
+        return result.append('}')
+            .toString();
+    }
+
+    @Test(dataProvider = "documents")
+    public void compareEagerlyIndexed(String a, String b, boolean expected)
+    {
+        WhisperJson whisperJson = new WhisperJson();
+        assertEquality(whisperJson.parse(a), whisperJson.parse(b), expected);
+    }
+
+    @Test(dataProvider = "documents")
+    public void compareAcrossImplementations(String a, String b, boolean expected)
+    {
+        WhisperJson whisperJson = WhisperJson.builder()
+            .indexing(Indexing.ON_DEMAND)
+            .build();
+        try (SafeJson safe = whisperJson.parse(b.toCharArray()))
+        {
+            ExposedJson exposed = new WhisperJson().parse(a);
+            assertThat(exposed.equals(safe)).isEqualTo(expected);
+            assertThat(safe.equals(exposed)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void compareNestedElements()
+    {
+        WhisperJson whisperJson = new WhisperJson();
+        ExposedJson a = whisperJson.parse("{\"x\": {\"list\": [1, \"\\u00e9\"]}}");
+        ExposedJson b = whisperJson.parse("[{\"list\": [1, \"\u00e9\"]}]");
+
+        assertEquality(a.asObject()
+            .get("x"), b.asArray()
+            .get(0), true);
+    }
+
+    private static void assertEquality(ExposedJson a, ExposedJson b, boolean expected)
+    {
+        assertThat(a.equals(b)).isEqualTo(expected);
+        assertThat(b.equals(a)).isEqualTo(expected);
+        if (expected)
+        {
+            assertThat(a.hashCode()).isEqualTo(b.hashCode());
+        }
+    }
+}
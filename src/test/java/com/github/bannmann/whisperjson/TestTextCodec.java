@@ -50,10 +50,27 @@ public class TestTextCodec
             .hasMessage("illegal escape char 'z' at index 1");
     }
 
+    @Test
+    public void unescapeInvalidWithoutStackTrace()
+    {
+        Configuration configuration = WhisperJson.builder()
+            .syntaxErrorStackTraces(false)
+            .build()
+            .getConfiguration();
+
+        assertThatThrownBy(() -> invokeUnescape("\\z", configuration)).isInstanceOf(JsonSyntaxException.class)
+            .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+    }
+
     private String invokeUnescape(String s)
+    {
+        return invokeUnescape(s, new WhisperJson().getConfiguration());
+    }
+
+    private String invokeUnescape(String s, Configuration configuration)
     {
         final Text.Exposed original = new Text.Exposed(s);
-        return TextCodec.unescape(original, chars -> new Text.Exposed(new String(chars)))
+        return TextCodec.unescape(original, chars -> new Text.Exposed(new String(chars)), configuration)
             .asString();
     }
 }
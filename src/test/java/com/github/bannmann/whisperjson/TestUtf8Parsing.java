@@ -0,0 +1,92 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+public class TestUtf8Parsing
+{
+    private static final String DOCUMENT = "{\n" +
+        "  \"gr\u00fc\u00dfe\": \"sch\u00f6n \ud83d\ude00\",\n" +
+        "  \"escaped\": \"a\\u00e4\\n\u00e9\",\n" +
+        "  \"password\": \"s3cret\",\n" +
+        "  \"list\": [1, -2.5e3, true, null, \"plain\"]\n" +
+        "}";
+
+    @Test(dataProvider = "indexingsAndStorages", dataProviderClass = WhisperJsonProviders.class)
+    public void decodeStringsOnAccess(String label, WhisperJson whisperJson)
+    {
+        try (SafeJson json = whisperJson.parse(DOCUMENT.getBytes(StandardCharsets.UTF_8)))
+        {
+            assertThat(json.asObject()).containsOnlyKeys("gr\u00fc\u00dfe", "escaped", "password", "list");
+            assertThat(json.asObject()
+                .get("gr\u00fc\u00dfe")
+                .asCharArray()).isEqualTo("sch\u00f6n \ud83d\ude00".toCharArray());
+            assertThat(json.asObject()
+                .get("escaped")
+                .asCharArray()).isEqualTo("a\u00e4\n\u00e9".toCharArray());
+            assertThat(json.asObject()
+                .get("list")
+                .asArray()
+                .get(1)
+                .asDouble()).isEqualTo(-2500.0);
+            assertThat(json).isEqualTo(new WhisperJson().parse(DOCUMENT));
+        }
+    }
+
+    @Test
+    public void decodeOnlyAccessedStrings()
+    {
+        try (SafeJson json = new WhisperJson().parse(DOCUMENT.getBytes(StandardCharsets.UTF_8)))
+        {
+            Strng.Safe password = (Strng.Safe) json.asObject()
+                .get("password");
+            Strng.Safe plain = (Strng.Safe) json.asObject()
+                .get("list")
+                .asArray()
+                .get(4);
+
+            assertThat(password.asCharArray()).isEqualTo("s3cret".toCharArray());
+            assertThat(password.text).isNotNull();
+            assertThat(plain.text).isNull();
+        }
+    }
+
+    @Test
+    public void wipeOnClose()
+    {
+        byte[] raw = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+
+        try (SafeJson json = new WhisperJson().parse(raw))
+        {
+            assertThat(json.asObject()
+                .get("password")
+                .asCharArray()).isEqualTo("s3cret".toCharArray());
+        }
+
+        assertThat(raw).containsOnly((byte) 0);
+    }
+
+    @Test
+    public void applyProjection()
+    {
+        Projection projection = Projection.of("/password");
+
+        try (SafeJson json = new WhisperJson().parse(DOCUMENT.getBytes(StandardCharsets.UTF_8), projection))
+        {
+            assertThat(json.asObject()).containsOnlyKeys("password");
+        }
+    }
+
+    @Test
+    public void reportBytePositions()
+    {
+        byte[] raw = "[\"\u00e4\u00e4\", x]".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> new WhisperJson().parse(raw)).isInstanceOfSatisfying(JsonSyntaxException.class,
+            e -> assertThat(e.getIndex()).isEqualTo(9));
+    }
+}
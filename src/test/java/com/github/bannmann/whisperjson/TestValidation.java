@@ -0,0 +1,113 @@
+package com.github.bannmann.whisperjson;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.github.bannmann.whisperjson.JsonSyntaxException.ErrorCode;
+
+public class TestValidation
+{
+    private WhisperJson whisperJson;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        whisperJson = new WhisperJson();
+    }
+
+    @Test(dataProvider = "validJson")
+    public void validateCharArray(String label, String input)
+    {
+        char[] chars = input.toCharArray();
+
+        assertThatCode(() -> whisperJson.validate(chars)).doesNotThrowAnyException();
+        assertThat(chars).containsExactly(input.toCharArray());
+    }
+
+    @Test(dataProvider = "validJson")
+    public void validateCharSequence(String label, String input)
+    {
+        assertThatCode(() -> whisperJson.validate(new StringBuilder(input))).doesNotThrowAnyException();
+    }
+
+    @Test(dataProvider = "validJson")
+    public void validateBytes(String label, String input)
+    {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+
+        assertThatCode(() -> whisperJson.validate(bytes)).doesNotThrowAnyException();
+    }
+
+    @DataProvider
+    public static Object[][] validJson()
+    {
+        return new Object[][]{
+            new Object[]{ "null", "null" },
+            new Object[]{ "number", " -12.5e+3 " },
+            new Object[]{ "nested", "{\"a\": [1, true, {\"b\": null}], \"c\": \"\\u00e4\\n\"}" },
+            new Object[]{ "non-ASCII string", "[\"gr\u00fc\u00dfe \u2603 \ud83d\ude00\"]" }
+        };
+    }
+
+    @Test(dataProvider = "invalidJson")
+    public void reportFirstError(String label, String input, ErrorCode errorCode, int index)
+    {
+        assertError(input, json -> whisperJson.validate(json.toCharArray()), errorCode, index);
+        assertError(input, json -> whisperJson.validate(json), errorCode, index);
+        assertError(input, json -> whisperJson.validate(json.getBytes(StandardCharsets.UTF_8)), errorCode, index);
+    }
+
+    @DataProvider
+    public static Object[][] invalidJson()
+    {
+        return new Object[][]{
+            new Object[]{ "trailing comma", "[1, 2,]", ErrorCode.ILLEGAL_CHAR, 6 },
+            new Object[]{ "bad escape", "{\"a\": \"\\x\"}", ErrorCode.ILLEGAL_ESCAPE_CHAR, 8 },
+            new Object[]{ "bad hex digit", "\"\\u12g4\"", ErrorCode.INVALID_HEX_CHAR, 5 },
+            new Object[]{ "bad number", "[01]", ErrorCode.LEADING_ZERO, 1 },
+            new Object[]{ "missing colon", "{\"a\" 1}", ErrorCode.EXPECTED_CHAR, 5 },
+            new Object[]{ "unbalanced", "{\"a\": [", ErrorCode.UNBALANCED_JSON, 7 },
+            new Object[]{ "garbage after value", "{} {}", ErrorCode.MALFORMED_JSON, 3 }
+        };
+    }
+
+    private void assertError(String input, Consumer<String> validator, ErrorCode errorCode, int index)
+    {
+        JsonSyntaxException exception = catchThrowableOfType(() -> validator.accept(input),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getErrorCode()).isEqualTo(errorCode);
+        assertThat(exception.getIndex()).isEqualTo(index);
+    }
+
+    @Test
+    public void byteIndexOfError()
+    {
+        byte[] bytes = "[\"\u00e4\u00f6\u00fc\", x]".getBytes(StandardCharsets.UTF_8);
+
+        JsonSyntaxException exception = catchThrowableOfType(() -> whisperJson.validate(bytes),
+            JsonSyntaxException.class);
+
+        assertThat(exception.getIndex()).isEqualTo(11);
+    }
+
+    @Test
+    public void enforceLimits()
+    {
+        WhisperJson limited = WhisperJson.builder()
+            .maxElements(2)
+            .build();
+
+        assertThatCode(() -> limited.validate("[1]")).doesNotThrowAnyException();
+        assertThat(catchThrowableOfType(() -> limited.validate("[1, 2]"), JsonLimitExceededException.class)
+            .getErrorCode()).isEqualTo(ErrorCode.TOO_MANY_ELEMENTS);
+    }
+}
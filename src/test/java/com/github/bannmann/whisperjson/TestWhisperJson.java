@@ -11,6 +11,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Strings;
+
 public class TestWhisperJson
 {
     private WhisperJson whisperJson;
@@ -247,6 +249,53 @@ public class TestWhisperJson
             });
     }
 
+    @Test
+    public void parseDeeplyNestedArray()
+    {
+        int depth = 50_000;
+        String input = Strings.repeat("[", depth) + Strings.repeat("]", depth);
+
+        ExposedJson json = WhisperJson.builder()
+            .maxNestingDepth(depth)
+            .build()
+            .parse(input);
+
+        assertThat(json).returns(true, Json::isArray);
+        assertThat(json.asArray()).hasSize(1);
+    }
+
+    @Test
+    public void parseNestingWithinLimit()
+    {
+        ExposedJson json = WhisperJson.builder()
+            .maxNestingDepth(3)
+            .build()
+            .parse("[{\"a\": [1]}, [[]], {}]");
+
+        assertThat(json.asArray()).hasSize(3);
+    }
+
+    @Test(dataProvider = "excessiveNesting")
+    public void parseExcessiveNesting(String label, String input, String message)
+    {
+        WhisperJson limitedWhisperJson = WhisperJson.builder()
+            .maxNestingDepth(3)
+            .build();
+
+        assertThatThrownBy(() -> limitedWhisperJson.parse(input)).isInstanceOf(JsonLimitExceededException.class)
+            .hasMessage(message);
+    }
+
+    @DataProvider
+    public static Object[][] excessiveNesting()
+    {
+        return new Object[][]{
+            new Object[]{ "arrays", "[[[[]]]]", "maximum nesting depth exceeded at index 3" },
+            new Object[]{ "objects", "{\"a\":{\"b\":{\"c\":{}}}}", "maximum nesting depth exceeded at index 15" },
+            new Object[]{ "unbalanced", Strings.repeat("[", 100_000), "maximum nesting depth exceeded at index 3" }
+        };
+    }
+
     @Test(expectedExceptions = NullPointerException.class)
     public void parseNull()
     {
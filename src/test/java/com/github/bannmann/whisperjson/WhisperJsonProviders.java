@@ -0,0 +1,55 @@
+package com.github.bannmann.whisperjson;
+
+import org.testng.annotations.DataProvider;
+
+/**
+ * Data providers for tests which run against several {@link WhisperJson} configurations. Each row consists of a label
+ * and a {@link WhisperJson} instance.
+ */
+public class WhisperJsonProviders
+{
+    @DataProvider
+    public static Object[][] indexings()
+    {
+        return new Object[][]{
+            new Object[]{ "eager", new WhisperJson() }, new Object[]{
+                "on demand", WhisperJson.builder()
+                .indexing(Indexing.ON_DEMAND)
+                .build()
+            }
+        };
+    }
+
+    @DataProvider
+    public static Object[][] indexingsAndStorages()
+    {
+        return new Object[][]{
+            new Object[]{ "eager", new WhisperJson() }, new Object[]{
+                "on demand", WhisperJson.builder()
+                .indexing(Indexing.ON_DEMAND)
+                .build()
+            }, new Object[]{
+                "off heap", WhisperJson.builder()
+                .storage(Storage.OFF_HEAP)
+                .build()
+            }
+        };
+    }
+
+    @DataProvider
+    public static Object[][] offHeapIndexings()
+    {
+        return new Object[][]{
+            new Object[]{
+                "eager", WhisperJson.builder()
+                .storage(Storage.OFF_HEAP)
+                .build()
+            }, new Object[]{
+                "on demand", WhisperJson.builder()
+                .storage(Storage.OFF_HEAP)
+                .indexing(Indexing.ON_DEMAND)
+                .build()
+            }
+        };
+    }
+}
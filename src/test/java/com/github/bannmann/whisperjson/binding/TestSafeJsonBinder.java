@@ -0,0 +1,162 @@
+package com.github.bannmann.whisperjson.binding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import org.testng.annotations.Test;
+
+import com.github.bannmann.whisperjson.SafeJson;
+import com.github.bannmann.whisperjson.SensitiveText;
+import com.github.bannmann.whisperjson.TypeMismatchException;
+import com.github.bannmann.whisperjson.WhisperJson;
+
+public class TestSafeJsonBinder
+{
+    private static final class Address
+    {
+        private char[] city;
+        private Integer zip;
+    }
+
+    @Getter
+    private static final class Login
+    {
+        @JsonField("/user/name")
+        private char[] user;
+
+        @JsonField("/user/password")
+        private SensitiveText password;
+
+        private long clientId;
+        private float score;
+        private Boolean remember;
+        private Address address;
+        private final Address billingAddress = new Address();
+        private transient int setterCalls;
+
+        public void setClientId(long clientId)
+        {
+            this.clientId = clientId;
+            setterCalls++;
+        }
+    }
+
+    private static final class Counter
+    {
+        private int count;
+    }
+
+    @Setter
+    private static final class Credentials
+    {
+        private String password;
+    }
+
+    private static final class Node
+    {
+        private Node next;
+    }
+
+    private static final class Immutable
+    {
+        private final long id = 0;
+    }
+
+    private static final String DOCUMENT = "{\"user\": {\"name\": \"jdoe\", \"password\": \"s\\\"ecret\"}, " +
+        "\"clientId\": 42, \"score\": 0.25, \"remember\": true, \"ignored\": [1, 2], " +
+        "\"address\": {\"city\": \"Z\\u00fcrich\", \"zip\": 8000}, \"billingAddress\": {\"city\": \"Bern\"}}";
+
+    private final WhisperJson whisperJson = new WhisperJson();
+
+    @Test
+    public void bind()
+    {
+        Login login;
+        try (SafeJson json = whisperJson.parse(DOCUMENT.toCharArray()))
+        {
+            login = SafeJsonBinder.of(Login.class)
+                .bind(json);
+        }
+
+        assertThat(login.getUser()).containsExactly("jdoe".toCharArray());
+        assertThat(login.getClientId()).isEqualTo(42);
+        assertThat(login.getSetterCalls()).isEqualTo(1);
+        assertThat(login.getScore()).isEqualTo(0.25f);
+        assertThat(login.getRemember()).isTrue();
+        assertThat(login.getAddress().city).containsExactly("Z\u00fcrich".toCharArray());
+        assertThat(login.getAddress().zip).isEqualTo(8000);
+        assertThat(login.getBillingAddress().city).containsExactly("Bern".toCharArray());
+        assertThat(login.getBillingAddress().zip).isNull();
+
+        try (SensitiveText password = login.getPassword())
+        {
+            assertThat(password.newDependentArray()).containsExactly("s\"ecret".toCharArray());
+        }
+    }
+
+    @Test
+    public void bindToExistingObject()
+    {
+        Address address = new Address();
+        address.city = "Bern".toCharArray();
+
+        try (SafeJson json = whisperJson.parse("{\"zip\": 3000, \"city\": null}".toCharArray()))
+        {
+            SafeJsonBinder.of(Address.class)
+                .bind(json, address);
+        }
+
+        assertThat(address.city).containsExactly("Bern".toCharArray());
+        assertThat(address.zip).isEqualTo(3000);
+    }
+
+    @Test
+    public void cacheBinders()
+    {
+        assertThat(SafeJsonBinder.of(Login.class)).isSameAs(SafeJsonBinder.of(Login.class));
+    }
+
+    @Test
+    public void rejectStringProperty()
+    {
+        assertThatThrownBy(() -> SafeJsonBinder.of(Credentials.class)).isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("use char[] or SensitiveText");
+    }
+
+    @Test
+    public void rejectCyclicType()
+    {
+        assertThatThrownBy(() -> SafeJsonBinder.of(Node.class)).isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Cyclic");
+    }
+
+    @Test
+    public void rejectFinalScalarField()
+    {
+        assertThatThrownBy(() -> SafeJsonBinder.of(Immutable.class)).isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("final");
+    }
+
+    @Test
+    public void rejectIntegerOverflow()
+    {
+        try (SafeJson json = whisperJson.parse("{\"count\": 2147483648}".toCharArray()))
+        {
+            assertThatThrownBy(() -> SafeJsonBinder.of(Counter.class)
+                .bind(json)).isInstanceOf(ArithmeticException.class);
+        }
+    }
+
+    @Test
+    public void rejectTypeMismatch()
+    {
+        try (SafeJson json = whisperJson.parse("{\"count\": \"1\"}".toCharArray()))
+        {
+            assertThatThrownBy(() -> SafeJsonBinder.of(Counter.class)
+                .bind(json)).isInstanceOf(TypeMismatchException.class);
+        }
+    }
+}